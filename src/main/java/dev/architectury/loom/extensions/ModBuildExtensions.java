@@ -3,14 +3,13 @@ package dev.architectury.loom.extensions;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileAlreadyExistsException;
-import java.nio.file.FileSystem;
-import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
-import java.nio.file.Path;
 import java.util.Set;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
@@ -24,10 +23,10 @@ import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.task.service.MappingsService;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.LfWriter;
 import net.fabricmc.loom.util.aw2at.Aw2At;
 import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
+import net.fabricmc.loom.util.zip.StagedJar;
 
 public final class ModBuildExtensions {
 	public static Set<String> readMixinConfigsFromManifest(File jarFile) {
@@ -49,7 +48,7 @@ public final class ModBuildExtensions {
 		}
 	}
 
-	public static void convertAwToAt(SetProperty<String> atAccessWidenersProperty, Path outputFile, Property<String> mappingBuildServiceUuid) throws IOException {
+	public static void convertAwToAt(SetProperty<String> atAccessWidenersProperty, StagedJar outputJar, String outputName, Property<String> mappingBuildServiceUuid) throws IOException {
 		if (!atAccessWidenersProperty.isPresent()) {
 			return;
 		}
@@ -62,34 +61,33 @@ public final class ModBuildExtensions {
 
 		AccessTransformSet at = AccessTransformSet.create();
 
-		try (FileSystemUtil.Delegate fileSystem = FileSystemUtil.getJarFileSystem(outputFile, false)) {
-			FileSystem fs = fileSystem.get();
-			Path atPath = fs.getPath(Constants.Forge.ACCESS_TRANSFORMER_PATH);
+		if (outputJar.contains(Constants.Forge.ACCESS_TRANSFORMER_PATH)) {
+			throw new FileAlreadyExistsException("Jar " + outputName + " already contains an access transformer - cannot convert AWs!");
+		}
 
-			if (Files.exists(atPath)) {
-				throw new FileAlreadyExistsException("Jar " + outputFile + " already contains an access transformer - cannot convert AWs!");
-			}
+		for (String aw : atAccessWideners) {
+			byte[] awBytes = outputJar.get(aw);
 
-			for (String aw : atAccessWideners) {
-				Path awPath = fs.getPath(aw);
+			if (awBytes == null) {
+				throw new NoSuchFileException("Could not find AW '" + aw + "' to convert into AT!");
+			}
 
-				if (Files.notExists(awPath)) {
-					throw new NoSuchFileException("Could not find AW '" + aw + "' to convert into AT!");
-				}
+			try (BufferedReader reader = new BufferedReader(new StringReader(new String(awBytes, StandardCharsets.UTF_8)))) {
+				at.merge(Aw2At.toAccessTransformSet(reader));
+			}
 
-				try (BufferedReader reader = Files.newBufferedReader(awPath, StandardCharsets.UTF_8)) {
-					at.merge(Aw2At.toAccessTransformSet(reader));
-				}
+			outputJar.remove(aw);
+		}
 
-				Files.delete(awPath);
-			}
+		MappingsService service = UnsafeWorkQueueHelper.get(mappingBuildServiceUuid, MappingsService.class);
+		at = at.remap(service.getMemoryMappingTree(), service.getFromNamespace(), service.getToNamespace());
 
-			MappingsService service = UnsafeWorkQueueHelper.get(mappingBuildServiceUuid, MappingsService.class);
-			at = at.remap(service.getMemoryMappingTree(), service.getFromNamespace(), service.getToNamespace());
+		StringWriter atWriter = new StringWriter();
 
-			try (Writer writer = new LfWriter(Files.newBufferedWriter(atPath))) {
-				AccessTransformFormats.FML.write(writer, at);
-			}
+		try (Writer writer = new LfWriter(atWriter)) {
+			AccessTransformFormats.FML.write(writer, at);
 		}
+
+		outputJar.put(Constants.Forge.ACCESS_TRANSFORMER_PATH, atWriter.toString().getBytes(StandardCharsets.UTF_8));
 	}
 }
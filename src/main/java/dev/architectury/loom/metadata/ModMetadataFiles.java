@@ -16,6 +16,7 @@ import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
+import net.fabricmc.loom.util.zip.StagedJar;
 
 /**
  * Utilities for reading mod metadata files.
@@ -58,6 +59,24 @@ public final class ModMetadataFiles {
 		return null;
 	}
 
+	/**
+	 * Reads the mod metadata file from a jar that is being built.
+	 *
+	 * @param jar the staged jar
+	 * @return the mod metadata file, or {@code null} if not found
+	 */
+	public static @Nullable ModMetadataFile fromJar(StagedJar jar) throws IOException {
+		for (final String filePath : SINGLE_FILE_METADATA_TYPES.keySet()) {
+			final byte @Nullable [] bytes = jar.get(filePath);
+
+			if (bytes != null) {
+				return SINGLE_FILE_METADATA_TYPES.get(filePath).apply(bytes);
+			}
+		}
+
+		return null;
+	}
+
 	/**
 	 * Reads the mod metadata file from a directory.
 	 *
@@ -1,8 +1,9 @@
 package dev.architectury.loom.neoforge;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
 
 import dev.architectury.at.AccessTransformSet;
@@ -11,12 +12,12 @@ import dev.architectury.loom.metadata.ModMetadataFile;
 import dev.architectury.loom.metadata.ModMetadataFiles;
 
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.ModPlatform;
+import net.fabricmc.loom.util.zip.StagedJar;
 import net.fabricmc.mappingio.tree.MappingTreeView;
 
 public final class NeoForgeModDependencies {
-	public static void remapAts(Path jar, MappingTreeView mappings, String from, String to) throws IOException {
+	public static void remapAts(StagedJar jar, MappingTreeView mappings, String from, String to) throws IOException {
 		final ModMetadataFile modMetadata = ModMetadataFiles.fromJar(jar);
 		Set<String> atPaths = Set.of(Constants.Forge.ACCESS_TRANSFORMER_PATH);
 
@@ -28,16 +29,15 @@ public final class NeoForgeModDependencies {
 			}
 		}
 
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jar)) {
-			for (String atPathStr : atPaths) {
-				final Path atPath = fs.getPath(atPathStr);
+		for (String atPath : atPaths) {
+			jar.transform(atPath, bytes -> {
+				AccessTransformSet ats = AccessTransformFormats.FML.read(new StringReader(new String(bytes, StandardCharsets.UTF_8)));
+				ats = ats.remap(mappings, from, to);
 
-				if (Files.exists(atPath)) {
-					AccessTransformSet ats = AccessTransformFormats.FML.read(atPath);
-					ats = ats.remap(mappings, from, to);
-					AccessTransformFormats.FML.write(atPath, ats);
-				}
-			}
+				StringWriter writer = new StringWriter();
+				AccessTransformFormats.FML.write(writer, ats);
+				return writer.toString().getBytes(StandardCharsets.UTF_8);
+			});
 		}
 	}
 }
@@ -36,6 +36,7 @@ import org.jetbrains.annotations.ApiStatus;
 
 import net.fabricmc.loom.api.LoomGradleExtensionAPI;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
 import net.fabricmc.loom.configuration.InstallerData;
 import net.fabricmc.loom.configuration.LoomDependencyManager;
 import net.fabricmc.loom.configuration.accesswidener.AccessWidenerFile;
@@ -80,6 +81,11 @@ public interface LoomGradleExtension extends LoomGradleExtensionAPI {
 
 	LoomDependencyManager getDependencyManager();
 
+	/**
+	 * @return The trace of the configuration of this project, see {@link ConfigurationTrace}
+	 */
+	ConfigurationTrace getConfigurationTrace();
+
 	MinecraftProvider getMinecraftProvider();
 
 	void setMinecraftProvider(MinecraftProvider minecraftProvider);
@@ -25,6 +25,7 @@
 package net.fabricmc.loom.api.decompilers;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.Map;
 
 import com.google.common.base.Preconditions;
@@ -59,12 +60,37 @@ public abstract class DecompilerOptions implements Named {
 	 */
 	public abstract Property<Integer> getMaxThreads();
 
+	/**
+	 * Number of shards to split the input jar into, each shard is decompiled in its own forked JVM.
+	 * The threads given by {@link #getMaxThreads()} are shared between the shards.
+	 */
+	public abstract Property<Integer> getShards();
+
+	/**
+	 * Memory used for each forked JVM in megabytes when decompiling more than one shard, defaults to {@link #getMemory()}.
+	 */
+	public abstract Property<Long> getShardMemory();
+
+	/**
+	 * How long the forked decompiler JVM is kept alive once idle, to be reused by later decompiles with the same
+	 * classpath, options and memory. This avoids the JVM startup and warmup cost on repeated runs within the same
+	 * Gradle daemon, the libraries are still read again by each decompile.
+	 *
+	 * <p>The timeout is a minimum rather than a deadline: the idle JVM exits by itself up to a minute after the timeout,
+	 * and is stopped earlier when decompiling again after the timeout or when the Gradle daemon stops. Defaults to zero,
+	 * stopping the JVM as soon as decompiling has finished.
+	 */
+	public abstract Property<Duration> getDaemonIdleTimeout();
+
 	public DecompilerOptions() {
 		getDecompilerClassName().finalizeValueOnRead();
 		getClasspath().finalizeValueOnRead();
 		getOptions().finalizeValueOnRead();
 		getMemory().convention(4096L).finalizeValueOnRead();
 		getMaxThreads().convention(Runtime.getRuntime().availableProcessors()).finalizeValueOnRead();
+		getShards().convention(1).finalizeValueOnRead();
+		getShardMemory().convention(getMemory()).finalizeValueOnRead();
+		getDaemonIdleTimeout().convention(Duration.ZERO).finalizeValueOnRead();
 	}
 
 	public String getFormattedName() {
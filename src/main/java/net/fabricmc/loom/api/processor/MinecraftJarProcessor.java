@@ -29,6 +29,7 @@ import java.nio.file.Path;
 
 import org.gradle.api.Named;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
 
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
@@ -43,6 +44,16 @@ public interface MinecraftJarProcessor<S extends MinecraftJarProcessor.Spec> ext
 		return null;
 	}
 
+	/**
+	 * Processors that only transform individual classes can return a {@link ClassProcessor}, which is used instead
+	 * of {@link #processJar(Path, Spec, ProcessorContext)}. The classes are then transformed by all such processors
+	 * in a single pass over the jar.
+	 */
+	@Nullable
+	default ClassProcessor<S> processClasses() {
+		return null;
+	}
+
 	interface Spec {
 		// Must make sure hashCode is correctly implemented.
 	}
@@ -50,4 +61,42 @@ public interface MinecraftJarProcessor<S extends MinecraftJarProcessor.Spec> ext
 	interface MappingsProcessor<S> {
 		boolean transform(MemoryMappingTree mappings, S spec, MappingProcessorContext context);
 	}
+
+	interface ClassProcessor<S> {
+		/**
+		 * Called once for each jar before any of its classes are transformed.
+		 *
+		 * @return The transformer of the classes, or {@code null} when there is nothing to transform
+		 */
+		@Nullable
+		ClassTransformer createTransformer(S spec, ProcessorContext context) throws IOException;
+	}
+
+	interface ClassTransformer {
+		/**
+		 * @param className The internal name of the class
+		 * @return Whether the class should be passed to {@link #transform(String, ClassVisitor)}
+		 */
+		boolean shouldTransform(String className);
+
+		/**
+		 * Transform a class, this is called from multiple threads.
+		 *
+		 * @param className The internal name of the class
+		 * @param next The visitor of the following transformers
+		 * @return A visitor that passes the transformed class to {@code next}
+		 */
+		ClassVisitor transform(String className, ClassVisitor next);
+
+		/**
+		 * Describe the changes made to a class, a class is only transformed again when its description changes.
+		 *
+		 * @param className The internal name of the class
+		 * @return A description of the changes, or {@code null} to always transform the class
+		 */
+		@Nullable
+		default String describe(String className) {
+			return null;
+		}
+	}
 }
@@ -27,21 +27,17 @@ package net.fabricmc.loom.configuration;
 import static net.fabricmc.loom.util.Constants.Configurations;
 
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Duration;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 import javax.inject.Inject;
 
-import org.gradle.api.GradleException;
 import org.gradle.api.Project;
 import org.gradle.api.file.FileCollection;
-import org.gradle.api.logging.Logger;
-import org.gradle.api.logging.Logging;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.JavaPluginExtension;
 import org.gradle.api.tasks.AbstractCopyTask;
@@ -49,6 +45,7 @@ import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.TaskContainer;
 import org.gradle.api.tasks.compile.JavaCompile;
 import org.gradle.api.tasks.javadoc.Javadoc;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.InterfaceInjectionExtensionAPI;
@@ -83,20 +80,22 @@ import net.fabricmc.loom.configuration.providers.minecraft.mapped.AbstractMapped
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.IntermediaryMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.MojangMappedMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.NamedMinecraftProvider;
+import net.fabricmc.loom.configuration.providers.minecraft.mapped.ProcessedNamedMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.SrgMinecraftProvider;
 import net.fabricmc.loom.configuration.sources.ForgeSourcesRemapper;
 import net.fabricmc.loom.extension.MixinExtension;
-import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
 import net.fabricmc.loom.util.LoomVersions;
-import net.fabricmc.loom.util.ProcessUtil;
 import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 
 public abstract class CompileConfiguration implements Runnable {
+	// The remapped jars are each remapped with a multithreaded remapper, so only a few are provided at once.
+	private static final int MAX_SETUP_THREADS = 3;
+
 	@Inject
 	protected abstract Project getProject();
 
@@ -117,30 +116,26 @@ public abstract class CompileConfiguration implements Runnable {
 
 			MinecraftSourceSets.get(getProject()).afterEvaluate(getProject());
 
-			final boolean previousRefreshDeps = extension.refreshDeps();
-
-			final LockResult lockResult = acquireProcessLockWaiting(getLockFile());
-
-			if (lockResult != LockResult.ACQUIRED_CLEAN) {
-				getProject().getLogger().lifecycle("Found existing cache lock file ({}), rebuilding loom cache. This may have been caused by a failed or canceled build.", lockResult);
-				extension.setRefreshDeps(true);
-			}
+			final ConfigurationTrace trace = extension.getConfigurationTrace();
 
 			try {
-				setupMinecraft(configContext);
+				try (ConfigurationTrace.Span span = trace.span("CompileConfiguration.setupMinecraft", null)) {
+					setupMinecraft(configContext);
+				}
 
 				LoomDependencyManager dependencyManager = new LoomDependencyManager();
 				extension.setDependencyManager(dependencyManager);
-				dependencyManager.handleDependencies(getProject(), serviceManager);
+
+				try (ConfigurationTrace.Span span = trace.span("LoomDependencyManager.handleDependencies", null)) {
+					dependencyManager.handleDependencies(getProject(), serviceManager);
+				}
 			} catch (Exception e) {
 				ExceptionUtil.printFileLocks(e, getProject());
-				disownLock();
 				throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Failed to setup Minecraft", e);
+			} finally {
+				writeConfigurationTrace(trace);
 			}
 
-			releaseLock();
-			extension.setRefreshDeps(previousRefreshDeps);
-
 			MixinExtension mixin = LoomGradleExtension.get(getProject()).getMixin();
 
 			if (mixin.getUseLegacyMixinAp().get()) {
@@ -200,14 +195,11 @@ public abstract class CompileConfiguration implements Runnable {
 	private synchronized void setupMinecraft(ConfigContext configContext) throws Exception {
 		final Project project = configContext.project();
 		final LoomGradleExtension extension = configContext.extension();
+		final ConfigurationTrace trace = extension.getConfigurationTrace();
 
 		final MinecraftMetadataProvider metadataProvider = MinecraftMetadataProvider.create(configContext);
 
-		var jarConfiguration = extension.getMinecraftJarConfiguration().get();
-
-		if (jarConfiguration == MinecraftJarConfiguration.MERGED && !metadataProvider.getVersionMeta().isVersionOrNewer(Constants.RELEASE_TIME_1_3)) {
-			jarConfiguration = MinecraftJarConfiguration.LEGACY_MERGED;
-		}
+		final MinecraftJarConfiguration<?, ?, ?> jarConfiguration = getJarConfiguration(extension, metadataProvider);
 
 		// Provide the vanilla mc jars
 		final MinecraftProvider minecraftProvider = jarConfiguration.createMinecraftProvider(metadataProvider, configContext);
@@ -217,14 +209,21 @@ public abstract class CompileConfiguration implements Runnable {
 		}
 
 		extension.setMinecraftProvider(minecraftProvider);
-		minecraftProvider.provide();
+
+		try (ConfigurationTrace.Span span = trace.span("MinecraftProvider.provide", minecraftProvider.minecraftVersion())) {
+			minecraftProvider.provide();
+		}
 
 		// Created any layered mapping files.
-		LayeredMappingsFactory.afterEvaluate(configContext);
+		try (ConfigurationTrace.Span span = trace.span("LayeredMappingsFactory.afterEvaluate", null)) {
+			LayeredMappingsFactory.afterEvaluate(configContext);
+		}
 
 		// This needs to run after MinecraftProvider.initFiles and MinecraftLibraryProvider.provide
 		// but before MinecraftPatchedProvider.provide.
-		setupDependencyProviders(project, extension);
+		try (ConfigurationTrace.Span span = trace.span("CompileConfiguration.setupDependencyProviders", null)) {
+			setupDependencyProviders(project, extension);
+		}
 
 		if (extension.getForgeSpec() <= 2) {
 			extension.setIntermediateMappingsProvider(GeneratedIntermediateMappingsProvider.class, provider -> {
@@ -247,8 +246,10 @@ public abstract class CompileConfiguration implements Runnable {
 			((ForgeMinecraftProvider) minecraftProvider).getPatchedProvider().provide();
 		}
 
-		mappingConfiguration.setupPost(project);
-		mappingConfiguration.applyToProject(getProject(), mappingsDep);
+		try (ConfigurationTrace.Span span = trace.span("MappingConfiguration.setupPost", null)) {
+			mappingConfiguration.setupPost(project);
+			mappingConfiguration.applyToProject(getProject(), mappingsDep);
+		}
 
 		if (extension.isForgeLike()) {
 			extension.setForgeRunsProvider(ForgeRunsProvider.create(project));
@@ -260,33 +261,81 @@ public abstract class CompileConfiguration implements Runnable {
 
 		// Provide the remapped mc jars
 		final IntermediaryMinecraftProvider<?> intermediaryMinecraftProvider = jarConfiguration.createIntermediaryMinecraftProvider(project);
-		NamedMinecraftProvider<?> namedMinecraftProvider = jarConfiguration.createNamedMinecraftProvider(project);
+		final NamedMinecraftProvider<?> namedMinecraftProvider = jarConfiguration.createNamedMinecraftProvider(project);
+		extension.setIntermediaryMinecraftProvider(intermediaryMinecraftProvider);
+		extension.setNamedMinecraftProvider(namedMinecraftProvider);
+
+		final AbstractMappedMinecraftProvider<?> platformMinecraftProvider = createPlatformMinecraftProvider(project, extension, jarConfiguration);
+
+		// The jars are remapped in the background, the dependencies are applied on this thread once all the jars are provided.
+		final var provideContext = new AbstractMappedMinecraftProvider.ProvideContext(false, extension.refreshDeps(), configContext);
+		final var stages = new SetupStages(Math.max(1, Math.min(MAX_SETUP_THREADS, Runtime.getRuntime().availableProcessors() / 2)), trace);
+		final List<SetupStages.Stage> provided = new ArrayList<>();
 
-		registerGameProcessors(configContext);
-		MinecraftJarProcessorManager minecraftJarProcessorManager = MinecraftJarProcessorManager.create(getProject());
+		final SetupStages.Stage intermediary = stages.background("intermediary", () -> intermediaryMinecraftProvider.provide(provideContext));
+		final SetupStages.Stage named = stages.background("named", () -> namedMinecraftProvider.provide(provideContext));
+		provided.add(intermediary);
+		provided.add(named);
 
-		if (minecraftJarProcessorManager != null) {
-			// Wrap the named MC provider for one that will provide the processed jars
-			namedMinecraftProvider = jarConfiguration.createProcessedNamedMinecraftProvider(namedMinecraftProvider, minecraftJarProcessorManager);
+		if (platformMinecraftProvider != null) {
+			provided.add(stages.background(platformMinecraftProvider.getTargetNamespace().toString(), () -> platformMinecraftProvider.provide(provideContext)));
 		}
 
-		final var provideContext = new AbstractMappedMinecraftProvider.ProvideContext(true, extension.refreshDeps(), configContext);
+		// Creating the jar processors may resolve mod dependencies, this is done while the jars are remapped.
+		final SetupStages.Stage processors = stages.configure("processors", () -> {
+			registerGameProcessors(configContext);
+			MinecraftJarProcessorManager minecraftJarProcessorManager = MinecraftJarProcessorManager.create(getProject());
 
-		extension.setIntermediaryMinecraftProvider(intermediaryMinecraftProvider);
-		intermediaryMinecraftProvider.provide(provideContext);
+			if (minecraftJarProcessorManager != null) {
+				// Wrap the named MC provider for one that will provide the processed jars
+				extension.setNamedMinecraftProvider(jarConfiguration.createProcessedNamedMinecraftProvider(namedMinecraftProvider, minecraftJarProcessorManager));
+			}
+		});
 
-		extension.setNamedMinecraftProvider(namedMinecraftProvider);
-		namedMinecraftProvider.provide(provideContext);
+		// The processors may read the intermediary jars. This runs on the configuring thread as processors such as the
+		// access transformer one may resolve configurations and start tools with the project's services.
+		provided.add(stages.configure("processed", () -> {
+			if (extension.getNamedMinecraftProvider() instanceof ProcessedNamedMinecraftProvider<?, ?> processedMinecraftProvider) {
+				processedMinecraftProvider.provideProcessed(provideContext);
+			}
+		}, intermediary, named, processors));
+
+		stages.configure("dependencies", () -> {
+			intermediaryMinecraftProvider.applyDependencies();
+			extension.getNamedMinecraftProvider().applyDependencies();
 
+			if (platformMinecraftProvider != null) {
+				platformMinecraftProvider.applyDependencies();
+			}
+		}, provided.toArray(SetupStages.Stage[]::new));
+
+		stages.run();
+	}
+
+	private static MinecraftJarConfiguration<?, ?, ?> getJarConfiguration(LoomGradleExtension extension, MinecraftMetadataProvider metadataProvider) {
+		final MinecraftJarConfiguration<?, ?, ?> jarConfiguration = extension.getMinecraftJarConfiguration().get();
+
+		if (jarConfiguration == MinecraftJarConfiguration.MERGED && !metadataProvider.getVersionMeta().isVersionOrNewer(Constants.RELEASE_TIME_1_3)) {
+			return MinecraftJarConfiguration.LEGACY_MERGED;
+		}
+
+		return jarConfiguration;
+	}
+
+	// The jars in the namespace used at runtime by Forge and NeoForge
+	@Nullable
+	private static AbstractMappedMinecraftProvider<?> createPlatformMinecraftProvider(Project project, LoomGradleExtension extension, MinecraftJarConfiguration<?, ?, ?> jarConfiguration) {
 		if (extension.isForge()) {
 			final SrgMinecraftProvider<?> srgMinecraftProvider = jarConfiguration.createSrgMinecraftProvider(project);
 			extension.setSrgMinecraftProvider(srgMinecraftProvider);
-			srgMinecraftProvider.provide(provideContext);
+			return srgMinecraftProvider;
 		} else if (extension.isNeoForge()) {
 			final MojangMappedMinecraftProvider<?> mojangMappedMinecraftProvider = jarConfiguration.createMojangMappedMinecraftProvider(project);
 			extension.setMojangMappedMinecraftProvider(mojangMappedMinecraftProvider);
-			mojangMappedMinecraftProvider.provide(provideContext);
+			return mojangMappedMinecraftProvider;
 		}
+
+		return null;
 	}
 
 	private void registerGameProcessors(ConfigContext configContext) {
@@ -346,184 +395,32 @@ public abstract class CompileConfiguration implements Runnable {
 		}
 	}
 
-	private void configureDecompileTasks(ConfigContext configContext) {
-		final LoomGradleExtension extension = configContext.extension();
-
-		extension.getMinecraftJarConfiguration().get()
-				.createDecompileConfiguration(getProject())
-				.afterEvaluation();
-	}
-
-	private LockFile getLockFile() {
-		final LoomGradleExtension extension = LoomGradleExtension.get(getProject());
-		final Path cacheDirectory = extension.getFiles().getUserCache().toPath();
-		final String pathHash = Checksum.projectHash(getProject());
-		return new LockFile(
-				cacheDirectory.resolve("." + pathHash + ".lock"),
-				"Lock for cache='%s', project='%s'".formatted(
-						cacheDirectory, getProject().absoluteProjectPath(getProject().getPath())
-				)
-		);
-	}
-
-	record LockFile(Path file, String description) {
-		@Override
-		public String toString() {
-			return this.description;
-		}
-	}
-
-	enum LockResult {
-		// acquired immediately or after waiting for another process to release
-		ACQUIRED_CLEAN,
-		// already owned by current pid
-		ACQUIRED_ALREADY_OWNED,
-		// acquired due to current owner not existing
-		ACQUIRED_PREVIOUS_OWNER_MISSING,
-		// acquired due to previous owner disowning the lock
-		ACQUIRED_PREVIOUS_OWNER_DISOWNED
-	}
-
-	private LockResult acquireProcessLockWaiting(LockFile lockFile) {
-		// one hour
-		return this.acquireProcessLockWaiting(lockFile, getDefaultTimeout());
-	}
-
-	private LockResult acquireProcessLockWaiting(LockFile lockFile, Duration timeout) {
-		try {
-			return this.acquireProcessLockWaiting_(lockFile, timeout);
-		} catch (final IOException e) {
-			throw new RuntimeException("Exception acquiring lock " + lockFile, e);
-		}
-	}
-
-	// Returns true if our process already owns the lock
-	@SuppressWarnings("BusyWait")
-	private LockResult acquireProcessLockWaiting_(LockFile lockFile, Duration timeout) throws IOException {
-		final long timeoutMs = timeout.toMillis();
-		final Logger logger = Logging.getLogger("loom_acquireProcessLockWaiting");
-		final long currentPid = ProcessHandle.current().pid();
-		boolean abrupt = false;
-		boolean disowned = false;
-
-		if (Files.exists(lockFile.file)) {
-			long lockingProcessId = -1;
-
-			try {
-				String lockValue = Files.readString(lockFile.file);
-
-				if ("disowned".equals(lockValue)) {
-					disowned = true;
-				} else {
-					lockingProcessId = Long.parseLong(lockValue);
-					logger.lifecycle("\"{}\" is currently held by pid '{}'.", lockFile, lockingProcessId);
-				}
-			} catch (final Exception ignored) {
-				// ignored
-			}
-
-			if (lockingProcessId == currentPid) {
-				return LockResult.ACQUIRED_ALREADY_OWNED;
-			}
-
-			Optional<ProcessHandle> handle = ProcessHandle.of(lockingProcessId);
-
-			if (disowned) {
-				logger.lifecycle("Previous process has disowned the lock due to abrupt termination.");
-				Files.deleteIfExists(lockFile.file);
-			} else if (handle.isEmpty()) {
-				logger.lifecycle("Locking process does not exist, assuming abrupt termination and deleting lock file.");
-				Files.deleteIfExists(lockFile.file);
-				abrupt = true;
-			} else {
-				ProcessUtil processUtil = ProcessUtil.create(getProject());
-				logger.lifecycle(processUtil.printWithParents(handle.get()));
-				logger.lifecycle("Waiting for lock to be released...");
-				long sleptMs = 0;
-
-				while (Files.exists(lockFile.file)) {
-					try {
-						Thread.sleep(100);
-					} catch (final InterruptedException e) {
-						Thread.currentThread().interrupt();
-					}
-
-					sleptMs += 100;
-
-					if (sleptMs >= 1000 * 60 && sleptMs % (1000 * 60) == 0L) {
-						logger.lifecycle(
-								"""
-										Have been waiting on "{}" held by pid '{}' for {} minute(s).
-										If this persists for an unreasonable length of time, kill this process, run './gradlew --stop' and then try again.""",
-								lockFile, lockingProcessId, sleptMs / 1000 / 60
-						);
-					}
-
-					if (sleptMs >= timeoutMs) {
-						throw new GradleException("Have been waiting on lock file '%s' for %s ms. Giving up as timeout is %s ms."
-								.formatted(lockFile, sleptMs, timeoutMs));
-					}
-				}
-			}
-		}
-
-		if (!Files.exists(lockFile.file.getParent())) {
-			Files.createDirectories(lockFile.file.getParent());
-		}
-
-		Files.writeString(lockFile.file, String.valueOf(currentPid));
-
-		if (disowned) {
-			return LockResult.ACQUIRED_PREVIOUS_OWNER_DISOWNED;
-		} else if (abrupt) {
-			return LockResult.ACQUIRED_PREVIOUS_OWNER_MISSING;
-		}
-
-		return LockResult.ACQUIRED_CLEAN;
-	}
-
-	private static Duration getDefaultTimeout() {
-		if (System.getenv("CI") != null) {
-			// Set a small timeout on CI, as it's unlikely going to unlock.
-			return Duration.ofMinutes(1);
+	private void writeConfigurationTrace(ConfigurationTrace trace) {
+		if (!trace.isEnabled()) {
+			return;
 		}
 
-		return Duration.ofHours(1);
-	}
-
-	// When we fail to configure, write "disowned" to the lock file to release it from this process
-	// This allows the next run to rebuild without waiting for this process to exit
-	private void disownLock() {
-		final Path lock = getLockFile().file;
+		final Path directory = LoomGradleExtension.get(getProject()).getFiles().getProjectBuildCache().toPath();
+		final Path chromeTrace = directory.resolve("configuration-trace.json");
+		final String summary = trace.createSummary();
 
 		try {
-			Files.writeString(lock, "disowned");
+			Files.createDirectories(directory);
+			trace.writeChromeTrace(chromeTrace);
+			Files.writeString(directory.resolve("configuration-trace.txt"), summary);
 		} catch (IOException e) {
-			throw new RuntimeException(e);
+			getProject().getLogger().warn("Failed to write the configuration trace", e);
 		}
-	}
 
-	private void releaseLock() {
-		final Path lock = getLockFile().file;
+		getProject().getLogger().lifecycle("{}The Chrome trace has been written to {}", summary, chromeTrace);
+	}
 
-		if (!Files.exists(lock)) {
-			return;
-		}
+	private void configureDecompileTasks(ConfigContext configContext) {
+		final LoomGradleExtension extension = configContext.extension();
 
-		try {
-			Files.delete(lock);
-		} catch (IOException e1) {
-			try {
-				// If we failed to delete the lock file, moving it before trying to delete it may help.
-				final Path del = lock.resolveSibling(lock.getFileName() + ".del");
-				Files.move(lock, del);
-				Files.delete(del);
-			} catch (IOException e2) {
-				var exception = new UncheckedIOException("Failed to release getProject() configuration lock", e2);
-				exception.addSuppressed(e1);
-				throw exception;
-			}
-		}
+		extension.getMinecraftJarConfiguration().get()
+				.createDecompileConfiguration(getProject())
+				.afterEvaluation();
 	}
 
 	private void finalizedBy(String a, String b) {
@@ -0,0 +1,312 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+
+/**
+ * Records the time spent in each step of the configuration of a project, such as providing and remapping the Minecraft jars.
+ *
+ * <p>A {@link Span} records its duration and thread, the number of bytes read and written and whether its output was
+ * found in the cache. The trace can be written as a Chrome trace event file, to be opened with Perfetto or
+ * {@code chrome://tracing}, and as a table with the totals of each span name. Spans can be nested, so the totals overlap.
+ *
+ * <p>Spans of a disabled trace are not recorded, and do not read the size of files.
+ */
+public final class ConfigurationTrace {
+	private static final ConfigurationTrace DISABLED = new ConfigurationTrace(false);
+
+	private final boolean enabled;
+	private final long start = System.nanoTime();
+	// Guarded by this
+	private final List<SpanData> spans = new ArrayList<>();
+
+	private ConfigurationTrace(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public static ConfigurationTrace create(boolean enabled) {
+		return enabled ? new ConfigurationTrace(true) : DISABLED;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Start a span on the current thread, it is recorded when closed.
+	 *
+	 * @param name The name of the step, spans with the same name are summed in the summary
+	 * @param detail What the step is working on, such as the name of a jar
+	 */
+	public Span span(String name, @Nullable String detail) {
+		return new Span(enabled ? this : null, name, detail);
+	}
+
+	/**
+	 * @return The recorded spans, in the order they were started
+	 */
+	public synchronized List<SpanData> getSpans() {
+		final List<SpanData> sorted = new ArrayList<>(spans);
+		sorted.sort(Comparator.comparingLong(SpanData::startNanos));
+		return sorted;
+	}
+
+	private synchronized void add(SpanData span) {
+		spans.add(span);
+	}
+
+	/**
+	 * Write the spans in the Chrome trace event format, as complete events.
+	 */
+	public void writeChromeTrace(Path output) throws IOException {
+		final var events = new JsonArray();
+		final Map<Long, String> threads = new LinkedHashMap<>();
+
+		for (SpanData span : getSpans()) {
+			threads.putIfAbsent(span.threadId(), span.threadName());
+
+			final var args = new JsonObject();
+
+			if (span.detail() != null) {
+				args.addProperty("detail", span.detail());
+			}
+
+			if (span.cacheHit() != null) {
+				args.addProperty("cache", span.cacheHit() ? "hit" : "miss");
+			}
+
+			args.addProperty("bytesRead", span.bytesRead());
+			args.addProperty("bytesWritten", span.bytesWritten());
+
+			final var event = new JsonObject();
+			event.addProperty("name", span.name());
+			event.addProperty("cat", "loom");
+			event.addProperty("ph", "X");
+			event.addProperty("ts", span.startNanos() / 1000D);
+			event.addProperty("dur", span.durationNanos() / 1000D);
+			event.addProperty("pid", 1);
+			event.addProperty("tid", span.threadId());
+			event.add("args", args);
+			events.add(event);
+		}
+
+		for (Map.Entry<Long, String> thread : threads.entrySet()) {
+			final var args = new JsonObject();
+			args.addProperty("name", thread.getValue());
+
+			final var event = new JsonObject();
+			event.addProperty("name", "thread_name");
+			event.addProperty("ph", "M");
+			event.addProperty("pid", 1);
+			event.addProperty("tid", thread.getKey());
+			event.add("args", args);
+			events.add(event);
+		}
+
+		final var trace = new JsonObject();
+		trace.add("traceEvents", events);
+		trace.addProperty("displayTimeUnit", "ms");
+
+		Files.createDirectories(output.toAbsolutePath().getParent());
+
+		try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+			LoomGradlePlugin.GSON.toJson(trace, writer);
+		}
+	}
+
+	/**
+	 * Create a table with the totals of each span name, the names taking the most time first.
+	 */
+	public String createSummary() {
+		final Map<String, Total> totals = new LinkedHashMap<>();
+		long endNanos = 0;
+
+		for (SpanData span : getSpans()) {
+			totals.computeIfAbsent(span.name(), Total::new).add(span);
+			endNanos = Math.max(endNanos, span.startNanos() + span.durationNanos());
+		}
+
+		final var builder = new StringBuilder();
+		builder.append(String.format(Locale.ROOT, "Configuration trace, %.1f s in total%n", endNanos / 1e9));
+		builder.append(String.format(Locale.ROOT, "%-48s %6s %10s %10s %6s %6s %10s %10s%n", "Span", "Count", "Total ms", "Max ms", "Hits", "Misses", "Read MB", "Written MB"));
+
+		for (Total total : totals.values().stream().sorted(Comparator.comparingLong(Total::totalNanos).reversed()).toList()) {
+			builder.append(String.format(Locale.ROOT, "%-48s %6d %10d %10d %6d %6d %10.1f %10.1f%n",
+					total.name, total.count, total.totalNanos / 1_000_000, total.maxNanos / 1_000_000,
+					total.hits, total.misses, total.bytesRead / 1e6, total.bytesWritten / 1e6));
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * A recorded span.
+	 *
+	 * @param startNanos The start of the span, relative to the start of the trace
+	 * @param cacheHit Whether the output was found in the cache, or null when not applicable
+	 */
+	public record SpanData(String name, @Nullable String detail, String threadName, long threadId, long startNanos, long durationNanos,
+							long bytesRead, long bytesWritten, @Nullable Boolean cacheHit) {
+	}
+
+	private static final class Total {
+		private final String name;
+		private int count;
+		private long totalNanos;
+		private long maxNanos;
+		private int hits;
+		private int misses;
+		private long bytesRead;
+		private long bytesWritten;
+
+		private Total(String name) {
+			this.name = name;
+		}
+
+		private void add(SpanData span) {
+			count++;
+			totalNanos += span.durationNanos();
+			maxNanos = Math.max(maxNanos, span.durationNanos());
+			bytesRead += span.bytesRead();
+			bytesWritten += span.bytesWritten();
+
+			if (span.cacheHit() != null) {
+				if (span.cacheHit()) {
+					hits++;
+				} else {
+					misses++;
+				}
+			}
+		}
+
+		private long totalNanos() {
+			return totalNanos;
+		}
+	}
+
+	/**
+	 * A step being traced, spans must be used and closed on the thread that started them.
+	 */
+	public static final class Span implements AutoCloseable {
+		@Nullable
+		private final ConfigurationTrace trace;
+		private final String name;
+		@Nullable
+		private final String detail;
+		private final Thread thread = Thread.currentThread();
+		private final long start = System.nanoTime();
+		private long bytesRead;
+		private long bytesWritten;
+		@Nullable
+		private Boolean cacheHit;
+		private boolean closed;
+
+		private Span(@Nullable ConfigurationTrace trace, String name, @Nullable String detail) {
+			this.trace = trace;
+			this.name = name;
+			this.detail = detail;
+		}
+
+		/**
+		 * Record whether the output of the step was found in the cache.
+		 */
+		public Span cacheHit(boolean cacheHit) {
+			this.cacheHit = cacheHit;
+			return this;
+		}
+
+		/**
+		 * Record the size of the files as read, missing files are ignored.
+		 */
+		public Span read(Collection<Path> files) {
+			bytesRead += size(files);
+			return this;
+		}
+
+		public Span read(Path file) {
+			return read(List.of(file));
+		}
+
+		/**
+		 * Record the size of the files as written, missing files are ignored.
+		 */
+		public Span written(Collection<Path> files) {
+			bytesWritten += size(files);
+			return this;
+		}
+
+		public Span written(Path file) {
+			return written(List.of(file));
+		}
+
+		private long size(Collection<Path> files) {
+			if (trace == null) {
+				return 0;
+			}
+
+			long size = 0;
+
+			for (Path file : files) {
+				try {
+					if (Files.isRegularFile(file)) {
+						size += Files.size(file);
+					}
+				} catch (IOException e) {
+					// The size is only informative
+				}
+			}
+
+			return size;
+		}
+
+		@Override
+		public void close() {
+			if (trace == null || closed) {
+				return;
+			}
+
+			closed = true;
+			trace.add(new SpanData(name, detail, thread.getName(), thread.getId(), start - trace.start, System.nanoTime() - start, bytesRead, bytesWritten, cacheHit));
+		}
+	}
+}
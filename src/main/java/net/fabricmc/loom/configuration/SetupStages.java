@@ -0,0 +1,254 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.util.ThreadingUtils;
+
+/**
+ * A graph of setup stages, each stage is started as soon as all the stages it depends on have completed.
+ *
+ * <p>Stages that modify the project, such as adding dependencies or resolving configurations, must run on the
+ * configuring thread one at a time, the first ready stage in the order they were added is run next. Stages that only
+ * read and write files can run in the background on a bounded executor, at the same time as other stages.
+ */
+public final class SetupStages {
+	private final List<Stage> stages = new ArrayList<>();
+	private final int threads;
+	private final ConfigurationTrace trace;
+
+	public SetupStages(int threads) {
+		this(threads, ConfigurationTrace.create(false));
+	}
+
+	/**
+	 * @param trace The trace recording a span for each stage
+	 */
+	public SetupStages(int threads, ConfigurationTrace trace) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Thread count must be at least 1, got " + threads);
+		}
+
+		this.threads = threads;
+		this.trace = trace;
+	}
+
+	/**
+	 * Add a stage that runs on the configuring thread.
+	 */
+	public Stage configure(String name, ThreadingUtils.UnsafeRunnable action, Stage... dependencies) {
+		return add(name, false, action, dependencies);
+	}
+
+	/**
+	 * Add a stage that may run on a background thread, it must not modify the project.
+	 */
+	public Stage background(String name, ThreadingUtils.UnsafeRunnable action, Stage... dependencies) {
+		return add(name, true, action, dependencies);
+	}
+
+	private Stage add(String name, boolean background, ThreadingUtils.UnsafeRunnable action, Stage... dependencies) {
+		for (Stage dependency : dependencies) {
+			// Dependencies must have been added first, so the stages cannot form a cycle.
+			if (!stages.contains(Objects.requireNonNull(dependency))) {
+				throw new IllegalArgumentException("Stage " + name + " depends on unknown stage " + dependency.name());
+			}
+		}
+
+		final var stage = new Stage(name, background, action, List.of(dependencies));
+		stages.add(stage);
+		return stage;
+	}
+
+	/**
+	 * Run all the stages, returning once they have all completed.
+	 * When a stage fails no new stages are started, the running background stages are waited for and the first failure is thrown.
+	 */
+	public void run() throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<Stage> remaining = new ArrayList<>(stages);
+		final List<Stage> running = new ArrayList<>();
+		Throwable failure = null;
+
+		try {
+			while (failure == null && !remaining.isEmpty()) {
+				Stage next = null;
+
+				for (Stage stage : List.copyOf(remaining)) {
+					if (!stage.isReady()) {
+						continue;
+					}
+
+					if (stage.background) {
+						remaining.remove(stage);
+						running.add(stage);
+						CompletableFuture.runAsync(() -> stage.runAction(trace), executor).whenComplete(stage::complete);
+					} else if (next == null) {
+						next = stage;
+					}
+				}
+
+				if (next != null) {
+					remaining.remove(next);
+
+					try {
+						next.run(trace);
+						next.future.complete(null);
+					} catch (Throwable t) {
+						next.future.completeExceptionally(t);
+						failure = t;
+					}
+				} else if (!running.isEmpty()) {
+					// Wait for a background stage to complete, as it may allow other stages to start.
+					await(CompletableFuture.anyOf(futures(running)));
+				} else {
+					throw new IllegalStateException("No setup stages can be started, remaining: " + remaining);
+				}
+
+				final Throwable completedFailure = removeCompleted(running);
+
+				if (failure == null) {
+					failure = completedFailure;
+				}
+			}
+		} finally {
+			// Background stages must not outlive the setup, even when it has failed.
+			await(CompletableFuture.allOf(futures(running)));
+			executor.shutdownNow();
+		}
+
+		final Throwable completedFailure = removeCompleted(running);
+
+		if (failure == null) {
+			failure = completedFailure;
+		}
+
+		if (failure instanceof Exception exception) {
+			throw exception;
+		} else if (failure instanceof Error error) {
+			throw error;
+		} else if (failure != null) {
+			throw new RuntimeException(failure);
+		}
+	}
+
+	private static CompletableFuture<?>[] futures(List<Stage> stages) {
+		return stages.stream().map(stage -> stage.future).toArray(CompletableFuture[]::new);
+	}
+
+	// Failures are handled by the caller
+	private static void await(CompletableFuture<?> future) {
+		future.exceptionally(t -> null).join();
+	}
+
+	// Returns the first failure of the completed stages
+	@Nullable
+	private static Throwable removeCompleted(List<Stage> running) {
+		Throwable failure = null;
+
+		for (Stage stage : List.copyOf(running)) {
+			if (!stage.future.isDone()) {
+				continue;
+			}
+
+			running.remove(stage);
+
+			if (stage.future.isCompletedExceptionally() && failure == null) {
+				try {
+					stage.future.join();
+				} catch (CompletionException e) {
+					failure = e.getCause();
+				}
+			}
+		}
+
+		return failure;
+	}
+
+	public static final class Stage {
+		private final String name;
+		private final boolean background;
+		private final ThreadingUtils.UnsafeRunnable action;
+		private final List<Stage> dependencies;
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		private Stage(String name, boolean background, ThreadingUtils.UnsafeRunnable action, List<Stage> dependencies) {
+			this.name = name;
+			this.background = background;
+			this.action = action;
+			this.dependencies = dependencies;
+		}
+
+		public String name() {
+			return name;
+		}
+
+		private boolean isReady() {
+			for (Stage dependency : dependencies) {
+				if (!dependency.future.isDone() || dependency.future.isCompletedExceptionally()) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private void run(ConfigurationTrace trace) throws Throwable {
+			try (ConfigurationTrace.Span span = trace.span("Setup stage " + name, null)) {
+				action.run();
+			}
+		}
+
+		private void runAction(ConfigurationTrace trace) {
+			try {
+				run(trace);
+			} catch (Throwable t) {
+				throw new CompletionException(t);
+			}
+		}
+
+		private void complete(@Nullable Void result, @Nullable Throwable throwable) {
+			if (throwable == null) {
+				future.complete(null);
+			} else {
+				future.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.accesstransformer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.architectury.at.AccessChange;
+import dev.architectury.at.AccessTransform;
+import dev.architectury.at.AccessTransformSet;
+import dev.architectury.at.ModifierChange;
+import org.cadixdev.bombe.type.signature.MethodSignature;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.zip.ClassTransformerPipeline;
+
+/**
+ * Applies access transformers to classes in-process, this matches the behaviour of the Forge access transformer tool.
+ *
+ * <ul>
+ *     <li>Access is only ever widened, an access transformer never makes a member less accessible.</li>
+ *     <li>Class access changes also apply to the inner class attribute of the class itself.</li>
+ *     <li>Calls to private methods of the class that are no longer private use {@code invokevirtual}
+ *     (or {@code invokeinterface}) instead of {@code invokespecial}.</li>
+ * </ul>
+ */
+public final class AccessTransformerApplier implements ClassTransformerPipeline.Transformer {
+	private static final int ACCESS_MASK = Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED | Opcodes.ACC_PRIVATE;
+
+	// Internal class name -> transforms
+	private final Map<String, AccessTransformSet.Class> classes = new HashMap<>();
+
+	public AccessTransformerApplier(AccessTransformSet accessTransformSet) {
+		accessTransformSet.getClasses().forEach((name, transforms) -> classes.put(name.replace('.', '/'), transforms));
+	}
+
+	/**
+	 * Apply the access transformers to a jar, only the targeted classes are read and rewritten.
+	 *
+	 * @param input The input jar
+	 * @param output The output jar, this must not be the input jar
+	 */
+	public void apply(Path input, Path output) throws IOException {
+		new ClassTransformerPipeline()
+				.add(this)
+				.filter(entryName -> isTarget(entryName.substring(0, entryName.length() - ".class".length())))
+				.transformJar(List.of(input), output);
+	}
+
+	/**
+	 * @param className The internal name of the class
+	 * @return Whether any access transformer targets the class
+	 */
+	public boolean isTarget(String className) {
+		return classes.containsKey(className);
+	}
+
+	/**
+	 * @param className The internal name of the class
+	 * @return A description of the access transformers of the class, that only changes when the transformers do
+	 */
+	public String describe(String className) {
+		final AccessTransformSet.Class transforms = classes.get(className);
+
+		if (transforms == null) {
+			return "";
+		}
+
+		final List<String> members = new ArrayList<>();
+		transforms.getFields().forEach((name, transform) -> members.add("field\t%s\t%s".formatted(name, describe(transform))));
+		transforms.getMethods().forEach((signature, transform) -> members.add("method\t%s%s\t%s".formatted(signature.getName(), signature.getDescriptor(), describe(transform))));
+		Collections.sort(members);
+
+		return "class\t%s\nfields\t%s\nmethods\t%s\n%s".formatted(
+				describe(transforms.get()),
+				describe(transforms.allFields()),
+				describe(transforms.allMethods()),
+				String.join("\n", members)
+		);
+	}
+
+	private static String describe(@Nullable AccessTransform transform) {
+		return transform == null ? "" : transform.getAccess() + "\t" + transform.getFinal();
+	}
+
+	@Override
+	public ClassVisitor wrap(ClassVisitor next) {
+		return new AccessTransformerClassVisitor(next);
+	}
+
+	private static int apply(int access, @Nullable AccessTransform transform) {
+		if (transform == null) {
+			return access;
+		}
+
+		final int target = switch (transform.getAccess()) {
+		case PUBLIC -> Opcodes.ACC_PUBLIC;
+		case PROTECTED -> Opcodes.ACC_PROTECTED;
+		case PACKAGE_PRIVATE -> 0;
+		case PRIVATE -> Opcodes.ACC_PRIVATE;
+		case NONE -> access & ACCESS_MASK;
+		};
+
+		if (rank(target) > rank(access & ACCESS_MASK)) {
+			access = (access & ~ACCESS_MASK) | target;
+		}
+
+		if (transform.getFinal() == ModifierChange.ADD) {
+			access |= Opcodes.ACC_FINAL;
+		} else if (transform.getFinal() == ModifierChange.REMOVE) {
+			access &= ~Opcodes.ACC_FINAL;
+		}
+
+		return access;
+	}
+
+	private static int rank(int access) {
+		if ((access & Opcodes.ACC_PUBLIC) != 0) {
+			return 3;
+		} else if ((access & Opcodes.ACC_PROTECTED) != 0) {
+			return 2;
+		} else if ((access & Opcodes.ACC_PRIVATE) != 0) {
+			return 0;
+		}
+
+		return 1;
+	}
+
+	// Whether the transform keeps a private member private
+	private static boolean keepsPrivate(@Nullable AccessTransform transform) {
+		return transform == null || transform.getAccess() == AccessChange.NONE || transform.getAccess() == AccessChange.PRIVATE;
+	}
+
+	private final class AccessTransformerClassVisitor extends ClassVisitor {
+		private @Nullable AccessTransformSet.Class transforms;
+		private String className;
+
+		AccessTransformerClassVisitor(ClassVisitor next) {
+			super(Constants.ASM_VERSION, next);
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			transforms = classes.get(name);
+			className = name;
+
+			if (transforms != null) {
+				access = apply(access, transforms.get());
+			}
+
+			super.visit(version, access, name, signature, superName, interfaces);
+		}
+
+		@Override
+		public void visitInnerClass(String name, String outerName, String innerName, int access) {
+			if (transforms != null && name.equals(className)) {
+				access = apply(access, transforms.get());
+			}
+
+			super.visitInnerClass(name, outerName, innerName, access);
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+			if (transforms != null) {
+				access = apply(apply(access, transforms.allFields()), transforms.getFields().get(name));
+			}
+
+			return super.visitField(access, name, descriptor, signature, value);
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			if (transforms == null) {
+				return super.visitMethod(access, name, descriptor, signature, exceptions);
+			}
+
+			if (!name.equals("<clinit>")) {
+				access = apply(apply(access, transforms.allMethods()), transforms.getMethods().get(MethodSignature.of(name, descriptor)));
+			}
+
+			return new MethodVisitor(api, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+				@Override
+				public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+					// javac only uses invokespecial on methods of the class itself for private methods and constructors.
+					if (opcode == Opcodes.INVOKESPECIAL && owner.equals(className) && !name.equals("<init>") && isNoLongerPrivate(name, descriptor)) {
+						opcode = isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL;
+					}
+
+					super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+				}
+			};
+		}
+
+		private boolean isNoLongerPrivate(String name, String descriptor) {
+			final AccessTransform transform = transforms.getMethods().get(MethodSignature.of(name, descriptor));
+			return !keepsPrivate(transform) || !keepsPrivate(transforms.allMethods());
+		}
+	}
+}
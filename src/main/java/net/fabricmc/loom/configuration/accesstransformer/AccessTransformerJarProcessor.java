@@ -48,6 +48,7 @@ import org.gradle.api.file.FileCollection;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
@@ -62,6 +63,7 @@ import net.fabricmc.loom.util.ExceptionUtil;
 import net.fabricmc.loom.util.ForgeToolExecutor;
 import net.fabricmc.loom.util.LoomVersions;
 import net.fabricmc.loom.util.fmj.FabricModJson;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 
 public class AccessTransformerJarProcessor implements MinecraftJarProcessor<AccessTransformerJarProcessor.Spec> {
 	private static final Logger LOGGER = Logging.getLogger(AccessTransformerJarProcessor.class);
@@ -115,20 +117,58 @@ public class AccessTransformerJarProcessor implements MinecraftJarProcessor<Acce
 	public void processJar(Path jar, Spec spec, ProcessorContext context) throws IOException {
 		try (var tempFiles = new TempFiles()) {
 			LOGGER.lifecycle(":applying project access transformers");
-			final Path tempInput = tempFiles.file("input", ".jar");
-			Files.copy(jar, tempInput, StandardCopyOption.REPLACE_EXISTING);
-			final Path atPath = mergeAndRemapAccessTransformers(context, spec.accessTransformers(), tempFiles);
-
-			executeAt(project, tempInput, jar, args -> {
-				args.add("--atFile");
-				args.add(atPath.toAbsolutePath().toString());
-			});
+			final AccessTransformSet accessTransformSet = mergeAndRemapAccessTransformers(context, spec.accessTransformers());
+
+			if (GradleUtils.getBooleanProperty(project, Constants.Properties.FORK_ACCESS_TRANSFORMERS)) {
+				final Path tempInput = tempFiles.file("input", ".jar");
+				Files.copy(jar, tempInput, StandardCopyOption.REPLACE_EXISTING);
+				final Path atPath = writeAccessTransformers(accessTransformSet, tempFiles);
+
+				executeAt(project, tempInput, jar, args -> {
+					args.add("--atFile");
+					args.add(atPath.toAbsolutePath().toString());
+				});
+			} else {
+				final Path output = tempFiles.file("output", ".jar");
+				new AccessTransformerApplier(accessTransformSet).apply(jar, output);
+				Files.move(output, jar, StandardCopyOption.REPLACE_EXISTING);
+			}
 		} catch (IOException e) {
 			throw ExceptionUtil.createDescriptiveWrapper(UncheckedIOException::new, "Could not access transform " + jar.toAbsolutePath(), e);
 		}
 	}
 
-	private Path mergeAndRemapAccessTransformers(ProcessorContext context, List<AccessTransformerEntry> accessTransformers, TempFiles tempFiles) throws IOException {
+	@Override
+	public @Nullable ClassProcessor<Spec> processClasses() {
+		if (GradleUtils.getBooleanProperty(project, Constants.Properties.FORK_ACCESS_TRANSFORMERS)) {
+			// The forked tool rewrites the whole jar
+			return null;
+		}
+
+		return (spec, context) -> {
+			LOGGER.lifecycle(":applying project access transformers");
+			final var applier = new AccessTransformerApplier(mergeAndRemapAccessTransformers(context, spec.accessTransformers()));
+
+			return new ClassTransformer() {
+				@Override
+				public boolean shouldTransform(String className) {
+					return applier.isTarget(className);
+				}
+
+				@Override
+				public ClassVisitor transform(String className, ClassVisitor next) {
+					return applier.wrap(next);
+				}
+
+				@Override
+				public String describe(String className) {
+					return applier.describe(className);
+				}
+			};
+		};
+	}
+
+	private AccessTransformSet mergeAndRemapAccessTransformers(ProcessorContext context, List<AccessTransformerEntry> accessTransformers) throws IOException {
 		AccessTransformSet accessTransformSet = AccessTransformSet.create();
 
 		for (AccessTransformerEntry entry : accessTransformers) {
@@ -139,8 +179,10 @@ public class AccessTransformerJarProcessor implements MinecraftJarProcessor<Acce
 			}
 		}
 
-		accessTransformSet = accessTransformSet.remap(context.getMappings(), IntermediaryNamespaces.intermediary(project), MappingsNamespace.NAMED.toString());
+		return accessTransformSet.remap(context.getMappings(), IntermediaryNamespaces.intermediary(project), MappingsNamespace.NAMED.toString());
+	}
 
+	private static Path writeAccessTransformers(AccessTransformSet accessTransformSet, TempFiles tempFiles) throws IOException {
 		final Path accessTransformerPath = tempFiles.file("accesstransformer-merged", ".cfg");
 
 		try {
@@ -157,6 +199,10 @@ public class AccessTransformerJarProcessor implements MinecraftJarProcessor<Acce
 		return name;
 	}
 
+	/**
+	 * Run the access transformer tool in a forked JVM, this is only used when {@link Constants.Properties#FORK_ACCESS_TRANSFORMERS} is set.
+	 * See {@link AccessTransformerApplier} for the default in-process implementation.
+	 */
 	public static void executeAt(Project project, Path input, Path output, AccessTransformerConfiguration configuration) throws IOException {
 		LoomVersions accessTransformer = chooseAccessTransformer(project);
 		String mainClass = accessTransformer == LoomVersions.ACCESS_TRANSFORMERS_NEO ? "net.neoforged.accesstransformer.cli.TransformerProcessor"
@@ -31,18 +31,27 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
 import org.gradle.api.file.RegularFileProperty;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
 
 import net.fabricmc.accesswidener.AccessWidener;
+import net.fabricmc.accesswidener.AccessWidenerClassVisitor;
+import net.fabricmc.accesswidener.AccessWidenerReader;
+import net.fabricmc.accesswidener.AccessWidenerVisitor;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
+import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.LazyCloseable;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.loom.util.fmj.ModEnvironment;
@@ -129,22 +138,120 @@ public class AccessWidenerJarProcessor implements MinecraftJarProcessor<AccessWi
 
 	@Override
 	public void processJar(Path jar, AccessWidenerJarProcessor.Spec spec, ProcessorContext context) throws IOException {
-		final List<AccessWidenerEntry> accessWideners = spec.accessWidenersForContext(context);
+		AccessWidenerTransformer transformer = new AccessWidenerTransformer(readAccessWidener(spec, context));
+		transformer.apply(jar);
+	}
+
+	@Override
+	public ClassProcessor<Spec> processClasses() {
+		return (spec, context) -> {
+			final var accessWidener = new AccessWidener();
+			final var entries = new EntryRecorder(accessWidener);
+			readAccessWideners(spec, context, entries);
+
+			final Set<String> targets = accessWidener.getTargets().stream()
+					.map(target -> target.replace('.', '/'))
+					.collect(Collectors.toSet());
+
+			if (targets.isEmpty()) {
+				return null;
+			}
+
+			return new ClassTransformer() {
+				@Override
+				public boolean shouldTransform(String className) {
+					return targets.contains(className);
+				}
+
+				@Override
+				public ClassVisitor transform(String className, ClassVisitor next) {
+					return AccessWidenerClassVisitor.createClassVisitor(Constants.ASM_VERSION, next, accessWidener);
+				}
 
+				@Override
+				public String describe(String className) {
+					return entries.describe(className);
+				}
+			};
+		};
+	}
+
+	private static AccessWidener readAccessWidener(AccessWidenerJarProcessor.Spec spec, ProcessorContext context) throws IOException {
 		final var accessWidener = new AccessWidener();
+		readAccessWideners(spec, context, accessWidener);
+		return accessWidener;
+	}
+
+	private static void readAccessWideners(AccessWidenerJarProcessor.Spec spec, ProcessorContext context, AccessWidenerVisitor visitor) throws IOException {
+		final List<AccessWidenerEntry> accessWideners = spec.accessWidenersForContext(context);
 
 		try (LazyCloseable<TinyRemapper> remapper = context.createRemapper(MappingsNamespace.INTERMEDIARY, MappingsNamespace.NAMED)) {
 			for (AccessWidenerEntry widener : accessWideners) {
-				widener.read(accessWidener, remapper);
+				widener.read(visitor, remapper);
 			}
 		}
-
-		AccessWidenerTransformer transformer = new AccessWidenerTransformer(accessWidener);
-		transformer.apply(jar);
 	}
 
 	@Override
 	public @Nullable MappingsProcessor<Spec> processMappings() {
 		return TransitiveAccessWidenerMappingsProcessor.INSTANCE;
 	}
+
+	/**
+	 * Records the entries that change each class, including the entries of inner classes that change the inner class
+	 * attributes of their outer classes.
+	 */
+	private static final class EntryRecorder implements AccessWidenerVisitor {
+		private final AccessWidenerVisitor delegate;
+		private final Map<String, List<String>> entries = new HashMap<>();
+
+		private EntryRecorder(AccessWidenerVisitor delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void visitHeader(String namespace) {
+			delegate.visitHeader(namespace);
+		}
+
+		@Override
+		public void visitClass(String name, AccessWidenerReader.AccessType access, boolean transitive) {
+			delegate.visitClass(name, access, transitive);
+			String className = name.replace('.', '/');
+			final String entry = "class\t%s\t%s".formatted(className, access);
+
+			while (true) {
+				record(className, entry);
+				final int index = className.lastIndexOf('$');
+
+				if (index == -1) {
+					break;
+				}
+
+				className = className.substring(0, index);
+			}
+		}
+
+		@Override
+		public void visitMethod(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
+			delegate.visitMethod(owner, name, descriptor, access, transitive);
+			record(owner.replace('.', '/'), "method\t%s\t%s\t%s".formatted(name, descriptor, access));
+		}
+
+		@Override
+		public void visitField(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
+			delegate.visitField(owner, name, descriptor, access, transitive);
+			record(owner.replace('.', '/'), "field\t%s\t%s\t%s".formatted(name, descriptor, access));
+		}
+
+		private void record(String className, String entry) {
+			entries.computeIfAbsent(className, k -> new ArrayList<>()).add(entry);
+		}
+
+		private String describe(String className) {
+			return entries.getOrDefault(className, List.of()).stream()
+					.sorted()
+					.collect(Collectors.joining("\n"));
+		}
+	}
 }
@@ -108,24 +108,61 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 
 	@Override
 	public void processJar(Path jar, Spec spec, ProcessorContext context) throws IOException {
-		// Remap from intermediary->named
+		final List<InjectedInterface> remappedInjectedInterfaces = remap(spec, context);
+
+		try {
+			ZipUtils.transform(jar, getTransformers(remappedInjectedInterfaces));
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to apply interface injections to " + jar, e);
+		}
+	}
+
+	@Override
+	public ClassProcessor<Spec> processClasses() {
+		return (spec, context) -> {
+			final Map<String, List<InjectedInterface>> injectedInterfaces = remap(spec, context).stream()
+					.collect(Collectors.groupingBy(injectedInterface -> injectedInterface.className().replace('.', '/')));
+
+			if (injectedInterfaces.isEmpty()) {
+				return null;
+			}
+
+			return new ClassTransformer() {
+				@Override
+				public boolean shouldTransform(String className) {
+					return injectedInterfaces.containsKey(className);
+				}
+
+				@Override
+				public ClassVisitor transform(String className, ClassVisitor next) {
+					return new InjectingClassVisitor(Constants.ASM_VERSION, next, injectedInterfaces.get(className));
+				}
+
+				@Override
+				public String describe(String className) {
+					return injectedInterfaces.get(className).stream()
+							.map(InjectedInterface::toString)
+							.sorted()
+							.collect(Collectors.joining("\n"));
+				}
+			};
+		};
+	}
+
+	// Remap from intermediary->named
+	private List<InjectedInterface> remap(Spec spec, ProcessorContext context) throws IOException {
 		final MemoryMappingTree mappings = context.getMappings();
 		final int intermediaryIndex = mappings.getNamespaceId(MappingsNamespace.INTERMEDIARY.toString());
 		final int namedIndex = mappings.getNamespaceId(MappingsNamespace.NAMED.toString());
 
 		try (LazyCloseable<TinyRemapper> tinyRemapper = context.createRemapper(MappingsNamespace.INTERMEDIARY, MappingsNamespace.NAMED)) {
-			final List<InjectedInterface> remappedInjectedInterfaces = spec.injectedInterfaces().stream()
+			return spec.injectedInterfaces().stream()
 					.map(injectedInterface -> remap(
 							injectedInterface,
 							s -> mappings.mapClassName(s, intermediaryIndex, namedIndex),
 							tinyRemapper.get().getEnvironment().getRemapper()
 					))
 					.toList();
-			try {
-				ZipUtils.transform(jar, getTransformers(remappedInjectedInterfaces));
-			} catch (IOException e) {
-				throw new RuntimeException("Failed to apply interface injections to " + jar, e);
-			}
 		}
 	}
 
@@ -284,8 +321,8 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 		private final List<InjectedInterface> injectedInterfaces;
 		private final Set<String> knownInnerClasses = new HashSet<>();
 
-		InjectingClassVisitor(int asmVersion, ClassWriter writer, List<InjectedInterface> injectedInterfaces) {
-			super(asmVersion, writer);
+		InjectingClassVisitor(int asmVersion, ClassVisitor next, List<InjectedInterface> injectedInterfaces) {
+			super(asmVersion, next);
 			this.injectedInterfaces = injectedInterfaces;
 		}
 
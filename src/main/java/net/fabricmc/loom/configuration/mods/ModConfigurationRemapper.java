@@ -27,17 +27,21 @@ package net.fabricmc.loom.configuration.mods;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.CodeSource;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.function.Supplier;
 
 import com.google.common.collect.ImmutableMap;
+import dev.architectury.loom.util.MappingOption;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.FileCollectionDependency;
@@ -59,15 +63,22 @@ import org.jetbrains.annotations.Nullable;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.api.RemapConfigurationSettings;
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.api.remapping.RemapperParameters;
+import net.fabricmc.loom.build.IntermediaryNamespaces;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
 import net.fabricmc.loom.configuration.RemapConfigurations;
 import net.fabricmc.loom.configuration.mods.dependency.ModDependency;
 import net.fabricmc.loom.configuration.mods.dependency.ModDependencyFactory;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
+import net.fabricmc.loom.extension.RemapperExtensionHolder;
 import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
 import net.fabricmc.loom.util.SourceRemapper;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
+import net.fabricmc.loom.util.kotlin.KotlinClasspathService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 
 @SuppressWarnings("UnstableApiUsage")
@@ -181,6 +192,8 @@ public class ModConfigurationRemapper {
 			dependenciesBySourceConfig.put(sourceConfig, modDependencies);
 		});
 
+		final ModStore modStore = createModStore(project, serviceManager, extension);
+
 		// Round 2: Remapping
 		// Remap all discovered artifacts.
 		configsToRemap.forEach((sourceConfig, remappedConfig) -> {
@@ -195,16 +208,47 @@ public class ModConfigurationRemapper {
 			final boolean refreshDeps = LoomGradleExtension.get(project).refreshDeps();
 			// TODO: With the same artifacts being considered multiple times for their different
 			//   usage attributes, this should probably not process them multiple times even with refreshDeps.
-			final List<ModDependency> toRemap = modDependencies.stream()
-					.filter(dependency -> refreshDeps || dependency.isCacheInvalid(project, null))
-					.toList();
+			final List<ModDependency> toRemap = new ArrayList<>();
+			// key: dependency, value: the key of the dependency in the mod store
+			final Map<ModDependency, String> storeKeys = new HashMap<>();
+
+			try {
+				for (ModDependency dependency : modDependencies) {
+					if (!refreshDeps && !dependency.isCacheInvalid(project, null)) {
+						continue;
+					}
 
-			if (!toRemap.isEmpty()) {
-				try {
+					if (modStore != null) {
+						final String key = modStore.getKey(dependency);
+
+						// The mods missing from the store are traced again when they are remapped
+						try (ConfigurationTrace.Span span = extension.getConfigurationTrace().span("RemappedModStore.get", dependency.getInputFile().getFileName().toString())) {
+							final Path stored = refreshDeps ? null : modStore.store().get(key);
+							span.cacheHit(stored != null);
+
+							if (stored != null) {
+								project.getLogger().info("Using remapped {} from the mod store", dependency);
+								dependency.linkToCache(project, stored);
+								span.read(stored);
+								continue;
+							}
+						}
+
+						storeKeys.put(dependency, key);
+					}
+
+					toRemap.add(dependency);
+				}
+
+				if (!toRemap.isEmpty()) {
 					new ModProcessor(project, sourceConfig, serviceManager).processMods(toRemap);
-				} catch (IOException e) {
-					throw new UncheckedIOException("Failed to remap mods", e);
 				}
+
+				for (Map.Entry<ModDependency, String> entry : storeKeys.entrySet()) {
+					modStore.store().put(entry.getValue(), entry.getKey().getWorkingFile(null));
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to remap mods", e);
 			}
 
 			// Add all of the remapped mods onto the config
@@ -219,6 +263,67 @@ public class ModConfigurationRemapper {
 		});
 	}
 
+	@Nullable
+	private static ModStore createModStore(Project project, SharedServiceManager serviceManager, LoomGradleExtension extension) {
+		if (GradleUtils.getBooleanProperty(project, Constants.Properties.DISABLE_REMAPPED_MOD_STORE)) {
+			return null;
+		}
+
+		final var store = new RemappedModStore(extension.getFiles().getRemappedModStore().toPath());
+		store.cleanup();
+
+		try {
+			final RemappedModStore.KeyBuilder key = store.newKey()
+					.add("loom", LoomGradlePlugin.LOOM_VERSION)
+					.add("platform", extension.getPlatform().get().id())
+					.add("minecraft", extension.getMinecraftProvider().minecraftVersion())
+					.add("from", IntermediaryNamespaces.runtimeIntermediary(project))
+					.add("to", MappingsNamespace.NAMED.toString())
+					.addFile("mappings", extension.getMappingConfiguration().getMappingsPath(MappingOption.forPlatform(extension)))
+					.add("knownIndyBsms", String.join(",", new TreeSet<>(extension.getKnownIndyBsms().get())));
+
+			if (extension.isForgeLike()) {
+				key.add("forge", extension.getForgeProvider().getVersion().getCombined());
+			}
+
+			final KotlinClasspathService kotlinClasspathService = KotlinClasspathService.getOrCreateIfRequired(serviceManager, project);
+			key.add("kotlin", kotlinClasspathService != null ? kotlinClasspathService.version() : "none");
+
+			for (RemapperExtensionHolder holder : extension.getRemapperExtensions().get()) {
+				if (holder.getRemapperParameters() != RemapperParameters.None.INSTANCE) {
+					// The parameters may be anything, so the output cannot be keyed by them.
+					project.getLogger().info("Not using the remapped mod store as a remapper extension has parameters");
+					return null;
+				}
+
+				final Class<?> extensionClass = holder.getRemapperExtensionClass().get();
+				final CodeSource codeSource = extensionClass.getProtectionDomain().getCodeSource();
+
+				if (codeSource == null || !"file".equals(codeSource.getLocation().getProtocol())) {
+					project.getLogger().info("Not using the remapped mod store as the code of {} cannot be found", extensionClass.getName());
+					return null;
+				}
+
+				final Path code = Path.of(codeSource.getLocation().toURI());
+
+				if (!Files.isRegularFile(code)) {
+					// Classes from a directory, such as buildSrc, may change without the path changing.
+					project.getLogger().info("Not using the remapped mod store as {} is not in a jar", extensionClass.getName());
+					return null;
+				}
+
+				key.add("remapperExtension", extensionClass.getName());
+				key.addFile("remapperExtensionCode", code);
+			}
+
+			return new ModStore(store, key.build());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to create the remapped mod store key", e);
+		} catch (URISyntaxException e) {
+			throw new RuntimeException("Failed to find the remapper extension code", e);
+		}
+	}
+
 	private static void createConstraints(ArtifactRef artifact, Configuration targetConfig, Configuration sourceConfig, DependencyHandler dependencies) {
 		if (true) {
 			// Disabled due to the gradle module metadata causing issues. Try the MavenProject test to reproduce issue.
@@ -331,4 +436,15 @@ public class ModConfigurationRemapper {
 		// CI seems to be set by most popular CI services
 		return System.getenv("CI") != null;
 	}
+
+	private record ModStore(RemappedModStore store, String settingsKey) {
+		// Like isCacheInvalid, the other mods on the remap classpath are not part of the key.
+		String getKey(ModDependency dependency) throws IOException {
+			return store.newKey()
+					.add("settings", settingsKey)
+					.addFile("input", dependency.getInputFile())
+					.add("mixinRemapType", dependency.getMetadata().mixinRemapType().name())
+					.build();
+		}
+	}
 }
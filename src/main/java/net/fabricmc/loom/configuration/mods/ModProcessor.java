@@ -28,15 +28,19 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -48,11 +52,15 @@ import dev.architectury.loom.util.MappingOption;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.attributes.Usage;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.tasks.bundling.ZipEntryCompression;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.RemapConfigurationSettings;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.build.IntermediaryNamespaces;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
 import net.fabricmc.loom.configuration.mods.dependency.ModDependency;
 import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
 import net.fabricmc.loom.extension.RemapperExtensionHolder;
@@ -61,12 +69,12 @@ import net.fabricmc.loom.util.LoggerFilter;
 import net.fabricmc.loom.util.ModPlatform;
 import net.fabricmc.loom.util.Pair;
 import net.fabricmc.loom.util.TinyRemapperHelper;
-import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.kotlin.KotlinClasspathService;
 import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloader;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.loom.util.srg.AtClassRemapper;
 import net.fabricmc.loom.util.srg.CoreModClassRemapper;
+import net.fabricmc.loom.util.zip.StagedJar;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.tinyremapper.InputTag;
 import net.fabricmc.tinyremapper.NonClassCopyMode;
@@ -90,9 +98,16 @@ public class ModProcessor {
 	}
 
 	public void processMods(List<ModDependency> remapList) throws IOException {
-		try {
-			project.getLogger().lifecycle(":remapping {} mods from {}", remapList.size(), describeConfiguration(sourceConfiguration));
+		final String configuration = describeConfiguration(sourceConfiguration);
+
+		// Only the mods that are not cached are remapped.
+		try (ConfigurationTrace.Span span = LoomGradleExtension.get(project).getConfigurationTrace().span("ModProcessor.remapJars", configuration)) {
+			project.getLogger().lifecycle(":remapping {} mods from {}", remapList.size(), configuration);
 			remapJars(remapList);
+
+			span.cacheHit(false)
+					.read(remapList.stream().map(ModDependency::getInputFile).toList())
+					.written(remapList.stream().map(ModProcessor::getRemappedOutput).toList());
 		} catch (Exception e) {
 			throw new RuntimeException(String.format(Locale.ENGLISH, "Failed to remap %d mods", remapList.size()), e);
 		}
@@ -125,41 +140,27 @@ public class ModProcessor {
 		return description;
 	}
 
-	private void stripNestedJars(Path path) {
-		try {
-			ZipUtils.deleteIfExists(path, "META-INF/jarjar/metadata.json");
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to strip nested jars from %s".formatted(path), e);
-		}
-
-		if (!ZipUtils.contains(path, "fabric.mod.json")) {
-			if (ZipUtils.contains(path, "quilt.mod.json")) {
-				// Strip out all contained jar info as we dont want loader to try and load the jars contained in dev.
-				try {
-					ZipUtils.transformJson(JsonObject.class, path, Map.of("quilt.mod.json", json -> {
-						if (json.has("quilt_loader")) {
-							json.getAsJsonObject("quilt_loader").remove("jars");
-						}
+	private static void stripNestedJars(StagedJar jar) throws IOException {
+		jar.remove("META-INF/jarjar/metadata.json");
 
-						return json;
-					}));
-				} catch (IOException e) {
-					throw new UncheckedIOException("Failed to strip nested jars from %s".formatted(path), e);
+		if (!jar.contains("fabric.mod.json")) {
+			// Strip out all contained jar info as we dont want loader to try and load the jars contained in dev.
+			jar.transformJson(JsonObject.class, "quilt.mod.json", json -> {
+				if (json.has("quilt_loader")) {
+					json.getAsJsonObject("quilt_loader").remove("jars");
 				}
-			}
+
+				return json;
+			});
 
 			return;
 		}
 
 		// Strip out all contained jar info as we dont want loader to try and load the jars contained in dev.
-		try {
-			ZipUtils.transformJson(JsonObject.class, path, Map.of("fabric.mod.json", json -> {
-				json.remove("jars");
-				return json;
-			}));
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to strip nested jars from %s".formatted(path), e);
-		}
+		jar.transformJson(JsonObject.class, "fabric.mod.json", json -> {
+			json.remove("jars");
+			return json;
+		});
 	}
 
 	private void remapJars(List<ModDependency> remapList) throws IOException {
@@ -204,8 +205,6 @@ public class ModProcessor {
 		remapper.readClassPath(extension.getMinecraftJars(IntermediaryNamespaces.intermediaryNamespace(project)).toArray(Path[]::new));
 
 		final Map<ModDependency, InputTag> tagMap = new HashMap<>();
-		final Map<ModDependency, OutputConsumerPath> outputConsumerMap = new HashMap<>();
-		final Map<ModDependency, Pair<byte[], String>> accessWidenerMap = new HashMap<>();
 
 		for (RemapConfigurationSettings entry : extension.getRemapConfigurations()) {
 			for (File inputFile : entry.getSourceConfiguration().get().getFiles()) {
@@ -239,65 +238,75 @@ public class ModProcessor {
 			Files.deleteIfExists(getRemappedOutput(info));
 		}
 
-		try {
-			// Apply this in a second loop as we need to ensure all the inputs are on the classpath before remapping.
-			for (ModDependency dependency : remapList) {
-				try {
-					OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(getRemappedOutput(dependency)).build();
+		final ModPlatform platform = extension.getPlatform().get();
+		final PostProcessing postProcessing = new PostProcessing(
+				platform,
+				mappings,
+				fromM,
+				IntermediaryNamespaces.intermediary(project),
+				project.getLogger()
+		);
 
-					outputConsumer.addNonClassFiles(dependency.getInputFile(), NonClassCopyMode.FIX_META_INF, remapper);
-					outputConsumerMap.put(dependency, outputConsumer);
+		// Each mod is post-processed on its own thread as soon as it has been remapped, while the next mod is remapped.
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(remapList.size(), Runtime.getRuntime().availableProcessors())));
+		final Map<ModDependency, Future<?>> postProcessFutures = new LinkedHashMap<>();
 
-					final ModPlatform platform = LoomGradleExtension.get(project).getPlatform().get();
-					final AccessWidenerUtils.AccessWidenerData accessWidenerData = AccessWidenerUtils.readAccessWidenerData(dependency.getInputFile(), platform);
+		try {
+			try {
+				// Apply this in a second loop as we need to ensure all the inputs are on the classpath before remapping.
+				for (ModDependency dependency : remapList) {
+					try {
+						final Path output = getRemappedOutput(dependency);
+						final AccessWidenerUtils.AccessWidenerData accessWidenerData = AccessWidenerUtils.readAccessWidenerData(dependency.getInputFile(), platform);
+						final Pair<byte[], String> accessWidener;
+
+						if (accessWidenerData != null) {
+							project.getLogger().debug("Remapping access widener in {}", dependency.getInputFile());
+							byte[] remappedAw = AccessWidenerUtils.remapAccessWidener(accessWidenerData.content(), remapper.getEnvironment().getRemapper());
+							accessWidener = new Pair<>(remappedAw, accessWidenerData.path());
+						} else {
+							accessWidener = null;
+						}
 
-					if (accessWidenerData != null) {
-						project.getLogger().debug("Remapping access widener in {}", dependency.getInputFile());
-						byte[] remappedAw = AccessWidenerUtils.remapAccessWidener(accessWidenerData.content(), remapper.getEnvironment().getRemapper());
-						accessWidenerMap.put(dependency, new Pair<>(remappedAw, accessWidenerData.path()));
+						try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(output).build()) {
+							outputConsumer.addNonClassFiles(dependency.getInputFile(), NonClassCopyMode.FIX_META_INF, remapper);
+							remapper.apply(outputConsumer, tagMap.get(dependency));
+						}
+
+						postProcessFutures.put(dependency, executor.submit(() -> {
+							postProcessing.apply(output, accessWidener);
+							return null;
+						}));
+					} catch (Exception e) {
+						throw new RuntimeException("Failed to remap: " + dependency, e);
 					}
+				}
+			} finally {
+				remapper.finish();
 
-					remapper.apply(outputConsumer, tagMap.get(dependency));
-				} catch (Exception e) {
-					throw new RuntimeException("Failed to remap: " + dependency, e);
+				if (kotlinRemapperClassloader != null) {
+					kotlinRemapperClassloader.close();
 				}
 			}
-		} finally {
-			remapper.finish();
 
-			if (kotlinRemapperClassloader != null) {
-				kotlinRemapperClassloader.close();
+			for (Map.Entry<ModDependency, Future<?>> entry : postProcessFutures.entrySet()) {
+				try {
+					entry.getValue().get();
+				} catch (ExecutionException e) {
+					throw new RuntimeException("Failed to remap: " + entry.getKey(), e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while remapping: " + entry.getKey(), e);
+				}
 			}
+		} finally {
+			executor.shutdownNow();
 		}
 
 		project.getLogger().lifecycle(":remapped {} mods ({} -> {}) in {}", remapList.size(), fromM, toM, stopwatch.stop());
 
 		for (ModDependency dependency : remapList) {
-			outputConsumerMap.get(dependency).close();
-
-			final Path output = getRemappedOutput(dependency);
-			final Pair<byte[], String> accessWidener = accessWidenerMap.get(dependency);
-
-			if (accessWidener != null) {
-				ZipUtils.replace(output, accessWidener.right(), accessWidener.left());
-			}
-
-			stripNestedJars(output);
-			remapJarManifestEntries(output);
-
-			if (extension.isForgeLike()) {
-				if (extension.isNeoForge()) {
-					// NeoForge: Fully map ATs
-					NeoForgeModDependencies.remapAts(output, mappings, fromM, toM);
-				} else {
-					// Forge: only map class names, the rest are mapped srg -> named at runtime
-					AtClassRemapper.remap(project, output, mappings);
-				}
-
-				CoreModClassRemapper.remapJar(project, extension.getPlatform().get(), output, mappings);
-			}
-
-			dependency.copyToCache(project, output, null);
+			dependency.copyToCache(project, getRemappedOutput(dependency), null);
 		}
 	}
 
@@ -305,8 +314,8 @@ public class ModProcessor {
 		return dependency.getWorkingFile(null);
 	}
 
-	private void remapJarManifestEntries(Path jar) throws IOException {
-		ZipUtils.transform(jar, Map.of(Constants.Manifest.PATH, bytes -> {
+	private static void remapJarManifestEntries(StagedJar jar) throws IOException {
+		jar.transform(Constants.Manifest.PATH, bytes -> {
 			var manifest = new Manifest(new ByteArrayInputStream(bytes));
 
 			manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, toM);
@@ -314,6 +323,40 @@ public class ModProcessor {
 			ByteArrayOutputStream out = new ByteArrayOutputStream();
 			manifest.write(out);
 			return out.toByteArray();
-		}));
+		});
+	}
+
+	/**
+	 * The rewrites applied to a remapped mod jar, applied in a single pass over the jar.
+	 * This does not use the project, so it can be used from any thread.
+	 */
+	private record PostProcessing(ModPlatform platform, MemoryMappingTree mappings, String runtimeIntermediary, String intermediary, Logger logger) {
+		void apply(Path output, @Nullable Pair<byte[], String> accessWidener) throws IOException {
+			try (StagedJar jar = new StagedJar()) {
+				jar.addAll(output, name -> true);
+
+				if (accessWidener != null) {
+					jar.put(accessWidener.right(), accessWidener.left());
+				}
+
+				stripNestedJars(jar);
+				remapJarManifestEntries(jar);
+
+				if (platform.isForgeLike()) {
+					if (platform == ModPlatform.NEOFORGE) {
+						// NeoForge: Fully map ATs
+						NeoForgeModDependencies.remapAts(jar, mappings, runtimeIntermediary, toM);
+					} else {
+						// Forge: only map class names, the rest are mapped srg -> named at runtime
+						AtClassRemapper.remap(logger, intermediary, jar, mappings);
+					}
+
+					CoreModClassRemapper.remapJar(logger, platform, runtimeIntermediary, jar, output.getFileName().toString(), mappings);
+				}
+
+				// Keep the entry order and time stamps of the remapped jar
+				jar.write(output, false, true, ZipEntryCompression.DEFLATED);
+			}
+		}
 	}
 }
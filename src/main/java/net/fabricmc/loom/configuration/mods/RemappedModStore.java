@@ -0,0 +1,235 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.mods;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.util.Checksum;
+
+/**
+ * A content addressed store of remapped mod jars, shared between all projects and builds of the user.
+ *
+ * <p>Jars are stored by a key computed from the hashes of everything that affects the remapped output, such as the
+ * input jar and the mappings, rather than by the coordinates of the mod. Jars are linked into the remapped mod cache of
+ * each project when possible, and are deleted from the store when they have not been used for {@link #MAX_AGE}.
+ */
+public final class RemappedModStore {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RemappedModStore.class);
+	private static final String VERSION = "1";
+	private static final Duration MAX_AGE = Duration.ofDays(30);
+	private static final Duration CLEANUP_INTERVAL = Duration.ofDays(1);
+	private static final String CLEANUP_MARKER = ".last-cleanup";
+	// The stored jars are hard linked into the projects, so their timestamps must not change when they are used.
+	// The last use of a jar is tracked by the timestamp of a separate file next to it.
+	private static final String LAST_USED_SUFFIX = ".used";
+
+	private final Path directory;
+	// Path -> (size, last modified, hash), the same input jars are used by many configurations.
+	private final Map<Path, FileHash> fileHashes = new ConcurrentHashMap<>();
+
+	public RemappedModStore(Path directory) {
+		this.directory = directory;
+	}
+
+	public KeyBuilder newKey() {
+		return new KeyBuilder();
+	}
+
+	/**
+	 * {@return the stored jar for the key, or {@code null} if there is none}
+	 */
+	public @Nullable Path get(String key) throws IOException {
+		final Path jar = getPath(key);
+
+		if (!Files.isRegularFile(jar)) {
+			return null;
+		}
+
+		markUsed(jar);
+		return jar;
+	}
+
+	/**
+	 * Copies a remapped jar into the store.
+	 *
+	 * @param key the key of the remapped jar
+	 * @param jar the remapped jar
+	 * @return the stored jar
+	 */
+	public Path put(String key, Path jar) throws IOException {
+		final Path stored = getPath(key);
+		final Path tempFile = stored.resolveSibling(key + "." + UUID.randomUUID() + ".tmp");
+		Files.createDirectories(stored.getParent());
+
+		try {
+			Files.copy(jar, tempFile);
+
+			try {
+				Files.move(tempFile, stored, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, stored);
+			}
+		} catch (FileAlreadyExistsException e) {
+			// Another build stored the same jar at the same time, the contents are the same.
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+
+		markUsed(stored);
+		return stored;
+	}
+
+	private static void markUsed(Path jar) throws IOException {
+		final Path lastUsed = getLastUsedPath(jar);
+
+		try {
+			Files.setLastModifiedTime(lastUsed, FileTime.from(Instant.now()));
+		} catch (NoSuchFileException e) {
+			try {
+				Files.createFile(lastUsed);
+			} catch (FileAlreadyExistsException ignored) {
+				// Created by another build at the same time
+			}
+		}
+	}
+
+	private static Path getLastUsedPath(Path jar) {
+		return jar.resolveSibling(jar.getFileName() + LAST_USED_SUFFIX);
+	}
+
+	/**
+	 * Deletes stored jars that have not been used recently, this only checks the store once a day.
+	 */
+	public void cleanup() {
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+
+		final Instant now = Instant.now();
+		final Path marker = directory.resolve(CLEANUP_MARKER);
+
+		try {
+			if (Files.exists(marker) && Files.getLastModifiedTime(marker).toInstant().isAfter(now.minus(CLEANUP_INTERVAL))) {
+				return;
+			}
+
+			Files.writeString(marker, now.toString());
+		} catch (IOException e) {
+			LOGGER.warn("Failed to update {}", marker, e);
+			return;
+		}
+
+		final Instant oldestAllowed = now.minus(MAX_AGE);
+
+		try (Stream<Path> files = Files.walk(directory, 2)) {
+			for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+				if (file.equals(marker) || file.getFileName().toString().endsWith(LAST_USED_SUFFIX)) {
+					continue;
+				}
+
+				// Jars stored before the last use was tracked fall back to their own timestamp
+				final Path lastUsed = getLastUsedPath(file);
+				final Path timestampFile = Files.exists(lastUsed) ? lastUsed : file;
+
+				if (Files.getLastModifiedTime(timestampFile).toInstant().isBefore(oldestAllowed)) {
+					LOGGER.info("Deleting unused remapped mod {}", file);
+					Files.deleteIfExists(file);
+					Files.deleteIfExists(lastUsed);
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to clean up the remapped mod store in {}", directory, e);
+		}
+	}
+
+	private Path getPath(String key) {
+		return directory.resolve(key.substring(0, 2)).resolve(key + ".jar");
+	}
+
+	private String hashFile(Path file) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		final FileHash cached = fileHashes.get(file);
+
+		if (cached != null && cached.size() == attributes.size() && cached.lastModified().equals(attributes.lastModifiedTime())) {
+			return cached.hash();
+		}
+
+		final String hash = Checksum.toHex(Checksum.sha256(file.toFile()));
+		fileHashes.put(file, new FileHash(attributes.size(), attributes.lastModifiedTime(), hash));
+		return hash;
+	}
+
+	private record FileHash(long size, FileTime lastModified, String hash) {
+	}
+
+	/**
+	 * Builds the key of a remapped jar from the values that affect it.
+	 */
+	public final class KeyBuilder {
+		private final Hasher hasher = Hashing.sha256().newHasher();
+
+		private KeyBuilder() {
+			add("version", VERSION);
+		}
+
+		public KeyBuilder add(String name, String value) {
+			hasher.putString(name, StandardCharsets.UTF_8).putByte((byte) 0);
+			hasher.putString(value, StandardCharsets.UTF_8).putByte((byte) 0);
+			return this;
+		}
+
+		/**
+		 * Adds a file by the hash of its contents.
+		 */
+		public KeyBuilder addFile(String name, Path file) throws IOException {
+			return add(name, hashFile(file));
+		}
+
+		public String build() {
+			return hasher.hash().toString();
+		}
+	}
+}
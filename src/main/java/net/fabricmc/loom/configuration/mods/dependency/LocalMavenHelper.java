@@ -28,9 +28,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.UUID;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -41,8 +43,58 @@ public record LocalMavenHelper(String group, String name, String version, @Nulla
 		}
 
 		Files.createDirectories(getDirectory());
+
+		final Path output = getOutputFile(classifier);
+		final Path tempFile = getTempFile(output);
+
+		try {
+			Files.copy(artifact, tempFile);
+			moveIntoPlace(tempFile, output);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+
 		savePom();
-		return Files.copy(artifact, getOutputFile(classifier), StandardCopyOption.REPLACE_EXISTING);
+		return output;
+	}
+
+	/**
+	 * Hard links the artifact into the maven repo, falling back to a copy when the file system does not support it.
+	 * The artifact must not be modified afterwards.
+	 */
+	public Path linkToMaven(Path artifact, @Nullable String classifier) throws IOException {
+		if (!artifact.getFileName().toString().endsWith(".jar") && !artifact.getFileName().toString().endsWith(".zip")) {
+			throw new UnsupportedOperationException("Cannot link %s into the maven repository, only .jar and .zip files are supported".formatted(artifact.getFileName()));
+		}
+
+		Files.createDirectories(getDirectory());
+
+		final Path output = getOutputFile(classifier);
+		final Path tempFile = getTempFile(output);
+
+		try {
+			try {
+				Files.createLink(tempFile, artifact);
+			} catch (IOException | UnsupportedOperationException e) {
+				Files.copy(artifact, tempFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			moveIntoPlace(tempFile, output);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+
+		savePom();
+		return output;
+	}
+
+	/**
+	 * Creates the directory and pom of the artifact, the artifact must then be written to the returned path.
+	 */
+	public Path prepareOutputFile(@Nullable String classifier) throws IOException {
+		Files.createDirectories(getDirectory());
+		savePom();
+		return getOutputFile(classifier);
 	}
 
 	public boolean exists(String classifier) {
@@ -70,12 +122,34 @@ public record LocalMavenHelper(String group, String name, String version, @Nulla
 					.replace("%NAME%", name)
 					.replace("%VERSION%", version);
 
-			Files.writeString(getPomPath(), pomTemplate, StandardCharsets.UTF_8);
+			final Path pomPath = getPomPath();
+			final Path tempFile = getTempFile(pomPath);
+
+			try {
+				Files.writeString(tempFile, pomTemplate, StandardCharsets.UTF_8);
+				moveIntoPlace(tempFile, pomPath);
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to write mod pom", e);
 		}
 	}
 
+	// The files are written next to their final path and moved into place, so that other processes never see a partially
+	// written file. exists checks for both the artifact and the pom, so the pom is always written last.
+	private static Path getTempFile(Path path) {
+		return path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+	}
+
+	private static void moveIntoPlace(Path tempFile, Path path) throws IOException {
+		try {
+			Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
 	private Path getDirectory() {
 		return root.resolve("%s/%s/%s".formatted(group.replace(".", "/"), name, version));
 	}
@@ -66,6 +66,12 @@ public abstract sealed class ModDependency permits SplitModDependency, SimpleMod
 	 */
 	public abstract void copyToCache(Project project, Path path, @Nullable String variant) throws IOException;
 
+	/**
+	 * Write a remapped artifact from the {@link net.fabricmc.loom.configuration.mods.RemappedModStore} to the local cache,
+	 * the artifact is hard linked when possible.
+	 */
+	public abstract void linkToCache(Project project, Path path) throws IOException;
+
 	/**
 	 * Apply the dependency to the project.
 	 */
@@ -56,6 +56,11 @@ public final class SimpleModDependency extends ModDependency {
 		maven.copyToMaven(path, variant);
 	}
 
+	@Override
+	public void linkToCache(Project project, Path path) throws IOException {
+		maven.linkToMaven(path, null);
+	}
+
 	@Override
 	public void applyToProject(Project project) {
 		project.getDependencies().add(targetConfig.getName(), maven.getNotation());
@@ -102,6 +102,16 @@ public final class SplitModDependency extends ModDependency {
 		}
 	}
 
+	@Override
+	public void linkToCache(Project project, Path path) throws IOException {
+		switch (target) {
+		// The split jars are new files, so they are copied.
+		case SPLIT -> copyToCache(project, path, null);
+		case CLIENT_ONLY -> getClientMaven().linkToMaven(path, null);
+		case COMMON_ONLY -> getCommonMaven().linkToMaven(path, null);
+		}
+	}
+
 	@Override
 	public void applyToProject(Project project) {
 		if (target.common()) {
@@ -28,10 +28,13 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.StringJoiner;
 import java.util.stream.Collectors;
@@ -47,6 +50,8 @@ import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
 import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.zip.ClassTransformerPipeline;
+import net.fabricmc.loom.util.zip.RawZipFile;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class MinecraftJarProcessorManager {
@@ -128,13 +133,174 @@ public final class MinecraftJarProcessorManager {
 	}
 
 	public void processJar(Path jar, ProcessorContext context) throws IOException {
+		// Consecutive processors that transform individual classes are applied together in a single pass.
+		final List<ProcessorEntry<?>> classProcessors = new ArrayList<>();
+
 		for (ProcessorEntry<?> entry : jarProcessors) {
+			if (entry.classProcessor() != null) {
+				classProcessors.add(entry);
+				continue;
+			}
+
+			processClasses(jar, classProcessors, context);
+			classProcessors.clear();
+
 			try {
 				entry.processJar(jar, context);
 			} catch (IOException e) {
 				throw new IOException("Failed to process jar when running jar processor: %s".formatted(entry.name()), e);
 			}
 		}
+
+		processClasses(jar, classProcessors, context);
+	}
+
+	/**
+	 * Process the input jar into the output jar.
+	 *
+	 * <p>When all the processors transform individual classes, the changes made to each class are recorded in a manifest.
+	 * The next time a jar is processed with the same manifest, the classes with the same changes are copied from the
+	 * previously processed jar and only the other classes are transformed.
+	 *
+	 * @param input The jar to process
+	 * @param output The processed jar, this must not be the input
+	 * @param context The processor context
+	 * @param manifestFile The manifest of the previously processed jar, it is replaced by the manifest of the output
+	 */
+	public void processJar(Path input, Path output, ProcessorContext context, Path manifestFile) throws IOException {
+		if (jarProcessors.stream().anyMatch(entry -> entry.classProcessor() == null)) {
+			// Processors that transform the whole jar may change any class
+			Files.deleteIfExists(manifestFile);
+			Files.copy(input, output, StandardCopyOption.REPLACE_EXISTING);
+			processJar(output, context);
+			return;
+		}
+
+		final List<ClassTransformerEntry> transformers = createClassTransformers(jarProcessors, context);
+		final Map<String, String> classes = describeClasses(input, transformers);
+		ProcessedJarManifest previous = ProcessedJarManifest.read(manifestFile, input);
+
+		if (previous != null && previous.output().path().equals(output.toAbsolutePath().toString())) {
+			previous = null;
+		}
+
+		Files.deleteIfExists(manifestFile);
+		final ClassTransformerPipeline pipeline = createPipeline(transformers);
+
+		if (previous == null) {
+			pipeline.transformJar(List.of(input), output);
+		} else {
+			final Map<String, String> previousClasses = previous.classes();
+			final long reused = classes.entrySet().stream()
+					.filter(entry -> entry.getValue().equals(previousClasses.get(entry.getKey())))
+					.count();
+			LOGGER.info("Reusing {} of {} processed classes from {}", reused, classes.size(), previous.output().path());
+
+			pipeline.transformJar(input, Path.of(previous.output().path()), entryName -> {
+				if (!entryName.endsWith(".class")) {
+					return false;
+				}
+
+				final String className = toClassName(entryName);
+				final String hash = classes.get(className);
+				return hash != null && hash.equals(previousClasses.get(className));
+			}, output);
+		}
+
+		new ProcessedJarManifest(ProcessedJarManifest.FileState.of(input), ProcessedJarManifest.FileState.of(output), classes).write(manifestFile);
+	}
+
+	private static void processClasses(Path jar, List<ProcessorEntry<?>> entries, ProcessorContext context) throws IOException {
+		final List<ClassTransformerEntry> transformers = createClassTransformers(entries, context);
+
+		if (transformers.isEmpty()) {
+			return;
+		}
+
+		LOGGER.debug("Transforming classes of {} with {} processors", jar, transformers.size());
+
+		final Path output = jar.resolveSibling(jar.getFileName() + ".tmp");
+
+		try {
+			createPipeline(transformers).transformJar(List.of(jar), output);
+			Files.move(output, jar, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(output);
+		}
+	}
+
+	private static List<ClassTransformerEntry> createClassTransformers(List<ProcessorEntry<?>> entries, ProcessorContext context) throws IOException {
+		final List<ClassTransformerEntry> transformers = new ArrayList<>();
+
+		for (ProcessorEntry<?> entry : entries) {
+			try {
+				final MinecraftJarProcessor.ClassTransformer transformer = entry.createClassTransformer(context);
+
+				if (transformer != null) {
+					transformers.add(new ClassTransformerEntry(entry.name(), transformer));
+				}
+			} catch (IOException e) {
+				throw new IOException("Failed to process jar when running jar processor: %s".formatted(entry.name()), e);
+			}
+		}
+
+		return transformers;
+	}
+
+	private static ClassTransformerPipeline createPipeline(List<ClassTransformerEntry> transformers) {
+		final var pipeline = new ClassTransformerPipeline().filter(entryName -> {
+			final String className = toClassName(entryName);
+			return transformers.stream().anyMatch(entry -> entry.transformer().shouldTransform(className));
+		});
+
+		for (ClassTransformerEntry entry : transformers) {
+			final MinecraftJarProcessor.ClassTransformer transformer = entry.transformer();
+			pipeline.addNamed((className, next) -> transformer.shouldTransform(className) ? transformer.transform(className, next) : next);
+		}
+
+		return pipeline;
+	}
+
+	// Internal class name -> hash of the descriptions of the changes, for the classes that are transformed and described
+	private static Map<String, String> describeClasses(Path jar, List<ClassTransformerEntry> transformers) throws IOException {
+		final Map<String, String> classes = new HashMap<>();
+
+		try (RawZipFile zip = RawZipFile.open(jar)) {
+			for (RawZipFile.Entry entry : zip.entries()) {
+				if (!entry.name().endsWith(".class")) {
+					continue;
+				}
+
+				final String className = toClassName(entry.name());
+				final var description = new StringBuilder();
+				boolean described = true;
+
+				for (ClassTransformerEntry transformer : transformers) {
+					if (!transformer.transformer().shouldTransform(className)) {
+						continue;
+					}
+
+					final String changes = transformer.transformer().describe(className);
+
+					if (changes == null) {
+						described = false;
+						break;
+					}
+
+					description.append(transformer.name()).append('\0').append(changes).append('\0');
+				}
+
+				if (described && !description.isEmpty()) {
+					classes.put(className, Checksum.sha1Hex(description.toString().getBytes(StandardCharsets.UTF_8)));
+				}
+			}
+		}
+
+		return classes;
+	}
+
+	private static String toClassName(String entryName) {
+		return entryName.substring(0, entryName.length() - ".class".length());
 	}
 
 	public boolean processMappings(MemoryMappingTree mappings, MappingProcessorContext context) {
@@ -149,16 +315,23 @@ public final class MinecraftJarProcessorManager {
 		return transformed;
 	}
 
-	record ProcessorEntry<S extends MinecraftJarProcessor.Spec>(S spec, MinecraftJarProcessor<S> processor, @Nullable MinecraftJarProcessor.MappingsProcessor<S> mappingsProcessor) {
+	private record ClassTransformerEntry(String name, MinecraftJarProcessor.ClassTransformer transformer) {
+	}
+
+	record ProcessorEntry<S extends MinecraftJarProcessor.Spec>(S spec, MinecraftJarProcessor<S> processor, @Nullable MinecraftJarProcessor.MappingsProcessor<S> mappingsProcessor, @Nullable MinecraftJarProcessor.ClassProcessor<S> classProcessor) {
 		@SuppressWarnings("unchecked")
 		ProcessorEntry(MinecraftJarProcessor<?> processor, MinecraftJarProcessor.Spec spec) {
-			this((S) Objects.requireNonNull(spec), (MinecraftJarProcessor<S>) processor, (MinecraftJarProcessor.MappingsProcessor<S>) processor.processMappings());
+			this((S) Objects.requireNonNull(spec), (MinecraftJarProcessor<S>) processor, (MinecraftJarProcessor.MappingsProcessor<S>) processor.processMappings(), (MinecraftJarProcessor.ClassProcessor<S>) processor.processClasses());
 		}
 
 		private void processJar(Path jar, ProcessorContext context) throws IOException {
 			processor().processJar(jar, spec, context);
 		}
 
+		private MinecraftJarProcessor.@Nullable ClassTransformer createClassTransformer(ProcessorContext context) throws IOException {
+			return Objects.requireNonNull(classProcessor()).createTransformer(spec, context);
+		}
+
 		private boolean processMappings(MemoryMappingTree mappings, MappingProcessorContext context) {
 			if (mappingsProcessor() == null) {
 				return false;
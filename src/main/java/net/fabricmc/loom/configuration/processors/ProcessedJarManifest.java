@@ -0,0 +1,105 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.processors;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import com.google.gson.JsonParseException;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+
+/**
+ * Records the changes the jar processors made to each class of a processed jar.
+ *
+ * @param loomVersion The Loom version that processed the jar, the processors may change how a class is processed
+ *                    without changing its description, so the classes are only reused by the same version
+ * @param input The jar that was processed
+ * @param output The processed jar
+ * @param classes The internal class name -> the hash of the descriptions of its changes, unchanged classes and classes
+ *                that cannot be described are not included
+ */
+record ProcessedJarManifest(String loomVersion, FileState input, FileState output, Map<String, String> classes) {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProcessedJarManifest.class);
+
+	ProcessedJarManifest(FileState input, FileState output, Map<String, String> classes) {
+		this(LoomGradlePlugin.LOOM_VERSION, input, output, classes);
+	}
+
+	/**
+	 * Read the manifest, only when it was written by this Loom version and the input and output jars have not changed
+	 * since.
+	 */
+	@Nullable
+	static ProcessedJarManifest read(Path manifestFile, Path input) throws IOException {
+		final ProcessedJarManifest manifest;
+
+		try (Reader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+			manifest = LoomGradlePlugin.GSON.fromJson(reader, ProcessedJarManifest.class);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (JsonParseException e) {
+			LOGGER.warn("Ignoring invalid processed jar manifest {}", manifestFile, e);
+			return null;
+		}
+
+		if (manifest == null || !LoomGradlePlugin.LOOM_VERSION.equals(manifest.loomVersion()) || manifest.input() == null || manifest.output() == null || manifest.classes() == null) {
+			return null;
+		}
+
+		if (!manifest.input().equals(FileState.of(input)) || !manifest.output().equals(FileState.of(Path.of(manifest.output().path())))) {
+			return null;
+		}
+
+		return manifest;
+	}
+
+	void write(Path manifestFile) throws IOException {
+		Files.createDirectories(manifestFile.getParent());
+
+		try (Writer writer = Files.newBufferedWriter(manifestFile, StandardCharsets.UTF_8)) {
+			LoomGradlePlugin.GSON.toJson(this, writer);
+		}
+	}
+
+	record FileState(String path, long size, long lastModified) {
+		static @Nullable FileState of(Path path) throws IOException {
+			if (Files.notExists(path)) {
+				return null;
+			}
+
+			return new FileState(path.toAbsolutePath().toString(), Files.size(path), Files.getLastModifiedTime(path).toMillis());
+		}
+	}
+}
@@ -25,6 +25,7 @@
 package net.fabricmc.loom.configuration.providers.forge;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 
 import org.gradle.api.Project;
@@ -34,6 +35,8 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
 import net.fabricmc.loom.extension.LoomFiles;
+import net.fabricmc.loom.util.ArtifactLock;
+import net.fabricmc.loom.util.ConfigurationTrace;
 
 public abstract class DependencyProvider {
 	private final Project project;
@@ -79,4 +82,13 @@ public abstract class DependencyProvider {
 	public boolean refreshDeps() {
 		return getExtension().refreshDeps();
 	}
+
+	/**
+	 * Lock the given artifacts for producing them, see {@link ArtifactLock}. The wait for the lock is traced on its own.
+	 */
+	protected ArtifactLock lockArtifacts(Path... artifacts) throws IOException {
+		try (ConfigurationTrace.Span span = getExtension().getConfigurationTrace().span("ArtifactLock.acquire", getClass().getSimpleName())) {
+			return ArtifactLock.exclusive(getDirectories().getArtifactLocks().toPath(), artifacts);
+		}
+	}
 }
@@ -50,7 +50,7 @@ public final class ForgeMigratedMappingConfiguration extends MappingConfiguratio
 	}
 
 	@Override
-	protected void manipulateMappings(Project project, Path mappingsJar) throws IOException {
+	protected void manipulateMappings(Project project, Path mappingsJar, boolean refresh) throws IOException {
 		LoomGradleExtension extension = LoomGradleExtension.get(project);
 
 		if (extension.getForgeSpec() <= 2) {
@@ -82,7 +82,7 @@ public final class ForgeMigratedMappingConfiguration extends MappingConfiguratio
 			hash = hash * 31 + migrator.setup(project, extension.getMinecraftProvider(), forgeCache, rawTinyMappingsWithNs, hasSrg, hasMojang);
 		}
 
-		if (!isOutdated(extension, hasSrg, hasMojang)) {
+		if (!isOutdated(refresh, hasSrg, hasMojang)) {
 			project.getLogger().info(":manipulated {} mappings are up to date", extension.getPlatform().get().id());
 			return;
 		}
@@ -111,8 +111,8 @@ public final class ForgeMigratedMappingConfiguration extends MappingConfiguratio
 		project.getLogger().info(":manipulated {} mappings in " + stopwatch.stop(), extension.getPlatform().get().id());
 	}
 
-	private boolean isOutdated(LoomGradleExtension extension, boolean hasSrg, boolean hasMojang) throws IOException {
-		if (extension.refreshDeps()) return true;
+	private boolean isOutdated(boolean refresh, boolean hasSrg, boolean hasMojang) throws IOException {
+		if (refresh) return true;
 		if (Files.notExists(this.tinyMappings)) return true;
 		if (hasSrg && Files.notExists(this.tinyMappingsWithSrg)) return true;
 		if (hasMojang && Files.notExists(this.tinyMappingsWithMojang)) return true;
@@ -44,6 +44,7 @@ import org.gradle.api.artifacts.repositories.IvyArtifactRepository;
 
 import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.configuration.mods.dependency.LocalMavenHelper;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.ZipUtils;
@@ -65,40 +66,51 @@ public class ForgeUserdevProvider extends DependencyProvider {
 		joinedPatches = getExtension().getForgeProvider().getGlobalCache().toPath().resolve("patches-joined.lzma");
 		Path configJson = getExtension().getForgeProvider().getGlobalCache().toPath().resolve("forge-config.json");
 
-		if (!userdevJar.exists() || Files.notExists(configJson) || refreshDeps()) {
-			File resolved = dependency.resolveFile().orElseThrow(() -> new RuntimeException("Could not resolve Forge userdev"));
-			Files.copy(resolved.toPath(), userdevJar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		try (ArtifactLock lock = lockArtifacts(userdevJar.toPath(), configJson, joinedPatches)) {
+			// The joined patches are extracted from the userdev jar, so they are extracted again with it
+			final boolean extract = lock.isInterrupted() || !userdevJar.exists() || Files.notExists(configJson) || refreshDeps();
 
-			byte[] bytes;
+			if (extract) {
+				File resolved = dependency.resolveFile().orElseThrow(() -> new RuntimeException("Could not resolve Forge userdev"));
+				Files.copy(resolved.toPath(), userdevJar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+				byte[] bytes;
 
-			try {
-				bytes = ZipUtils.unpack(resolved.toPath(), "config.json");
-			} catch (NoSuchFileException e) {
-				// If we cannot find a modern config json, try the legacy/FG2-era one
 				try {
-					bytes = ZipUtils.unpack(resolved.toPath(), "dev.json");
-				} catch (NoSuchFileException e1) {
-					e.addSuppressed(e1);
-					throw e;
+					bytes = ZipUtils.unpack(resolved.toPath(), "config.json");
+				} catch (NoSuchFileException e) {
+					// If we cannot find a modern config json, try the legacy/FG2-era one
+					try {
+						bytes = ZipUtils.unpack(resolved.toPath(), "dev.json");
+					} catch (NoSuchFileException e1) {
+						e.addSuppressed(e1);
+						throw e;
+					}
 				}
+
+				Files.write(configJson, bytes);
 			}
 
-			Files.write(configJson, bytes);
-		}
+			try (Reader reader = Files.newBufferedReader(configJson)) {
+				json = new Gson().fromJson(reader, JsonObject.class);
+				// Some Forge versions for 1.13.2 specify mcp, but have spec=1. We just "hack" this here.
+				forgeSpec = json.has("mcp") ? Math.max(2, json.get("spec").getAsInt()) : 1;
+
+				if (forgeSpec <= 1) {
+					json = createManifestFromForgeGradle2(dependency, json);
+				} else if (forgeSpec <= 2) {
+					addLegacyMCPRepo();
+				}
 
-		try (Reader reader = Files.newBufferedReader(configJson)) {
-			json = new Gson().fromJson(reader, JsonObject.class);
-			// Some Forge versions for 1.13.2 specify mcp, but have spec=1. We just "hack" this here.
-			forgeSpec = json.has("mcp") ? Math.max(2, json.get("spec").getAsInt()) : 1;
+				config = UserdevConfig.CODEC.parse(JsonOps.INSTANCE, json)
+						.getOrThrow(false, msg -> getProject().getLogger().error("Couldn't read userdev config, {}", msg));
+			}
 
-			if (forgeSpec <= 1) {
-				json = createManifestFromForgeGradle2(dependency, json);
-			} else if (forgeSpec <= 2) {
-				addLegacyMCPRepo();
+			if (forgeSpec >= 2 && (extract || Files.notExists(joinedPatches))) {
+				Files.write(joinedPatches, ZipUtils.unpack(userdevJar.toPath(), config.binpatches()));
 			}
 
-			config = UserdevConfig.CODEC.parse(JsonOps.INSTANCE, json)
-					.getOrThrow(false, msg -> getProject().getLogger().error("Couldn't read userdev config, {}", msg));
+			lock.complete();
 		}
 
 		addDependency(config.mcp(), Constants.Configurations.MCP_CONFIG);
@@ -108,10 +120,6 @@ public class ForgeUserdevProvider extends DependencyProvider {
 		}
 
 		addDependency(config.universal(), Constants.Configurations.FORGE_UNIVERSAL);
-
-		if (forgeSpec >= 2 && Files.notExists(joinedPatches)) {
-			Files.write(joinedPatches, ZipUtils.unpack(userdevJar.toPath(), config.binpatches()));
-		}
 	}
 
 	private JsonObject createManifestFromForgeGradle2(DependencyInfo dependency, JsonObject fg2Json) throws IOException {
@@ -28,15 +28,17 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -52,41 +54,44 @@ import java.util.stream.Stream;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import de.oceanlabs.mcp.mcinjector.adaptors.ParameterAnnotationFixer;
+import dev.architectury.at.AccessTransformSet;
+import dev.architectury.at.io.AccessTransformFormats;
 import dev.architectury.loom.forge.UserdevConfig;
 import dev.architectury.loom.util.MappingOption;
 import dev.architectury.loom.util.TempFiles;
 import org.gradle.api.Project;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
-import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
-import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.tree.ClassNode;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.build.IntermediaryNamespaces;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
+import net.fabricmc.loom.configuration.accesstransformer.AccessTransformerApplier;
 import net.fabricmc.loom.configuration.accesstransformer.AccessTransformerJarProcessor;
 import net.fabricmc.loom.configuration.providers.forge.mcpconfig.McpConfigProvider;
 import net.fabricmc.loom.configuration.providers.forge.mcpconfig.McpExecutor;
+import net.fabricmc.loom.configuration.providers.forge.mcpconfig.McpStepCache;
 import net.fabricmc.loom.configuration.providers.forge.minecraft.ForgeMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.mappings.TinyMappingsService;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.DependencyDownloader;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.ForgeToolExecutor;
 import net.fabricmc.loom.util.MappingsProviderVerbose;
-import net.fabricmc.loom.util.ThreadingUtils;
 import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.function.FsPathConsumer;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.loom.util.srg.CoreModClassRemapper;
 import net.fabricmc.loom.util.srg.InnerClassRemapper;
+import net.fabricmc.loom.util.zip.ClassTransformerPipeline;
 import net.fabricmc.mappingio.tree.MappingTree;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.tinyremapper.InputTag;
@@ -98,6 +103,7 @@ public class MinecraftPatchedProvider {
 	private static final String LOOM_PATCH_VERSION_KEY = "Loom-Patch-Version";
 	private static final String CURRENT_LOOM_PATCH_VERSION = "9+essential.1";
 	private static final String NAME_MAPPING_SERVICE_PATH = "/inject/META-INF/services/cpw.mods.modlauncher.api.INameMappingService";
+	private static final Pattern VIGNETTE_PARAMETERS = Pattern.compile("p_[0-9a-zA-Z]+_(?:[0-9a-zA-Z]+_)?");
 
 	protected final Project project;
 	protected final Logger logger;
@@ -133,6 +139,17 @@ public class MinecraftPatchedProvider {
 		this.type = type;
 	}
 
+	/**
+	 * Record whether the outputs had to be created in the span, along with the size of the jars when they were.
+	 */
+	protected static void traceJars(ConfigurationTrace.Span span, boolean created, List<Path> inputs, List<Path> outputs) {
+		span.cacheHit(!created);
+
+		if (created) {
+			span.read(inputs).written(outputs);
+		}
+	}
+
 	private LoomGradleExtension getExtension() {
 		return LoomGradleExtension.get(project);
 	}
@@ -172,8 +189,8 @@ public class MinecraftPatchedProvider {
 		return files;
 	}
 
-	private void checkCache() throws IOException {
-		if (getExtension().refreshDeps() || Stream.of(getGlobalCaches()).anyMatch(Files::notExists)
+	private void checkCache(boolean interrupted) throws IOException {
+		if (interrupted || getExtension().refreshDeps() || Stream.of(getGlobalCaches()).anyMatch(Files::notExists)
 				|| !isPatchedJarUpToDate(minecraftPatchedJar)) {
 			cleanAllCache();
 		}
@@ -181,38 +198,53 @@ public class MinecraftPatchedProvider {
 
 	public void provide() throws Exception {
 		initPatchedFiles();
-		checkCache();
 
-		this.dirty = false;
+		try (ArtifactLock lock = lockPatchedJars();
+				ConfigurationTrace.Span span = getExtension().getConfigurationTrace().span("MinecraftPatchedProvider.provide", type.id)) {
+			checkCache(lock.isInterrupted());
 
-		if (Files.notExists(minecraftIntermediateJar)) {
-			this.dirty = true;
+			this.dirty = false;
 
-			try (var tempFiles = new TempFiles()) {
-				McpExecutor executor = createMcpExecutor(tempFiles.directory("loom-mcp"));
-				Path output = executor.enqueue("rename").execute();
-				Files.copy(output, minecraftIntermediateJar);
+			if (Files.notExists(minecraftIntermediateJar)) {
+				this.dirty = true;
+
+				try (var tempFiles = new TempFiles()) {
+					McpExecutor executor = createMcpExecutor(tempFiles.directory("loom-mcp"));
+					Path output = executor.enqueue("rename").execute();
+					Files.copy(output, minecraftIntermediateJar);
+				}
 			}
-		}
 
-		if (dirty || Files.notExists(minecraftPatchedIntermediateJar)) {
-			this.dirty = true;
-			patchJars();
-		}
+			if (dirty || Files.notExists(minecraftPatchedIntermediateJar)) {
+				this.dirty = true;
+				patchJars();
+			}
 
-		if (dirty || Files.notExists(minecraftPatchedIntermediateAtJar)) {
-			this.dirty = true;
-			accessTransformForge();
+			if (dirty || Files.notExists(minecraftPatchedIntermediateAtJar)) {
+				this.dirty = true;
+				accessTransformForge();
+			}
+
+			lock.complete();
+			traceJars(span, dirty, minecraftProvider.getMinecraftJars(), List.of(minecraftIntermediateJar, minecraftPatchedIntermediateJar, minecraftPatchedIntermediateAtJar));
 		}
 	}
 
 	public void remapJar() throws Exception {
-		if (dirty) {
-			try (var serviceManager = new ScopedSharedServiceManager()) {
-				remapPatchedJar(serviceManager);
+		try (ArtifactLock lock = lockPatchedJars();
+				ConfigurationTrace.Span span = getExtension().getConfigurationTrace().span("MinecraftPatchedProvider.remapJar", type.id)) {
+			final boolean remap = dirty || lock.isInterrupted();
+
+			if (remap) {
+				try (var serviceManager = new ScopedSharedServiceManager()) {
+					remapPatchedJar(serviceManager);
+				}
+
+				fillClientExtraJar();
 			}
 
-			fillClientExtraJar();
+			lock.complete();
+			traceJars(span, remap, List.of(minecraftPatchedIntermediateAtJar, minecraftProvider.getMinecraftClientJar().toPath()), List.of(minecraftPatchedJar, minecraftClientExtra));
 		}
 
 		DependencyProvider.addDependency(project, minecraftClientExtra, Constants.Configurations.FORGE_EXTRA);
@@ -245,92 +277,40 @@ public class MinecraftPatchedProvider {
 		return remapper;
 	}
 
-	private void fixParameterAnnotation(Path jarFile) throws Exception {
-		logger.info(":fixing parameter annotations for " + jarFile.toAbsolutePath());
-		Stopwatch stopwatch = Stopwatch.createStarted();
-
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jarFile, false)) {
-			ThreadingUtils.TaskCompleter completer = ThreadingUtils.taskCompleter();
+	private ClassTransformerPipeline createPatchedJarPipeline() {
+		final ClassTransformerPipeline pipeline = new ClassTransformerPipeline();
+		pipeline.add(MinecraftPatchedProvider::deleteParameterNames);
 
-			for (Path file : (Iterable<? extends Path>) Files.walk(fs.getPath("/"))::iterator) {
-				if (!file.toString().endsWith(".class")) continue;
-
-				completer.add(() -> {
-					byte[] bytes = Files.readAllBytes(file);
-					ClassReader reader = new ClassReader(bytes);
-					ClassNode node = new ClassNode();
-					ClassVisitor visitor = new ParameterAnnotationFixer(node, null);
-					reader.accept(visitor, 0);
-
-					ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-					node.accept(writer);
-					byte[] out = writer.toByteArray();
-
-					if (!Arrays.equals(bytes, out)) {
-						Files.delete(file);
-						Files.write(file, out);
-					}
-				});
-			}
-
-			completer.complete();
+		if (getExtension().isForgeLikeAndNotOfficial()) {
+			pipeline.addTree(node -> new ParameterAnnotationFixer(node, null));
 		}
 
-		logger.info(":fixed parameter annotations for " + jarFile.toAbsolutePath() + " in " + stopwatch);
+		return pipeline;
 	}
 
-	private void deleteParameterNames(Path jarFile) throws Exception {
-		logger.info(":deleting parameter names for " + jarFile.toAbsolutePath());
-		Stopwatch stopwatch = Stopwatch.createStarted();
-
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jarFile, false)) {
-			ThreadingUtils.TaskCompleter completer = ThreadingUtils.taskCompleter();
-			Pattern vignetteParameters = Pattern.compile("p_[0-9a-zA-Z]+_(?:[0-9a-zA-Z]+_)?");
-
-			for (Path file : (Iterable<? extends Path>) Files.walk(fs.getPath("/"))::iterator) {
-				if (!file.toString().endsWith(".class")) continue;
-
-				completer.add(() -> {
-					byte[] bytes = Files.readAllBytes(file);
-					ClassReader reader = new ClassReader(bytes);
-					ClassWriter writer = new ClassWriter(0);
-
-					reader.accept(new ClassVisitor(Opcodes.ASM9, writer) {
-						@Override
-						public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
-							return new MethodVisitor(Opcodes.ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
-								@Override
-								public void visitParameter(String name, int access) {
-									if (name != null && vignetteParameters.matcher(name).matches()) {
-										super.visitParameter(null, access);
-									} else {
-										super.visitParameter(name, access);
-									}
-								}
-
-								@Override
-								public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
-									if (!vignetteParameters.matcher(name).matches()) {
-										super.visitLocalVariable(name, descriptor, signature, start, end, index);
-									}
-								}
-							};
+	private static ClassVisitor deleteParameterNames(ClassVisitor next) {
+		return new ClassVisitor(Constants.ASM_VERSION, next) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				return new MethodVisitor(Constants.ASM_VERSION, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+					@Override
+					public void visitParameter(String name, int access) {
+						if (name != null && VIGNETTE_PARAMETERS.matcher(name).matches()) {
+							super.visitParameter(null, access);
+						} else {
+							super.visitParameter(name, access);
 						}
-					}, 0);
-
-					byte[] out = writer.toByteArray();
+					}
 
-					if (!Arrays.equals(bytes, out)) {
-						Files.delete(file);
-						Files.write(file, out);
+					@Override
+					public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+						if (!VIGNETTE_PARAMETERS.matcher(name).matches()) {
+							super.visitLocalVariable(name, descriptor, signature, start, end, index);
+						}
 					}
-				});
+				};
 			}
-
-			completer.complete();
-		}
-
-		logger.info(":deleted parameter names for " + jarFile.toAbsolutePath() + " in " + stopwatch);
+		};
 	}
 
 	private File getForgeJar() {
@@ -384,19 +364,35 @@ public class MinecraftPatchedProvider {
 
 		Files.deleteIfExists(target);
 
-		try (var tempFiles = new TempFiles()) {
-			AccessTransformerJarProcessor.executeAt(project, input, target, args -> {
-				for (Path jar : atSources) {
-					byte[] atBytes = ZipUtils.unpackNullable(jar, Constants.Forge.ACCESS_TRANSFORMER_PATH);
-
-					if (atBytes != null) {
-						Path tmpFile = tempFiles.file("at-conf", ".cfg");
-						Files.write(tmpFile, atBytes, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-						args.add("--atFile");
-						args.add(tmpFile.toAbsolutePath().toString());
+		if (GradleUtils.getBooleanProperty(project, Constants.Properties.FORK_ACCESS_TRANSFORMERS)) {
+			try (var tempFiles = new TempFiles()) {
+				AccessTransformerJarProcessor.executeAt(project, input, target, args -> {
+					for (Path jar : atSources) {
+						byte[] atBytes = ZipUtils.unpackNullable(jar, Constants.Forge.ACCESS_TRANSFORMER_PATH);
+
+						if (atBytes != null) {
+							Path tmpFile = tempFiles.file("at-conf", ".cfg");
+							Files.write(tmpFile, atBytes, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+							args.add("--atFile");
+							args.add(tmpFile.toAbsolutePath().toString());
+						}
+					}
+				});
+			}
+		} else {
+			AccessTransformSet accessTransformSet = AccessTransformSet.create();
+
+			for (Path jar : atSources) {
+				byte[] atBytes = ZipUtils.unpackNullable(jar, Constants.Forge.ACCESS_TRANSFORMER_PATH);
+
+				if (atBytes != null) {
+					try (Reader reader = new InputStreamReader(new ByteArrayInputStream(atBytes), StandardCharsets.UTF_8)) {
+						accessTransformSet.merge(AccessTransformFormats.FML.read(reader));
 					}
 				}
-			});
+			}
+
+			new AccessTransformerApplier(accessTransformSet).apply(input, target);
 		}
 
 		project.getLogger().lifecycle(":access transformed minecraft in " + stopwatch.stop());
@@ -443,13 +439,16 @@ public class MinecraftPatchedProvider {
 	private void patchJars() throws Exception {
 		Stopwatch stopwatch = Stopwatch.createStarted();
 		logger.lifecycle(":patching jars");
-		patchJars(minecraftIntermediateJar, minecraftPatchedIntermediateJar, type.patches.apply(getExtension().getPatchProvider(), getExtension().getForgeUserdevProvider()));
 
-		copyMissingClasses(minecraftIntermediateJar, minecraftPatchedIntermediateJar);
-		deleteParameterNames(minecraftPatchedIntermediateJar);
-
-		if (getExtension().isForgeLikeAndNotOfficial()) {
-			fixParameterAnnotation(minecraftPatchedIntermediateJar);
+		try (var tempFiles = new TempFiles()) {
+			final Path binaryPatched = tempFiles.directory("loom-patch").resolve("patched.jar");
+			patchJars(minecraftIntermediateJar, binaryPatched, type.patches.apply(getExtension().getPatchProvider(), getExtension().getForgeUserdevProvider()));
+
+			// Add the classes missing from the patched jar, and fix the parameters of all classes in a single pass.
+			Stopwatch transformStopwatch = Stopwatch.createStarted();
+			Files.deleteIfExists(minecraftPatchedIntermediateJar);
+			createPatchedJarPipeline().transformJar(List.of(binaryPatched, minecraftIntermediateJar), minecraftPatchedIntermediateJar);
+			logger.info(":transformed patched classes in " + transformStopwatch.stop());
 		}
 
 		logger.lifecycle(":patched jars in " + stopwatch.stop());
@@ -574,7 +573,13 @@ public class MinecraftPatchedProvider {
 
 	public McpExecutor createMcpExecutor(Path cache) {
 		McpConfigProvider provider = getExtension().getMcpConfigProvider();
-		return new McpExecutor(project, minecraftProvider, cache, provider, type.mcpId);
+		McpExecutor executor = new McpExecutor(project, minecraftProvider, cache, provider, type.mcpId);
+
+		if (!GradleUtils.getBooleanProperty(project, Constants.Properties.DISABLE_MCP_STEP_CACHE)) {
+			executor.setStepCache(new McpStepCache(getExtension().getFiles().getMcpStepCache().toPath()));
+		}
+
+		return executor;
 	}
 
 	public Path getMinecraftIntermediateJar() {
@@ -585,6 +590,16 @@ public class MinecraftPatchedProvider {
 		return minecraftPatchedIntermediateJar;
 	}
 
+	/**
+	 * Lock the patched jars for producing them, they are locked as a whole using {@link #getMinecraftPatchedJar()}.
+	 * See {@link ArtifactLock}. The wait for the lock is traced on its own.
+	 */
+	protected ArtifactLock lockPatchedJars() throws IOException {
+		try (ConfigurationTrace.Span span = getExtension().getConfigurationTrace().span("ArtifactLock.acquire", type.id)) {
+			return ArtifactLock.exclusive(getExtension().getFiles().getArtifactLocks().toPath(), getMinecraftPatchedJar());
+		}
+	}
+
 	public Path getMinecraftPatchedJar() {
 		return minecraftPatchedJar;
 	}
@@ -51,6 +51,7 @@ import org.tukaani.xz.LZMAOutputStream;
 
 import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.configuration.providers.forge.fg2.Pack200Provider;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.FileSystemUtil;
 
@@ -66,21 +67,25 @@ public class PatchProvider extends DependencyProvider {
 	public void provide(DependencyInfo dependency) throws Exception {
 		init();
 
-		if (Files.notExists(clientPatches) || Files.notExists(serverPatches) || refreshDeps()) {
-			getProject().getLogger().info(":extracting forge patches");
-
-			Path installerJar = getExtension().isModernForgeLike()
-					? dependency.resolveFile().orElseThrow(() -> new RuntimeException("Could not resolve Forge installer")).toPath()
-					: getExtension().getForgeUniversalProvider().getForge().toPath();
-
-			try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(installerJar, false)) {
-				if (getExtension().isModernForgeLike()) {
-					Files.copy(fs.getPath("data", "client.lzma"), clientPatches, StandardCopyOption.REPLACE_EXISTING);
-					Files.copy(fs.getPath("data", "server.lzma"), serverPatches, StandardCopyOption.REPLACE_EXISTING);
-				} else {
-					splitAndConvertLegacyPatches(fs.getPath("binpatches.pack.lzma"));
+		try (ArtifactLock lock = lockArtifacts(clientPatches, serverPatches)) {
+			if (lock.isInterrupted() || Files.notExists(clientPatches) || Files.notExists(serverPatches) || refreshDeps()) {
+				getProject().getLogger().info(":extracting forge patches");
+
+				Path installerJar = getExtension().isModernForgeLike()
+						? dependency.resolveFile().orElseThrow(() -> new RuntimeException("Could not resolve Forge installer")).toPath()
+						: getExtension().getForgeUniversalProvider().getForge().toPath();
+
+				try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(installerJar, false)) {
+					if (getExtension().isModernForgeLike()) {
+						Files.copy(fs.getPath("data", "client.lzma"), clientPatches, StandardCopyOption.REPLACE_EXISTING);
+						Files.copy(fs.getPath("data", "server.lzma"), serverPatches, StandardCopyOption.REPLACE_EXISTING);
+					} else {
+						splitAndConvertLegacyPatches(fs.getPath("binpatches.pack.lzma"));
+					}
 				}
 			}
+
+			lock.complete();
 		}
 	}
 
@@ -58,6 +58,7 @@ import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.configuration.providers.mappings.GradleMappingContext;
 import net.fabricmc.loom.configuration.providers.mappings.mojmap.MojangMappingLayer;
 import net.fabricmc.loom.configuration.providers.mappings.mojmap.MojangMappingsSpec;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.srg.Tsrg2Utils;
@@ -85,24 +86,28 @@ public class SrgProvider extends DependencyProvider {
 	public void provide(DependencyInfo dependency) throws Exception {
 		init(dependency.getDependency().getVersion());
 
-		if (!Files.exists(srg) || refreshDeps()) {
-			Path srgZip = dependency.resolveFile().orElseThrow(() -> new RuntimeException("Could not resolve srg")).toPath();
+		try (ArtifactLock lock = lockArtifacts(srg)) {
+			if (lock.isInterrupted() || !Files.exists(srg) || refreshDeps()) {
+				Path srgZip = dependency.resolveFile().orElseThrow(() -> new RuntimeException("Could not resolve srg")).toPath();
 
-			try {
-				Files.write(srg, ZipUtils.unpack(srgZip, "config/joined.tsrg"));
-			} catch (NoSuchFileException e) {
 				try {
-					// FG2-era MCP uses the older SRG format, convert it on the fly
-					byte[] srgBytes = ZipUtils.unpack(srgZip, "joined.srg");
-
-					try (Reader reader = new InputStreamReader(new ByteArrayInputStream(srgBytes)); Writer writer = Files.newBufferedWriter(srg)) {
-						new TSrgWriter(writer).write(new SrgReader(reader).read());
+					Files.write(srg, ZipUtils.unpack(srgZip, "config/joined.tsrg"));
+				} catch (NoSuchFileException e) {
+					try {
+						// FG2-era MCP uses the older SRG format, convert it on the fly
+						byte[] srgBytes = ZipUtils.unpack(srgZip, "joined.srg");
+
+						try (Reader reader = new InputStreamReader(new ByteArrayInputStream(srgBytes)); Writer writer = Files.newBufferedWriter(srg)) {
+							new TSrgWriter(writer).write(new SrgReader(reader).read());
+						}
+					} catch (NoSuchFileException e1) {
+						e.addSuppressed(e1);
+						throw e;
 					}
-				} catch (NoSuchFileException e1) {
-					e.addSuppressed(e1);
-					throw e;
 				}
 			}
+
+			lock.complete();
 		}
 
 		try (BufferedReader reader = Files.newBufferedReader(srg)) {
@@ -110,49 +115,53 @@ public class SrgProvider extends DependencyProvider {
 		}
 
 		if (isTsrgV2) {
-			if (!Files.exists(mergedMojangRaw) || !Files.exists(mergedMojang) || !Files.exists(mergedMojangTrimmed) || refreshDeps()) {
-				Stopwatch stopwatch = Stopwatch.createStarted();
-				getProject().getLogger().lifecycle(":merging mappings (InstallerTools, srg + mojmap)");
-				PrintStream out = System.out;
-				PrintStream err = System.err;
-
-				if (getProject().getGradle().getStartParameter().getLogLevel().compareTo(LogLevel.LIFECYCLE) >= 0) {
-					System.setOut(new PrintStream(NullOutputStream.NULL_OUTPUT_STREAM));
-					System.setErr(new PrintStream(NullOutputStream.NULL_OUTPUT_STREAM));
-				}
+			try (ArtifactLock lock = lockArtifacts(mergedMojangRaw, mergedMojang, mergedMojangTrimmed)) {
+				if (lock.isInterrupted() || !Files.exists(mergedMojangRaw) || !Files.exists(mergedMojang) || !Files.exists(mergedMojangTrimmed) || refreshDeps()) {
+					Stopwatch stopwatch = Stopwatch.createStarted();
+					getProject().getLogger().lifecycle(":merging mappings (InstallerTools, srg + mojmap)");
+					PrintStream out = System.out;
+					PrintStream err = System.err;
+
+					if (getProject().getGradle().getStartParameter().getLogLevel().compareTo(LogLevel.LIFECYCLE) >= 0) {
+						System.setOut(new PrintStream(NullOutputStream.NULL_OUTPUT_STREAM));
+						System.setErr(new PrintStream(NullOutputStream.NULL_OUTPUT_STREAM));
+					}
 
-				Files.deleteIfExists(mergedMojangRaw);
-				Files.deleteIfExists(mergedMojang);
-				net.minecraftforge.installertools.ConsoleTool.main(new String[] {
-						"--task",
-						"MERGE_MAPPING",
-						"--left",
-						getSrg().toAbsolutePath().toString(),
-						"--right",
-						getMojmapTsrg2(getProject(), getExtension()).toAbsolutePath().toString(),
-						"--classes",
-						"--output",
-						mergedMojangRaw.toAbsolutePath().toString()
-				});
-
-				MemoryMappingTree tree = new MemoryMappingTree();
-				MappingReader.read(new StringReader(FileUtils.readFileToString(mergedMojangRaw.toFile(), StandardCharsets.UTF_8)), new FieldDescWrappingVisitor(tree));
-				Files.writeString(mergedMojang, Tsrg2Writer.serialize(tree), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-
-				for (MappingTree.ClassMapping classDef : tree.getClasses()) {
-					for (MappingTree.MethodMapping methodDef : classDef.getMethods()) {
-						methodDef.getArgs().clear();
+					Files.deleteIfExists(mergedMojangRaw);
+					Files.deleteIfExists(mergedMojang);
+					net.minecraftforge.installertools.ConsoleTool.main(new String[] {
+							"--task",
+							"MERGE_MAPPING",
+							"--left",
+							getSrg().toAbsolutePath().toString(),
+							"--right",
+							getMojmapTsrg2(getProject(), getExtension()).toAbsolutePath().toString(),
+							"--classes",
+							"--output",
+							mergedMojangRaw.toAbsolutePath().toString()
+					});
+
+					MemoryMappingTree tree = new MemoryMappingTree();
+					MappingReader.read(new StringReader(FileUtils.readFileToString(mergedMojangRaw.toFile(), StandardCharsets.UTF_8)), new FieldDescWrappingVisitor(tree));
+					Files.writeString(mergedMojang, Tsrg2Writer.serialize(tree), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+
+					for (MappingTree.ClassMapping classDef : tree.getClasses()) {
+						for (MappingTree.MethodMapping methodDef : classDef.getMethods()) {
+							methodDef.getArgs().clear();
+						}
 					}
-				}
 
-				Files.writeString(mergedMojangTrimmed, Tsrg2Writer.serialize(tree), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+					Files.writeString(mergedMojangTrimmed, Tsrg2Writer.serialize(tree), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
 
-				if (getProject().getGradle().getStartParameter().getLogLevel().compareTo(LogLevel.LIFECYCLE) >= 0) {
-					System.setOut(out);
-					System.setErr(err);
+					if (getProject().getGradle().getStartParameter().getLogLevel().compareTo(LogLevel.LIFECYCLE) >= 0) {
+						System.setOut(out);
+						System.setErr(err);
+					}
+
+					getProject().getLogger().lifecycle(":merged mappings (InstallerTools, srg + mojmap) in " + stopwatch.stop());
 				}
 
-				getProject().getLogger().lifecycle(":merged mappings (InstallerTools, srg + mojmap) in " + stopwatch.stop());
+				lock.complete();
 			}
 		}
 	}
@@ -237,12 +246,16 @@ public class SrgProvider extends DependencyProvider {
 
 		Path mojmapTsrg = extension.getMinecraftProvider().dir("forge").toPath().resolve("mojmap.tsrg");
 
-		if (Files.notExists(mojmapTsrg) || extension.refreshDeps()) {
-			try (BufferedWriter writer = Files.newBufferedWriter(mojmapTsrg, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-				GradleMappingContext context = new GradleMappingContext(project, "tmp-mojmap");
-				Tsrg2Utils.writeTsrg(visitor -> visitMojangMappings(visitor, context),
-						MappingsNamespace.NAMED.toString(), false, writer);
+		try (ArtifactLock lock = ArtifactLock.exclusive(extension.getFiles().getArtifactLocks().toPath(), mojmapTsrg)) {
+			if (lock.isInterrupted() || Files.notExists(mojmapTsrg) || extension.refreshDeps()) {
+				try (BufferedWriter writer = Files.newBufferedWriter(mojmapTsrg, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					GradleMappingContext context = new GradleMappingContext(project, "tmp-mojmap");
+					Tsrg2Utils.writeTsrg(visitor -> visitMojangMappings(visitor, context),
+							MappingsNamespace.NAMED.toString(), false, writer);
+				}
 			}
+
+			lock.complete();
 		}
 
 		mojmapTsrgMap.put(minecraftVersion, mojmapTsrg);
@@ -255,13 +268,17 @@ public class SrgProvider extends DependencyProvider {
 
 		Path mojmapTsrg2 = extension.getMinecraftProvider().dir("forge").toPath().resolve("mojmap.tsrg2");
 
-		if (Files.notExists(mojmapTsrg2) || extension.refreshDeps()) {
-			try (BufferedWriter writer = Files.newBufferedWriter(mojmapTsrg2, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-				GradleMappingContext context = new GradleMappingContext(project, "tmp-mojmap");
-				MemoryMappingTree tree = new MemoryMappingTree();
-				visitMojangMappings(tree, context);
-				writer.write(Tsrg2Writer.serialize(tree));
+		try (ArtifactLock lock = ArtifactLock.exclusive(extension.getFiles().getArtifactLocks().toPath(), mojmapTsrg2)) {
+			if (lock.isInterrupted() || Files.notExists(mojmapTsrg2) || extension.refreshDeps()) {
+				try (BufferedWriter writer = Files.newBufferedWriter(mojmapTsrg2, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					GradleMappingContext context = new GradleMappingContext(project, "tmp-mojmap");
+					MemoryMappingTree tree = new MemoryMappingTree();
+					visitMojangMappings(tree, context);
+					writer.write(Tsrg2Writer.serialize(tree));
+				}
 			}
+
+			lock.complete();
 		}
 
 		mojmapTsrg2Map.put(minecraftVersion, mojmapTsrg2);
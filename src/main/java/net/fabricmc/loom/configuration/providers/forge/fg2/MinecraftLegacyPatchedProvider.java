@@ -41,6 +41,7 @@ import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.jar.Attributes;
@@ -62,11 +63,13 @@ import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
 import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
 import net.fabricmc.loom.configuration.providers.forge.ForgeProvider;
 import net.fabricmc.loom.configuration.providers.forge.MinecraftPatchedProvider;
 import net.fabricmc.loom.configuration.providers.forge.PatchProvider;
 import net.fabricmc.loom.configuration.providers.mappings.TinyMappingsService;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.Pair;
@@ -115,7 +118,11 @@ public class MinecraftLegacyPatchedProvider extends MinecraftPatchedProvider {
 		minecraftPatchedAtJar = forgeWorkingDir.resolve(type.id + "-at-patched.jar");
 		forgeJar = forgeWorkingDir.resolve("forge.jar");
 
-		checkCache();
+		try (ArtifactLock lock = lockPatchedJars();
+				ConfigurationTrace.Span span = getExtension().getConfigurationTrace().span("MinecraftPatchedProvider.provide", type.id)) {
+			checkCache(lock.isInterrupted());
+			lock.complete();
+		}
 
 		dirty = false;
 	}
@@ -136,8 +143,8 @@ public class MinecraftLegacyPatchedProvider extends MinecraftPatchedProvider {
 		};
 	}
 
-	protected void checkCache() throws IOException {
-		if (getExtension().refreshDeps() || Stream.of(getGlobalCaches()).anyMatch(Files::notExists)
+	protected void checkCache(boolean interrupted) throws IOException {
+		if (interrupted || getExtension().refreshDeps() || Stream.of(getGlobalCaches()).anyMatch(Files::notExists)
 				|| !isPatchedJarUpToDate(minecraftPatchedAtJar) || !isPatchedJarUpToDate(forgeJar)) {
 			cleanAllCache();
 		}
@@ -145,36 +152,46 @@ public class MinecraftLegacyPatchedProvider extends MinecraftPatchedProvider {
 
 	@Override
 	public void remapJar() throws Exception {
-		if (Files.notExists(forgeJar)) {
-			dirty = true;
+		try (ArtifactLock lock = lockPatchedJars();
+				ConfigurationTrace.Span span = getExtension().getConfigurationTrace().span("MinecraftPatchedProvider.remapJar", type.id)) {
+			if (lock.isInterrupted()) {
+				cleanAllCache();
+			}
+
+			if (Files.notExists(forgeJar)) {
+				dirty = true;
 
-			try (var serviceManager = new ScopedSharedServiceManager()) {
-				patchForge(serviceManager);
+				try (var serviceManager = new ScopedSharedServiceManager()) {
+					patchForge(serviceManager);
+				}
+
+				applyLoomPatchVersion(forgeJar);
 			}
 
-			applyLoomPatchVersion(forgeJar);
-		}
+			if (Files.notExists(minecraftClientPatchedJar) || Files.notExists(minecraftServerPatchedJar)) {
+				dirty = true;
+				patchJars();
+			}
 
-		if (Files.notExists(minecraftClientPatchedJar) || Files.notExists(minecraftServerPatchedJar)) {
-			dirty = true;
-			patchJars();
-		}
+			if (type == Type.MERGED && (dirty || Files.notExists(minecraftMergedPatchedJar))) {
+				dirty = true;
+				mergeJars();
+			}
 
-		if (type == Type.MERGED && (dirty || Files.notExists(minecraftMergedPatchedJar))) {
-			dirty = true;
-			mergeJars();
-		}
+			if (dirty || Files.notExists(minecraftPatchedAtJar)) {
+				dirty = true;
+				Path minecraftPatchedJar = switch (type) {
+				case CLIENT_ONLY -> minecraftClientPatchedJar;
+				case SERVER_ONLY -> minecraftServerPatchedJar;
+				case MERGED -> minecraftMergedPatchedJar;
+				};
+				accessTransform(project, minecraftPatchedJar, minecraftPatchedAtJar);
+				walkFileSystems(forgeJar, minecraftPatchedAtJar, (path) -> true, this::copyReplacing);
+				applyLoomPatchVersion(minecraftPatchedAtJar);
+			}
 
-		if (dirty || Files.notExists(minecraftPatchedAtJar)) {
-			dirty = true;
-			Path minecraftPatchedJar = switch (type) {
-			case CLIENT_ONLY -> minecraftClientPatchedJar;
-			case SERVER_ONLY -> minecraftServerPatchedJar;
-			case MERGED -> minecraftMergedPatchedJar;
-			};
-			accessTransform(project, minecraftPatchedJar, minecraftPatchedAtJar);
-			walkFileSystems(forgeJar, minecraftPatchedAtJar, (path) -> true, this::copyReplacing);
-			applyLoomPatchVersion(minecraftPatchedAtJar);
+			lock.complete();
+			traceJars(span, dirty, minecraftProvider.getMinecraftJars(), List.of(getGlobalCaches()));
 		}
 	}
 
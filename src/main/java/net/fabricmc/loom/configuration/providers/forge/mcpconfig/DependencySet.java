@@ -30,6 +30,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -88,21 +89,36 @@ public final class DependencySet {
 			McpConfigStep data = allSteps.get(step);
 			if (!allSteps.containsKey(step) || skipRules.stream().anyMatch(rule -> rule.test(data))) continue;
 			steps.add(step);
+			queue.addAll(getDependencies(step));
+		}
+
+		return steps;
+	}
 
-			if (!ignoreDependenciesFilter.test(allSteps.get(step))) {
-				allSteps.get(step).config().values().forEach(value -> {
-					if (value instanceof ConfigValue.Variable var) {
-						String name = var.name();
-
-						if (name.endsWith(PREVIOUS_OUTPUT_SUFFIX) && name.length() > PREVIOUS_OUTPUT_SUFFIX.length()) {
-							String substep = name.substring(0, name.length() - PREVIOUS_OUTPUT_SUFFIX.length());
-							queue.offer(substep);
-						}
-					}
-				});
+	/**
+	 * {@return the names of the steps whose outputs are used by the step}
+	 * The returned steps might not exist or be skipped.
+	 *
+	 * @param step the name of the step
+	 */
+	public Set<String> getDependencies(String step) {
+		McpConfigStep data = allSteps.get(step);
+		Set<String> dependencies = new LinkedHashSet<>();
+
+		if (data == null || ignoreDependenciesFilter.test(data)) {
+			return dependencies;
+		}
+
+		for (ConfigValue value : data.config().values()) {
+			if (value instanceof ConfigValue.Variable var) {
+				String name = var.name();
+
+				if (name.endsWith(PREVIOUS_OUTPUT_SUFFIX) && name.length() > PREVIOUS_OUTPUT_SUFFIX.length()) {
+					dependencies.add(name.substring(0, name.length() - PREVIOUS_OUTPUT_SUFFIX.length()));
+				}
 			}
 		}
 
-		return steps;
+		return dependencies;
 	}
 }
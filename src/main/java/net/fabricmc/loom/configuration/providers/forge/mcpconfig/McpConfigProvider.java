@@ -24,6 +24,7 @@
 
 package net.fabricmc.loom.configuration.providers.forge.mcpconfig;
 
+import java.io.IOException;
 import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -33,9 +34,11 @@ import java.util.Objects;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import org.gradle.api.Project;
+import org.jetbrains.annotations.VisibleForTesting;
 
 import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.configuration.providers.forge.DependencyProvider;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.DeletingFileVisitor;
 import net.fabricmc.loom.util.ZipUtils;
@@ -87,17 +90,7 @@ public class McpConfigProvider extends DependencyProvider {
 
 		Path mcpZip = dependency.resolveFile().orElseThrow(() -> new RuntimeException("Could not resolve MCPConfig")).toPath();
 
-		if (!Files.exists(mcp) || !Files.exists(unpacked) || refreshDeps()) {
-			Files.copy(mcpZip, mcp, StandardCopyOption.REPLACE_EXISTING);
-
-			// Delete existing files
-			if (Files.exists(unpacked)) {
-				Files.walkFileTree(unpacked, new DeletingFileVisitor());
-			}
-
-			Files.createDirectory(unpacked);
-			ZipUtils.unpackAll(mcp, unpacked);
-		}
+		unpack(getDirectories().getArtifactLocks().toPath(), mcpZip, mcp, unpacked, refreshDeps());
 
 		JsonObject json;
 
@@ -108,6 +101,34 @@ public class McpConfigProvider extends DependencyProvider {
 		data = McpConfigData.fromJson(json);
 	}
 
+	/**
+	 * Copies the MCPConfig zip to {@code mcp} and unpacks it to {@code unpacked}, unless that was already done by a
+	 * producer that completed, see {@link ArtifactLock}.
+	 *
+	 * @return Whether the zip was copied and unpacked
+	 */
+	@VisibleForTesting
+	public static boolean unpack(Path locksDir, Path mcpZip, Path mcp, Path unpacked, boolean refresh) throws IOException {
+		try (ArtifactLock lock = ArtifactLock.exclusive(locksDir, mcp, unpacked)) {
+			final boolean unpack = lock.isInterrupted() || !Files.exists(mcp) || !Files.exists(unpacked) || refresh;
+
+			if (unpack) {
+				Files.copy(mcpZip, mcp, StandardCopyOption.REPLACE_EXISTING);
+
+				// Delete existing files
+				if (Files.exists(unpacked)) {
+					Files.walkFileTree(unpacked, new DeletingFileVisitor());
+				}
+
+				Files.createDirectory(unpacked);
+				ZipUtils.unpackAll(mcp, unpacked);
+			}
+
+			lock.complete();
+			return unpack;
+		}
+	}
+
 	private void init(String version) {
 		String mcpName = getExtension().isNeoForge() ? "neoform" : "mcp";
 		Path dir = getMinecraftProvider().dir(mcpName + "/" + version).toPath();
@@ -39,6 +39,10 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.hash.Hashing;
@@ -74,6 +78,7 @@ import net.fabricmc.loom.util.gradle.GradleUtils;
 
 public final class McpExecutor {
 	private static final LogLevel STEP_LOG_LEVEL = LogLevel.LIFECYCLE;
+	private static final int DEFAULT_MAX_PARALLEL_TOOLS = 2;
 	private final Project project;
 	private final MinecraftProvider minecraftProvider;
 	private final Path cache;
@@ -81,8 +86,10 @@ public final class McpExecutor {
 	private final DependencySet dependencySet;
 	private final Map<String, McpConfigFunction> functions;
 	private final Map<String, String> config = new HashMap<>();
-	private final Map<String, String> extraConfig = new HashMap<>();
+	private final Map<String, String> extraConfig = new ConcurrentHashMap<>();
+	private final Semaphore toolProcesses;
 	private @Nullable StepLogic.Provider stepLogicProvider = null;
+	private @Nullable McpStepCache stepCache = null;
 
 	public McpExecutor(Project project, MinecraftProvider minecraftProvider, Path cache, McpConfigProvider provider, String environment) {
 		this.project = project;
@@ -93,6 +100,7 @@ public final class McpExecutor {
 		this.dependencySet = new DependencySet(this.steps);
 		this.dependencySet.skip(step -> getStepLogic(step.name(), step.type()) instanceof NoOpLogic);
 		this.dependencySet.setIgnoreDependenciesFilter(step -> getStepLogic(step.name(), step.type()).hasNoContext());
+		this.toolProcesses = new Semaphore(Math.max(1, GradleUtils.getIntegerProperty(project, Constants.Properties.MCP_MAX_PARALLEL_TOOLS, DEFAULT_MAX_PARALLEL_TOOLS)));
 
 		checkMinecraftVersion(provider);
 		addDefaultFiles(provider, environment);
@@ -172,6 +180,10 @@ public final class McpExecutor {
 	}
 
 	private String resolve(McpConfigStep step, ConfigValue value) {
+		return resolve(step, value, false);
+	}
+
+	private String resolve(McpConfigStep step, ConfigValue value, boolean forCacheKey) {
 		return value.resolve(variable -> {
 			String name = variable.name();
 			@Nullable ConfigValue valueFromStep = step.config().get(name);
@@ -180,15 +192,21 @@ public final class McpExecutor {
 			// Also skip if it would recurse with the same variable.
 			if (valueFromStep != null && !valueFromStep.equals(variable)) {
 				// Otherwise, resolve the nested variable.
-				return resolve(step, valueFromStep);
+				return resolve(step, valueFromStep, forCacheKey);
 			}
 
-			if (config.containsKey(name)) {
+			if (forCacheKey && (name.equals(ConfigValue.OUTPUT) || name.equals(ConfigValue.LOG))) {
+				// These paths are only known when the step is executed, and don't affect the output.
+				return "{" + name + "}";
+			} else if (config.containsKey(name)) {
 				return config.get(name);
+			} else if (name.equals(ConfigValue.OUTPUT) && extraConfig.containsKey(step.name() + ConfigValue.PREVIOUS_OUTPUT_SUFFIX)) {
+				// Steps can run concurrently, so the current output is tracked for each step.
+				return extraConfig.get(step.name() + ConfigValue.PREVIOUS_OUTPUT_SUFFIX);
 			} else if (extraConfig.containsKey(name)) {
 				return extraConfig.get(name);
 			} else if (name.equals(ConfigValue.LOG)) {
-				return cache.resolve("log.log").toAbsolutePath().toString();
+				return cache.resolve(step.name() + ".log").toAbsolutePath().toString();
 			}
 
 			throw new IllegalArgumentException("Unknown MCP config variable: " + name);
@@ -226,30 +244,110 @@ public final class McpExecutor {
 	}
 
 	/**
-	 * Executes the specified steps.
+	 * Executes the specified steps. Steps that do not depend on each other's outputs are executed concurrently.
 	 *
 	 * @param steps the steps to execute
-	 * @return the output file of the last executed step
+	 * @return the output file of the last step
 	 */
 	public Path executeSteps(List<McpConfigStep> steps) throws IOException {
 		extraConfig.clear();
 
 		int totalSteps = steps.size();
-		int currentStepIndex = 0;
+		AtomicInteger currentStepIndex = new AtomicInteger();
+		Map<String, Set<String>> dependencies = new HashMap<>();
+
+		for (McpConfigStep step : steps) {
+			dependencies.put(step.name(), dependencySet.getDependencies(step.name()));
+		}
 
 		project.getLogger().log(STEP_LOG_LEVEL, ":executing {} MCP steps", totalSteps);
 
-		for (McpConfigStep currentStep : steps) {
-			currentStepIndex++;
+		if (stepCache != null) {
+			stepCache.cleanup();
+		}
+
+		Stopwatch totalStopwatch = Stopwatch.createStarted();
+		// Created here as the steps run on other threads, which must not use the project's services.
+		ForgeToolExecutor tools = ForgeToolExecutor.create(project);
+		McpStepScheduler scheduler = new McpStepScheduler();
+		List<McpStepScheduler.StepTiming> timings = scheduler.run(steps, dependencies, currentStep -> {
 			StepLogic stepLogic = getStepLogic(currentStep.name(), currentStep.type());
-			project.getLogger().log(STEP_LOG_LEVEL, ":step {}/{} - {}", currentStepIndex, totalSteps, stepLogic.getDisplayName(currentStep.name()));
+			project.getLogger().log(STEP_LOG_LEVEL, ":step {}/{} - {}", currentStepIndex.incrementAndGet(), totalSteps, stepLogic.getDisplayName(currentStep.name()));
 
 			Stopwatch stopwatch = Stopwatch.createStarted();
-			stepLogic.execute(new ExecutionContextImpl(currentStep));
+			ExecutionContextImpl context = new ExecutionContextImpl(currentStep, scheduler, tools);
+			@Nullable String cacheKey = getCacheKey(currentStep, stepLogic, context);
+			@Nullable Path cachedOutput = cacheKey != null ? stepCache.get(cacheKey) : null;
+
+			if (cachedOutput != null) {
+				context.setOutput(cachedOutput);
+				project.getLogger().log(STEP_LOG_LEVEL, ":{} restored from cache in {}", currentStep.name(), stopwatch.stop());
+				return;
+			}
+
+			stepLogic.execute(context);
+
+			if (cacheKey != null) {
+				context.setOutput(stepCache.put(cacheKey, Path.of(extraConfig.get(currentStep.name() + ConfigValue.PREVIOUS_OUTPUT_SUFFIX))));
+			}
+
 			project.getLogger().log(STEP_LOG_LEVEL, ":{} done in {}", currentStep.name(), stopwatch.stop());
+		});
+
+		logTimings(timings, totalStopwatch.stop());
+
+		McpConfigStep lastStep = steps.get(steps.size() - 1);
+		return Path.of(extraConfig.get(lastStep.name() + ConfigValue.PREVIOUS_OUTPUT_SUFFIX));
+	}
+
+	private @Nullable String getCacheKey(McpConfigStep step, StepLogic stepLogic, StepLogic.ExecutionContext context) throws IOException {
+		if (stepCache == null) {
+			return null;
+		}
+
+		@Nullable List<ConfigValue> inputs = stepLogic.getCacheInputs(context);
+
+		if (inputs == null) {
+			return null;
 		}
 
-		return Path.of(extraConfig.get(ConfigValue.OUTPUT));
+		McpStepCache.KeyBuilder key = stepCache.newKey(step.type());
+
+		for (Map.Entry<String, ConfigValue> entry : new TreeMap<>(step.config()).entrySet()) {
+			key.add("config:" + entry.getKey(), resolve(step, entry.getValue(), true));
+		}
+
+		for (int i = 0; i < inputs.size(); i++) {
+			key.add("input:" + i, resolve(step, inputs.get(i), true));
+		}
+
+		return key.build();
+	}
+
+	private void logTimings(List<McpStepScheduler.StepTiming> timings, Stopwatch total) {
+		List<McpStepScheduler.StepTiming> criticalPath = McpStepScheduler.criticalPath(timings);
+		long criticalPathNanos = criticalPath.stream().mapToLong(McpStepScheduler.StepTiming::durationNanos).sum();
+
+		project.getLogger().log(STEP_LOG_LEVEL, ":executed {} MCP steps in {}, critical path {} ({})",
+				timings.size(), total, formatNanos(criticalPathNanos), String.join(" -> ", CollectionUtil.map(criticalPath, McpStepScheduler.StepTiming::name)));
+
+		for (McpStepScheduler.StepTiming timing : timings) {
+			project.getLogger().info(":  {} took {}, started at {}{}", timing.name(), formatNanos(timing.durationNanos()),
+					formatNanos(timing.startNanos()), criticalPath.contains(timing) ? " (critical path)" : "");
+		}
+	}
+
+	private static String formatNanos(long nanos) {
+		return "%.2f s".formatted(nanos / 1_000_000_000.0);
+	}
+
+	/**
+	 * Sets the persistent cache for step outputs. Steps with unchanged inputs are not executed again.
+	 *
+	 * @param stepCache the cache, or null to disable
+	 */
+	public void setStepCache(@Nullable McpStepCache stepCache) {
+		this.stepCache = stepCache;
 	}
 
 	/**
@@ -289,9 +387,13 @@ public final class McpExecutor {
 
 	private class ExecutionContextImpl implements StepLogic.ExecutionContext {
 		private final McpConfigStep step;
+		private final McpStepScheduler scheduler;
+		private final ForgeToolExecutor tools;
 
-		ExecutionContextImpl(McpConfigStep step) {
+		ExecutionContextImpl(McpConfigStep step, McpStepScheduler scheduler, ForgeToolExecutor tools) {
 			this.step = step;
+			this.scheduler = scheduler;
+			this.tools = tools;
 		}
 
 		@Override
@@ -307,7 +409,6 @@ public final class McpExecutor {
 		@Override
 		public Path setOutput(Path output) {
 			String absolutePath = output.toAbsolutePath().toString();
-			extraConfig.put(ConfigValue.OUTPUT, absolutePath);
 			extraConfig.put(step.name() + ConfigValue.PREVIOUS_OUTPUT_SUFFIX, absolutePath);
 			return output;
 		}
@@ -336,10 +437,13 @@ public final class McpExecutor {
 
 		@Override
 		public Path downloadDependency(String notation) {
-			final Dependency dependency = project.getDependencies().create(notation);
-			final Configuration configuration = project.getConfigurations().detachedConfiguration(dependency);
-			configuration.setTransitive(false);
-			return configuration.getSingleFile().toPath();
+			// Configurations must be resolved on a thread managed by Gradle.
+			return scheduler.runOnMainThread(() -> {
+				final Dependency dependency = project.getDependencies().create(notation);
+				final Configuration configuration = project.getConfigurations().detachedConfiguration(dependency);
+				configuration.setTransitive(false);
+				return configuration.getSingleFile().toPath();
+			});
 		}
 
 		@Override
@@ -369,13 +473,24 @@ public final class McpExecutor {
 
 		@Override
 		public void javaexec(Action<? super JavaExecSpec> configurator) {
-			ForgeToolExecutor.exec(project, configurator).rethrowFailure().assertNormalExitValue();
+			try {
+				toolProcesses.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while waiting to run " + step.name(), e);
+			}
+
+			try {
+				tools.exec(configurator).rethrowFailure().assertNormalExitValue();
+			} finally {
+				toolProcesses.release();
+			}
 		}
 
 		@Override
 		public Set<File> getMinecraftLibraries() {
 			// (1.2) minecraftRuntimeLibraries contains the compile-time libraries as well.
-			return project.getConfigurations().getByName(Constants.Configurations.MINECRAFT_RUNTIME_LIBRARIES).resolve();
+			return scheduler.runOnMainThread(() -> project.getConfigurations().getByName(Constants.Configurations.MINECRAFT_RUNTIME_LIBRARIES).resolve());
 		}
 	}
 }
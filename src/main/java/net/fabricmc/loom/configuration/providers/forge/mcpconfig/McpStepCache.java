@@ -0,0 +1,234 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.forge.mcpconfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.DeletingFileVisitor;
+
+/**
+ * A persistent cache of MCP step outputs, shared between projects and Forge versions.
+ *
+ * <p>Outputs are stored by a key computed from the step type and the values of its inputs. Values that are paths to
+ * existing files or directories are hashed by their contents instead of their paths, so that a step is only run again
+ * when its inputs actually change.
+ */
+public final class McpStepCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(McpStepCache.class);
+	private static final String VERSION = "1";
+	private static final Duration MAX_AGE = Duration.ofDays(30);
+
+	private final Path directory;
+	// Path -> (size, last modified, hash), files such as step outputs are used as an input for multiple steps.
+	private final Map<Path, FileHash> fileHashes = new ConcurrentHashMap<>();
+
+	public McpStepCache(Path directory) {
+		this.directory = directory;
+	}
+
+	public KeyBuilder newKey(String stepType) {
+		return new KeyBuilder(stepType);
+	}
+
+	/**
+	 * {@return the cached output for the key, or {@code null} if there is none}
+	 */
+	public @Nullable Path get(String key) throws IOException {
+		final Path entry = directory.resolve(key);
+
+		if (!Files.isDirectory(entry)) {
+			return null;
+		}
+
+		try (Stream<Path> files = Files.list(entry)) {
+			final List<Path> outputs = files.filter(Files::isRegularFile).toList();
+
+			if (outputs.size() != 1) {
+				return null;
+			}
+
+			Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+			return outputs.get(0);
+		}
+	}
+
+	/**
+	 * Copies the output of a step into the cache.
+	 *
+	 * @param key    the cache key of the step
+	 * @param output the output file of the step
+	 * @return the cached copy of the output
+	 */
+	public Path put(String key, Path output) throws IOException {
+		Files.createDirectories(directory);
+
+		final Path entry = directory.resolve(key);
+		final Path tempEntry = directory.resolve(key + "." + UUID.randomUUID() + ".tmp");
+
+		try {
+			Files.createDirectory(tempEntry);
+			Files.copy(output, tempEntry.resolve(output.getFileName().toString()));
+
+			try {
+				Files.move(tempEntry, entry, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempEntry, entry);
+			}
+		} catch (FileAlreadyExistsException e) {
+			// Another build added the same output at the same time.
+		} catch (IOException e) {
+			// The target directory can also exist with a non-empty directory, reported as a generic exception on some platforms.
+			if (!Files.isDirectory(entry)) {
+				throw e;
+			}
+		} finally {
+			if (Files.exists(tempEntry)) {
+				Files.walkFileTree(tempEntry, new DeletingFileVisitor());
+			}
+		}
+
+		final Path cached = get(key);
+
+		if (cached == null) {
+			throw new IOException("Could not cache MCP step output " + output + " as " + entry);
+		}
+
+		return cached;
+	}
+
+	/**
+	 * Deletes cached outputs that have not been used recently.
+	 */
+	public void cleanup() {
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+
+		final Instant oldestAllowed = Instant.now().minus(MAX_AGE);
+
+		try (Stream<Path> entries = Files.list(directory)) {
+			for (Path entry : (Iterable<Path>) entries::iterator) {
+				if (Files.getLastModifiedTime(entry).toInstant().isBefore(oldestAllowed)) {
+					LOGGER.info("Deleting unused MCP step output {}", entry);
+					Files.walkFileTree(entry, new DeletingFileVisitor());
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to clean up the MCP step cache in {}", directory, e);
+		}
+	}
+
+	private String hashFile(Path file) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		final FileHash cached = fileHashes.get(file);
+
+		if (cached != null && cached.size() == attributes.size() && cached.lastModified().equals(attributes.lastModifiedTime())) {
+			return cached.hash();
+		}
+
+		final String hash = Checksum.toHex(Checksum.sha256(file.toFile()));
+		fileHashes.put(file, new FileHash(attributes.size(), attributes.lastModifiedTime(), hash));
+		return hash;
+	}
+
+	private static @Nullable Path asExistingPath(String value) {
+		try {
+			final Path path = Path.of(value);
+			return path.isAbsolute() && Files.exists(path) ? path : null;
+		} catch (InvalidPathException e) {
+			return null;
+		}
+	}
+
+	private record FileHash(long size, FileTime lastModified, String hash) {
+	}
+
+	/**
+	 * Builds the cache key of a step from its input values.
+	 */
+	public final class KeyBuilder {
+		private final Hasher hasher = Hashing.sha256().newHasher();
+
+		private KeyBuilder(String stepType) {
+			putString("version", VERSION);
+			putString("type", stepType);
+		}
+
+		/**
+		 * Adds a resolved input value. Absolute paths to existing files and directories are hashed by their contents.
+		 */
+		public KeyBuilder add(String name, String value) throws IOException {
+			final @Nullable Path path = asExistingPath(value);
+
+			if (path == null) {
+				putString(name, value);
+			} else if (Files.isDirectory(path)) {
+				putString(name, "directory");
+
+				try (Stream<Path> files = Files.walk(path)) {
+					for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+						putString(path.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/"), hashFile(file));
+					}
+				}
+			} else {
+				putString(name, "file:" + hashFile(path));
+			}
+
+			return this;
+		}
+
+		public String build() {
+			return hasher.hash().toString();
+		}
+
+		private void putString(String name, String value) {
+			hasher.putString(name, StandardCharsets.UTF_8).putByte((byte) 0);
+			hasher.putString(value, StandardCharsets.UTF_8).putByte((byte) 0);
+		}
+	}
+}
@@ -0,0 +1,286 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.forge.mcpconfig;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Runs MCP steps concurrently, as soon as all the steps they depend on have completed.
+ *
+ * <p>The thread calling {@link #run} coordinates the steps. Work that has to happen on a thread managed by Gradle,
+ * such as resolving configurations, can be handed to it from a step with {@link #runOnMainThread}.
+ */
+public final class McpStepScheduler {
+	private final BlockingQueue<Runnable> events = new LinkedBlockingQueue<>();
+	private final Map<String, StepTiming> timings = new LinkedHashMap<>();
+	private @Nullable Thread mainThread;
+	private int running;
+	private @Nullable Throwable failure;
+
+	/**
+	 * Runs the steps, each step is started once the steps it depends on have completed.
+	 *
+	 * @param steps        the steps to run, in their preferred start order
+	 * @param dependencies the names of the steps each step depends on, names that are not part of {@code steps} are ignored
+	 * @param action       the action that runs a step
+	 * @return the timings of the steps, in completion order
+	 */
+	public List<StepTiming> run(List<McpConfigStep> steps, Map<String, ? extends Collection<String>> dependencies, StepAction action) throws IOException {
+		if (mainThread != null) {
+			throw new IllegalStateException("Scheduler has already been used");
+		}
+
+		mainThread = Thread.currentThread();
+
+		final Map<String, McpConfigStep> stepsByName = new HashMap<>();
+		final Map<String, AtomicInteger> waitingFor = new HashMap<>();
+		final Map<String, List<String>> dependents = new HashMap<>();
+		final Queue<McpConfigStep> ready = new ArrayDeque<>();
+
+		for (McpConfigStep step : steps) {
+			stepsByName.put(step.name(), step);
+		}
+
+		for (McpConfigStep step : steps) {
+			int count = 0;
+
+			for (String dependency : dependenciesOf(dependencies, step)) {
+				if (stepsByName.containsKey(dependency)) {
+					dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(step.name());
+					count++;
+				}
+			}
+
+			waitingFor.put(step.name(), new AtomicInteger(count));
+
+			if (count == 0) {
+				ready.add(step);
+			}
+		}
+
+		final long start = System.nanoTime();
+		final ExecutorService executor = Executors.newCachedThreadPool();
+
+		try {
+			while (true) {
+				while (failure == null && !ready.isEmpty()) {
+					final McpConfigStep step = ready.remove();
+					final long stepStart = System.nanoTime() - start;
+					running++;
+
+					executor.execute(() -> {
+						Throwable error = null;
+
+						try {
+							action.execute(step);
+						} catch (Throwable t) {
+							error = t;
+						}
+
+						final Throwable stepError = error;
+						final long stepEnd = System.nanoTime() - start;
+
+						events.add(() -> {
+							running--;
+							timings.put(step.name(), new StepTiming(step.name(), dependenciesOf(dependencies, step), stepStart, stepEnd));
+
+							if (stepError != null) {
+								if (failure == null) {
+									failure = stepError;
+								} else {
+									failure.addSuppressed(stepError);
+								}
+
+								return;
+							}
+
+							for (String dependent : dependents.getOrDefault(step.name(), List.of())) {
+								if (waitingFor.get(dependent).decrementAndGet() == 0) {
+									ready.add(stepsByName.get(dependent));
+								}
+							}
+						});
+					});
+				}
+
+				if (running == 0) {
+					break;
+				}
+
+				try {
+					events.take().run();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while waiting for MCP steps", e);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		if (failure instanceof IOException e) {
+			throw e;
+		} else if (failure instanceof RuntimeException e) {
+			throw e;
+		} else if (failure instanceof Error e) {
+			throw e;
+		} else if (failure != null) {
+			throw new RuntimeException(failure);
+		}
+
+		if (timings.size() != steps.size()) {
+			throw new IllegalStateException("Could not run MCP steps due to a dependency cycle: " + steps.stream().map(McpConfigStep::name).filter(name -> !timings.containsKey(name)).toList());
+		}
+
+		return List.copyOf(timings.values());
+	}
+
+	private static Collection<String> dependenciesOf(Map<String, ? extends Collection<String>> dependencies, McpConfigStep step) {
+		final Collection<String> stepDependencies = dependencies.get(step.name());
+		return stepDependencies != null ? stepDependencies : List.of();
+	}
+
+	/**
+	 * Runs an action on the thread coordinating the steps and waits for its result.
+	 */
+	public <T> T runOnMainThread(Callable<T> action) {
+		if (Thread.currentThread() == mainThread || mainThread == null) {
+			try {
+				return action.call();
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		final CompletableFuture<T> future = new CompletableFuture<>();
+
+		events.add(() -> {
+			try {
+				future.complete(action.call());
+			} catch (Throwable t) {
+				future.completeExceptionally(t);
+			}
+		});
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for the main thread", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Finds the chain of dependent steps that took the longest time to run, this is the minimum total time
+	 * needed to run the steps regardless of how many run at once.
+	 *
+	 * @param timings the timings of the steps
+	 * @return the steps on the critical path, in execution order
+	 */
+	public static List<StepTiming> criticalPath(List<StepTiming> timings) {
+		final Map<String, StepTiming> timingsByName = new HashMap<>();
+
+		for (StepTiming timing : timings) {
+			timingsByName.put(timing.name(), timing);
+		}
+
+		// Timings are in completion order, so dependencies are always visited before their dependents.
+		final Map<String, Long> pathDurations = new HashMap<>();
+		final Map<String, String> previous = new HashMap<>();
+		@Nullable String last = null;
+
+		for (StepTiming timing : timings) {
+			long longestDependency = 0;
+
+			for (String dependency : timing.dependencies()) {
+				final Long duration = pathDurations.get(dependency);
+
+				if (duration != null && duration > longestDependency) {
+					longestDependency = duration;
+					previous.put(timing.name(), dependency);
+				}
+			}
+
+			pathDurations.put(timing.name(), longestDependency + timing.durationNanos());
+
+			if (last == null || pathDurations.get(timing.name()) > pathDurations.get(last)) {
+				last = timing.name();
+			}
+		}
+
+		final List<StepTiming> path = new ArrayList<>();
+
+		for (String name = last; name != null; name = previous.get(name)) {
+			path.add(0, timingsByName.get(name));
+		}
+
+		return path;
+	}
+
+	@FunctionalInterface
+	public interface StepAction {
+		void execute(McpConfigStep step) throws Exception;
+	}
+
+	/**
+	 * The time a step was running for.
+	 *
+	 * @param name         the name of the step
+	 * @param dependencies the names of the steps it depends on
+	 * @param startNanos   the start time in nanoseconds, relative to the start of the first step
+	 * @param endNanos     the end time in nanoseconds, relative to the start of the first step
+	 */
+	public record StepTiming(String name, Collection<String> dependencies, long startNanos, long endNanos) {
+		public long durationNanos() {
+			return endNanos - startNanos;
+		}
+	}
+}
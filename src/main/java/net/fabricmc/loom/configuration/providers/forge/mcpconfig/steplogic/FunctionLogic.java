@@ -26,9 +26,13 @@ package net.fabricmc.loom.configuration.providers.forge.mcpconfig.steplogic;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 
+import net.fabricmc.loom.configuration.providers.forge.ConfigValue;
 import net.fabricmc.loom.configuration.providers.forge.mcpconfig.McpConfigFunction;
 
 /**
@@ -64,6 +68,16 @@ public final class FunctionLogic implements StepLogic {
 		});
 	}
 
+	@Override
+	public List<ConfigValue> getCacheInputs(ExecutionContext context) {
+		List<ConfigValue> inputs = new ArrayList<>();
+		inputs.add(new ConfigValue.Constant(function.version()));
+		inputs.add(new ConfigValue.Constant(Objects.requireNonNullElse(function.repo(), "")));
+		inputs.addAll(function.args());
+		inputs.addAll(function.jvmArgs());
+		return inputs;
+	}
+
 	@Override
 	public String getDisplayName(String stepName) {
 		return stepName + " with " + function.version();
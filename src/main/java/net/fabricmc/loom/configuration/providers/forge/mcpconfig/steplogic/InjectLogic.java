@@ -30,16 +30,20 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.Iterator;
+import java.util.List;
 import java.util.stream.Stream;
 
 import net.fabricmc.loom.configuration.providers.forge.ConfigValue;
 import net.fabricmc.loom.util.FileSystemUtil;
 
 public final class InjectLogic implements StepLogic {
+	private static final ConfigValue INJECT = new ConfigValue.Variable("inject");
+	private static final ConfigValue INPUT = new ConfigValue.Variable("input");
+
 	@Override
 	public void execute(ExecutionContext context) throws IOException {
-		Path injectedFiles = Path.of(context.resolve(new ConfigValue.Variable("inject")));
-		Path input = Path.of(context.resolve(new ConfigValue.Variable("input")));
+		Path injectedFiles = Path.of(context.resolve(INJECT));
+		Path input = Path.of(context.resolve(INPUT));
 		Path output = context.setOutput("output.jar");
 		Files.copy(input, output, StandardCopyOption.REPLACE_EXISTING);
 
@@ -63,4 +67,9 @@ public final class InjectLogic implements StepLogic {
 			}
 		}
 	}
+
+	@Override
+	public List<ConfigValue> getCacheInputs(ExecutionContext context) {
+		return List.of(INJECT, INPUT);
+	}
 }
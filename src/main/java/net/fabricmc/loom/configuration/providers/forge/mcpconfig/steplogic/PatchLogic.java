@@ -26,6 +26,7 @@ package net.fabricmc.loom.configuration.providers.forge.mcpconfig.steplogic;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 
 import codechicken.diffpatch.cli.CliOperation;
 import codechicken.diffpatch.cli.PatchOperation;
@@ -36,10 +37,13 @@ import org.gradle.api.logging.LogLevel;
 import net.fabricmc.loom.configuration.providers.forge.ConfigValue;
 
 public final class PatchLogic implements StepLogic {
+	private static final ConfigValue INPUT = new ConfigValue.Variable("input");
+	private static final ConfigValue PATCHES = new ConfigValue.Variable("patches");
+
 	@Override
 	public void execute(ExecutionContext context) throws IOException {
-		Path input = Path.of(context.resolve(new ConfigValue.Variable("input")));
-		Path patches = Path.of(context.resolve(new ConfigValue.Variable("patches")));
+		Path input = Path.of(context.resolve(INPUT));
+		Path patches = Path.of(context.resolve(PATCHES));
 		Path output = context.setOutput("output.jar");
 		Path rejects = context.cache().resolve("rejects");
 
@@ -57,4 +61,9 @@ public final class PatchLogic implements StepLogic {
 			throw new RuntimeException("Could not patch " + input + "; rejects saved to " + rejects.toAbsolutePath());
 		}
 	}
+
+	@Override
+	public List<ConfigValue> getCacheInputs(ExecutionContext context) {
+		return List.of(INPUT, PATCHES);
+	}
 }
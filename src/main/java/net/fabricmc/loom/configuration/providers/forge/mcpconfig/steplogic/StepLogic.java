@@ -34,6 +34,7 @@ import java.util.Set;
 import org.gradle.api.Action;
 import org.gradle.api.logging.Logger;
 import org.gradle.process.JavaExecSpec;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.configuration.providers.forge.ConfigValue;
 import net.fabricmc.loom.util.download.DownloadBuilder;
@@ -53,6 +54,16 @@ public interface StepLogic {
 		return false;
 	}
 
+	/**
+	 * {@return the values that this step uses in addition to the step config, or {@code null} if the output can't be cached}
+	 * Paths to files are hashed by their contents, and {@code {output}} and {@code {log}} are not resolved.
+	 *
+	 * @param context the execution context
+	 */
+	default @Nullable List<ConfigValue> getCacheInputs(ExecutionContext context) {
+		return null;
+	}
+
 	interface ExecutionContext {
 		Logger logger();
 		Path setOutput(String fileName) throws IOException;
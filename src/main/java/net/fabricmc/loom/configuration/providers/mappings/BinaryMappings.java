@@ -0,0 +1,848 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.mappings;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.adapter.ForwardingMappingVisitor;
+import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MappingTreeView;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * A read-only, memory mapped view of a mappings file, stored in a compact binary format next to the mappings file.
+ *
+ * <p>The binary file is written the first time a mappings file is opened, and reused by later builds until the
+ * mappings file changes. All strings are stored once in a string table and decoded on demand. Classes are sorted by
+ * source name, and fields and methods by source name and descriptor, so that names can be looked up with a binary
+ * search without reading the whole file. {@link #accept(MappingVisitor)} can be used to create a full mapping tree.
+ *
+ * <p>Namespace ids follow {@link MappingTreeView}, {@link MappingTreeView#SRC_NAMESPACE_ID} is the source namespace.
+ */
+public final class BinaryMappings {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BinaryMappings.class);
+
+	private static final int MAGIC = 0x4C4D4250; // LMBP
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 64;
+	private static final int NULL = -1;
+
+	private final ByteBuffer buffer;
+	private final int dstCount;
+	private final int classCount;
+	private final int classIndexPos;
+	private final int stringOffsetsPos;
+	private final int stringDataPos;
+	private final String srcNamespace;
+	private final List<String> dstNamespaces;
+	private final Map<String, String> metadata;
+	// Decoded strings, filled lazily. Strings are immutable, so racing to decode the same string is harmless.
+	private final String[] strings;
+
+	private BinaryMappings(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.dstCount = buffer.getInt(24);
+		this.classCount = buffer.getInt(28);
+		this.classIndexPos = buffer.getInt(32);
+		final int namespacesPos = buffer.getInt(36);
+		final int metadataCount = buffer.getInt(40);
+		final int metadataPos = buffer.getInt(44);
+		this.strings = new String[buffer.getInt(48)];
+		this.stringOffsetsPos = buffer.getInt(52);
+		this.stringDataPos = buffer.getInt(56);
+
+		this.srcNamespace = string(buffer.getInt(namespacesPos));
+		final List<String> dstNamespaces = new ArrayList<>(dstCount);
+
+		for (int i = 0; i < dstCount; i++) {
+			dstNamespaces.add(string(buffer.getInt(namespacesPos + 4 * (i + 1))));
+		}
+
+		this.dstNamespaces = List.copyOf(dstNamespaces);
+		final Map<String, String> metadata = new LinkedHashMap<>();
+
+		for (int i = 0; i < metadataCount; i++) {
+			metadata.put(string(buffer.getInt(metadataPos + 8 * i)), string(buffer.getInt(metadataPos + 8 * i + 4)));
+		}
+
+		this.metadata = metadata;
+	}
+
+	/**
+	 * Open the binary form of a mappings file, writing it first when it does not exist yet.
+	 *
+	 * @param mappings A mappings file in any format supported by {@link MappingReader}
+	 * @return The binary mappings
+	 *
+	 * @throws IOException If an error occurs while reading or writing the mappings
+	 */
+	public static BinaryMappings open(Path mappings) throws IOException {
+		final long size = Files.size(mappings);
+		final long lastModified = Files.getLastModifiedTime(mappings).toMillis();
+		// The source state is part of the name, a file that may be memory mapped elsewhere is never replaced.
+		final Path binary = mappings.resolveSibling("%s.%d-%d.bin".formatted(mappings.getFileName(), size, lastModified));
+
+		if (Files.exists(binary)) {
+			final ByteBuffer buffer = map(binary);
+
+			if (isValid(buffer, size, lastModified)) {
+				return new BinaryMappings(buffer);
+			}
+
+			LOGGER.warn("Rewriting invalid binary mappings {}", binary);
+		}
+
+		write(visitor -> MappingReader.read(mappings, visitor), binary, size, lastModified);
+		deleteStale(mappings, binary);
+		return mapValid(binary, size, lastModified);
+	}
+
+	/**
+	 * Write the mappings visited by the source to a binary file, replacing any existing file.
+	 *
+	 * @param source The mappings, such as a mapping layer
+	 * @param binary The binary file to write
+	 * @return The binary mappings
+	 *
+	 * @throws IOException If an error occurs while visiting or writing the mappings
+	 */
+	public static BinaryMappings create(Source source, Path binary) throws IOException {
+		write(source, binary, 0, 0);
+		return mapValid(binary, 0, 0);
+	}
+
+	/**
+	 * Open a binary file written by {@link #create(Source, Path)}.
+	 *
+	 * @return The binary mappings, or {@code null} when the file does not exist or was written by a different version
+	 */
+	public static @Nullable BinaryMappings read(Path binary) throws IOException {
+		if (Files.notExists(binary)) {
+			return null;
+		}
+
+		final ByteBuffer buffer = map(binary);
+		return isValid(buffer, 0, 0) ? new BinaryMappings(buffer) : null;
+	}
+
+	private static BinaryMappings mapValid(Path binary, long size, long lastModified) throws IOException {
+		final ByteBuffer buffer = map(binary);
+
+		if (!isValid(buffer, size, lastModified)) {
+			throw new IOException("Failed to replace invalid binary mappings " + binary);
+		}
+
+		return new BinaryMappings(buffer);
+	}
+
+	private static ByteBuffer map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// The mapping stays valid after the channel is closed.
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	private static boolean isValid(ByteBuffer buffer, long size, long lastModified) {
+		return buffer.capacity() >= HEADER_SIZE
+				&& buffer.getInt(0) == MAGIC
+				&& buffer.getInt(4) == VERSION
+				&& buffer.getLong(8) == size
+				&& buffer.getLong(16) == lastModified;
+	}
+
+	private static void write(Source source, Path binary, long size, long lastModified) throws IOException {
+		final var tree = new MemoryMappingTree();
+		final Map<String, String> metadata = new LinkedHashMap<>();
+
+		source.visit(new ForwardingMappingVisitor(tree) {
+			@Override
+			public void visitMetadata(String key, @Nullable String value) throws IOException {
+				metadata.put(key, value);
+				super.visitMetadata(key, value);
+			}
+		});
+
+		final Path temp = binary.resolveSibling(binary.getFileName() + ".tmp" + ProcessHandle.current().pid());
+
+		try {
+			try (OutputStream output = Files.newOutputStream(temp)) {
+				new Writer(tree, metadata).write(output, size, lastModified);
+			}
+
+			Files.move(temp, binary, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (FileSystemException e) {
+			// Another process wrote the same file and has it mapped
+			if (Files.notExists(binary)) {
+				throw e;
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static void deleteStale(Path mappings, Path binary) {
+		final String prefix = mappings.getFileName() + ".";
+
+		try (Stream<Path> siblings = Files.list(binary.getParent())) {
+			for (Path sibling : siblings.toList()) {
+				final String name = sibling.getFileName().toString();
+
+				if (name.startsWith(prefix) && name.endsWith(".bin") && !sibling.equals(binary)) {
+					try {
+						Files.deleteIfExists(sibling);
+					} catch (IOException e) {
+						// May still be mapped by another process
+						LOGGER.debug("Failed to delete stale binary mappings {}", sibling, e);
+					}
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.debug("Failed to list binary mappings in {}", binary.getParent(), e);
+		}
+	}
+
+	@FunctionalInterface
+	public interface Source {
+		void visit(MappingVisitor visitor) throws IOException;
+	}
+
+	public String getSrcNamespace() {
+		return srcNamespace;
+	}
+
+	public List<String> getDstNamespaces() {
+		return dstNamespaces;
+	}
+
+	public Map<String, String> getMetadata() {
+		return metadata;
+	}
+
+	/**
+	 * @return The id of the namespace, or {@link MappingTreeView#NULL_NAMESPACE_ID} when it does not exist
+	 */
+	public int getNamespaceId(String namespace) {
+		if (namespace.equals(srcNamespace)) {
+			return MappingTreeView.SRC_NAMESPACE_ID;
+		}
+
+		final int index = dstNamespaces.indexOf(namespace);
+		return index == -1 ? MappingTreeView.NULL_NAMESPACE_ID : index;
+	}
+
+	public int getClassCount() {
+		return classCount;
+	}
+
+	public ClassView getClass(int index) {
+		return new ClassView(buffer.getInt(classIndexPos + 4 * index));
+	}
+
+	/**
+	 * @param srcName The source name of the class
+	 * @return The class, or {@code null} when the class has no mappings
+	 */
+	public @Nullable ClassView getClass(String srcName) {
+		int low = 0;
+		int high = classCount - 1;
+
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final ClassView classView = getClass(mid);
+			final int cmp = classView.getSrcName().compareTo(srcName);
+
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return classView;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Map a class name from the source namespace, names without mappings are returned unchanged.
+	 */
+	public String mapClassName(String srcName, int namespace) {
+		final ClassView classView = getClass(srcName);
+
+		if (classView == null) {
+			return srcName;
+		}
+
+		final String name = classView.getName(namespace);
+		return name != null ? name : srcName;
+	}
+
+	/**
+	 * Map the class names of a descriptor from the source namespace.
+	 */
+	public String mapDesc(String desc, int namespace) {
+		if (namespace == MappingTreeView.SRC_NAMESPACE_ID || desc.indexOf('L') == -1) {
+			return desc;
+		}
+
+		final var builder = new StringBuilder(desc.length());
+		int i = 0;
+
+		while (i < desc.length()) {
+			final char c = desc.charAt(i);
+
+			if (c == 'L') {
+				final int end = desc.indexOf(';', i);
+				builder.append('L').append(mapClassName(desc.substring(i + 1, end), namespace)).append(';');
+				i = end + 1;
+			} else {
+				builder.append(c);
+				i++;
+			}
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Visit all the mappings, such as to create a {@link MemoryMappingTree}.
+	 */
+	public void accept(MappingVisitor visitor) throws IOException {
+		while (true) {
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(srcNamespace, dstNamespaces);
+
+				for (Map.Entry<String, String> entry : metadata.entrySet()) {
+					visitor.visitMetadata(entry.getKey(), entry.getValue());
+				}
+			}
+
+			if (visitor.visitContent()) {
+				for (int i = 0; i < classCount; i++) {
+					getClass(i).accept(visitor);
+				}
+			}
+
+			if (visitor.visitEnd()) {
+				break;
+			}
+		}
+	}
+
+	private @Nullable String string(int id) {
+		if (id == NULL) {
+			return null;
+		}
+
+		String string = strings[id];
+
+		if (string == null) {
+			final int start = buffer.getInt(stringOffsetsPos + 4 * id);
+			final int end = buffer.getInt(stringOffsetsPos + 4 * (id + 1));
+			final byte[] bytes = new byte[end - start];
+			buffer.get(stringDataPos + start, bytes);
+			string = new String(bytes, StandardCharsets.UTF_8);
+			strings[id] = string;
+		}
+
+		return string;
+	}
+
+	// Every element starts with its source name, destination names and comment.
+	private int namesSize() {
+		return 2 + dstCount;
+	}
+
+	public abstract sealed class ElementView permits ClassView, MemberView, ArgView, VarView {
+		protected final int pos;
+
+		private ElementView(int pos) {
+			this.pos = pos;
+		}
+
+		public String getSrcName() {
+			return string(buffer.getInt(pos));
+		}
+
+		public @Nullable String getDstName(int namespace) {
+			return string(buffer.getInt(pos + 4 * (1 + namespace)));
+		}
+
+		/**
+		 * @param namespace The namespace id, or {@link MappingTreeView#SRC_NAMESPACE_ID}
+		 */
+		public @Nullable String getName(int namespace) {
+			if (namespace == MappingTreeView.SRC_NAMESPACE_ID) {
+				return getSrcName();
+			}
+
+			return namespace >= 0 && namespace < dstCount ? getDstName(namespace) : null;
+		}
+
+		public @Nullable String getComment() {
+			return string(buffer.getInt(pos + 4 * (1 + dstCount)));
+		}
+
+		// The int after the names
+		int extra(int index) {
+			return buffer.getInt(pos + 4 * (namesSize() + index));
+		}
+
+		void acceptNames(MappingVisitor visitor, MappedElementKind kind) throws IOException {
+			for (int i = 0; i < dstCount; i++) {
+				final String name = getDstName(i);
+
+				if (name != null) {
+					visitor.visitDstName(kind, i, name);
+				}
+			}
+		}
+
+		void acceptComment(MappingVisitor visitor, MappedElementKind kind) throws IOException {
+			final String comment = getComment();
+
+			if (comment != null) {
+				visitor.visitComment(kind, comment);
+			}
+		}
+	}
+
+	// Class: names, field count, method count, then the fields, the method positions and the methods.
+	public final class ClassView extends ElementView {
+		private ClassView(int pos) {
+			super(pos);
+		}
+
+		public int getFieldCount() {
+			return extra(0);
+		}
+
+		public MemberView getField(int index) {
+			return new MemberView(pos + 4 * (namesSize() + 2 + index * fieldSize()));
+		}
+
+		public int getMethodCount() {
+			return extra(1);
+		}
+
+		public MethodView getMethod(int index) {
+			final int methodIndexPos = pos + 4 * (namesSize() + 2 + getFieldCount() * fieldSize());
+			return new MethodView(buffer.getInt(methodIndexPos + 4 * index));
+		}
+
+		/**
+		 * @param srcDesc The source descriptor, or {@code null} to match any field with the name
+		 */
+		public @Nullable MemberView getField(String srcName, @Nullable String srcDesc) {
+			return find(getFieldCount(), this::getField, srcName, srcDesc);
+		}
+
+		/**
+		 * @param srcDesc The source descriptor, or {@code null} to match any method with the name
+		 */
+		public @Nullable MethodView getMethod(String srcName, @Nullable String srcDesc) {
+			return find(getMethodCount(), this::getMethod, srcName, srcDesc);
+		}
+
+		private <T extends MemberView> @Nullable T find(int count, IntFunction<T> getter, String srcName, @Nullable String srcDesc) {
+			int low = 0;
+			int high = count - 1;
+
+			while (low <= high) {
+				final int mid = (low + high) >>> 1;
+				final T member = getter.apply(mid);
+				int cmp = member.getSrcName().compareTo(srcName);
+
+				if (cmp == 0 && srcDesc != null) {
+					cmp = MEMBER_DESC_ORDER.compare(member.getSrcDesc(), srcDesc);
+				}
+
+				if (cmp < 0) {
+					low = mid + 1;
+				} else if (cmp > 0) {
+					high = mid - 1;
+				} else {
+					return member;
+				}
+			}
+
+			// Members without a descriptor match any descriptor
+			for (int i = 0; srcDesc != null && i < count; i++) {
+				final T member = getter.apply(i);
+
+				if (member.getSrcDesc() == null && member.getSrcName().equals(srcName)) {
+					return member;
+				}
+			}
+
+			return null;
+		}
+
+		void accept(MappingVisitor visitor) throws IOException {
+			if (!visitor.visitClass(getSrcName())) {
+				return;
+			}
+
+			acceptNames(visitor, MappedElementKind.CLASS);
+
+			if (!visitor.visitElementContent(MappedElementKind.CLASS)) {
+				return;
+			}
+
+			for (int i = 0; i < getFieldCount(); i++) {
+				final MemberView field = getField(i);
+
+				if (visitor.visitField(field.getSrcName(), field.getSrcDesc())) {
+					field.acceptNames(visitor, MappedElementKind.FIELD);
+
+					if (visitor.visitElementContent(MappedElementKind.FIELD)) {
+						field.acceptComment(visitor, MappedElementKind.FIELD);
+					}
+				}
+			}
+
+			for (int i = 0; i < getMethodCount(); i++) {
+				getMethod(i).accept(visitor);
+			}
+
+			acceptComment(visitor, MappedElementKind.CLASS);
+		}
+	}
+
+	// Field: names, source descriptor.
+	private int fieldSize() {
+		return namesSize() + 1;
+	}
+
+	public sealed class MemberView extends ElementView permits MethodView {
+		private MemberView(int pos) {
+			super(pos);
+		}
+
+		public @Nullable String getSrcDesc() {
+			return string(extra(0));
+		}
+
+		/**
+		 * @param namespace The namespace id, or {@link MappingTreeView#SRC_NAMESPACE_ID}
+		 * @return The descriptor with the class names mapped to the namespace
+		 */
+		public @Nullable String getDesc(int namespace) {
+			final String srcDesc = getSrcDesc();
+			return srcDesc != null ? mapDesc(srcDesc, namespace) : null;
+		}
+	}
+
+	// Method: names, source descriptor, arg count, var count, then the args and vars.
+	public final class MethodView extends MemberView {
+		private static final int ARGS_OFFSET = 3;
+
+		private MethodView(int pos) {
+			super(pos);
+		}
+
+		public int getArgCount() {
+			return extra(1);
+		}
+
+		public ArgView getArg(int index) {
+			return new ArgView(pos + 4 * (namesSize() + ARGS_OFFSET + index * argSize()));
+		}
+
+		public int getVarCount() {
+			return extra(2);
+		}
+
+		public VarView getVar(int index) {
+			return new VarView(pos + 4 * (namesSize() + ARGS_OFFSET + getArgCount() * argSize() + index * varSize()));
+		}
+
+		void accept(MappingVisitor visitor) throws IOException {
+			if (!visitor.visitMethod(getSrcName(), getSrcDesc())) {
+				return;
+			}
+
+			acceptNames(visitor, MappedElementKind.METHOD);
+
+			if (!visitor.visitElementContent(MappedElementKind.METHOD)) {
+				return;
+			}
+
+			for (int i = 0; i < getArgCount(); i++) {
+				final ArgView arg = getArg(i);
+
+				if (visitor.visitMethodArg(arg.getArgPosition(), arg.getLvIndex(), arg.getSrcName())) {
+					arg.acceptNames(visitor, MappedElementKind.METHOD_ARG);
+
+					if (visitor.visitElementContent(MappedElementKind.METHOD_ARG)) {
+						arg.acceptComment(visitor, MappedElementKind.METHOD_ARG);
+					}
+				}
+			}
+
+			for (int i = 0; i < getVarCount(); i++) {
+				final VarView var = getVar(i);
+
+				if (visitor.visitMethodVar(var.getLvtRowIndex(), var.getLvIndex(), var.getStartOpIdx(), var.getEndOpIdx(), var.getSrcName())) {
+					var.acceptNames(visitor, MappedElementKind.METHOD_VAR);
+
+					if (visitor.visitElementContent(MappedElementKind.METHOD_VAR)) {
+						var.acceptComment(visitor, MappedElementKind.METHOD_VAR);
+					}
+				}
+			}
+
+			acceptComment(visitor, MappedElementKind.METHOD);
+		}
+	}
+
+	// Arg: names, arg position, lv index.
+	private int argSize() {
+		return namesSize() + 2;
+	}
+
+	public final class ArgView extends ElementView {
+		private ArgView(int pos) {
+			super(pos);
+		}
+
+		public int getArgPosition() {
+			return extra(0);
+		}
+
+		public int getLvIndex() {
+			return extra(1);
+		}
+	}
+
+	// Var: names, lvt row index, lv index, start op index, end op index.
+	private int varSize() {
+		return namesSize() + 4;
+	}
+
+	public final class VarView extends ElementView {
+		private VarView(int pos) {
+			super(pos);
+		}
+
+		public int getLvtRowIndex() {
+			return extra(0);
+		}
+
+		public int getLvIndex() {
+			return extra(1);
+		}
+
+		public int getStartOpIdx() {
+			return extra(2);
+		}
+
+		public int getEndOpIdx() {
+			return extra(3);
+		}
+	}
+
+	private static final Comparator<String> MEMBER_DESC_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+	private static final Comparator<MappingTree.MemberMapping> MEMBER_ORDER = Comparator.<MappingTree.MemberMapping, String>comparing(MappingTree.MemberMapping::getSrcName)
+			.thenComparing(MappingTree.MemberMapping::getSrcDesc, MEMBER_DESC_ORDER);
+
+	private static final class Writer {
+		private final MappingTree tree;
+		private final Map<String, String> metadata;
+		private final int dstCount;
+		private final Map<String, Integer> stringIds = new HashMap<>();
+		private final List<String> strings = new ArrayList<>();
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream body = new DataOutputStream(bytes);
+
+		private Writer(MappingTree tree, Map<String, String> metadata) {
+			this.tree = tree;
+			this.metadata = metadata;
+			this.dstCount = tree.getDstNamespaces().size();
+		}
+
+		void write(OutputStream output, long size, long lastModified) throws IOException {
+			final List<? extends MappingTree.ClassMapping> classes = tree.getClasses().stream()
+					.sorted(Comparator.comparing(MappingTree.ClassMapping::getSrcName))
+					.toList();
+			final int[] classPositions = new int[classes.size()];
+
+			for (int i = 0; i < classes.size(); i++) {
+				classPositions[i] = position();
+				writeClass(classes.get(i));
+			}
+
+			final int classIndexPos = position();
+
+			for (int classPosition : classPositions) {
+				body.writeInt(classPosition);
+			}
+
+			final int namespacesPos = position();
+			body.writeInt(id(tree.getSrcNamespace()));
+
+			for (String namespace : tree.getDstNamespaces()) {
+				body.writeInt(id(namespace));
+			}
+
+			final int metadataPos = position();
+
+			for (Map.Entry<String, String> entry : metadata.entrySet()) {
+				body.writeInt(id(entry.getKey()));
+				body.writeInt(id(entry.getValue()));
+			}
+
+			final int stringOffsetsPos = position();
+			final List<byte[]> encoded = new ArrayList<>(strings.size());
+			int offset = 0;
+
+			for (String string : strings) {
+				final byte[] stringBytes = string.getBytes(StandardCharsets.UTF_8);
+				encoded.add(stringBytes);
+				body.writeInt(offset);
+				offset += stringBytes.length;
+			}
+
+			body.writeInt(offset);
+			final int stringDataPos = position();
+
+			for (byte[] stringBytes : encoded) {
+				body.write(stringBytes);
+			}
+
+			final var header = new DataOutputStream(output);
+			header.writeInt(MAGIC);
+			header.writeInt(VERSION);
+			header.writeLong(size);
+			header.writeLong(lastModified);
+			header.writeInt(dstCount);
+			header.writeInt(classes.size());
+			header.writeInt(classIndexPos);
+			header.writeInt(namespacesPos);
+			header.writeInt(metadata.size());
+			header.writeInt(metadataPos);
+			header.writeInt(strings.size());
+			header.writeInt(stringOffsetsPos);
+			header.writeInt(stringDataPos);
+			header.writeInt(0); // Padding to the header size
+			header.flush();
+			bytes.writeTo(output);
+		}
+
+		private int position() {
+			return HEADER_SIZE + body.size();
+		}
+
+		private void writeClass(MappingTree.ClassMapping classMapping) throws IOException {
+			final List<? extends MappingTree.FieldMapping> fields = classMapping.getFields().stream().sorted(MEMBER_ORDER).toList();
+			final List<? extends MappingTree.MethodMapping> methods = classMapping.getMethods().stream().sorted(MEMBER_ORDER).toList();
+
+			writeNames(classMapping);
+			body.writeInt(fields.size());
+			body.writeInt(methods.size());
+
+			for (MappingTree.FieldMapping field : fields) {
+				writeNames(field);
+				body.writeInt(id(field.getSrcDesc()));
+			}
+
+			// The methods follow their positions
+			int methodPos = position() + 4 * methods.size();
+
+			for (MappingTree.MethodMapping method : methods) {
+				body.writeInt(methodPos);
+				methodPos += 4 * ((2 + dstCount) + 3 + method.getArgs().size() * (2 + dstCount + 2) + method.getVars().size() * (2 + dstCount + 4));
+			}
+
+			for (MappingTree.MethodMapping method : methods) {
+				writeNames(method);
+				body.writeInt(id(method.getSrcDesc()));
+				body.writeInt(method.getArgs().size());
+				body.writeInt(method.getVars().size());
+
+				for (MappingTree.MethodArgMapping arg : method.getArgs()) {
+					writeNames(arg);
+					body.writeInt(arg.getArgPosition());
+					body.writeInt(arg.getLvIndex());
+				}
+
+				for (MappingTree.MethodVarMapping var : method.getVars()) {
+					writeNames(var);
+					body.writeInt(var.getLvtRowIndex());
+					body.writeInt(var.getLvIndex());
+					body.writeInt(var.getStartOpIdx());
+					body.writeInt(var.getEndOpIdx());
+				}
+			}
+		}
+
+		private void writeNames(MappingTree.ElementMapping element) throws IOException {
+			body.writeInt(id(element.getSrcName()));
+
+			for (int i = 0; i < dstCount; i++) {
+				body.writeInt(id(element.getDstName(i)));
+			}
+
+			body.writeInt(id(element.getComment()));
+		}
+
+		private int id(@Nullable String string) {
+			if (string == null) {
+				return NULL;
+			}
+
+			return stringIds.computeIfAbsent(string, s -> {
+				strings.add(s);
+				return strings.size() - 1;
+			});
+		}
+	}
+}
@@ -37,9 +37,11 @@ import java.util.Map;
 
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Dependency;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
@@ -48,6 +50,7 @@ import net.fabricmc.loom.configuration.ConfigContext;
 import net.fabricmc.loom.configuration.mods.dependency.LocalMavenHelper;
 import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickLayer;
 import net.fabricmc.loom.configuration.providers.mappings.utils.AddConstructorMappingVisitor;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.mappingio.adapter.MappingDstNsReorder;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
@@ -79,7 +82,11 @@ public record LayeredMappingsFactory(LayeredMappingSpec spec) {
 		final Path mavenRepoDir = configContext.extension().getFiles().getGlobalMinecraftRepo().toPath();
 		final LocalMavenHelper maven = new LocalMavenHelper(GROUP, MODULE, spec().getVersion(), null, mavenRepoDir);
 		final Path jar = resolve(configContext.project());
-		maven.copyToMaven(jar, null);
+
+		try (ArtifactLock lock = ArtifactLock.acquire(getLocksDir(configContext.project()), List.of(jar), List.of(maven.getOutputFile(null)))) {
+			maven.copyToMaven(jar, null);
+			lock.complete();
+		}
 	}
 
 	public Path resolve(Project project) throws IOException {
@@ -87,22 +94,30 @@ public record LayeredMappingsFactory(LayeredMappingSpec spec) {
 		final Path mappingsDir = mappingContext.minecraftProvider().dir("layered").toPath();
 		final Path mappingsZip = mappingsDir.resolve(String.format("%s.%s-%s.jar", GROUP, MODULE, spec.getVersion()));
 
-		if (Files.exists(mappingsZip) && !mappingContext.refreshDeps()) {
-			return mappingsZip;
-		}
+		try (ArtifactLock lock = ArtifactLock.exclusive(getLocksDir(project), mappingsZip)) {
+			if (Files.notExists(mappingsZip) || mappingContext.refreshDeps() || lock.isInterrupted()) {
+				var processor = new LayeredMappingsProcessor(spec);
+				List<MappingLayer> layers = processor.resolveLayers(mappingContext);
 
-		var processor = new LayeredMappingsProcessor(spec);
-		List<MappingLayer> layers = processor.resolveLayers(mappingContext);
+				Files.deleteIfExists(mappingsZip);
 
-		Files.deleteIfExists(mappingsZip);
+				// The mappings of each layer are cached, so that only changed layers are read again
+				final Path layersDir = mappingContext.refreshDeps() ? null : mappingsDir.resolve("layers");
+				writeMapping(processor, layers, layersDir, mappingsZip);
+				writeSignatureFixes(processor, layers, mappingsZip);
+				writeUnpickData(processor, layers, mappingsZip);
+			}
 
-		writeMapping(processor, layers, mappingsZip);
-		writeSignatureFixes(processor, layers, mappingsZip);
-		writeUnpickData(processor, layers, mappingsZip);
+			lock.complete();
+		}
 
 		return mappingsZip;
 	}
 
+	private static Path getLocksDir(Project project) {
+		return LoomGradleExtension.get(project).getFiles().getArtifactLocks().toPath();
+	}
+
 	public Dependency createDependency(Project project) {
 		return project.getDependencies().create(mavenNotation());
 	}
@@ -111,8 +126,8 @@ public record LayeredMappingsFactory(LayeredMappingSpec spec) {
 		return String.format("%s:%s:%s", GROUP, MODULE, spec.getVersion());
 	}
 
-	private void writeMapping(LayeredMappingsProcessor processor, List<MappingLayer> layers, Path mappingsFile) throws IOException {
-		MemoryMappingTree mappings = processor.getMappings(layers);
+	private void writeMapping(LayeredMappingsProcessor processor, List<MappingLayer> layers, @Nullable Path layersDir, Path mappingsFile) throws IOException {
+		MemoryMappingTree mappings = processor.getMappings(layers, layersDir);
 
 		try (Writer writer = new StringWriter()) {
 			var tiny2Writer = new Tiny2FileWriter(writer, false);
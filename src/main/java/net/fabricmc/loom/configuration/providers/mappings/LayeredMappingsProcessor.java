@@ -25,14 +25,24 @@
 package net.fabricmc.loom.configuration.providers.mappings;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
 
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
@@ -40,10 +50,15 @@ import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec;
 import net.fabricmc.loom.configuration.providers.mappings.extras.signatures.SignatureFixesLayer;
 import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickLayer;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.ThreadingUtils;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public class LayeredMappingsProcessor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(LayeredMappingsProcessor.class);
+	private static final Duration MAX_UNUSED_LAYER_AGE = Duration.ofDays(7);
+
 	private final LayeredMappingSpec layeredMappingSpec;
 
 	public LayeredMappingsProcessor(LayeredMappingSpec spec) {
@@ -71,9 +86,24 @@ public class LayeredMappingsProcessor {
 	}
 
 	public MemoryMappingTree getMappings(List<MappingLayer> layers) throws IOException {
+		return getMappings(layers, null);
+	}
+
+	/**
+	 * Merge the mappings of the layers, reusing the mappings of each {@link CacheableMappingLayer} cached in the given directory.
+	 * The mappings of layers that are not cached yet are read in parallel, before being merged in order.
+	 *
+	 * @param layers The layers created by {@link #resolveLayers(MappingContext)}
+	 * @param cacheDir The directory to cache the mappings of each layer in, or {@code null} to not cache them
+	 */
+	public MemoryMappingTree getMappings(List<MappingLayer> layers, @Nullable Path cacheDir) throws IOException {
+		final List<BinaryMappings> cachedLayers = getCachedLayers(layers, cacheDir);
 		MemoryMappingTree mappingTree = new MemoryMappingTree();
 
-		for (MappingLayer layer : layers) {
+		for (int i = 0; i < layers.size(); i++) {
+			final MappingLayer layer = layers.get(i);
+			final BinaryMappings cachedLayer = cachedLayers.get(i);
+
 			// We have to rebuild a new tree to work on when a layer doesnt merge into layered
 			boolean rebuild = layer.getSourceNamespace() != MappingsNamespace.NAMED;
 			MemoryMappingTree workingTree;
@@ -93,7 +123,11 @@ public class LayeredMappingsProcessor {
 			}
 
 			try {
-				layer.visit(workingTree);
+				if (cachedLayer != null) {
+					cachedLayer.accept(workingTree);
+				} else {
+					layer.visit(workingTree);
+				}
 			} catch (IOException e) {
 				throw new IOException("Failed to visit: " + layer.getClass(), e);
 			}
@@ -107,6 +141,103 @@ public class LayeredMappingsProcessor {
 		return mappingTree;
 	}
 
+	// Returns the cached mappings of each layer, or null for layers that are not cached
+	private List<BinaryMappings> getCachedLayers(List<MappingLayer> layers, @Nullable Path cacheDir) throws IOException {
+		final List<BinaryMappings> cachedLayers = new ArrayList<>(Collections.nCopies(layers.size(), null));
+
+		if (cacheDir == null) {
+			return cachedLayers;
+		}
+
+		final List<MappingsSpec<?>> specs = layeredMappingSpec.layers();
+
+		if (specs.size() != layers.size()) {
+			throw new IllegalArgumentException("Expected %d layers but got %d".formatted(specs.size(), layers.size()));
+		}
+
+		final List<Integer> indices = new ArrayList<>();
+		final List<ThreadingUtils.UnsafeCallable<BinaryMappings>> jobs = new ArrayList<>();
+
+		for (int i = 0; i < layers.size(); i++) {
+			if (!(layers.get(i) instanceof CacheableMappingLayer layer)) {
+				continue;
+			}
+
+			final String key = getCacheKey(specs.get(i), layer);
+
+			if (key == null) {
+				continue;
+			}
+
+			final Path cacheFile = cacheDir.resolve(key + ".bin");
+			indices.add(i);
+			jobs.add(() -> {
+				final BinaryMappings cached = BinaryMappings.read(cacheFile);
+
+				if (cached != null) {
+					// Keeps the cached layer from being deleted as unused
+					Files.setLastModifiedTime(cacheFile, FileTime.from(Instant.now()));
+					layer.onCached();
+					return cached;
+				}
+
+				try {
+					return BinaryMappings.create(layer::visit, cacheFile);
+				} catch (IOException e) {
+					throw new IOException("Failed to visit: " + layer.getClass(), e);
+				}
+			});
+		}
+
+		if (jobs.isEmpty()) {
+			return cachedLayers;
+		}
+
+		Files.createDirectories(cacheDir);
+		final List<BinaryMappings> results = ThreadingUtils.get(jobs);
+
+		for (int i = 0; i < indices.size(); i++) {
+			cachedLayers.set(indices.get(i), results.get(i));
+		}
+
+		deleteUnusedLayers(cacheDir);
+		return cachedLayers;
+	}
+
+	// The cache directory is shared by the layered mappings of the Minecraft version, so layers are only deleted once
+	// they have not been used by any of them for a while.
+	private static void deleteUnusedLayers(Path cacheDir) throws IOException {
+		final Instant oldestAllowed = Instant.now().minus(MAX_UNUSED_LAYER_AGE);
+
+		try (Stream<Path> files = Files.list(cacheDir)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				if (Files.isRegularFile(file) && Files.getLastModifiedTime(file).toInstant().isBefore(oldestAllowed)) {
+					LOGGER.info("Deleting unused cached mapping layer {}", file);
+					Files.deleteIfExists(file);
+				}
+			}
+		}
+	}
+
+	@Nullable
+	private static String getCacheKey(MappingsSpec<?> spec, CacheableMappingLayer layer) throws IOException {
+		final var key = new StringJoiner("\n");
+		key.add(spec.getClass().getName());
+		key.add(Integer.toString(spec.hashCode()));
+
+		for (Path input : layer.getInputFiles()) {
+			if (Files.isDirectory(input)) {
+				// The contents of directories are not tracked
+				return null;
+			}
+
+			// Keyed by the contents, so files that are replaced or touched without changing reuse the same entry
+			key.add(Checksum.toHex(Checksum.sha256(input.toFile())));
+		}
+
+		return layer.getClass().getSimpleName() + "-" + Checksum.sha256Hex(key.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
 	@Nullable
 	public Map<String, String> getSignatureFixes(List<MappingLayer> layers) {
 		Map<String, String> signatureFixes = new HashMap<>();
@@ -57,12 +57,14 @@ import org.slf4j.LoggerFactory;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
 import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.configuration.providers.forge.ForgeMigratedMappingConfiguration;
 import net.fabricmc.loom.configuration.providers.forge.SrgProvider;
 import net.fabricmc.loom.configuration.providers.mappings.tiny.MappingsMerger;
 import net.fabricmc.loom.configuration.providers.mappings.tiny.TinyJarInfo;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.DeletingFileVisitor;
 import net.fabricmc.loom.util.FileSystemUtil;
@@ -150,8 +152,18 @@ public class MappingConfiguration {
 			mappingConfiguration = new MappingConfiguration(mappingsIdentifier, workingDir);
 		}
 
-		try {
-			mappingConfiguration.setup(project, serviceManager, minecraftProvider, inputJar);
+		try (ArtifactLock lock = mappingConfiguration.lockWorkingDir(project);
+				ConfigurationTrace.Span span = extension.getConfigurationTrace().span("MappingConfiguration.create", mappingsIdentifier)) {
+			final boolean refresh = minecraftProvider.refreshDeps() || lock.isInterrupted();
+			final boolean cached = !refresh && Files.exists(mappingConfiguration.tinyMappings);
+			mappingConfiguration.setup(project, serviceManager, minecraftProvider, inputJar, refresh);
+			lock.complete();
+
+			span.cacheHit(cached).read(inputJar);
+
+			if (!cached) {
+				span.written(List.of(mappingConfiguration.tinyMappings, mappingConfiguration.tinyMappingsJar));
+			}
 		} catch (IOException e) {
 			cleanWorkingDirectory(workingDir);
 			throw new UncheckedIOException("Failed to setup mappings: " + dependency.getDepString(), e);
@@ -165,6 +177,10 @@ public class MappingConfiguration {
 	}
 
 	public TinyMappingsService getMappingsService(SharedServiceManager serviceManager, MappingOption mappingOption) {
+		return TinyMappingsService.create(serviceManager, getMappingsPath(mappingOption));
+	}
+
+	public Path getMappingsPath(MappingOption mappingOption) {
 		final Path tinyMappings = switch (mappingOption) {
 		case WITH_SRG -> {
 			if (Files.notExists(this.tinyMappingsWithSrg)) {
@@ -183,15 +199,25 @@ public class MappingConfiguration {
 		default -> this.tinyMappings;
 		};
 
-		return TinyMappingsService.create(serviceManager, Objects.requireNonNull(tinyMappings));
+		return Objects.requireNonNull(tinyMappings);
 	}
 
-	protected void setup(Project project, SharedServiceManager serviceManager, MinecraftProvider minecraftProvider, Path inputJar) throws IOException {
-		if (minecraftProvider.refreshDeps()) {
+	// The mappings are locked as a whole using the working directory, as they are all derived from the same input.
+	private ArtifactLock lockWorkingDir(Project project) throws IOException {
+		final LoomGradleExtension extension = LoomGradleExtension.get(project);
+
+		// The wait for the lock is traced on its own
+		try (ConfigurationTrace.Span span = extension.getConfigurationTrace().span("ArtifactLock.acquire", mappingsWorkingDir.getFileName().toString())) {
+			return ArtifactLock.exclusive(extension.getFiles().getArtifactLocks().toPath(), mappingsWorkingDir);
+		}
+	}
+
+	protected void setup(Project project, SharedServiceManager serviceManager, MinecraftProvider minecraftProvider, Path inputJar, boolean refresh) throws IOException {
+		if (refresh) {
 			cleanWorkingDirectory(mappingsWorkingDir);
 		}
 
-		if (Files.notExists(tinyMappings) || minecraftProvider.refreshDeps()) {
+		if (Files.notExists(tinyMappings) || refresh) {
 			storeMappings(project, serviceManager, minecraftProvider, inputJar);
 		} else {
 			try (FileSystemUtil.Delegate fileSystem = FileSystemUtil.getJarFileSystem(inputJar, false)) {
@@ -199,25 +225,32 @@ public class MappingConfiguration {
 			}
 		}
 
-		if (Files.notExists(tinyMappingsJar) || minecraftProvider.refreshDeps()) {
+		if (Files.notExists(tinyMappingsJar) || refresh) {
 			Files.deleteIfExists(tinyMappingsJar);
 			ZipUtils.add(tinyMappingsJar, "mappings/mappings.tiny", Files.readAllBytes(tinyMappings));
 		}
 	}
 
 	public void setupPost(Project project) throws IOException {
+		try (ArtifactLock lock = lockWorkingDir(project)) {
+			setupPost(project, LoomGradleExtension.get(project).refreshDeps() || lock.isInterrupted());
+			lock.complete();
+		}
+	}
+
+	private void setupPost(Project project, boolean refresh) throws IOException {
 		LoomGradleExtension extension = LoomGradleExtension.get(project);
 
 		if (extension.isNeoForge()) {
 			// Generate the Mojmap-merged mappings if needed.
 			// Note that this needs to happen before manipulateMappings for FieldMigratedMappingConfiguration.
-			if (Files.notExists(tinyMappingsWithMojang) || extension.refreshDeps()) {
+			if (Files.notExists(tinyMappingsWithMojang) || refresh) {
 				mergeMojang(project, tinyMappings, tinyMappingsWithMojang);
 			}
 		}
 
 		if (extension.shouldGenerateSrgTiny()) {
-			if (Files.notExists(tinyMappingsWithSrg) || extension.refreshDeps()) {
+			if (Files.notExists(tinyMappingsWithSrg) || refresh) {
 				if (extension.isForge() && extension.getForgeProvider().usesMojangAtRuntime()) {
 					Path tmp = Files.createTempFile("mappings", ".tiny");
 					mergeMojang(project, tinyMappings, tmp);
@@ -229,7 +262,7 @@ public class MappingConfiguration {
 			}
 		}
 
-		manipulateMappings(project, tinyMappingsJar);
+		manipulateMappings(project, tinyMappingsJar, refresh);
 	}
 
 	public void applyToProject(Project project, DependencyInfo dependency) throws IOException {
@@ -251,11 +284,15 @@ public class MappingConfiguration {
 				throw new IllegalStateException("We have to generate srg tiny in a forge environment!");
 			}
 
-			if (Files.notExists(srgToNamedSrg) || extension.refreshDeps()) {
-				try (var serviceManager = new ScopedSharedServiceManager()) {
-					TinyMappingsService mappingsService = getMappingsService(serviceManager, MappingOption.WITH_SRG);
-					SrgNamedWriter.writeTo(srgToNamedSrg, mappingsService.getMappingTree(), "srg", "named", extension.isLegacyForge());
+			try (ArtifactLock lock = lockWorkingDir(project)) {
+				if (Files.notExists(srgToNamedSrg) || extension.refreshDeps() || lock.isInterrupted()) {
+					try (var serviceManager = new ScopedSharedServiceManager()) {
+						TinyMappingsService mappingsService = getMappingsService(serviceManager, MappingOption.WITH_SRG);
+						SrgNamedWriter.writeTo(srgToNamedSrg, mappingsService.getMappingTree(), "srg", "named", extension.isLegacyForge());
+					}
 				}
+
+				lock.complete();
 			}
 		}
 
@@ -309,7 +346,7 @@ public class MappingConfiguration {
 		project.getLogger().info(":merged srg mappings in " + stopwatch.stop());
 	}
 
-	protected void manipulateMappings(Project project, Path mappingsJar) throws IOException {
+	protected void manipulateMappings(Project project, Path mappingsJar, boolean refresh) throws IOException {
 	}
 
 	private static String getMappingsClassifier(DependencyInfo dependency, boolean isV2) {
@@ -30,16 +30,15 @@ import java.nio.file.Path;
 
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
-import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class TinyMappingsService implements SharedService {
-	private final MemoryMappingTree mappingTree;
+	private final BinaryMappings binaryMappings;
+	private MemoryMappingTree mappingTree;
 
 	public TinyMappingsService(Path tinyMappings) {
 		try {
-			this.mappingTree = new MemoryMappingTree();
-			MappingReader.read(tinyMappings, mappingTree);
+			this.binaryMappings = BinaryMappings.open(tinyMappings);
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to read mappings", e);
 		}
@@ -49,7 +48,24 @@ public final class TinyMappingsService implements SharedService {
 		return serviceManager.getOrCreateService("TinyMappingsService:" + tinyMappings.toAbsolutePath(), () -> new TinyMappingsService(tinyMappings));
 	}
 
-	public MemoryMappingTree getMappingTree() {
+	/**
+	 * @return The mappings, without reading them all into memory
+	 */
+	public BinaryMappings getBinaryMappings() {
+		return binaryMappings;
+	}
+
+	public synchronized MemoryMappingTree getMappingTree() {
+		if (mappingTree == null) {
+			try {
+				final var mappingTree = new MemoryMappingTree();
+				binaryMappings.accept(mappingTree);
+				this.mappingTree = mappingTree;
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to read mappings", e);
+			}
+		}
+
 		return mappingTree;
 	}
 }
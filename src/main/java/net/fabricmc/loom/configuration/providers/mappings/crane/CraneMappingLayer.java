@@ -29,13 +29,14 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
-import net.fabricmc.loom.api.mappings.layered.MappingLayer;
+import net.fabricmc.loom.configuration.providers.mappings.CacheableMappingLayer;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.mappingio.MappingVisitor;
 import net.fabricmc.mappingio.format.tiny.Tiny2FileReader;
 
-public record CraneMappingLayer(Path craneJar) implements MappingLayer {
+public record CraneMappingLayer(Path craneJar) implements CacheableMappingLayer {
 	private static final String TINY_FILE_NAME = "crane.tiny";
 
 	@Override
@@ -46,4 +47,9 @@ public record CraneMappingLayer(Path craneJar) implements MappingLayer {
 			}
 		}
 	}
+
+	@Override
+	public List<Path> getInputFiles() {
+		return List.of(craneJar);
+	}
 }
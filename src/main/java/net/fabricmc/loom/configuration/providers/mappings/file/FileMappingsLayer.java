@@ -34,6 +34,7 @@ import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.providers.mappings.CacheableMappingLayer;
 import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickLayer;
 import net.fabricmc.loom.configuration.providers.mappings.intermediary.IntermediaryMappingLayer;
 import net.fabricmc.loom.util.FileSystemUtil;
@@ -51,7 +52,7 @@ public record FileMappingsLayer(
 		boolean enigma, // Enigma cannot be automatically detected since it's stored in a directory.
 		boolean unpick,
 		String mergeNamespace
-) implements MappingLayer, UnpickLayer {
+) implements CacheableMappingLayer, UnpickLayer {
 	private static final String UNPICK_METADATA_PATH = "extras/unpick.json";
 	private static final String UNPICK_DEFINITIONS_PATH = "extras/definitions.unpick";
 
@@ -81,6 +82,11 @@ public record FileMappingsLayer(
 		MappingReader.read(path, enigma ? MappingFormat.ENIGMA_DIR : null, renamer);
 	}
 
+	@Override
+	public List<Path> getInputFiles() {
+		return List.of(path);
+	}
+
 	@Override
 	public MappingsNamespace getSourceNamespace() {
 		return MappingsNamespace.of(mergeNamespace);
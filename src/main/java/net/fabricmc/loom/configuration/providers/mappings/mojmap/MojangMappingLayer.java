@@ -36,6 +36,7 @@ import org.gradle.api.logging.Logger;
 
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.providers.mappings.CacheableMappingLayer;
 import net.fabricmc.loom.configuration.providers.mappings.intermediary.IntermediaryMappingLayer;
 import net.fabricmc.loom.configuration.providers.mappings.utils.DstNameFilterMappingVisitor;
 import net.fabricmc.mappingio.MappingVisitor;
@@ -47,7 +48,7 @@ public record MojangMappingLayer(String minecraftVersion,
 									Path serverMappings,
 									boolean nameSyntheticMembers,
 									Logger logger,
-									MojangMappingsSpec.SilenceLicenseOption silenceLicense) implements MappingLayer {
+									MojangMappingsSpec.SilenceLicenseOption silenceLicense) implements CacheableMappingLayer {
 	private static final Pattern SYNTHETIC_NAME_PATTERN = Pattern.compile("^(access|this|val\\$this|lambda\\$.*)\\$[0-9]+$");
 	@Override
 	public void visit(MappingVisitor mappingVisitor) throws IOException {
@@ -86,6 +87,18 @@ public record MojangMappingLayer(String minecraftVersion,
 		}
 	}
 
+	@Override
+	public List<Path> getInputFiles() {
+		return List.of(clientMappings, serverMappings);
+	}
+
+	@Override
+	public void onCached() {
+		if (!silenceLicense.isSilent()) {
+			printMappingsLicense(clientMappings);
+		}
+	}
+
 	@Override
 	public MappingsNamespace getSourceNamespace() {
 		return MappingsNamespace.OFFICIAL;
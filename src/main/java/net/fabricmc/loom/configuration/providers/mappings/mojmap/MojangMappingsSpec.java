@@ -31,6 +31,7 @@ import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftVersionMeta;
 import net.fabricmc.loom.util.download.DownloadException;
+import net.fabricmc.loom.util.download.DownloadExecutor;
 
 public record MojangMappingsSpec(SilenceLicenseOption silenceLicense, boolean nameSyntheticMembers) implements MappingsSpec<MojangMappingLayer> {
 	// Keys in dependency manifest
@@ -86,14 +87,14 @@ public record MojangMappingsSpec(SilenceLicenseOption silenceLicense, boolean na
 		final Path clientMappings = context.workingDirectory("mojang").resolve("client.txt");
 		final Path serverMappings = context.workingDirectory("mojang").resolve("server.txt");
 
-		try {
+		try (DownloadExecutor executor = new DownloadExecutor(2)) {
 			context.download(clientDownload.url())
 					.sha1(clientDownload.sha1())
-					.downloadPath(clientMappings);
+					.downloadPathAsync(clientMappings, executor);
 
 			context.download(serverDownload.url())
 					.sha1(serverDownload.sha1())
-					.downloadPath(serverMappings);
+					.downloadPathAsync(serverMappings, executor);
 		} catch (DownloadException e) {
 			throw new UncheckedIOException("Failed to download mappings", e);
 		}
@@ -26,13 +26,14 @@ package net.fabricmc.loom.configuration.providers.mappings.parchment;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 
-import net.fabricmc.loom.api.mappings.layered.MappingLayer;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.providers.mappings.CacheableMappingLayer;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.mappingio.MappingVisitor;
 
-public record ParchmentMappingLayer(Path parchmentFile, boolean removePrefix) implements MappingLayer {
+public record ParchmentMappingLayer(Path parchmentFile, boolean removePrefix) implements CacheableMappingLayer {
 	private static final String PARCHMENT_DATA_FILE_NAME = "parchment.json";
 
 	@Override
@@ -46,6 +47,11 @@ public record ParchmentMappingLayer(Path parchmentFile, boolean removePrefix) im
 		parchmentData.visit(mappingVisitor, MappingsNamespace.NAMED.toString());
 	}
 
+	@Override
+	public List<Path> getInputFiles() {
+		return List.of(parchmentFile);
+	}
+
 	private ParchmentTreeV1 getParchmentData() throws IOException {
 		return ZipUtils.unpackJson(parchmentFile, PARCHMENT_DATA_FILE_NAME, ParchmentTreeV1.class);
 	}
@@ -36,6 +36,8 @@ import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.ConfigContext;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
+import net.fabricmc.loom.util.ArtifactLock;
 
 public class MergedMinecraftProvider extends MinecraftProvider {
 	private static final Logger LOGGER = LoggerFactory.getLogger(MergedMinecraftProvider.class);
@@ -73,17 +75,26 @@ public class MergedMinecraftProvider extends MinecraftProvider {
 			throw new UnsupportedOperationException("This version does not provide both the client and server jars - please select the client-only or server-only jar configuration!");
 		}
 
-		if (!Files.exists(minecraftMergedJar) || getExtension().refreshDeps()) {
-			try {
-				mergeJars();
-			} catch (Throwable e) {
-				Files.deleteIfExists(getMinecraftClientJar().toPath());
-				Files.deleteIfExists(getMinecraftServerJar().toPath());
-				Files.deleteIfExists(minecraftMergedJar);
-
-				getProject().getLogger().error("Could not merge JARs! Deleting source JARs - please re-run the command and move on.", e);
-				throw e;
+		try (ArtifactLock lock = lockArtifacts(minecraftMergedJar);
+				ConfigurationTrace.Span span = getExtension().getConfigurationTrace().span("MergedMinecraftProvider.mergeJars", minecraftVersion())) {
+			final boolean requiresRefresh = !Files.exists(minecraftMergedJar) || getExtension().refreshDeps() || lock.isInterrupted();
+
+			if (requiresRefresh) {
+				try {
+					mergeJars();
+					span.read(List.of(getMinecraftClientJar().toPath(), getMinecraftServerJar().toPath())).written(minecraftMergedJar);
+				} catch (Throwable e) {
+					Files.deleteIfExists(getMinecraftClientJar().toPath());
+					Files.deleteIfExists(getMinecraftServerJar().toPath());
+					Files.deleteIfExists(minecraftMergedJar);
+
+					getProject().getLogger().error("Could not merge JARs! Deleting source JARs - please re-run the command and move on.", e);
+					throw e;
+				}
 			}
+
+			lock.complete();
+			span.cacheHit(!requiresRefresh);
 		}
 	}
 
@@ -26,52 +26,45 @@ package net.fabricmc.loom.configuration.providers.minecraft;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.StandardOpenOption;
-import java.nio.file.attribute.BasicFileAttributeView;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
 
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.SnowmanClassVisitor;
 import net.fabricmc.loom.util.SyntheticParameterClassVisitor;
+import net.fabricmc.loom.util.zip.RawZipFile;
+import net.fabricmc.loom.util.zip.RawZipWriter;
 
+/**
+ * Merges the client and server jars into a single jar, adding {@code @Environment} annotations to the classes and members only present on one side.
+ *
+ * <p>Both jars are walked in name order, only a bounded number of entries are read into memory at once.
+ * Classes are merged and transformed in parallel, and written in order. Other entries are copied without being decompressed.
+ */
 public class MinecraftJarMerger implements AutoCloseable {
-	public static class Entry {
-		public final Path path;
-		public final BasicFileAttributes metadata;
-		public final byte[] data;
-
-		public Entry(Path path, BasicFileAttributes metadata, byte[] data) {
-			this.path = path;
-			this.metadata = metadata;
-			this.data = data;
-		}
-	}
-
 	private static final MinecraftClassMerger CLASS_MERGER = new MinecraftClassMerger();
-	private final FileSystemUtil.Delegate inputClientFs, inputServerFs, outputFs;
-	private final Path inputClient, inputServer;
-	private final Map<String, Entry> entriesClient, entriesServer;
-	private final Set<String> entriesAll;
+	private static final byte[] MANIFEST = "Manifest-Version: 1.0\nMain-Class: net.minecraft.client.Main\n".getBytes(StandardCharsets.UTF_8);
+	private final RawZipFile inputClient, inputServer;
+	private final Path output;
 	private boolean removeSnowmen = false;
 	private boolean offsetSyntheticsParams = false;
 
@@ -84,13 +77,16 @@ public class MinecraftJarMerger implements AutoCloseable {
 
 		Files.createDirectories(output.toPath().getParent());
 
-		this.inputClient = (inputClientFs = FileSystemUtil.getJarFileSystem(inputClient, false)).get().getPath("/");
-		this.inputServer = (inputServerFs = FileSystemUtil.getJarFileSystem(inputServer, false)).get().getPath("/");
-		this.outputFs = FileSystemUtil.getJarFileSystem(output, true);
+		this.inputClient = RawZipFile.open(inputClient.toPath());
+
+		try {
+			this.inputServer = RawZipFile.open(inputServer.toPath());
+		} catch (IOException e) {
+			this.inputClient.close();
+			throw e;
+		}
 
-		this.entriesClient = new HashMap<>();
-		this.entriesServer = new HashMap<>();
-		this.entriesAll = new TreeSet<>();
+		this.output = output.toPath();
 	}
 
 	public void enableSnowmanRemoval() {
@@ -103,148 +99,185 @@ public class MinecraftJarMerger implements AutoCloseable {
 
 	@Override
 	public void close() throws IOException {
-		inputClientFs.close();
-		inputServerFs.close();
-		outputFs.close();
+		try (inputClient; inputServer) {
+			// Close both inputs
+		}
 	}
 
-	private void readToMap(Map<String, Entry> map, Path input) {
-		try {
-			Files.walkFileTree(input, new SimpleFileVisitor<>() {
-				@Override
-				public FileVisitResult visitFile(Path path, BasicFileAttributes attr) throws IOException {
-					if (attr.isDirectory()) {
-						return FileVisitResult.CONTINUE;
-					}
-
-					if (!path.getFileName().toString().endsWith(".class")) {
-						if (path.toString().equals("/META-INF/MANIFEST.MF")) {
-							map.put("META-INF/MANIFEST.MF", new Entry(path, attr,
-									"Manifest-Version: 1.0\nMain-Class: net.minecraft.client.Main\n".getBytes(StandardCharsets.UTF_8)));
-						} else {
-							if (path.toString().startsWith("/META-INF/")) {
-								if (path.toString().endsWith(".SF") || path.toString().endsWith(".RSA")) {
-									return FileVisitResult.CONTINUE;
-								}
-							}
-
-							map.put(path.toString().substring(1), new Entry(path, attr, null));
-						}
-
-						return FileVisitResult.CONTINUE;
-					}
-
-					byte[] output = Files.readAllBytes(path);
-					map.put(path.toString().substring(1), new Entry(path, attr, output));
-					return FileVisitResult.CONTINUE;
+	public void merge() throws IOException {
+		final List<RawZipFile.Entry> clientEntries = sortedEntries(inputClient);
+		final List<RawZipFile.Entry> serverEntries = sortedEntries(inputServer);
+		final int threads = Runtime.getRuntime().availableProcessors();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try (RawZipWriter writer = RawZipWriter.create(output)) {
+			// Keep a bounded number of entries in flight, entries are written in order as they complete.
+			final Deque<PendingEntry> pending = new ArrayDeque<>();
+			final Set<String> directories = new HashSet<>();
+			int clientIndex = 0;
+			int serverIndex = 0;
+
+			while (clientIndex < clientEntries.size() || serverIndex < serverEntries.size()) {
+				final RawZipFile.Entry client = clientIndex < clientEntries.size() ? clientEntries.get(clientIndex) : null;
+				final RawZipFile.Entry server = serverIndex < serverEntries.size() ? serverEntries.get(serverIndex) : null;
+				final int cmp = client == null ? 1 : server == null ? -1 : client.name().compareTo(server.name());
+
+				final PendingEntry entry;
+
+				if (cmp == 0) {
+					entry = merge(client, server, executor);
+					clientIndex++;
+					serverIndex++;
+				} else if (cmp < 0) {
+					entry = merge(client, null, executor);
+					clientIndex++;
+				} else {
+					entry = merge(null, server, executor);
+					serverIndex++;
 				}
-			});
-		} catch (IOException e) {
-			e.printStackTrace();
+
+				if (entry == null) {
+					continue;
+				}
+
+				addDirectories(directories, pending, entry.name());
+				pending.add(entry);
+
+				if (pending.size() >= threads * 4) {
+					write(writer, pending.remove());
+				}
+			}
+
+			while (!pending.isEmpty()) {
+				write(writer, pending.remove());
+			}
+		} finally {
+			executor.shutdownNow();
 		}
 	}
 
-	private void add(Entry entry) throws IOException {
-		Path outPath = outputFs.get().getPath(entry.path.toString());
+	private static List<RawZipFile.Entry> sortedEntries(RawZipFile zip) {
+		return zip.entries().stream()
+				.filter(entry -> !entry.isDirectory())
+				.filter(entry -> !isSignature(entry.name()))
+				.sorted(Comparator.comparing(RawZipFile.Entry::name))
+				.toList();
+	}
+
+	private static boolean isSignature(String name) {
+		return name.startsWith("META-INF/") && (name.endsWith(".SF") || name.endsWith(".RSA"));
+	}
+
+	private @Nullable PendingEntry merge(RawZipFile.@Nullable Entry client, RawZipFile.@Nullable Entry server, ExecutorService executor) {
+		final String name = client != null ? client.name() : server.name();
+		final boolean isClass = name.endsWith(".class");
+		final boolean isMinecraft = client != null || name.startsWith("net/minecraft") || !name.contains("/");
+
+		// Prefer the client entry, other than for classes the server entry is only used when there is no client entry
+		final RawZipFile zip = client != null ? inputClient : inputServer;
+		final RawZipFile.Entry entry = client != null ? client : server;
+
+		if (!isClass) {
+			if (name.equals("META-INF/MANIFEST.MF")) {
+				return new PendingEntry(name, zip, entry, CompletableFuture.completedFuture(RawZipWriter.deflate(MANIFEST, Deflater.DEFAULT_COMPRESSION)));
+			}
 
-		if (outPath.getParent() != null) {
-			Files.createDirectories(outPath.getParent());
+			return new PendingEntry(name, zip, entry, CompletableFuture.completedFuture(null));
 		}
 
-		if (entry.data != null) {
-			Files.write(outPath, entry.data, StandardOpenOption.CREATE_NEW);
-		} else {
-			Files.copy(entry.path, outPath);
+		if (!isMinecraft && client == null) {
+			// Server bundles libraries, client doesn't - skip them
+			return null;
 		}
 
-		Files.getFileAttributeView(outPath, BasicFileAttributeView.class)
-				.setTimes(
-						entry.metadata.creationTime(),
-						entry.metadata.lastAccessTime(),
-						entry.metadata.lastModifiedTime()
-				);
+		return new PendingEntry(name, zip, entry, CompletableFuture.supplyAsync(() -> mergeClass(client, server, isMinecraft), executor));
 	}
 
-	public void merge() throws IOException {
-		ExecutorService service = Executors.newFixedThreadPool(2);
-		service.submit(() -> readToMap(entriesClient, inputClient));
-		service.submit(() -> readToMap(entriesServer, inputServer));
-		service.shutdown();
-
+	private RawZipWriter.@Nullable Deflated mergeClass(RawZipFile.@Nullable Entry client, RawZipFile.@Nullable Entry server, boolean isMinecraft) {
 		try {
-			service.awaitTermination(1, TimeUnit.HOURS);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
+			final byte[] clientData = client != null ? inputClient.readAllBytes(client) : null;
+			final byte[] serverData = server != null ? inputServer.readAllBytes(server) : null;
+			byte[] data;
+			String side = null;
+
+			if (clientData != null && serverData != null) {
+				data = Arrays.equals(clientData, serverData) ? clientData : CLASS_MERGER.merge(clientData, serverData);
+			} else if (clientData != null) {
+				data = clientData;
+				side = "CLIENT";
+			} else {
+				data = serverData;
+				side = "SERVER";
+			}
 
-		entriesAll.addAll(entriesClient.keySet());
-		entriesAll.addAll(entriesServer.keySet());
+			if (isMinecraft) {
+				ClassReader reader = new ClassReader(data);
+				ClassWriter writer = new ClassWriter(0);
+				ClassVisitor visitor = writer;
 
-		List<Entry> entries = entriesAll.parallelStream().map((entry) -> {
-			boolean isClass = entry.endsWith(".class");
-			boolean isMinecraft = entriesClient.containsKey(entry) || entry.startsWith("net/minecraft") || !entry.contains("/");
-			Entry result;
-			String side = null;
+				if (side != null) {
+					visitor = new MinecraftClassMerger.SidedClassVisitor(Constants.ASM_VERSION, visitor, side);
+				}
 
-			Entry entry1 = entriesClient.get(entry);
-			Entry entry2 = entriesServer.get(entry);
+				if (removeSnowmen) {
+					visitor = new SnowmanClassVisitor(Constants.ASM_VERSION, visitor);
+				}
 
-			if (entry1 != null && entry2 != null) {
-				if (Arrays.equals(entry1.data, entry2.data)) {
-					result = entry1;
-				} else {
-					if (isClass) {
-						result = new Entry(entry1.path, entry1.metadata, CLASS_MERGER.merge(entry1.data, entry2.data));
-					} else {
-						// FIXME: More heuristics?
-						result = entry1;
-					}
+				if (offsetSyntheticsParams) {
+					visitor = new SyntheticParameterClassVisitor(Constants.ASM_VERSION, visitor);
+				}
+
+				if (visitor != writer) {
+					reader.accept(visitor, 0);
+					data = writer.toByteArray();
 				}
-			} else if ((result = entry1) != null) {
-				side = "CLIENT";
-			} else if ((result = entry2) != null) {
-				side = "SERVER";
 			}
 
-			if (isClass && !isMinecraft && "SERVER".equals(side)) {
-				// Server bundles libraries, client doesn't - skip them
-				return null;
+			// The client class is copied as is when it is unchanged
+			return data == clientData ? null : RawZipWriter.deflate(data, Deflater.DEFAULT_COMPRESSION);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Directory entries are written before the first entry within them
+	private static void addDirectories(Set<String> directories, Deque<PendingEntry> pending, String name) {
+		int end = name.indexOf('/');
+
+		while (end != -1) {
+			final String directory = name.substring(0, end + 1);
+
+			if (directories.add(directory)) {
+				pending.add(new PendingEntry(directory, null, null, CompletableFuture.completedFuture(null)));
 			}
 
-			if (result != null) {
-				if (isMinecraft && isClass) {
-					byte[] data = result.data;
-					ClassReader reader = new ClassReader(data);
-					ClassWriter writer = new ClassWriter(0);
-					ClassVisitor visitor = writer;
-
-					if (side != null) {
-						visitor = new MinecraftClassMerger.SidedClassVisitor(Constants.ASM_VERSION, visitor, side);
-					}
-
-					if (removeSnowmen) {
-						visitor = new SnowmanClassVisitor(Constants.ASM_VERSION, visitor);
-					}
-
-					if (offsetSyntheticsParams) {
-						visitor = new SyntheticParameterClassVisitor(Constants.ASM_VERSION, visitor);
-					}
-
-					if (visitor != writer) {
-						reader.accept(visitor, 0);
-						data = writer.toByteArray();
-						result = new Entry(result.path, result.metadata, data);
-					}
-				}
+			end = name.indexOf('/', end + 1);
+		}
+	}
 
-				return result;
-			} else {
-				return null;
+	private static void write(RawZipWriter writer, PendingEntry pending) throws IOException {
+		final RawZipWriter.Deflated deflated;
+
+		try {
+			deflated = pending.future().join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+				throw uncheckedIOException.getCause();
 			}
-		}).filter(Objects::nonNull).toList();
 
-		for (Entry e : entries) {
-			add(e);
+			throw e;
+		}
+
+		if (pending.entry() == null) {
+			writer.store(pending.name(), new byte[0], RawZipWriter.CONSTANT_DOS_TIME);
+		} else if (deflated == null) {
+			writer.copy(pending.zip(), pending.entry());
+		} else {
+			writer.write(pending.entry().name(), deflated, pending.entry().dosTime());
 		}
 	}
+
+	// A directory entry when the entry is null
+	private record PendingEntry(String name, @Nullable RawZipFile zip, RawZipFile.@Nullable Entry entry, CompletableFuture<RawZipWriter.Deflated> future) {
+	}
 }
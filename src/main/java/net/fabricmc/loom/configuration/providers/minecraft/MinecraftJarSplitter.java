@@ -26,27 +26,31 @@ package net.fabricmc.loom.configuration.providers.minecraft;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
-import java.util.stream.Stream;
-
-import com.google.common.collect.Sets;
 
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.zip.RawZipFile;
+import net.fabricmc.loom.util.zip.RawZipWriter;
 
+/**
+ * Splits the client and server jars into a client only jar and a common jar.
+ *
+ * <p>The central directories of both jars are read directly, and the compressed bytes of each entry are copied
+ * into the output jars without being decompressed. Both output jars are written in a single pass, sorted by name.
+ */
 public class MinecraftJarSplitter implements AutoCloseable {
 	private final Path clientInputJar;
 	private final Path serverInputJar;
 
-	private EntryData entryData;
 	private Set<String> sharedEntries = new HashSet<>();
 	private Set<String> forcedClientEntries = new HashSet<>();
 
@@ -59,15 +63,39 @@ public class MinecraftJarSplitter implements AutoCloseable {
 		Objects.requireNonNull(clientOnlyOutputJar);
 		Objects.requireNonNull(commonOutputJar);
 
-		if (entryData == null) {
-			entryData = new EntryData(getJarEntries(clientInputJar), getJarEntries(serverInputJar));
-		}
+		try (RawZipFile clientZip = RawZipFile.open(clientInputJar);
+				RawZipFile serverZip = RawZipFile.open(serverInputJar)) {
+			final Map<String, RawZipFile.Entry> clientEntries = getJarEntries(clientZip);
+			final Map<String, RawZipFile.Entry> serverEntries = getJarEntries(serverZip);
+
+			// Not something we expect, will require 3 jars, server, client and common.
+			assert clientEntries.keySet().containsAll(serverEntries.keySet());
+
+			final Set<String> names = new TreeSet<>(clientEntries.keySet());
+			names.addAll(sharedEntries);
+			names.addAll(forcedClientEntries);
+
+			try (RawZipWriter clientOnlyWriter = RawZipWriter.create(clientOnlyOutputJar);
+					RawZipWriter commonWriter = RawZipWriter.create(commonOutputJar)) {
+				writeManifest(clientOnlyWriter, "client");
+				writeManifest(commonWriter, "common");
 
-		// Not something we expect, will require 3 jars, server, client and common.
-		assert entryData.serverOnlyEntries.isEmpty();
+				for (String name : names) {
+					final boolean inClient = clientEntries.containsKey(name);
+					final boolean inServer = serverEntries.containsKey(name);
+					final boolean shared = sharedEntries.contains(name);
+					final boolean forcedClient = forcedClientEntries.contains(name);
 
-		copyEntriesToJar(entryData.commonEntries, serverInputJar, commonOutputJar, "common");
-		copyEntriesToJar(entryData.clientOnlyEntries, clientInputJar, clientOnlyOutputJar, "client");
+					if (!forcedClient && (shared || (inClient && inServer))) {
+						copyEntry(commonWriter, serverZip, serverEntries, name);
+					}
+
+					if (forcedClient || shared || (inClient && !inServer)) {
+						copyEntry(clientOnlyWriter, clientZip, clientEntries, name);
+					}
+				}
+			}
+		}
 	}
 
 	public void sharedEntry(String path) {
@@ -78,94 +106,57 @@ public class MinecraftJarSplitter implements AutoCloseable {
 		this.forcedClientEntries.add(path);
 	}
 
-	private Set<String> getJarEntries(Path input) throws IOException {
-		Set<String> entries = Sets.newHashSet();
-
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(input);
-				Stream<Path> walk = Files.walk(fs.get().getPath("/"))) {
-			Iterator<Path> iterator = walk.iterator();
-
-			while (iterator.hasNext()) {
-				Path fsPath = iterator.next();
+	private static Map<String, RawZipFile.Entry> getJarEntries(RawZipFile zip) {
+		final Map<String, RawZipFile.Entry> entries = new HashMap<>();
 
-				if (!Files.isRegularFile(fsPath)) {
-					continue;
-				}
-
-				String entryPath = fs.get().getPath("/").relativize(fsPath).toString();
-
-				if (entryPath.startsWith("META-INF/")) {
-					continue;
-				}
-
-				entries.add(entryPath);
+		for (RawZipFile.Entry entry : zip.entries()) {
+			if (entry.isDirectory() || entry.name().startsWith("META-INF/")) {
+				continue;
 			}
+
+			entries.put(entry.name(), entry);
 		}
 
 		return entries;
 	}
 
-	private void copyEntriesToJar(Set<String> entries, Path inputJar, Path outputJar, String env) throws IOException {
-		Files.deleteIfExists(outputJar);
+	private static void copyEntry(RawZipWriter writer, RawZipFile zip, Map<String, RawZipFile.Entry> entries, String name) throws IOException {
+		final RawZipFile.Entry entry = entries.get(name);
 
-		try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar);
-				FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(outputJar, true)) {
-			for (String entry : entries) {
-				Path inputPath = inputFs.get().getPath(entry);
-				Path outputPath = outputFs.get().getPath(entry);
+		if (entry == null) {
+			throw new NoSuchFileException(name, null, "Not found in " + zip.getPath());
+		}
 
-				assert Files.isRegularFile(inputPath);
+		writeDirectories(writer, name);
+		writer.copy(zip, entry);
+	}
 
-				Path outputPathParent = outputPath.getParent();
+	// Directory entries are written before the first entry within them
+	private static void writeDirectories(RawZipWriter writer, String name) throws IOException {
+		int end = name.indexOf('/');
 
-				if (outputPathParent != null) {
-					Files.createDirectories(outputPathParent);
-				}
+		while (end != -1) {
+			final String directory = name.substring(0, end + 1);
 
-				Files.copy(inputPath, outputPath, StandardCopyOption.COPY_ATTRIBUTES);
+			if (!writer.contains(directory)) {
+				writer.store(directory, new byte[0], RawZipWriter.CONSTANT_DOS_TIME);
 			}
 
-			writeManifest(outputFs, env);
+			end = name.indexOf('/', end + 1);
 		}
 	}
 
-	private void writeManifest(FileSystemUtil.Delegate outputFs, String env) throws IOException {
+	private static void writeManifest(RawZipWriter writer, String env) throws IOException {
 		final Manifest manifest = new Manifest();
 		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
 		manifest.getMainAttributes().putValue(Constants.Manifest.SPLIT_ENV_NAME, env);
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		manifest.write(out);
-		Files.createDirectories(outputFs.get().getPath("META-INF"));
-		Files.write(outputFs.get().getPath(Constants.Manifest.PATH), out.toByteArray());
+		writeDirectories(writer, Constants.Manifest.PATH);
+		writer.write(Constants.Manifest.PATH, out.toByteArray());
 	}
 
 	@Override
 	public void close() throws Exception {
 	}
-
-	private final class EntryData {
-		private final Set<String> clientEntries;
-		private final Set<String> serverEntries;
-		private final Set<String> commonEntries;
-		private final Set<String> clientOnlyEntries;
-		private final Set<String> serverOnlyEntries;
-
-		private EntryData(Set<String> clientEntries, Set<String> serverEntries) {
-			this.clientEntries = clientEntries;
-			this.serverEntries = serverEntries;
-
-			this.commonEntries = Sets.newHashSet(clientEntries);
-			this.commonEntries.retainAll(serverEntries);
-			this.commonEntries.addAll(sharedEntries);
-			this.commonEntries.removeAll(forcedClientEntries);
-
-			this.clientOnlyEntries = Sets.newHashSet(clientEntries);
-			this.clientOnlyEntries.removeAll(serverEntries);
-			this.clientOnlyEntries.addAll(sharedEntries);
-			this.clientOnlyEntries.addAll(forcedClientEntries);
-
-			this.serverOnlyEntries = Sets.newHashSet(serverEntries);
-			this.serverOnlyEntries.removeAll(clientEntries);
-		}
-	}
 }
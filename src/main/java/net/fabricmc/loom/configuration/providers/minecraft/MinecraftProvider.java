@@ -40,7 +40,9 @@ import org.slf4j.LoggerFactory;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.ConfigContext;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
 import net.fabricmc.loom.configuration.providers.BundleMetadata;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.download.DownloadExecutor;
 import net.fabricmc.loom.util.download.GradleDownloadProgressListener;
@@ -145,7 +147,19 @@ public abstract class MinecraftProvider {
 			throw new UnsupportedOperationException("Expected only 1 version in META-INF/versions.list, but got %d".formatted(getServerBundleMetadata().versions().size()));
 		}
 
-		getServerBundleMetadata().versions().get(0).unpackEntry(minecraftServerJar.toPath(), getMinecraftExtractedServerJar().toPath(), configContext.project());
+		try (ArtifactLock lock = lockArtifacts(getMinecraftExtractedServerJar().toPath())) {
+			getServerBundleMetadata().versions().get(0).unpackEntry(minecraftServerJar.toPath(), getMinecraftExtractedServerJar().toPath(), configContext.project());
+			lock.complete();
+		}
+	}
+
+	/**
+	 * Lock the given artifacts for producing them, see {@link ArtifactLock}. The wait for the lock is traced on its own.
+	 */
+	protected ArtifactLock lockArtifacts(Path... artifacts) throws IOException {
+		try (ConfigurationTrace.Span span = getExtension().getConfigurationTrace().span("ArtifactLock.acquire", getClass().getSimpleName())) {
+			return ArtifactLock.exclusive(getExtension().getFiles().getArtifactLocks().toPath(), artifacts);
+		}
 	}
 
 	public File workingDir() {
@@ -30,7 +30,9 @@ import java.util.List;
 
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.ConfigContext;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
 import net.fabricmc.loom.configuration.providers.BundleMetadata;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.tinyremapper.NonClassCopyMode;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
@@ -87,12 +89,21 @@ public abstract class SingleJarMinecraftProvider extends MinecraftProvider {
 	}
 
 	protected void processJar() throws Exception {
-		boolean requiresRefresh = getExtension().refreshDeps() || Files.notExists(minecraftEnvOnlyJar);
+		try (ArtifactLock lock = lockArtifacts(minecraftEnvOnlyJar);
+				ConfigurationTrace.Span span = getExtension().getConfigurationTrace().span("SingleJarMinecraftProvider.createEnvOnlyJar", minecraftVersion())) {
+			boolean requiresRefresh = getExtension().refreshDeps() || lock.isInterrupted() || Files.notExists(minecraftEnvOnlyJar);
 
-		if (!requiresRefresh) {
-			return;
+			if (requiresRefresh) {
+				createEnvOnlyJar();
+				span.read(getInputJar(this)).written(minecraftEnvOnlyJar);
+			}
+
+			lock.complete();
+			span.cacheHit(!requiresRefresh);
 		}
+	}
 
+	private void createEnvOnlyJar() throws Exception {
 		final Path inputJar = getInputJar(this);
 
 		TinyRemapper remapper = null;
@@ -24,13 +24,16 @@
 
 package net.fabricmc.loom.configuration.providers.minecraft;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.ConfigContext;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
 import net.fabricmc.loom.configuration.providers.BundleMetadata;
+import net.fabricmc.loom.util.ArtifactLock;
 
 public final class SplitMinecraftProvider extends MinecraftProvider {
 	private Path minecraftClientOnlyJar;
@@ -62,12 +65,22 @@ public final class SplitMinecraftProvider extends MinecraftProvider {
 	public void provide() throws Exception {
 		super.provide();
 
-		boolean requiresRefresh = getExtension().refreshDeps() || Files.notExists(minecraftClientOnlyJar) || Files.notExists(minecraftCommonJar);
+		try (ArtifactLock lock = lockArtifacts(minecraftClientOnlyJar, minecraftCommonJar);
+				ConfigurationTrace.Span span = getExtension().getConfigurationTrace().span("SplitMinecraftProvider.splitJars", minecraftVersion())) {
+			boolean requiresRefresh = getExtension().refreshDeps() || lock.isInterrupted() || Files.notExists(minecraftClientOnlyJar) || Files.notExists(minecraftCommonJar);
 
-		if (!requiresRefresh) {
-			return;
+			if (requiresRefresh) {
+				splitJars();
+				span.read(List.of(getMinecraftClientJar().toPath(), getMinecraftServerJar().toPath()))
+						.written(List.of(minecraftClientOnlyJar, minecraftCommonJar));
+			}
+
+			lock.complete();
+			span.cacheHit(!requiresRefresh);
 		}
+	}
 
+	private void splitJars() throws IOException {
 		BundleMetadata serverBundleMetadata = getServerBundleMetadata();
 
 		if (serverBundleMetadata == null) {
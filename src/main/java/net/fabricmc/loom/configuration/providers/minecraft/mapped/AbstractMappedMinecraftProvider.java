@@ -28,21 +28,30 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import dev.architectury.loom.util.MappingOption;
 import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.build.IntermediaryNamespaces;
 import net.fabricmc.loom.configuration.ConfigContext;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
 import net.fabricmc.loom.configuration.mods.dependency.LocalMavenHelper;
 import net.fabricmc.loom.configuration.providers.forge.minecraft.ForgeMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.mappings.IntermediaryMappingsProvider;
@@ -54,12 +63,15 @@ import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftVersionMeta;
 import net.fabricmc.loom.configuration.providers.minecraft.SignatureFixerApplyVisitor;
 import net.fabricmc.loom.extension.LoomFiles;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.SidedClassVisitor;
 import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
 import net.fabricmc.loom.util.srg.InnerClassRemapper;
 import net.fabricmc.loom.util.srg.RemapObjectHolderVisitor;
+import net.fabricmc.loom.util.zip.RawZipFile;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
+import net.fabricmc.tinyremapper.InputTag;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
@@ -87,25 +99,29 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 		final List<RemappedJars> remappedJars = getRemappedJars();
 		assert !remappedJars.isEmpty();
 
-		if (!areOutputsValid(remappedJars) || context.refreshOutputs()) {
-			try {
-				remapInputs(remappedJars, context.configContext());
-			} catch (Throwable t) {
-				cleanOutputs(remappedJars);
+		try (ArtifactLock lock = lockRemappedJars(remappedJars);
+				ConfigurationTrace.Span span = extension.getConfigurationTrace().span("AbstractMappedMinecraftProvider.remapJar", getTargetNamespace().toString())) {
+			final boolean remap = !areOutputsValid(remappedJars) || context.refreshOutputs() || lock.isInterrupted();
 
-				throw new RuntimeException("Failed to remap minecraft", t);
+			if (remap) {
+				try {
+					remapInputs(remappedJars, context.configContext());
+				} catch (Throwable t) {
+					cleanOutputs(remappedJars);
+
+					throw new RuntimeException("Failed to remap minecraft", t);
+				}
+
+				span.read(remappedJars.stream().map(RemappedJars::inputJar).toList())
+						.written(remappedJars.stream().map(RemappedJars::outputJarPath).toList());
 			}
+
+			lock.complete();
+			span.cacheHit(!remap);
 		}
 
 		if (context.applyDependencies()) {
-			final List<MinecraftJar.Type> dependencyTargets = getDependencyTypes();
-
-			if (!dependencyTargets.isEmpty()) {
-				MinecraftSourceSets.get(getProject()).applyDependencies(
-						(configuration, type) -> getProject().getDependencies().add(configuration, getDependencyNotation(type)),
-						dependencyTargets
-				);
-			}
+			applyDependencies();
 		}
 
 		return remappedJars.stream()
@@ -113,8 +129,47 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 				.toList();
 	}
 
+	/**
+	 * Add the provided jars as dependencies of the project, this must be called on the configuring thread.
+	 * This is done by {@link #provide(ProvideContext)} unless dependencies are not applied by the context.
+	 */
+	public void applyDependencies() {
+		final List<MinecraftJar.Type> dependencyTargets = getDependencyTypes();
+
+		if (!dependencyTargets.isEmpty()) {
+			MinecraftSourceSets.get(getProject()).applyDependencies(
+					(configuration, type) -> getProject().getDependencies().add(configuration, getDependencyNotation(type)),
+					dependencyTargets
+			);
+		}
+	}
+
+	// The input jars and the mappings are locked for reading, so that they are not replaced while being remapped.
+	private ArtifactLock lockRemappedJars(List<RemappedJars> remappedJars) throws IOException {
+		final List<Path> inputs = new ArrayList<>();
+		final List<Path> outputs = new ArrayList<>();
+
+		for (RemappedJars remappedJar : remappedJars) {
+			inputs.add(remappedJar.inputJar());
+			outputs.add(remappedJar.outputJarPath());
+		}
+
+		inputs.add(extension.getMappingConfiguration().mappingsWorkingDir());
+		return lockArtifacts(inputs, outputs);
+	}
+
+	/**
+	 * Lock the artifacts read and produced by this provider, see {@link ArtifactLock}. The wait for the lock is traced on
+	 * its own, so spans started once the lock is held only measure the work.
+	 */
+	protected ArtifactLock lockArtifacts(List<Path> inputs, List<Path> outputs) throws IOException {
+		try (ConfigurationTrace.Span span = extension.getConfigurationTrace().span("ArtifactLock.acquire", getClass().getSimpleName())) {
+			return ArtifactLock.acquire(extension.getFiles().getArtifactLocks().toPath(), inputs, outputs);
+		}
+	}
+
 	public record ProvideContext(boolean applyDependencies, boolean refreshOutputs, ConfigContext configContext) {
-		ProvideContext withApplyDependencies(boolean applyDependencies) {
+		public ProvideContext withApplyDependencies(boolean applyDependencies) {
 			return new ProvideContext(applyDependencies, refreshOutputs(), configContext());
 		}
 	}
@@ -192,76 +247,153 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 	private void remapInputs(List<RemappedJars> remappedJars, ConfigContext configContext) throws IOException {
 		cleanOutputs(remappedJars);
 
-		for (RemappedJars remappedJar : remappedJars) {
-			remapJar(remappedJar, configContext);
+		final Map<MappingsNamespace, List<RemappedJars>> bySourceNamespace = remappedJars.stream()
+				.collect(Collectors.groupingBy(RemappedJars::sourceNamespace, LinkedHashMap::new, Collectors.toList()));
+
+		for (List<RemappedJars> jars : bySourceNamespace.values()) {
+			remapJars(jars, configContext);
 		}
 	}
 
-	private void remapJar(RemappedJars remappedJars, ConfigContext configContext) throws IOException {
+	// Remap the jars with a single remapper, so that the mappings and the classpath are only read once.
+	private void remapJars(List<RemappedJars> remappedJars, ConfigContext configContext) throws IOException {
 		final MappingConfiguration mappingConfiguration = extension.getMappingConfiguration();
-		final String fromM = remappedJars.sourceNamespace().toString();
+		final String fromM = remappedJars.get(0).sourceNamespace().toString();
 		final String toM = getTargetNamespace().toString();
+		final List<Path> inputJars = remappedJars.stream().map(RemappedJars::inputJar).toList();
 
-		Files.deleteIfExists(remappedJars.outputJarPath());
+		final Set<String> classNames = new HashSet<>();
+
+		if (extension.isForgeLike()) {
+			for (Path inputJar : inputJars) {
+				classNames.addAll(InnerClassRemapper.readClassNames(inputJar));
+			}
+		}
 
-		final Set<String> classNames = extension.isForgeLike() ? InnerClassRemapper.readClassNames(remappedJars.inputJar()) : Set.of();
 		final Map<String, String> remappedSignatures = SignatureFixerApplyVisitor.getRemappedSignatures(getTargetNamespace() == MappingsNamespace.INTERMEDIARY, mappingConfiguration, getProject(), configContext.serviceManager(), toM);
 		final MinecraftVersionMeta.JavaVersion javaVersion = minecraftProvider.getVersionInfo().javaVersion();
 		final boolean fixRecords = javaVersion != null && javaVersion.majorVersion() >= 16;
+		final Map<String, TinyRemapper.ApplyVisitorProvider> postApplyVisitors = getPostApplyVisitors(remappedJars);
 
 		TinyRemapper remapper = TinyRemapperHelper.getTinyRemapper(getProject(), configContext.serviceManager(), fromM, toM, fixRecords, (builder) -> {
 			builder.extraPostApplyVisitor(new SignatureFixerApplyVisitor(remappedSignatures));
-			configureRemapper(remappedJars, builder);
+
+			if (!postApplyVisitors.isEmpty()) {
+				builder.extraPostApplyVisitor((cls, next) -> {
+					final TinyRemapper.ApplyVisitorProvider visitor = postApplyVisitors.get(cls.getName());
+					return visitor != null ? visitor.insert(cls, next) : next;
+				});
+			}
 		}, classNames);
 
-		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(remappedJars.outputJarPath()).build()) {
-			outputConsumer.addNonClassFiles(remappedJars.inputJar());
+		try {
+			// The other input jars are already known to the remapper, such as the common jar for the client only jar.
+			final Set<Path> classpath = new LinkedHashSet<>();
 
-			for (Path path : remappedJars.remapClasspath()) {
+			for (RemappedJars remappedJar : remappedJars) {
+				classpath.addAll(List.of(remappedJar.remapClasspath()));
+			}
+
+			inputJars.forEach(classpath::remove);
+
+			for (Path path : classpath) {
 				remapper.readClassPath(path);
 			}
 
-			remapper.readInputs(remappedJars.inputJar());
-			remapper.apply(outputConsumer);
+			final List<InputTag> inputTags = new ArrayList<>();
+			final List<CompletableFuture<?>> futures = new ArrayList<>();
+
+			for (Path inputJar : inputJars) {
+				final InputTag inputTag = remapper.createInputTag();
+				inputTags.add(inputTag);
+				futures.add(remapper.readInputsAsync(inputTag, inputJar));
+			}
+
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+			// The first apply remaps the classes of all the jars in parallel, the following ones only write the output.
+			for (int i = 0; i < remappedJars.size(); i++) {
+				final RemappedJars remappedJar = remappedJars.get(i);
+
+				try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(remappedJar.outputJarPath()).build()) {
+					outputConsumer.addNonClassFiles(remappedJar.inputJar());
+					remapper.apply(outputConsumer, inputTags.get(i));
+				}
+			}
 		} catch (Exception e) {
-			throw new RuntimeException("Failed to remap JAR " + remappedJars.inputJar() + " with mappings from " + mappingConfiguration.tinyMappings, e);
+			throw new RuntimeException("Failed to remap " + inputJars + " with mappings from " + mappingConfiguration.tinyMappings, e);
 		} finally {
 			remapper.finish();
 		}
 
-		getMavenHelper(remappedJars.type()).savePom();
+		for (RemappedJars remappedJar : remappedJars) {
+			getMavenHelper(remappedJar.type()).savePom();
 
-		if (extension.isForgeLikeAndOfficial()) {
-			try (var serviceManager = new ScopedSharedServiceManager()) {
-				final MappingOption mappingOption = MappingOption.forPlatform(extension);
-				final TinyMappingsService mappingsService = extension.getMappingConfiguration().getMappingsService(serviceManager, mappingOption);
-				final String className;
+			if (extension.isForgeLikeAndOfficial()) {
+				remapObjectHolder(remappedJar);
+			}
+		}
+	}
 
-				if (extension.isNeoForge()) {
-					className = "net.neoforged.neoforge.registries.ObjectHolderRegistry";
-				} else {
-					className = "net.minecraftforge.registries.ObjectHolderRegistry";
+	// Input class name -> the post apply visitor of the jar containing it
+	private Map<String, TinyRemapper.ApplyVisitorProvider> getPostApplyVisitors(List<RemappedJars> remappedJars) throws IOException {
+		final Map<String, TinyRemapper.ApplyVisitorProvider> postApplyVisitors = new HashMap<>();
+
+		for (RemappedJars remappedJar : remappedJars) {
+			final TinyRemapper.ApplyVisitorProvider visitor = getPostApplyVisitor(remappedJar);
+
+			if (visitor == null) {
+				continue;
+			}
+
+			try (RawZipFile zip = RawZipFile.open(remappedJar.inputJar())) {
+				for (RawZipFile.Entry entry : zip.entries()) {
+					if (entry.name().endsWith(".class")) {
+						postApplyVisitors.put(entry.name().substring(0, entry.name().length() - ".class".length()), visitor);
+					}
 				}
+			}
+		}
+
+		return postApplyVisitors;
+	}
 
-				final String sourceNamespace = IntermediaryNamespaces.intermediary(project);
-				final MemoryMappingTree mappings = mappingsService.getMappingTree();
-				RemapObjectHolderVisitor.remapObjectHolder(remappedJars.outputJar().getPath(), className, mappings, sourceNamespace, "named");
+	private void remapObjectHolder(RemappedJars remappedJars) throws IOException {
+		try (var serviceManager = new ScopedSharedServiceManager()) {
+			final MappingOption mappingOption = MappingOption.forPlatform(extension);
+			final TinyMappingsService mappingsService = extension.getMappingConfiguration().getMappingsService(serviceManager, mappingOption);
+			final String className;
+
+			if (extension.isNeoForge()) {
+				className = "net.neoforged.neoforge.registries.ObjectHolderRegistry";
+			} else {
+				className = "net.minecraftforge.registries.ObjectHolderRegistry";
 			}
+
+			final String sourceNamespace = IntermediaryNamespaces.intermediary(project);
+			final MemoryMappingTree mappings = mappingsService.getMappingTree();
+			RemapObjectHolderVisitor.remapObjectHolder(remappedJars.outputJar().getPath(), className, mappings, sourceNamespace, "named");
 		}
 	}
 
-	protected void configureRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
+	/**
+	 * @return A visitor applied to the remapped classes of the jar only, or {@code null}
+	 */
+	protected TinyRemapper.@Nullable ApplyVisitorProvider getPostApplyVisitor(RemappedJars remappedJars) {
+		return null;
 	}
 
-	// Configure the remapper to add the client @Environment annotation to all classes in the client jar.
-	public static void configureSplitRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
+	// Add the client @Environment annotation to all classes in the client jar.
+	public static TinyRemapper.@Nullable ApplyVisitorProvider getSplitPostApplyVisitor(RemappedJars remappedJars) {
 		final MinecraftJar outputJar = remappedJars.outputJar();
 		assert !outputJar.isMerged();
 
 		if (outputJar.includesClient()) {
 			assert !outputJar.includesServer();
-			tinyRemapperBuilder.extraPostApplyVisitor(SidedClassVisitor.CLIENT);
+			return SidedClassVisitor.CLIENT;
 		}
+
+		return null;
 	}
 
 	private void cleanOutputs(List<RemappedJars> remappedJars) throws IOException {
@@ -27,6 +27,7 @@ package net.fabricmc.loom.configuration.providers.minecraft.mapped;
 import java.util.List;
 
 import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.providers.minecraft.LegacyMergedMinecraftProvider;
@@ -36,6 +37,7 @@ import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarEnvType;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.SplitMinecraftProvider;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
 public abstract sealed class IntermediaryMinecraftProvider<M extends MinecraftProvider> extends AbstractMappedMinecraftProvider<M> permits IntermediaryMinecraftProvider.MergedImpl, IntermediaryMinecraftProvider.LegacyMergedImpl, IntermediaryMinecraftProvider.SingleJarImpl, IntermediaryMinecraftProvider.SplitImpl {
@@ -83,15 +85,26 @@ public abstract sealed class IntermediaryMinecraftProvider<M extends MinecraftPr
 			client.provide(context);
 
 			// then merge them
-			MergedMinecraftProvider.mergeJars(
-						client.getEnvOnlyJar().toFile(),
-						server.getEnvOnlyJar().toFile(),
-						getMergedJar().toFile()
-			);
+			try (ArtifactLock lock = lockArtifacts(List.of(client.getEnvOnlyJar().getPath(), server.getEnvOnlyJar().getPath()), List.of(getMergedJar().getPath()))) {
+				MergedMinecraftProvider.mergeJars(
+							client.getEnvOnlyJar().toFile(),
+							server.getEnvOnlyJar().toFile(),
+							getMergedJar().toFile()
+				);
+
+				lock.complete();
+			}
 
 			return List.of(getMergedJar());
 		}
 
+		@Override
+		public void applyDependencies() {
+			// Only the delegate providers apply dependencies, in the same way as provide
+			server.applyDependencies();
+			client.applyDependencies();
+		}
+
 		@Override
 		public List<RemappedJars> getRemappedJars() {
 			// The delegate providers will handle the remapping
@@ -118,8 +131,8 @@ public abstract sealed class IntermediaryMinecraftProvider<M extends MinecraftPr
 		}
 
 		@Override
-		protected void configureRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
-			configureSplitRemapper(remappedJars, tinyRemapperBuilder);
+		protected TinyRemapper.@Nullable ApplyVisitorProvider getPostApplyVisitor(RemappedJars remappedJars) {
+			return getSplitPostApplyVisitor(remappedJars);
 		}
 	}
 
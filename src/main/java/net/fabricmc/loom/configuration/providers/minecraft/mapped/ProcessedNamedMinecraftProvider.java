@@ -34,6 +34,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import net.fabricmc.loom.configuration.ConfigContext;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
 import net.fabricmc.loom.configuration.mods.dependency.LocalMavenHelper;
 import net.fabricmc.loom.configuration.processors.MinecraftJarProcessorManager;
 import net.fabricmc.loom.configuration.processors.ProcessorContextImpl;
@@ -41,10 +42,10 @@ import net.fabricmc.loom.configuration.providers.minecraft.LegacyMergedMinecraft
 import net.fabricmc.loom.configuration.providers.minecraft.MergedMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJar;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
-import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarEnvType;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.SplitMinecraftProvider;
+import net.fabricmc.loom.util.ArtifactLock;
 
 public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvider, P extends NamedMinecraftProvider<M>> extends NamedMinecraftProvider<M> {
 	private final P parentMinecraftProvider;
@@ -59,16 +60,32 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 	@Override
 	public List<MinecraftJar> provide(ProvideContext context) throws Exception {
 		parentMinecraftProvider.provide(context.withApplyDependencies(false));
+		return provideProcessed(context);
+	}
 
-		boolean requiresProcessing = context.refreshOutputs() || parentMinecraftProvider.getMinecraftJars().stream()
-				.map(this::getProcessedPath)
-				.anyMatch(jarProcessorManager::requiresProcessingJar);
-
+	/**
+	 * Process the jars of the parent provider, which must have already been provided.
+	 */
+	public List<MinecraftJar> provideProcessed(ProvideContext context) throws Exception {
 		final Map<MinecraftJar, MinecraftJar> minecraftJarOutputMap = parentMinecraftProvider.getMinecraftJars().stream()
 				.collect(Collectors.toMap(Function.identity(), this::getProcessedJar));
 
-		if (requiresProcessing) {
-			processJars(minecraftJarOutputMap, context.configContext());
+		final List<Path> inputs = minecraftJarOutputMap.keySet().stream().map(MinecraftJar::getPath).toList();
+		final List<Path> outputs = minecraftJarOutputMap.values().stream().map(MinecraftJar::getPath).toList();
+
+		try (ArtifactLock lock = lockArtifacts(inputs, outputs);
+				ConfigurationTrace.Span span = extension.getConfigurationTrace().span("MinecraftJarProcessorManager.processJar", null)) {
+			boolean requiresProcessing = context.refreshOutputs() || lock.isInterrupted() || parentMinecraftProvider.getMinecraftJars().stream()
+					.map(this::getProcessedPath)
+					.anyMatch(jarProcessorManager::requiresProcessingJar);
+
+			if (requiresProcessing) {
+				processJars(minecraftJarOutputMap, context.configContext());
+				span.read(inputs).written(outputs);
+			}
+
+			lock.complete();
+			span.cacheHit(!requiresProcessing);
 		}
 
 		if (context.applyDependencies()) {
@@ -90,32 +107,27 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 			deleteSimilarJars(outputJar.getPath());
 
 			final LocalMavenHelper mavenHelper = getMavenHelper(minecraftJar.getType());
-			final Path outputPath = mavenHelper.copyToMaven(minecraftJar.getPath(), null);
+			final Path outputPath = mavenHelper.prepareOutputFile(null);
 
 			assert outputJar.getPath().equals(outputPath);
 
-			jarProcessorManager.processJar(outputPath, new ProcessorContextImpl(configContext, minecraftJar));
+			jarProcessorManager.processJar(minecraftJar.getPath(), outputPath, new ProcessorContextImpl(configContext, minecraftJar), getManifestFile(minecraftJar));
 		}
 	}
 
+	// The manifest of the last jar processed by this project, used to only process the classes that changed since.
+	private Path getManifestFile(MinecraftJar minecraftJar) {
+		final String jarPrefix = parentMinecraftProvider.getMinecraftProvider().getJarPrefix();
+		return extension.getFiles().getProjectPersistentCache().toPath()
+				.resolve("processed-minecraft")
+				.resolve(jarPrefix + "minecraft-%s.json".formatted(minecraftJar.getType()));
+	}
+
 	@Override
 	public List<MinecraftJar.Type> getDependencyTypes() {
 		return parentMinecraftProvider.getDependencyTypes();
 	}
 
-	private void applyDependencies() {
-		final List<MinecraftJar.Type> dependencyTargets = getDependencyTypes();
-
-		if (dependencyTargets.isEmpty()) {
-			return;
-		}
-
-		MinecraftSourceSets.get(getProject()).applyDependencies(
-				(configuration, name) -> getProject().getDependencies().add(configuration, getDependencyNotation(name)),
-				dependencyTargets
-		);
-	}
-
 	private void deleteSimilarJars(Path jar) throws IOException {
 		Files.deleteIfExists(jar);
 		final Path parent = jar.getParent();
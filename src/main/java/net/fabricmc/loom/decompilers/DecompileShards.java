@@ -0,0 +1,208 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.decompilers.cache.ClassEntry;
+import net.fabricmc.loom.decompilers.cache.JarWalker;
+import net.fabricmc.loom.util.zip.RawZipFile;
+import net.fabricmc.loom.util.zip.RawZipWriter;
+
+/**
+ * Splits a jar into shards that can be decompiled independently, and merges the results back together.
+ *
+ * <p>A class is always in the same shard as its inner classes, and the shards are balanced by the uncompressed size
+ * of the classes. The merged output is sorted by name, so it does not depend on which shard decompiled each class.
+ */
+public final class DecompileShards {
+	private static final Logger LOGGER = LoggerFactory.getLogger(DecompileShards.class);
+
+	private DecompileShards() {
+	}
+
+	/**
+	 * Split the input jar into shards, entries are copied without being decompressed.
+	 * Any entries that are not part of a class entry, such as resources, are placed in the first shard.
+	 *
+	 * @param inputJar The jar to split
+	 * @param count The number of shards to create
+	 * @param directory The directory to create the shard jars in
+	 * @return The paths to the shard jars, there may be fewer than requested when there are few classes
+	 *
+	 * @throws IOException If an error occurs while reading or writing the jars
+	 */
+	public static List<Path> split(Path inputJar, int count, Path directory) throws IOException {
+		if (count < 1) {
+			throw new IllegalArgumentException("Shard count must be at least 1, got " + count);
+		}
+
+		try (RawZipFile inputZip = RawZipFile.open(inputJar)) {
+			final List<List<String>> shardEntries = assign(inputZip, count);
+			final List<Path> shards = new ArrayList<>(count);
+
+			for (List<String> entries : shardEntries) {
+				if (entries.isEmpty()) {
+					// More shards than classes
+					continue;
+				}
+
+				final Path shard = directory.resolve("shard-%d.jar".formatted(shards.size()));
+
+				try (RawZipWriter writer = RawZipWriter.create(shard)) {
+					for (String name : entries) {
+						writer.copy(inputZip, Objects.requireNonNull(inputZip.getEntry(name)));
+					}
+				}
+
+				LOGGER.info("Decompile shard {} contains {} entries", shards.size(), entries.size());
+				shards.add(shard);
+			}
+
+			return shards;
+		}
+	}
+
+	/**
+	 * Merge the sources jars produced from each shard into the output jar, sorted by name.
+	 * When more than one shard produced the same entry, such as the manifest, the first shard wins.
+	 *
+	 * @param shardOutputs The sources jars, in shard order
+	 * @param output The merged sources jar
+	 *
+	 * @throws IOException If an error occurs while reading or writing the jars
+	 */
+	public static void mergeSources(List<Path> shardOutputs, Path output) throws IOException {
+		final List<RawZipFile> zips = new ArrayList<>(shardOutputs.size());
+
+		try (RawZipWriter writer = RawZipWriter.create(output)) {
+			// Entry name -> the jar containing it
+			final Map<String, RawZipFile> entries = new TreeMap<>();
+
+			for (Path shardOutput : shardOutputs) {
+				final RawZipFile zip = RawZipFile.open(shardOutput);
+				zips.add(zip);
+
+				for (RawZipFile.Entry entry : zip.entries()) {
+					if (!entry.isDirectory()) {
+						entries.putIfAbsent(entry.name(), zip);
+					}
+				}
+			}
+
+			for (Map.Entry<String, RawZipFile> entry : entries.entrySet()) {
+				final RawZipFile zip = entry.getValue();
+				writer.copy(zip, Objects.requireNonNull(zip.getEntry(entry.getKey())));
+			}
+		} finally {
+			for (RawZipFile zip : zips) {
+				zip.close();
+			}
+		}
+	}
+
+	/**
+	 * Merge the line numbers produced from each shard.
+	 */
+	@Nullable
+	public static ClassLineNumbers mergeLineNumbers(List<ClassLineNumbers> shardLineNumbers) {
+		ClassLineNumbers lineNumbers = null;
+
+		for (ClassLineNumbers shard : shardLineNumbers) {
+			lineNumbers = ClassLineNumbers.merge(lineNumbers, shard);
+		}
+
+		return lineNumbers;
+	}
+
+	// Greedily assign the largest class entries first to the smallest shard, ties are broken by name and shard index.
+	private static List<List<String>> assign(RawZipFile inputZip, int count) {
+		record WeightedEntry(ClassEntry entry, long weight) {
+		}
+
+		final List<WeightedEntry> weightedEntries = new ArrayList<>();
+
+		for (ClassEntry entry : JarWalker.findClasses(inputZip)) {
+			long weight = 0;
+
+			for (String name : entry.classes()) {
+				weight += Objects.requireNonNull(inputZip.getEntry(name)).size();
+			}
+
+			weightedEntries.add(new WeightedEntry(entry, weight));
+		}
+
+		weightedEntries.sort(Comparator.comparingLong(WeightedEntry::weight).reversed()
+				.thenComparing(weightedEntry -> weightedEntry.entry().parentClass()));
+
+		final long[] weights = new long[count];
+		// Shards are only modified after being polled, so the queue order stays valid.
+		final PriorityQueue<Integer> queue = new PriorityQueue<>(Comparator.<Integer>comparingLong(i -> weights[i]).thenComparingInt(i -> i));
+		final List<List<String>> shardEntries = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			shardEntries.add(new ArrayList<>());
+			queue.add(i);
+		}
+
+		final Set<String> assigned = new HashSet<>();
+
+		for (WeightedEntry weightedEntry : weightedEntries) {
+			final int shard = queue.remove();
+			final List<String> classes = weightedEntry.entry().classes();
+			shardEntries.get(shard).addAll(classes);
+			weights[shard] += weightedEntry.weight();
+			assigned.addAll(classes);
+			queue.add(shard);
+		}
+
+		for (RawZipFile.Entry entry : inputZip.entries()) {
+			if (!entry.isDirectory() && !assigned.contains(entry.name())) {
+				shardEntries.get(0).add(entry.name());
+			}
+		}
+
+		for (List<String> entries : shardEntries) {
+			Collections.sort(entries);
+		}
+
+		return shardEntries;
+	}
+}
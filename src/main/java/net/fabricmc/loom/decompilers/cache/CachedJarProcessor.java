@@ -24,67 +24,122 @@
 
 package net.fabricmc.loom.decompilers.cache;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.decompilers.ClassLineNumbers;
-import net.fabricmc.loom.util.FileSystemUtil;
-
-public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String baseHash) {
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.zip.RawZipFile;
+import net.fabricmc.loom.util.zip.RawZipWriter;
+
+/**
+ * @param fileStore The cache to store the processed entries in
+ * @param baseHash A hash of everything other than the input classes that affects the processed output
+ * @param mappingComments The comments from the mappings, when present processed entries are also cached with a key
+ *                        that does not depend on the names, and can be restored with new names, see {@link NameTokens}
+ */
+public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String baseHash, @Nullable MappingComments mappingComments) {
 	private static final Logger LOGGER = LoggerFactory.getLogger(CachedJarProcessor.class);
+	private static final int LOOKUPS_PER_THREAD = 16;
+
+	public CachedJarProcessor(CachedFileStore<CachedData> fileStore, String baseHash) {
+		this(fileStore, baseHash, null);
+	}
 
 	public WorkRequest prepareJob(Path inputJar) throws IOException {
+		return prepareJob(inputJar, entry -> true);
+	}
+
+	/**
+	 * Prepare a job that only processes some of the class entries, entries that are not in the cache and not accepted by
+	 * the filter are left out of the output.
+	 *
+	 * @param inputJar The jar to process
+	 * @param shouldProcess Returns true when a class entry must be processed if it is not in the cache
+	 */
+	public WorkRequest prepareJob(Path inputJar, Predicate<ClassEntry> shouldProcess) throws IOException {
 		boolean isIncomplete = false;
 		boolean hasSomeExisting = false;
 
 		Path incompleteJar = Files.createTempFile("loom-cache-incomplete", ".jar");
 		Path existingJar = Files.createTempFile("loom-cache-existing", ".jar");
 
-		// We must delete the empty files, so they can be created as a zip
-		Files.delete(incompleteJar);
-		Files.delete(existingJar);
-
 		// Sources name -> hash
 		Map<String, String> outputNameMap = new HashMap<>();
 		Map<String, ClassLineNumbers.Entry> lineNumbersMap = new HashMap<>();
 
 		int hits = 0;
+		int renamed = 0;
 		int misses = 0;
+		int skipped = 0;
+
+		final int threads = Runtime.getRuntime().availableProcessors();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		// Hashing and cache lookups are done in parallel, the results are written to the output jars in order by this thread.
+		// The incomplete jar is only read back by the decompiler so favour speed, the existing entries are copied as-is into the sources jar.
+		try (ZipFile inputZip = new ZipFile(inputJar.toFile());
+				ZipOutputStream incompleteZos = createZip(incompleteJar, Deflater.BEST_SPEED);
+				ZipOutputStream existingZos = createZip(existingJar, Deflater.DEFAULT_COMPRESSION)) {
+			final Iterator<ClassEntry> inputClasses = JarWalker.findClasses(inputZip).iterator();
+			final Deque<CompletableFuture<CacheLookup>> pending = new ArrayDeque<>();
+
+			while (inputClasses.hasNext() || !pending.isEmpty()) {
+				// Limit the number of lookups in flight, to bound the memory used by lookups waiting to be written.
+				while (inputClasses.hasNext() && pending.size() < threads * LOOKUPS_PER_THREAD) {
+					final ClassEntry entry = inputClasses.next();
+					pending.add(CompletableFuture.supplyAsync(() -> lookup(inputZip, entry), executor));
+				}
 
-		try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar, false);
-				FileSystemUtil.Delegate incompleteFs = FileSystemUtil.getJarFileSystem(incompleteJar, true);
-				FileSystemUtil.Delegate existingFs = FileSystemUtil.getJarFileSystem(existingJar, true)) {
-			final List<ClassEntry> inputClasses = JarWalker.findClasses(inputFs);
+				final CacheLookup lookup = join(pending.poll());
+				final ClassEntry entry = lookup.entry();
+				final String outputFileName = entry.sourcesFileName();
+				final CachedData entryData = lookup.cachedData();
 
-			for (ClassEntry entry : inputClasses) {
-				String outputFileName = entry.sourcesFileName();
-				String fullHash = baseHash + "/" + entry.hash(inputFs.getRoot());
+				if (entryData == null && !shouldProcess.test(entry)) {
+					LOGGER.debug("Cached entry ({}) not found, skipping {}", lookup.hash(), outputFileName);
+					skipped++;
+				} else if (entryData == null) {
+					// Cached entry was not found, so copy the input to the incomplete jar to be processed
+					final List<String> classNames = entry.classes();
 
-				final CachedData entryData = fileStore.getEntry(fullHash);
+					for (int i = 0; i < classNames.size(); i++) {
+						writeEntry(incompleteZos, classNames.get(i), lookup.classes().get(i));
+					}
 
-				if (entryData == null) {
-					// Cached entry was not found, so copy the input to the incomplete jar to be processed
-					entry.copyTo(inputFs.getRoot(), incompleteFs.getRoot());
 					isIncomplete = true;
-					outputNameMap.put(outputFileName, fullHash);
+					outputNameMap.put(outputFileName, lookup.hash());
 
-					LOGGER.debug("Cached entry ({}) not found, going to process {}", fullHash, outputFileName);
+					LOGGER.debug("Cached entry ({}) not found, going to process {}", lookup.hash(), outputFileName);
 					misses++;
 				} else {
-					final Path outputPath = existingFs.getPath(outputFileName);
-					Files.createDirectories(outputPath.getParent());
-					Files.writeString(outputPath, entryData.sources());
+					writeEntry(existingZos, outputFileName, entryData.sources().getBytes(StandardCharsets.UTF_8));
 
 					if (entryData.lineNumbers() != null) {
 						lineNumbersMap.put(entryData.className(), entryData.lineNumbers());
@@ -94,10 +149,16 @@ public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String b
 
 					hasSomeExisting = true;
 
-					LOGGER.debug("Cached entry ({}) found: {}", fullHash, outputFileName);
+					LOGGER.debug("Cached entry ({}) found: {}", lookup.hash(), outputFileName);
 					hits++;
+
+					if (lookup.renamed()) {
+						renamed++;
+					}
 				}
 			}
+		} finally {
+			executor.shutdownNow();
 		}
 
 		// A jar file that will be created by the work action, containing the newly processed items.
@@ -105,9 +166,9 @@ public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String b
 		Files.delete(outputJar);
 
 		final ClassLineNumbers lineNumbers = lineNumbersMap.isEmpty() ? null : new ClassLineNumbers(Collections.unmodifiableMap(lineNumbersMap));
-		final var stats = new CacheStats(hits, misses);
+		final var stats = new CacheStats(hits, renamed, misses, skipped);
 
-		if (isIncomplete && !hasSomeExisting) {
+		if (isIncomplete && !hasSomeExisting && skipped == 0) {
 			// The cache contained nothing of use, fully process the input jar
 			Files.delete(incompleteJar);
 			Files.delete(existingJar);
@@ -136,92 +197,247 @@ public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String b
 			return;
 		}
 
-		// Work has been done, we need to cache the newly processed items
-		if (workJob instanceof WorkToDoJob workToDoJob) {
+		if (!(workJob instanceof WorkToDoJob workToDoJob)) {
+			throw new IllegalStateException();
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+		try (RawZipFile outputZip = RawZipFile.open(workToDoJob.output());
+				ZipFile incompleteZip = new ZipFile(workToDoJob.incomplete().toFile())) {
+			// Work has been done, cache the newly processed items while the output jar is being assembled
+			final List<CompletableFuture<Void>> futures = cacheEntries(outputZip, incompleteZip, workToDoJob.outputNameMap(), lineNumbers, executor);
+
+			if (workJob instanceof PartialWorkJob partialWorkJob) {
+				mergeJars(outputZip, partialWorkJob.existing(), output);
+			}
+
+			for (CompletableFuture<Void> future : futures) {
+				join(future);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		if (workJob instanceof PartialWorkJob partialWorkJob) {
+			Files.delete(partialWorkJob.existing());
+			Files.delete(partialWorkJob.output());
+		} else if (workJob instanceof FullWorkJob fullWorkJob) {
+			// Nothing to merge, just use the output jar
+			Files.move(fullWorkJob.output, output);
+		} else {
+			throw new IllegalStateException();
+		}
+	}
+
+	private List<CompletableFuture<Void>> cacheEntries(RawZipFile outputZip, ZipFile incompleteZip, Map<String, String> outputNameMap, @Nullable ClassLineNumbers lineNumbers, ExecutorService executor) {
+		final List<CompletableFuture<Void>> futures = new ArrayList<>();
+		// Sources name -> class entry, to cache the entries by their name tokens
+		final Map<String, ClassEntry> classEntries = new HashMap<>();
+
+		if (mappingComments != null) {
+			for (ClassEntry classEntry : JarWalker.findClasses(incompleteZip)) {
+				classEntries.put(classEntry.sourcesFileName(), classEntry);
+			}
+		}
+
+		for (RawZipFile.Entry entry : outputZip.entries()) {
+			final String name = entry.name();
+
+			if (name.startsWith("META-INF/") || entry.isDirectory()) {
+				continue;
+			}
+
 			// Sources name -> hash
-			Map<String, String> outputNameMap = workToDoJob.outputNameMap();
+			final String hash = outputNameMap.get(name);
 
-			try (FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(workToDoJob.output(), false);
-					Stream<Path> walk = Files.walk(outputFs.getRoot())) {
-				Iterator<Path> iterator = walk.iterator();
+			if (hash == null) {
+				throw new IllegalStateException("Unexpected output: " + name);
+			}
 
-				while (iterator.hasNext()) {
-					final Path fsPath = iterator.next();
+			// Trim the .java extension
+			final String className = name.substring(0, name.length() - ".java".length());
 
-					if (fsPath.startsWith("/META-INF/")) {
-						continue;
-					}
+			ClassLineNumbers.Entry lineMapEntry = null;
 
-					if (!Files.isRegularFile(fsPath)) {
-						continue;
-					}
+			if (lineNumbers != null) {
+				lineMapEntry = lineNumbers.lineMap().get(className);
+			}
 
-					final String hash = outputNameMap.get(fsPath.toString().substring(outputFs.getRoot().toString().length()));
+			if (lineMapEntry == null) {
+				LOGGER.info("No line numbers generated for class: {}", className);
+			}
 
-					if (hash == null) {
-						throw new IllegalStateException("Unexpected output: " + fsPath);
+			final ClassLineNumbers.Entry finalLineMapEntry = lineMapEntry;
+			final ClassEntry classEntry = classEntries.get(name);
+
+			futures.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					final String sources = new String(outputZip.readAllBytes(entry), StandardCharsets.UTF_8);
+					final var cachedData = new CachedData(className, sources, finalLineMapEntry);
+					fileStore.putEntry(hash, cachedData);
+
+					if (classEntry != null) {
+						final NameTokens nameTokens = NameTokens.read(classEntry.readClasses(incompleteZip));
+						fileStore.putEntry(nameTokensHash(classEntry, nameTokens), canonicalize(cachedData, nameTokens));
 					}
+				} catch (IOException e) {
+					throw new CompletionException(e);
+				}
 
-					// Trim the leading / and the .java extension
-					final String className = fsPath.toString().substring(1, fsPath.toString().length() - ".java".length());
-					final String sources = Files.readString(fsPath);
+				LOGGER.debug("Saving processed entry ({}) to cache: {}", hash, name);
+				return null;
+			}, executor));
+		}
 
-					ClassLineNumbers.Entry lineMapEntry = null;
+		return futures;
+	}
 
-					if (lineNumbers != null) {
-						lineMapEntry = lineNumbers.lineMap().get(className);
+	/**
+	 * Merge the newly processed and the existing jar, by copying the compressed entries without inflating them.
+	 * Entries are sorted by name, so the output does not depend on which entries were restored from the cache.
+	 */
+	private static void mergeJars(RawZipFile outputZip, Path existingJar, Path output) throws IOException {
+		try (RawZipFile existingZip = RawZipFile.open(existingJar);
+				RawZipWriter writer = RawZipWriter.create(output)) {
+			// Entry name -> the jar containing it, newly processed entries take priority
+			final Map<String, RawZipFile> entries = new TreeMap<>();
+
+			for (RawZipFile zip : List.of(existingZip, outputZip)) {
+				for (RawZipFile.Entry entry : zip.entries()) {
+					if (!entry.isDirectory()) {
+						entries.put(entry.name(), zip);
 					}
+				}
+			}
 
-					if (lineMapEntry == null) {
-						LOGGER.info("No line numbers generated for class: {}", className);
-					}
+			for (Map.Entry<String, RawZipFile> entry : entries.entrySet()) {
+				final RawZipFile zip = entry.getValue();
 
-					final var cachedData = new CachedData(className, sources, lineMapEntry);
-					fileStore.putEntry(hash, cachedData);
+				LOGGER.debug("Copying entry to output: {}", entry.getKey());
+				writer.copy(zip, Objects.requireNonNull(zip.getEntry(entry.getKey())));
+			}
+		}
+	}
 
-					LOGGER.debug("Saving processed entry ({}) to cache: {}", hash, fsPath);
-				}
+	private CacheLookup lookup(ZipFile inputZip, ClassEntry entry) {
+		try {
+			final List<byte[]> classes = entry.readClasses(inputZip);
+			final String fullHash = baseHash + "/" + ClassEntry.hash(classes);
+			final CachedData cachedData = fileStore.getEntry(fullHash);
+
+			if (cachedData != null) {
+				return new CacheLookup(entry, fullHash, null, cachedData, false);
 			}
-		} else {
-			throw new IllegalStateException();
+
+			final CachedData renamedData = lookupRenamed(entry, classes);
+
+			if (renamedData != null) {
+				// Cache with the exact hash, so the entry does not need to be renamed again
+				fileStore.putEntry(fullHash, renamedData);
+				return new CacheLookup(entry, fullHash, null, renamedData, true);
+			}
+
+			// The class bytes are only needed when the entry must be processed.
+			return new CacheLookup(entry, fullHash, classes, null, false);
+		} catch (IOException e) {
+			throw new CompletionException(e);
 		}
+	}
 
-		if (workJob instanceof PartialWorkJob partialWorkJob) {
-			// Copy all the existing items to the output jar
-			try (FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(partialWorkJob.output(), false);
-					FileSystemUtil.Delegate existingFs = FileSystemUtil.getJarFileSystem(partialWorkJob.existing(), false);
-					Stream<Path> walk = Files.walk(existingFs.getRoot())) {
-				Iterator<Path> iterator = walk.iterator();
+	/**
+	 * Find an entry processed with different mappings, and restore it with the current names.
+	 */
+	@Nullable
+	private CachedData lookupRenamed(ClassEntry entry, List<byte[]> classes) throws IOException {
+		if (mappingComments == null) {
+			return null;
+		}
 
-				while (iterator.hasNext()) {
-					Path existingPath = iterator.next();
+		final NameTokens nameTokens = NameTokens.read(classes);
+		final String hash = nameTokensHash(entry, nameTokens);
+		final CachedData canonical = fileStore.getEntry(hash);
 
-					if (!Files.isRegularFile(existingPath)) {
-						continue;
-					}
+		if (canonical == null) {
+			return null;
+		}
 
-					final Path outputPath = outputFs.getRoot().resolve(existingPath.toString());
+		try {
+			final String className = nameTokens.restore(canonical.className());
 
-					LOGGER.debug("Copying existing entry to output: {}", existingPath);
-					Files.createDirectories(outputPath.getParent());
-					Files.copy(existingPath, outputPath);
-				}
+			if (!entry.sourcesFileName().equals(className + ".java")) {
+				LOGGER.warn("Cached entry ({}) is for {}, expected {}", hash, className, entry.sourcesFileName());
+				return null;
 			}
 
-			Files.delete(partialWorkJob.existing());
-			Files.move(partialWorkJob.output(), output);
-		} else if (workJob instanceof FullWorkJob fullWorkJob) {
-			// Nothing to merge, just use the output jar
-			Files.move(fullWorkJob.output, output);
-		} else {
-			throw new IllegalStateException();
+			final String sources = nameTokens.restoreSources(canonical.sources());
+
+			if (sources == null) {
+				LOGGER.debug("Cached entry ({}) for {} cannot be renamed, processing it again", hash, entry.sourcesFileName());
+				return null;
+			}
+
+			final ClassLineNumbers.Entry lineNumbers = canonical.lineNumbers();
+			return new CachedData(className, sources, lineNumbers == null ? null : renameLineNumbers(lineNumbers, className));
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn("Failed to restore cached entry ({}) for {}", hash, entry.sourcesFileName(), e);
+			return null;
+		}
+	}
+
+	private String nameTokensHash(ClassEntry entry, NameTokens nameTokens) throws IOException {
+		Objects.requireNonNull(mappingComments, "mappingComments");
+		final String key = "names-v2," + nameTokens.fingerprint() + "," + mappingComments.hash(entry);
+		return baseHash + "/" + Checksum.sha256Hex(key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static CachedData canonicalize(CachedData cachedData, NameTokens nameTokens) {
+		final String className = nameTokens.canonicalize(cachedData.className());
+		final ClassLineNumbers.Entry lineNumbers = cachedData.lineNumbers();
+		return new CachedData(className, nameTokens.canonicalizeSources(cachedData.sources()), lineNumbers == null ? null : renameLineNumbers(lineNumbers, className));
+	}
+
+	private static ClassLineNumbers.Entry renameLineNumbers(ClassLineNumbers.Entry lineNumbers, String className) {
+		return new ClassLineNumbers.Entry(className, lineNumbers.maxLine(), lineNumbers.maxLineDest(), lineNumbers.lineMap());
+	}
+
+	private static <T> T join(CompletableFuture<T> future) throws IOException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof IOException ioe) {
+				throw ioe;
+			}
+
+			throw new RuntimeException("Failed to process cached entry", e.getCause());
 		}
 	}
 
+	private static ZipOutputStream createZip(Path path, int level) throws IOException {
+		final var zipOutputStream = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+		zipOutputStream.setLevel(level);
+		return zipOutputStream;
+	}
+
+	private static void writeEntry(ZipOutputStream zipOutputStream, String name, byte[] bytes) throws IOException {
+		zipOutputStream.putNextEntry(new ZipEntry(name));
+		zipOutputStream.write(bytes);
+		zipOutputStream.closeEntry();
+	}
+
+	private record CacheLookup(ClassEntry entry, String hash, @Nullable List<byte[]> classes, @Nullable CachedData cachedData, boolean renamed) {
+	}
+
 	public record WorkRequest(WorkJob job, CacheStats stats, @Nullable ClassLineNumbers lineNumbers) {
 	}
 
-	public record CacheStats(int hits, int misses) {
+	/**
+	 * @param hits The number of entries restored from the cache
+	 * @param renamed The number of hits that were processed with different mappings, and have been renamed
+	 * @param misses The number of entries that need to be processed
+	 * @param skipped The number of entries that were not in the cache, and have been left out
+	 */
+	public record CacheStats(int hits, int renamed, int misses, int skipped) {
 	}
 
 	public sealed interface WorkJob permits CompletedWorkJob, WorkToDoJob {
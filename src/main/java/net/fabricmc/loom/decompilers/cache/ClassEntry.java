@@ -25,10 +25,15 @@
 package net.fabricmc.loom.decompilers.cache;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.StringJoiner;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import net.fabricmc.loom.util.Checksum;
 
@@ -58,17 +63,67 @@ public record ClassEntry(String parentClass, List<String> innerClasses) {
 	 * @throws IOException If an error occurs while hashing the files
 	 */
 	public String hash(Path root) throws IOException {
-		StringJoiner joiner = new StringJoiner(",");
+		List<byte[]> classes = new ArrayList<>();
 
-		joiner.add(Checksum.sha256Hex(Files.readAllBytes(root.resolve(parentClass))));
+		for (String className : classes()) {
+			classes.add(Files.readAllBytes(root.resolve(className)));
+		}
 
-		for (String innerClass : innerClasses) {
-			joiner.add(Checksum.sha256Hex(Files.readAllBytes(root.resolve(innerClass))));
+		return hash(classes);
+	}
+
+	/**
+	 * Hash the already read class and inner classes using sha256.
+	 * @param classes The bytes of the class and its inner classes, in the order of {@link #classes()}
+	 * @return The hash of the class and its inner classes
+	 *
+	 * @throws IOException If an error occurs while hashing the bytes
+	 */
+	public static String hash(List<byte[]> classes) throws IOException {
+		StringJoiner joiner = new StringJoiner(",");
+
+		for (byte[] bytes : classes) {
+			joiner.add(Checksum.sha256Hex(bytes));
 		}
 
 		return Checksum.sha256Hex(joiner.toString().getBytes());
 	}
 
+	/**
+	 * Read the class and its inner classes from the zip file.
+	 * @param zipFile The zip file to read from, can be shared between threads
+	 * @return The bytes of the class and its inner classes, in the order of {@link #classes()}
+	 *
+	 * @throws IOException If an error occurs while reading the entries
+	 */
+	public List<byte[]> readClasses(ZipFile zipFile) throws IOException {
+		List<byte[]> classes = new ArrayList<>();
+
+		for (String className : classes()) {
+			final ZipEntry zipEntry = zipFile.getEntry(className);
+
+			if (zipEntry == null) {
+				throw new NoSuchFileException(className);
+			}
+
+			try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+				classes.add(inputStream.readAllBytes());
+			}
+		}
+
+		return classes;
+	}
+
+	/**
+	 * @return The file names of the class and its inner classes, outer class first
+	 */
+	public List<String> classes() {
+		List<String> classes = new ArrayList<>(innerClasses.size() + 1);
+		classes.add(parentClass);
+		classes.addAll(innerClasses);
+		return classes;
+	}
+
 	public String sourcesFileName() {
 		return parentClass.replace(".class", ".java");
 	}
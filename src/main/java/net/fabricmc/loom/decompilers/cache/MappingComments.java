@@ -0,0 +1,136 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers.cache;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.StringJoiner;
+
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
+import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * The javadoc comments passed to the decompiler, these are not part of the class files and so are not covered by
+ * {@link NameTokens#fingerprint()}.
+ */
+public final class MappingComments {
+	private final Path mappings;
+	// Guarded by this
+	private MappingTree mappingTree;
+
+	private MappingComments(Path mappings) {
+		this.mappings = mappings;
+	}
+
+	/**
+	 * Read the comments from the mappings file given to the decompiler.
+	 * The file is only parsed once the comments are first needed, as they are not used when every class is in the cache.
+	 */
+	public static MappingComments read(Path mappings) {
+		return new MappingComments(mappings);
+	}
+
+	private synchronized MappingTree getMappingTree() throws IOException {
+		if (mappingTree == null) {
+			final var mappingTree = new MemoryMappingTree();
+
+			try (Reader reader = Files.newBufferedReader(mappings, StandardCharsets.UTF_8)) {
+				MappingReader.read(reader, new MappingSourceNsSwitch(mappingTree, MappingsNamespace.NAMED.toString()));
+			}
+
+			this.mappingTree = mappingTree;
+		}
+
+		return mappingTree;
+	}
+
+	/**
+	 * Hash the comments of the class and its inner classes, including the member names of commented members.
+	 * @param entry The class entry, using named class names
+	 * @return The hash of the comments
+	 *
+	 * @throws IOException If an error occurs while hashing the comments
+	 */
+	public String hash(ClassEntry entry) throws IOException {
+		final var joiner = new StringJoiner("\n");
+		final List<String> classFiles = entry.classes();
+		final MappingTree mappingTree = getMappingTree();
+
+		for (int i = 0; i < classFiles.size(); i++) {
+			final String classFile = classFiles.get(i);
+			final MappingTree.ClassMapping classMapping = mappingTree.getClass(classFile.substring(0, classFile.length() - ".class".length()));
+
+			// The class names are covered by the fingerprint, so only the position is included.
+			joiner.add("c\t" + i);
+
+			if (classMapping == null) {
+				continue;
+			}
+
+			add(joiner, "cc", classMapping.getComment());
+
+			for (MappingTree.FieldMapping field : classMapping.getFields()) {
+				if (field.getComment() != null) {
+					joiner.add("f\t" + field.getSrcName() + "\t" + field.getSrcDesc());
+					add(joiner, "fc", field.getComment());
+				}
+			}
+
+			for (MappingTree.MethodMapping method : classMapping.getMethods()) {
+				final var methodJoiner = new StringJoiner("\n");
+				add(methodJoiner, "mc", method.getComment());
+
+				for (MappingTree.MethodArgMapping arg : method.getArgs()) {
+					if (arg.getComment() != null) {
+						methodJoiner.add("a\t" + arg.getLvIndex() + "\t" + arg.getSrcName());
+						add(methodJoiner, "ac", arg.getComment());
+					}
+				}
+
+				if (methodJoiner.length() > 0) {
+					joiner.add("m\t" + method.getSrcName() + "\t" + method.getSrcDesc());
+					joiner.merge(methodJoiner);
+				}
+			}
+		}
+
+		return Checksum.sha256Hex(joiner.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void add(StringJoiner joiner, String prefix, String comment) {
+		if (comment != null) {
+			// Escape new lines so that comments cannot be confused with the structure
+			joiner.add(prefix + "\t" + comment.replace("\\", "\\\\").replace("\n", "\\n"));
+		}
+	}
+}
@@ -0,0 +1,516 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.MethodRemapper;
+import org.objectweb.asm.commons.Remapper;
+
+import net.fabricmc.loom.util.Constants;
+
+/**
+ * The names used by a class and its inner classes, split into identifier tokens.
+ *
+ * <p>Every class, package, member, parameter and local variable name in the class files is split into tokens the same
+ * way Java sources are, e.g. {@code net/minecraft/Foo$Bar} becomes {@code net}, {@code minecraft}, {@code Foo} and {@code Bar}.
+ * Each distinct token is numbered in the order it is first seen, and the fingerprint is the hash of the class files with
+ * every token replaced by its number. The fingerprint therefore does not change when the mappings only rename things,
+ * and two classes with the same fingerprint have a one to one relation between their tokens.
+ *
+ * <p>This allows decompiled sources to be stored with tokens replaced by their number ({@link #canonicalizeSources(String)}),
+ * and later restored with the tokens of a class using different mappings ({@link #restoreSources(String)}).
+ * Tokens within comments, string and character literals are left untouched.
+ *
+ * <p>Names invented by the decompiler, such as the names of local variables missing from the class files, cannot be told
+ * apart from the tokens they share. Sources are only restored when renaming cannot change such names, and when the
+ * renamed sources match what the decompiler would produce for the new names, otherwise the class must be decompiled again.
+ */
+public final class NameTokens {
+	private static final char PLACEHOLDER_START = '\u0001';
+	private static final char PLACEHOLDER_END = '\u0002';
+	// A type followed by a name, as in local variable, parameter and field declarations, and pattern variables such as
+	// "instanceof Foo foo &&", "instanceof Foo foo ?" and "case Foo foo ->".
+	private static final Pattern DECLARATION = Pattern.compile("\\b(?:[A-Z][\\w$.]*|boolean|byte|char|short|int|long|float|double|var)(?:<[^;(){}=]*>)?(?:\\[])*\\s+([A-Za-z_][\\w$]*)\\s*(?:[=;:,)?}]|&&|\\|\\||->)");
+	// The order of the imports written by the decompiler, by package and then by class name.
+	private static final Comparator<String> IMPORT_ORDER = Comparator.comparing((String name) -> name.substring(0, Math.max(0, name.lastIndexOf('.'))))
+			.thenComparing(name -> name.substring(name.lastIndexOf('.') + 1));
+
+	private final String fingerprint;
+	private final List<String> tokens;
+	private final Map<String, Integer> indices;
+	// The field, parameter and local variable names declared by the class files
+	private final Set<String> declaredNames;
+
+	private NameTokens(String fingerprint, List<String> tokens, Map<String, Integer> indices, Set<String> declaredNames) {
+		this.fingerprint = fingerprint;
+		this.tokens = tokens;
+		this.indices = indices;
+		this.declaredNames = declaredNames;
+	}
+
+	/**
+	 * Read the names of the class and its inner classes.
+	 * @param classes The bytes of the class and its inner classes, in the order of {@link ClassEntry#classes()}
+	 * @return The name tokens
+	 *
+	 * @throws IOException If an error occurs while hashing the classes
+	 */
+	public static NameTokens read(List<byte[]> classes) throws IOException {
+		final var normalizer = new Normalizer();
+		final List<byte[]> normalized = new ArrayList<>(classes.size());
+
+		for (byte[] bytes : classes) {
+			final var writer = new ClassWriter(0);
+			new ClassReader(bytes).accept(new NormalizingClassVisitor(writer, normalizer), 0);
+			normalized.add(writer.toByteArray());
+		}
+
+		return new NameTokens(ClassEntry.hash(normalized), normalizer.tokens, normalizer.indices, normalizer.declaredNames);
+	}
+
+	/**
+	 * @return A hash of the class files that does not depend on any of the names
+	 */
+	public String fingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Replace the tokens of this class found in the sources with placeholders.
+	 */
+	public String canonicalize(String sources) {
+		final var builder = new StringBuilder(sources.length());
+		final int[] copied = {0};
+
+		scanTokens(sources, (start, end) -> {
+			final Integer index = indices.get(sources.substring(start, end));
+
+			if (index != null) {
+				builder.append(sources, copied[0], start).append(PLACEHOLDER_START).append(index).append(PLACEHOLDER_END);
+				copied[0] = end;
+			}
+		});
+
+		return builder.append(sources, copied[0], sources.length()).toString();
+	}
+
+	/**
+	 * Canonicalize decompiled sources, along with the tokens of this class and the tokens that are also used by names
+	 * declared in the sources but not in the class files, so that {@link #restoreSources(String)} can tell when the
+	 * sources cannot be renamed.
+	 */
+	public String canonicalizeSources(String sources) {
+		final Set<Integer> inventedNames = new TreeSet<>();
+		final Matcher matcher = DECLARATION.matcher(sources);
+
+		while (matcher.find()) {
+			final String name = matcher.group(1);
+			final Integer index = indices.get(name);
+
+			if (index != null && !declaredNames.contains(name)) {
+				inventedNames.add(index);
+			}
+		}
+
+		final var header = new StringBuilder();
+		header.append(PLACEHOLDER_END).append(String.join(" ", tokens)).append(PLACEHOLDER_END);
+
+		for (int index : inventedNames) {
+			header.append(index).append(' ');
+		}
+
+		return header.append('\n').append(canonicalize(sources)).toString();
+	}
+
+	/**
+	 * Replace the placeholders in a name created by {@link #canonicalize(String)} with the tokens of this class.
+	 * This must only be used with a name from a class with the same {@link #fingerprint()}.
+	 *
+	 * @throws IllegalArgumentException If the name contains a placeholder not known to this class
+	 */
+	public String restore(String canonical) {
+		return restore(canonical, tokens);
+	}
+
+	/**
+	 * Restore sources created by {@link #canonicalizeSources(String)} with the tokens of this class.
+	 * This must only be used with sources from a class with the same {@link #fingerprint()}.
+	 *
+	 * @return The restored sources, or null when they may differ from the sources decompiled with the names of this class
+	 * @throws IllegalArgumentException If the sources are not valid canonical sources for this class
+	 */
+	@Nullable
+	public String restoreSources(String canonical) {
+		final int tokensEnd = canonical.indexOf(PLACEHOLDER_END, 1);
+		final int headerEnd = canonical.indexOf('\n', Math.max(tokensEnd, 0));
+
+		if (canonical.isEmpty() || canonical.charAt(0) != PLACEHOLDER_END || tokensEnd == -1 || headerEnd == -1) {
+			throw new IllegalArgumentException("Missing canonical sources header");
+		}
+
+		final String previousTokens = canonical.substring(1, tokensEnd);
+		final List<String> previous = previousTokens.isEmpty() ? List.of() : List.of(previousTokens.split(" "));
+
+		if (previous.size() != tokens.size()) {
+			throw new IllegalArgumentException("Expected " + tokens.size() + " tokens, got " + previous.size());
+		}
+
+		for (String inventedName : canonical.substring(tokensEnd + 1, headerEnd).split(" ")) {
+			if (inventedName.isEmpty()) {
+				continue;
+			}
+
+			final int index;
+
+			try {
+				index = Integer.parseInt(inventedName);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid token index " + inventedName, e);
+			}
+
+			if (index < 0 || index >= tokens.size()) {
+				throw new IllegalArgumentException("Unknown token index " + index);
+			}
+
+			if (!previous.get(index).equals(tokens.get(index))) {
+				// A name not from the class files would be renamed
+				return null;
+			}
+		}
+
+		final String body = canonical.substring(headerEnd + 1);
+		final Set<String> literalNames = new HashSet<>();
+		scanTokens(body, (start, end) -> literalNames.add(body.substring(start, end)));
+
+		for (int i = 0; i < tokens.size(); i++) {
+			if (!previous.get(i).equals(tokens.get(i)) && literalNames.contains(tokens.get(i))) {
+				// The new name is already used by a name not from the class files
+				return null;
+			}
+		}
+
+		final String restored = restore(body, tokens);
+
+		if (!sameImportOrder(restore(body, previous), restored)) {
+			return null;
+		}
+
+		return restored;
+	}
+
+	private static String restore(String canonical, List<String> tokens) {
+		final var builder = new StringBuilder(canonical.length() + canonical.length() / 4);
+		int i = 0;
+
+		while (true) {
+			final int start = canonical.indexOf(PLACEHOLDER_START, i);
+
+			if (start == -1) {
+				builder.append(canonical, i, canonical.length());
+				return builder.toString();
+			}
+
+			final int end = canonical.indexOf(PLACEHOLDER_END, start);
+
+			if (end == -1) {
+				throw new IllegalArgumentException("Unterminated placeholder at " + start);
+			}
+
+			final int index;
+
+			try {
+				index = Integer.parseInt(canonical, start + 1, end, 10);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid placeholder at " + start, e);
+			}
+
+			if (index < 0 || index >= tokens.size()) {
+				throw new IllegalArgumentException("Unknown placeholder " + index);
+			}
+
+			builder.append(canonical, i, start).append(tokens.get(index));
+			i = end + 1;
+		}
+	}
+
+	// The decompiler sorts the imports, renaming must not change their order.
+	private static boolean sameImportOrder(String previous, String restored) {
+		final List<String> previousImports = imports(previous);
+		final List<String> restoredImports = imports(restored);
+
+		for (int i = 1; i < previousImports.size(); i++) {
+			final String previousFirst = previousImports.get(i - 1);
+			final String previousSecond = previousImports.get(i);
+			final String restoredFirst = restoredImports.get(i - 1);
+			final String restoredSecond = restoredImports.get(i);
+
+			if (Integer.signum(IMPORT_ORDER.compare(previousFirst, previousSecond)) != Integer.signum(IMPORT_ORDER.compare(restoredFirst, restoredSecond))
+					|| Integer.signum(previousFirst.compareTo(previousSecond)) != Integer.signum(restoredFirst.compareTo(restoredSecond))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static List<String> imports(String sources) {
+		final List<String> imports = new ArrayList<>();
+
+		for (String line : sources.split("\n")) {
+			if (line.startsWith("import ")) {
+				imports.add(line.substring("import ".length()).strip());
+			}
+		}
+
+		return imports;
+	}
+
+	// Visit the tokens outside of comments, string and character literals, and placeholders.
+	private static void scanTokens(String sources, TokenVisitor visitor) {
+		final int length = sources.length();
+		int i = 0;
+
+		while (i < length) {
+			final char c = sources.charAt(i);
+			final int end;
+
+			if (c == PLACEHOLDER_START) {
+				end = skipTo(sources, i + 1, String.valueOf(PLACEHOLDER_END));
+			} else if (c == '"' && sources.startsWith("\"\"\"", i)) {
+				end = skipLiteral(sources, i + 3, "\"\"\"");
+			} else if (c == '"' || c == '\'') {
+				end = skipLiteral(sources, i + 1, String.valueOf(c));
+			} else if (sources.startsWith("//", i)) {
+				end = skipTo(sources, i + 2, "\n");
+			} else if (sources.startsWith("/*", i)) {
+				end = skipTo(sources, i + 2, "*/");
+			} else if (isTokenPart(c)) {
+				end = tokenEnd(sources, i);
+
+				if (isTokenStart(c)) {
+					visitor.visit(i, end);
+				}
+			} else {
+				end = i + 1;
+			}
+
+			i = end;
+		}
+	}
+
+	private static int skipLiteral(String sources, int start, String terminator) {
+		int i = start;
+
+		while (i < sources.length()) {
+			final char c = sources.charAt(i);
+
+			if (c == '\\') {
+				i += 2;
+			} else if (sources.startsWith(terminator, i)) {
+				return i + terminator.length();
+			} else if (c == '\n' && terminator.length() == 1) {
+				// Not a valid literal, don't skip the rest of the file
+				return i;
+			} else {
+				i++;
+			}
+		}
+
+		return sources.length();
+	}
+
+	private static int skipTo(String sources, int start, String terminator) {
+		final int end = sources.indexOf(terminator, start);
+		return end == -1 ? sources.length() : end + terminator.length();
+	}
+
+	private static int tokenEnd(String string, int start) {
+		int i = start;
+
+		while (i < string.length() && isTokenPart(string.charAt(i))) {
+			i++;
+		}
+
+		return i;
+	}
+
+	// '$' is treated as a separator as it is used by inner classes and synthetic members.
+	private static boolean isTokenStart(char c) {
+		return c != '$' && Character.isJavaIdentifierStart(c);
+	}
+
+	private static boolean isTokenPart(char c) {
+		return c != '$' && c != PLACEHOLDER_START && c != PLACEHOLDER_END && Character.isJavaIdentifierPart(c);
+	}
+
+	@FunctionalInterface
+	private interface TokenVisitor {
+		void visit(int start, int end);
+	}
+
+	private static final class Normalizer extends Remapper {
+		private final List<String> tokens = new ArrayList<>();
+		private final Map<String, Integer> indices = new HashMap<>();
+		private final Set<String> declaredNames = new HashSet<>();
+
+		String normalize(String name) {
+			final var builder = new StringBuilder(name.length());
+			int i = 0;
+
+			while (i < name.length()) {
+				final char c = name.charAt(i);
+
+				if (!isTokenPart(c)) {
+					builder.append(c);
+					i++;
+					continue;
+				}
+
+				final int end = tokenEnd(name, i);
+
+				if (isTokenStart(c)) {
+					final int index = indices.computeIfAbsent(name.substring(i, end), token -> {
+						tokens.add(token);
+						return tokens.size() - 1;
+					});
+
+					builder.append(PLACEHOLDER_START).append(index).append(PLACEHOLDER_END);
+				} else {
+					// Tokens starting with a digit are never renamed, so they must match exactly.
+					builder.append(name, i, end);
+				}
+
+				i = end;
+			}
+
+			return builder.toString();
+		}
+
+		@Override
+		public String map(String internalName) {
+			return normalize(internalName);
+		}
+
+		@Override
+		public String mapMethodName(String owner, String name, String descriptor) {
+			return name.startsWith("<") ? name : normalize(name);
+		}
+
+		@Override
+		public String mapInvokeDynamicMethodName(String name, String descriptor) {
+			return normalize(name);
+		}
+
+		@Override
+		public String mapAnnotationAttributeName(String descriptor, String name) {
+			return normalize(name);
+		}
+
+		@Override
+		public String mapInnerClassName(String name, String ownerName, String innerName) {
+			return normalize(innerName);
+		}
+
+		@Override
+		public String mapRecordComponentName(String owner, String name, String descriptor) {
+			return normalize(name);
+		}
+
+		@Override
+		public String mapFieldName(String owner, String name, String descriptor) {
+			return normalize(name);
+		}
+
+		@Override
+		public String mapPackageName(String name) {
+			return normalize(name);
+		}
+
+		@Override
+		public String mapModuleName(String name) {
+			return normalize(name);
+		}
+	}
+
+	private static final class NormalizingClassVisitor extends ClassRemapper {
+		private final Normalizer normalizer;
+
+		NormalizingClassVisitor(ClassVisitor classVisitor, Normalizer normalizer) {
+			super(Constants.ASM_VERSION, classVisitor, normalizer);
+			this.normalizer = normalizer;
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+			normalizer.declaredNames.add(name);
+			return super.visitField(access, name, descriptor, signature, value);
+		}
+
+		@Override
+		public void visitSource(String source, String debug) {
+			// The source file name is derived from the class name, and is not used by the decompiler.
+			super.visitSource(null, debug);
+		}
+
+		@Override
+		protected MethodVisitor createMethodRemapper(MethodVisitor methodVisitor) {
+			return new MethodRemapper(api, methodVisitor, remapper) {
+				@Override
+				public void visitParameter(String name, int access) {
+					if (name != null) {
+						normalizer.declaredNames.add(name);
+					}
+
+					super.visitParameter(name == null ? null : normalizer.normalize(name), access);
+				}
+
+				@Override
+				public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+					normalizer.declaredNames.add(name);
+					super.visitLocalVariable(normalizer.normalize(name), descriptor, signature, start, end, index);
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,576 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.util.ArtifactLock;
+
+/**
+ * A {@link CachedFileStore} that stores {@link CachedData} in a small number of append-only pack files.
+ *
+ * <p>Entries are sharded by the first character of the last key segment (the class hash). Each shard consists of a pack
+ * file containing the serialised entries as RIFF chunks, and a memory-mapped index from the key to the entry offset.
+ * The last access time of each entry is stored in the index, so a cache hit never touches the file system metadata.
+ *
+ * <p>Old entries are removed by {@link #compact()}, which only rewrites the pack files that contain unused entries.
+ *
+ * <p>The store holds an exclusive {@link ArtifactLock} on its directory until it is closed, so other stores using the
+ * same directory, in this or another process, wait until it is closed. When a previous store was not closed, such as
+ * when the process was killed, the indexes are rebuilt from the pack files.
+ */
+public final class PackedFileStore implements CachedFileStore<CachedData>, Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PackedFileStore.class);
+	private static final int SHARD_COUNT = 16;
+
+	private final CachedFileStoreImpl.CacheRules cacheRules;
+	private final Clock clock;
+	private final Shard[] shards = new Shard[SHARD_COUNT];
+	private final ArtifactLock lock;
+
+	public PackedFileStore(Path root, CachedFileStoreImpl.CacheRules cacheRules) throws IOException {
+		this(root, cacheRules, Clock.systemUTC());
+	}
+
+	@VisibleForTesting
+	public PackedFileStore(Path root, CachedFileStoreImpl.CacheRules cacheRules, Clock clock) throws IOException {
+		Objects.requireNonNull(root, "root");
+		this.cacheRules = Objects.requireNonNull(cacheRules, "cacheRules");
+		this.clock = Objects.requireNonNull(clock, "clock");
+
+		Files.createDirectories(root);
+		this.lock = ArtifactLock.exclusive(root.resolve("locks"), root);
+
+		try {
+			for (int i = 0; i < SHARD_COUNT; i++) {
+				shards[i] = new Shard(root, Integer.toHexString(i), lock.isInterrupted());
+			}
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	@Override
+	public @Nullable CachedData getEntry(String key) throws IOException {
+		return getShard(key).get(key, hash(key), clock.millis());
+	}
+
+	@Override
+	public void putEntry(String key, CachedData entry) throws IOException {
+		getShard(key).put(key, hash(key), entry, clock.millis());
+	}
+
+	/**
+	 * Remove the least recently used entries over the max file limit, and all entries over the max age.
+	 * Pack files that only contain live entries are left untouched.
+	 */
+	public void compact() throws IOException {
+		final long oldestAllowed = clock.millis() - cacheRules.maxAge().toMillis();
+		final List<ShardSlot> slots = new ArrayList<>();
+
+		for (Shard shard : shards) {
+			for (Slot slot : shard.slots()) {
+				slots.add(new ShardSlot(shard, slot));
+			}
+		}
+
+		// Sorted newest -> oldest
+		slots.sort(Comparator.comparingLong((ShardSlot s) -> s.slot().lastAccess()).reversed());
+
+		final Map<Shard, List<Slot>> retained = new IdentityHashMap<>();
+
+		for (Shard shard : shards) {
+			retained.put(shard, new ArrayList<>());
+		}
+
+		int removed = 0;
+
+		for (int i = 0; i < slots.size(); i++) {
+			final ShardSlot shardSlot = slots.get(i);
+
+			if (i >= cacheRules.maxFiles() || shardSlot.slot().lastAccess() < oldestAllowed) {
+				removed++;
+				continue;
+			}
+
+			retained.get(shardSlot.shard()).add(shardSlot.slot());
+		}
+
+		for (Shard shard : shards) {
+			shard.compact(retained.get(shard));
+		}
+
+		LOGGER.info("Compacted decompile cache, removed {} of {} entries", removed, slots.size());
+	}
+
+	@Override
+	public void close() throws IOException {
+		IOException exception = null;
+		boolean complete = true;
+
+		for (Shard shard : shards) {
+			if (shard == null) {
+				complete = false;
+				continue;
+			}
+
+			try {
+				shard.close();
+			} catch (IOException e) {
+				if (exception == null) {
+					exception = e;
+				} else {
+					exception.addSuppressed(e);
+				}
+			}
+		}
+
+		if (complete && exception == null) {
+			lock.complete();
+		}
+
+		try {
+			lock.close();
+		} catch (IOException e) {
+			if (exception == null) {
+				exception = e;
+			} else {
+				exception.addSuppressed(e);
+			}
+		}
+
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	private Shard getShard(String key) {
+		final int prefixIndex = key.lastIndexOf('/') + 1;
+
+		if (prefixIndex >= key.length()) {
+			return shards[0];
+		}
+
+		final char prefix = key.charAt(prefixIndex);
+		final int digit = Character.digit(prefix, SHARD_COUNT);
+		return shards[digit >= 0 ? digit : Math.floorMod(prefix, SHARD_COUNT)];
+	}
+
+	// 64 bit FNV-1a, 0 is reserved to mark an empty index slot.
+	private static long hash(String key) {
+		long hash = 0xcbf29ce484222325L;
+
+		for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xFF;
+			hash *= 0x100000001b3L;
+		}
+
+		return hash == Shard.EMPTY ? 1 : hash;
+	}
+
+	private record Slot(long hash, long offset, int length, long lastAccess) {
+	}
+
+	private record ShardSlot(Shard shard, Slot slot) {
+	}
+
+	/**
+	 * A single pack file and its index.
+	 *
+	 * <p>The pack file is a sequence of {@code ENTR} RIFF chunks, each containing a {@code KEY } chunk followed by the
+	 * {@link CachedData} chunk. The index is an open addressing hash table of fixed size slots, preceded by a header
+	 * containing the length of the pack file at the time of the last successful write. Any data past this length is
+	 * the result of an interrupted write and is discarded when the shard is opened. The pack length is updated before
+	 * the slot of a new entry is written, so a slot never points past it.
+	 */
+	private static final class Shard implements Closeable {
+		static final long EMPTY = 0;
+
+		private static final String ENTRY_ID = "ENTR";
+		private static final String KEY_ID = "KEY ";
+		private static final int INDEX_MAGIC = 0x4C504958; // LPIX
+		private static final int INDEX_VERSION = 1;
+		private static final int INITIAL_CAPACITY = 1024;
+
+		// Header: magic, version, capacity, size, pack length
+		private static final int HEADER_SIZE = 32;
+		// Slot: key hash, entry offset, entry length, unused, last access
+		private static final int SLOT_SIZE = 32;
+
+		private final Path packPath;
+		private final FileChannel indexChannel;
+		private FileChannel pack;
+		private MappedByteBuffer index;
+		private int capacity;
+		private int size;
+		private long packLength;
+
+		Shard(Path root, String name, boolean rebuild) throws IOException {
+			this.packPath = root.resolve(name + ".pack");
+			final Path indexPath = root.resolve(name + ".idx");
+
+			this.pack = FileChannel.open(packPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			this.indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			if (rebuild || !loadIndex()) {
+				LOGGER.info("Rebuilding decompile cache index: {}", indexPath);
+				rebuildIndex();
+			}
+		}
+
+		synchronized @Nullable CachedData get(String key, long keyHash, long now) throws IOException {
+			final int mask = capacity - 1;
+
+			for (int i = (int) keyHash & mask; ; i = (i + 1) & mask) {
+				final int slot = slotPosition(i);
+				final long slotHash = index.getLong(slot);
+
+				if (slotHash == EMPTY) {
+					return null;
+				}
+
+				if (slotHash != keyHash) {
+					continue;
+				}
+
+				final byte[] entry = read(index.getLong(slot + 8), index.getInt(slot + 16));
+				final int keyLength = ByteBuffer.wrap(entry).getInt(12);
+				final int dataOffset = 16 + keyLength;
+
+				if (!key.equals(new String(entry, 16, keyLength, StandardCharsets.UTF_8))) {
+					// Hash collision
+					continue;
+				}
+
+				// Update the last access time, so recently used entries stay in the cache
+				index.putLong(slot + 24, now);
+				return CachedData.read(new ByteArrayInputStream(entry, dataOffset, entry.length - dataOffset));
+			}
+		}
+
+		synchronized void put(String key, long keyHash, CachedData data, long now) throws IOException {
+			if ((size + 1) * 2 > capacity) {
+				rehash(capacity * 2);
+			}
+
+			final long offset = packLength;
+			pack.position(offset);
+
+			try (var entryChunk = new RiffChunk(ENTRY_ID, pack)) {
+				try (var keyChunk = new RiffChunk(KEY_ID, pack)) {
+					pack.write(ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8)));
+				}
+
+				data.write(pack);
+			}
+
+			final long length = pack.position() - offset;
+			setPackLength(offset + length);
+			insert(key, keyHash, offset, (int) length, now);
+		}
+
+		synchronized List<Slot> slots() {
+			final List<Slot> slots = new ArrayList<>(size);
+
+			for (int i = 0; i < capacity; i++) {
+				final int slot = slotPosition(i);
+				final long slotHash = index.getLong(slot);
+
+				if (slotHash != EMPTY) {
+					slots.add(new Slot(slotHash, index.getLong(slot + 8), index.getInt(slot + 16), index.getLong(slot + 24)));
+				}
+			}
+
+			return slots;
+		}
+
+		/**
+		 * Rewrite the pack file to only contain the retained entries.
+		 * This is skipped when nothing is removed and most of the pack file is still in use.
+		 */
+		synchronized void compact(List<Slot> retained) throws IOException {
+			final long liveBytes = retained.stream().mapToLong(Slot::length).sum();
+
+			if (retained.size() == size && packLength - liveBytes <= packLength / 4) {
+				return;
+			}
+
+			final List<Slot> sorted = new ArrayList<>(retained);
+			sorted.sort(Comparator.comparingLong(Slot::offset));
+
+			final Path tempPack = packPath.resolveSibling(packPath.getFileName() + ".tmp");
+			final List<Slot> moved = new ArrayList<>(sorted.size());
+			long position = 0;
+
+			try (FileChannel output = FileChannel.open(tempPack, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				for (Slot slot : sorted) {
+					long transferred = 0;
+
+					while (transferred < slot.length()) {
+						transferred += pack.transferTo(slot.offset() + transferred, slot.length() - transferred, output);
+					}
+
+					moved.add(new Slot(slot.hash(), position, slot.length(), slot.lastAccess()));
+					position += slot.length();
+				}
+			}
+
+			// The directory is locked, so no other store has the pack file open.
+			pack.close();
+			Files.move(tempPack, packPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			pack = FileChannel.open(packPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			// The new pack is always shorter than the old pack length, so an interrupted compaction rebuilds the index.
+			clearIndex(capacity);
+
+			for (Slot slot : moved) {
+				insertUnique(slot);
+			}
+
+			setSize(moved.size());
+			setPackLength(position);
+			index.force();
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			try (FileChannel packChannel = pack; indexChannel) {
+				if (index != null) {
+					index.force();
+				}
+			}
+		}
+
+		private boolean loadIndex() throws IOException {
+			final long indexSize = indexChannel.size();
+
+			if (indexSize < HEADER_SIZE) {
+				return false;
+			}
+
+			index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize);
+
+			if (index.getInt(0) != INDEX_MAGIC || index.getInt(4) != INDEX_VERSION) {
+				return false;
+			}
+
+			capacity = index.getInt(8);
+			size = index.getInt(12);
+			packLength = index.getLong(16);
+
+			if (Integer.bitCount(capacity) != 1 || indexSize < HEADER_SIZE + (long) capacity * SLOT_SIZE) {
+				return false;
+			}
+
+			if (pack.size() < packLength) {
+				// The index points past the end of the pack file
+				return false;
+			}
+
+			for (Slot slot : slots()) {
+				if (slot.offset() < 0 || slot.length() < 0 || slot.offset() + slot.length() > packLength) {
+					// A slot was written without the entry, such as when the system crashed before the index was flushed
+					return false;
+				}
+			}
+
+			if (pack.size() > packLength) {
+				// Discard a partially written entry
+				pack.truncate(packLength);
+			}
+
+			return true;
+		}
+
+		// Scan the pack file and rebuild the index, entries are given the last modified time of the pack file.
+		private void rebuildIndex() throws IOException {
+			final long lastAccess = Files.getLastModifiedTime(packPath).toMillis();
+			final long length = pack.size();
+
+			clearIndex(INITIAL_CAPACITY);
+			setSize(0);
+
+			long position = 0;
+
+			while (position + 16 <= length) {
+				final byte[] header = read(position, 16);
+				final ByteBuffer buffer = ByteBuffer.wrap(header);
+				final long entryLength = 8 + Integer.toUnsignedLong(buffer.getInt(4));
+
+				if (!ENTRY_ID.equals(new String(header, 0, 4, StandardCharsets.US_ASCII)) || position + entryLength > length) {
+					break;
+				}
+
+				final int keyLength = buffer.getInt(12);
+
+				if (keyLength < 0 || 16 + keyLength > entryLength) {
+					break;
+				}
+
+				final String key = new String(read(position + 16, keyLength), StandardCharsets.UTF_8);
+
+				if ((size + 1) * 2 > capacity) {
+					rehash(capacity * 2);
+				}
+
+				insert(key, hash(key), position, (int) entryLength, lastAccess);
+				position += entryLength;
+			}
+
+			if (position < length) {
+				LOGGER.warn("Discarding {} bytes of invalid data from {}", length - position, packPath);
+				pack.truncate(position);
+			}
+
+			setPackLength(position);
+		}
+
+		private void insert(String key, long keyHash, long offset, int length, long lastAccess) throws IOException {
+			final int mask = capacity - 1;
+
+			for (int i = (int) keyHash & mask; ; i = (i + 1) & mask) {
+				final int slot = slotPosition(i);
+				final long slotHash = index.getLong(slot);
+
+				if (slotHash == EMPTY) {
+					setSize(size + 1);
+					writeSlot(slot, new Slot(keyHash, offset, length, lastAccess));
+					return;
+				}
+
+				if (slotHash == keyHash && key.equals(readKey(index.getLong(slot + 8)))) {
+					// Replace the existing entry, the old data stays in the pack until the next compaction
+					writeSlot(slot, new Slot(keyHash, offset, length, lastAccess));
+					return;
+				}
+			}
+		}
+
+		// Insert a slot that is known to not be in the index yet.
+		private void insertUnique(Slot slot) {
+			final int mask = capacity - 1;
+
+			for (int i = (int) slot.hash() & mask; ; i = (i + 1) & mask) {
+				final int position = slotPosition(i);
+
+				if (index.getLong(position) == EMPTY) {
+					writeSlot(position, slot);
+					return;
+				}
+			}
+		}
+
+		private void rehash(int newCapacity) throws IOException {
+			final List<Slot> slots = slots();
+			clearIndex(newCapacity);
+
+			for (Slot slot : slots) {
+				insertUnique(slot);
+			}
+
+			setSize(slots.size());
+		}
+
+		private void clearIndex(int newCapacity) throws IOException {
+			final long indexSize = HEADER_SIZE + (long) newCapacity * SLOT_SIZE;
+
+			if (index == null || index.capacity() < indexSize) {
+				index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize);
+			}
+
+			for (int i = HEADER_SIZE; i < indexSize; i += Long.BYTES) {
+				index.putLong(i, 0);
+			}
+
+			capacity = newCapacity;
+			index.putInt(0, INDEX_MAGIC);
+			index.putInt(4, INDEX_VERSION);
+			index.putInt(8, capacity);
+		}
+
+		private void writeSlot(int position, Slot slot) {
+			index.putLong(position + 8, slot.offset());
+			index.putInt(position + 16, slot.length());
+			index.putLong(position + 24, slot.lastAccess());
+			// Write the hash last, as it marks the slot as used
+			index.putLong(position, slot.hash());
+		}
+
+		private void setSize(int size) {
+			this.size = size;
+			index.putInt(12, size);
+		}
+
+		private void setPackLength(long packLength) {
+			this.packLength = packLength;
+			index.putLong(16, packLength);
+		}
+
+		private String readKey(long offset) throws IOException {
+			final int keyLength = ByteBuffer.wrap(read(offset + 12, 4)).getInt();
+			return new String(read(offset + 16, keyLength), StandardCharsets.UTF_8);
+		}
+
+		private byte[] read(long position, int length) throws IOException {
+			final ByteBuffer buffer = ByteBuffer.allocate(length);
+
+			while (buffer.hasRemaining()) {
+				if (pack.read(buffer, position + buffer.position()) < 0) {
+					throw new EOFException("Unexpected end of " + packPath);
+				}
+			}
+
+			return buffer.array();
+		}
+
+		private static int slotPosition(int slot) {
+			return HEADER_SIZE + slot * SLOT_SIZE;
+		}
+	}
+}
@@ -52,4 +52,11 @@ public interface LoomFiles {
 	File getLocalMinecraftRepo();
 	File getDecompileCache(String version);
 	File getForgeDependencyRepo();
+	File getMcpStepCache();
+	File getRemappedModStore();
+
+	/**
+	 * The directory containing the lock files of the generated artifacts, see {@link net.fabricmc.loom.util.ArtifactLock}.
+	 */
+	File getArtifactLocks();
 }
@@ -110,11 +110,26 @@ public abstract class LoomFilesBaseImpl implements LoomFiles {
 
 	@Override
 	public File getDecompileCache(String version) {
-		return new File(getUserCache(), "decompile/" + version + ".zip");
+		return new File(getUserCache(), "decompile/" + version);
 	}
 
 	@Override
 	public File getForgeDependencyRepo() {
 		return new File(getUserCache(), "forge/transformed-dependencies-v1");
 	}
+
+	@Override
+	public File getMcpStepCache() {
+		return new File(getUserCache(), "forge/mcp-steps-v1");
+	}
+
+	@Override
+	public File getRemappedModStore() {
+		return new File(getUserCache(), "remapped-mods-v1");
+	}
+
+	@Override
+	public File getArtifactLocks() {
+		return new File(getUserCache(), "locks");
+	}
 }
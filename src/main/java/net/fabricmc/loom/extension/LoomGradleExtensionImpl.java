@@ -45,6 +45,7 @@ import net.fabricmc.loom.api.ForgeExtensionAPI;
 import net.fabricmc.loom.api.NeoForgeExtensionAPI;
 import net.fabricmc.loom.api.mappings.intermediate.IntermediateMappingsProvider;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.ConfigurationTrace;
 import net.fabricmc.loom.configuration.InstallerData;
 import net.fabricmc.loom.configuration.LoomDependencyManager;
 import net.fabricmc.loom.configuration.accesswidener.AccessWidenerFile;
@@ -71,6 +72,7 @@ public class LoomGradleExtensionImpl extends LoomGradleExtensionApiImpl implemen
 	private final MixinExtension mixinApExtension;
 	private final LoomFiles loomFiles;
 	private final ConfigurableFileCollection unmappedMods;
+	private final ConfigurationTrace configurationTrace;
 
 	private final List<AccessWidenerFile> transitiveAccessWideners = new ArrayList<>();
 
@@ -115,6 +117,7 @@ public class LoomGradleExtensionImpl extends LoomGradleExtensionApiImpl implemen
 		});
 
 		refreshDeps = manualRefreshDeps();
+		configurationTrace = ConfigurationTrace.create(GradleUtils.getBooleanProperty(project, Constants.Properties.CONFIGURATION_TRACE));
 		multiProjectOptimisation = GradleUtils.getBooleanPropertyProvider(project, Constants.Properties.MULTI_PROJECT_OPTIMISATION);
 		libraryProcessorFactories = project.getObjects().listProperty(LibraryProcessorManager.LibraryProcessorFactory.class);
 		libraryProcessorFactories.addAll(LibraryProcessorManager.DEFAULT_LIBRARY_PROCESSORS);
@@ -147,6 +150,11 @@ public class LoomGradleExtensionImpl extends LoomGradleExtensionApiImpl implemen
 		return Objects.requireNonNull(dependencyManager, "Cannot get LoomDependencyManager before it has been setup");
 	}
 
+	@Override
+	public ConfigurationTrace getConfigurationTrace() {
+		return configurationTrace;
+	}
+
 	@Override
 	public MinecraftProvider getMinecraftProvider() {
 		return Objects.requireNonNull(minecraftProvider, "Cannot get MinecraftProvider before it has been setup");
@@ -70,6 +70,7 @@ import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ZipReprocessorUtil;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
+import net.fabricmc.loom.util.zip.StagedJar;
 
 public abstract class AbstractRemapJarTask extends Jar {
 	@InputFile
@@ -206,18 +207,26 @@ public abstract class AbstractRemapJarTask extends Jar {
 		}
 
 		protected void modifyJarManifest() throws IOException {
-			int count = ZipUtils.transform(outputFile, Map.of(Constants.Manifest.PATH, bytes -> {
-				var manifest = new Manifest(new ByteArrayInputStream(bytes));
+			int count = ZipUtils.transform(outputFile, Map.of(Constants.Manifest.PATH, this::applyManifestChanges));
 
-				getParameters().getJarManifestService().get().apply(manifest, getParameters().getManifestAttributes().get());
-				manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, getParameters().getTargetNamespace().get());
+			Preconditions.checkState(count > 0, "Did not transform any jar manifest");
+		}
 
-				ByteArrayOutputStream out = new ByteArrayOutputStream();
-				manifest.write(out);
-				return out.toByteArray();
-			}));
+		protected void modifyJarManifest(StagedJar outputJar) throws IOException {
+			boolean transformed = outputJar.transform(Constants.Manifest.PATH, this::applyManifestChanges);
 
-			Preconditions.checkState(count > 0, "Did not transform any jar manifest");
+			Preconditions.checkState(transformed, "Did not transform any jar manifest");
+		}
+
+		private byte[] applyManifestChanges(byte[] bytes) throws IOException {
+			var manifest = new Manifest(new ByteArrayInputStream(bytes));
+
+			getParameters().getJarManifestService().get().apply(manifest, getParameters().getManifestAttributes().get());
+			manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, getParameters().getTargetNamespace().get());
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			manifest.write(out);
+			return out.toByteArray();
 		}
 
 		protected void rewriteJar() throws IOException {
@@ -229,6 +238,17 @@ public abstract class AbstractRemapJarTask extends Jar {
 				ZipReprocessorUtil.reprocessZip(outputFile, isReproducibleFileOrder, isPreserveFileTimestamps, compression);
 			}
 		}
+
+		/**
+		 * Write the staged jar to the output file, applying the same archive settings as {@link #rewriteJar()}.
+		 */
+		protected void writeJar(StagedJar outputJar) throws IOException {
+			final boolean isReproducibleFileOrder = getParameters().getArchiveReproducibleFileOrder().get();
+			final boolean isPreserveFileTimestamps = getParameters().getArchivePreserveFileTimestamps().get();
+			final ZipEntryCompression compression = getParameters().getEntryCompression().get();
+
+			outputJar.write(outputFile, isReproducibleFileOrder, isPreserveFileTimestamps, compression);
+		}
 	}
 
 	@Deprecated
@@ -43,21 +43,27 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
 
+import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.Input;
@@ -93,10 +99,13 @@ import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJar;
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.AbstractMappedMinecraftProvider;
 import net.fabricmc.loom.configuration.sources.ForgeSourcesRemapper;
 import net.fabricmc.loom.decompilers.ClassLineNumbers;
+import net.fabricmc.loom.decompilers.DecompileShards;
 import net.fabricmc.loom.decompilers.LineNumberRemapper;
-import net.fabricmc.loom.decompilers.cache.CachedData;
 import net.fabricmc.loom.decompilers.cache.CachedFileStoreImpl;
 import net.fabricmc.loom.decompilers.cache.CachedJarProcessor;
+import net.fabricmc.loom.decompilers.cache.ClassEntry;
+import net.fabricmc.loom.decompilers.cache.MappingComments;
+import net.fabricmc.loom.decompilers.cache.PackedFileStore;
 import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
@@ -107,6 +116,7 @@ import net.fabricmc.loom.util.gradle.SyncTaskBuildService;
 import net.fabricmc.loom.util.gradle.ThreadedProgressLoggerConsumer;
 import net.fabricmc.loom.util.gradle.ThreadedSimpleProgressLogger;
 import net.fabricmc.loom.util.gradle.WorkerDaemonClientsManagerHelper;
+import net.fabricmc.loom.util.gradle.WorkerIdleWatchdog;
 import net.fabricmc.loom.util.ipc.IPCClient;
 import net.fabricmc.loom.util.ipc.IPCServer;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
@@ -118,7 +128,11 @@ import net.fabricmc.mappingio.tree.MemoryMappingTree;
 @DisableCachingByDefault
 public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	private static final Logger LOGGER = LoggerFactory.getLogger(GenerateSourcesTask.class);
-	private static final String CACHE_VERSION = "v1";
+	private static final String CACHE_VERSION = "v2";
+	private static final CachedFileStoreImpl.CacheRules CACHE_RULES = new CachedFileStoreImpl.CacheRules(50_000, Duration.ofDays(90));
+	// Kept alive worker JVMs exit by themselves this long after their idle timeout, a decompile starting after the timeout
+	// stops the JVM first rather than reusing one that may be about to exit.
+	private static final Duration WORKER_EXIT_GRACE = Duration.ofMinutes(1);
 	private final DecompilerOptions decompilerOptions;
 
 	/**
@@ -160,10 +174,22 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	@ApiStatus.Experimental
 	public abstract Property<Boolean> getUseCache();
 
+	/**
+	 * When set only these classes, and their inner classes, are decompiled on a cache miss. This fills the decompile
+	 * cache for the given classes, so a later full decompile can reuse them.
+	 *
+	 * <p>When other classes are still missing from the cache, only the cache is filled: the sources jar and the line
+	 * numbers of the Minecraft jar are left as they were. Requires the decompile cache.
+	 */
+	@Input
+	@Option(option = "decompile-class", description = "Only decompile the given class, or classes when repeated, to fill the decompile cache")
+	@ApiStatus.Experimental
+	public abstract ListProperty<String> getDecompileClasses();
+
 	// Internal outputs
 	@ApiStatus.Internal
 	@Internal
-	protected abstract RegularFileProperty getDecompileCacheFile();
+	protected abstract DirectoryProperty getDecompileCacheDirectory();
 
 	// Injects
 	@Inject
@@ -188,10 +214,11 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		dependsOn(decompilerOptions.getClasspath().getBuiltBy());
 
 		LoomGradleExtension extension = LoomGradleExtension.get(getProject());
-		getDecompileCacheFile().set(extension.getFiles().getDecompileCache(CACHE_VERSION));
+		getDecompileCacheDirectory().set(extension.getFiles().getDecompileCache(CACHE_VERSION));
 		getUnpickRuntimeClasspath().from(getProject().getConfigurations().getByName(Constants.Configurations.UNPICK_CLASSPATH));
 
 		getUseCache().convention(true);
+		getDecompileClasses().convention(List.of());
 	}
 
 	@TaskAction
@@ -203,6 +230,10 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		}
 
 		if (!getUseCache().get()) {
+			if (!getDecompileClasses().get().isEmpty()) {
+				throw new InvalidUserDataException("--decompile-class requires the decompile cache, it cannot be used with --use-cache=false");
+			}
+
 			try (var timer = new Timer("Decompiled sources")) {
 				runWithoutCache();
 			} catch (Exception e) {
@@ -216,39 +247,44 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		LOGGER.info("Using decompile cache.");
 
 		try (var timer = new Timer("Decompiled sources with cache")) {
-			final Path cacheFile = getDecompileCacheFile().getAsFile().get().toPath();
-
-			// TODO ensure we have a lock on this file to prevent multiple tasks from running at the same time
-			// TODO handle being unable to read the cache file
-			Files.createDirectories(cacheFile.getParent());
+			final Path cacheDirectory = getDecompileCacheDirectory().getAsFile().get().toPath();
 
-			try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(cacheFile, true)) {
-				runWithCache(fs.getRoot());
+			// The store locks the directory, other tasks using the cache wait until it is closed
+			try (var decompileCache = new PackedFileStore(cacheDirectory, CACHE_RULES)) {
+				runWithCache(decompileCache);
 			}
+		} catch (InvalidUserDataException e) {
+			throw e;
 		} catch (Exception e) {
 			ExceptionUtil.printFileLocks(e, getProject());
 			throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Failed to decompile", e);
 		}
 	}
 
-	private void runWithCache(Path cacheRoot) throws IOException {
+	private void runWithCache(PackedFileStore decompileCache) throws IOException {
 		final MinecraftJar minecraftJar = rebuildInputJar();
-		final var cacheRules = new CachedFileStoreImpl.CacheRules(50_000, Duration.ofDays(90));
-		final var decompileCache = new CachedFileStoreImpl<>(cacheRoot, CachedData.SERIALIZER, cacheRules);
 		final String cacheKey = getCacheKey();
-		final CachedJarProcessor cachedJarProcessor = new CachedJarProcessor(decompileCache, cacheKey);
+		final Path mappings = getMappings();
+		// Allows sources decompiled with other mappings to be renamed, rather than decompiling them again
+		final CachedJarProcessor cachedJarProcessor = new CachedJarProcessor(decompileCache, cacheKey, MappingComments.read(mappings));
+		final Predicate<ClassEntry> decompileClassFilter = getDecompileClassFilter(minecraftJar.getPath());
 		final CachedJarProcessor.WorkRequest workRequest;
 
 		LOGGER.info("Decompile cache key: {}", cacheKey);
 
 		try (var timer = new Timer("Prepare job")) {
-			workRequest = cachedJarProcessor.prepareJob(minecraftJar.getPath());
+			workRequest = cachedJarProcessor.prepareJob(minecraftJar.getPath(), decompileClassFilter);
 		}
 
 		final CachedJarProcessor.WorkJob job = workRequest.job();
 		final CachedJarProcessor.CacheStats cacheStats = workRequest.stats();
 
-		getProject().getLogger().lifecycle("Decompile cache stats: {} hits, {} misses", cacheStats.hits(), cacheStats.misses());
+		getProject().getLogger().lifecycle("Decompile cache stats: {} hits ({} renamed), {} misses", cacheStats.hits(), cacheStats.renamed(), cacheStats.misses());
+
+		// The final output sources jar
+		final Path sourcesJar = getOutputJar().get().getAsFile().toPath();
+		// Never replace the full sources jar with one that is missing classes, only fill the cache
+		final boolean fillCacheOnly = cacheStats.skipped() > 0;
 
 		ClassLineNumbers outputLineNumbers = null;
 
@@ -263,7 +299,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			}
 
 			try (var timer = new Timer("Decompile")) {
-				outputLineNumbers = runDecompileJob(inputJar, workToDoJob.output(), existing);
+				outputLineNumbers = runDecompileJob(inputJar, workToDoJob.output(), existing, mappings);
 				removeForgeInnerClassSources(workToDoJob.output());
 				outputLineNumbers = filterForgeLineNumbers(outputLineNumbers);
 			}
@@ -275,17 +311,35 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			// Nothing to do :)
 		}
 
-		// The final output sources jar
-		final Path sourcesJar = getOutputJar().get().getAsFile().toPath();
+		// This is the minecraft jar used at runtime.
+		final Path classesJar = minecraftJar.getPath();
+
+		if (fillCacheOnly) {
+			final Path tempJar = Files.createTempFile("loom", "decompile-class.jar");
+			Files.delete(tempJar);
+
+			try (var timer = new Timer("Complete job")) {
+				cachedJarProcessor.completeJob(tempJar, job, outputLineNumbers);
+			} finally {
+				Files.deleteIfExists(tempJar);
+			}
+
+			restoreLineNumbers(classesJar);
+
+			try (var timer = new Timer("Compact cache")) {
+				decompileCache.compact();
+			}
+
+			getProject().getLogger().lifecycle("Skipped decompiling {} classes not in the decompile cache, the sources jar was left unchanged. Run without --decompile-class to decompile them", cacheStats.skipped());
+			return;
+		}
+
 		Files.deleteIfExists(sourcesJar);
 
 		try (var timer = new Timer("Complete job")) {
 			cachedJarProcessor.completeJob(sourcesJar, job, outputLineNumbers);
 		}
 
-		// This is the minecraft jar used at runtime.
-		final Path classesJar = minecraftJar.getPath();
-
 		// Remap the line numbers with the new and existing numbers
 		final ClassLineNumbers existingLinenumbers = workRequest.lineNumbers();
 		final ClassLineNumbers lineNumbers = ClassLineNumbers.merge(existingLinenumbers, outputLineNumbers);
@@ -304,8 +358,8 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		Files.move(tempJar, classesJar, StandardCopyOption.REPLACE_EXISTING);
 
-		try (var timer = new Timer("Prune cache")) {
-			decompileCache.prune();
+		try (var timer = new Timer("Compact cache")) {
+			decompileCache.compact();
 		}
 	}
 
@@ -325,7 +379,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		ClassLineNumbers lineNumbers;
 
 		try (var timer = new Timer("Decompile")) {
-			lineNumbers = runDecompileJob(inputJar, sourcesJar, null);
+			lineNumbers = runDecompileJob(inputJar, sourcesJar, null, getMappings());
 			removeForgeInnerClassSources(sourcesJar);
 			lineNumbers = filterForgeLineNumbers(lineNumbers);
 		}
@@ -351,6 +405,59 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		Files.move(tempJar, classesJar, StandardCopyOption.REPLACE_EXISTING);
 	}
 
+	/**
+	 * The Minecraft jar is rebuilt with its original line numbers, remap them again with the line numbers of the last
+	 * full decompile so that they still match the sources jar, that was left unchanged.
+	 */
+	private void restoreLineNumbers(Path classesJar) throws IOException {
+		final Path lineMap = getLineMapFile(classesJar);
+
+		if (Files.notExists(lineMap) || Files.notExists(getOutputJar().get().getAsFile().toPath())) {
+			return;
+		}
+
+		final Path tempJar = Files.createTempFile("loom", "linenumber-remap.jar");
+		Files.delete(tempJar);
+
+		try (var timer = new Timer("Restore line numbers")) {
+			remapLineNumbers(ClassLineNumbers.readMappings(lineMap), classesJar, tempJar);
+		}
+
+		Files.move(tempJar, classesJar, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private Predicate<ClassEntry> getDecompileClassFilter(Path inputJar) throws IOException {
+		final List<String> classes = getDecompileClasses().get();
+
+		if (classes.isEmpty()) {
+			return entry -> true;
+		}
+
+		final Set<String> outerClasses = new HashSet<>();
+		final List<String> missingClasses = new ArrayList<>();
+
+		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(inputJar, false)) {
+			for (String className : classes) {
+				// Accept both binary and internal names, inner classes are decompiled with their outer class
+				final String internalName = className.replace('.', '/');
+				final int innerIndex = internalName.indexOf('$');
+				final String outerClass = (innerIndex == -1 ? internalName : internalName.substring(0, innerIndex)) + ".class";
+
+				if (Files.notExists(fs.getPath(internalName + ".class"))) {
+					missingClasses.add(className);
+				}
+
+				outerClasses.add(outerClass);
+			}
+		}
+
+		if (!missingClasses.isEmpty()) {
+			throw new InvalidUserDataException("Could not find the classes passed to --decompile-class in %s: %s".formatted(inputJar.getFileName(), String.join(", ", missingClasses)));
+		}
+
+		return entry -> outerClasses.contains(entry.parentClass());
+	}
+
 	private String getCacheKey() {
 		var sj = new StringJoiner(",");
 		sj.add(getDecompilerCheckKey());
@@ -390,16 +497,35 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		return sj.toString();
 	}
 
+	private String getDaemonKey(long memory) {
+		try {
+			return Checksum.sha256Hex((getDecompilerCheckKey() + ",memory=" + memory).getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
 	@Nullable
-	private ClassLineNumbers runDecompileJob(Path inputJar, Path outputJar, @Nullable Path existingJar) throws IOException {
+	private ClassLineNumbers runDecompileJob(Path inputJar, Path outputJar, @Nullable Path existingJar, Path mappings) throws IOException {
 		final Platform platform = Platform.CURRENT;
-		final Path lineMapFile = File.createTempFile("loom", "linemap").toPath();
-		Files.delete(lineMapFile);
+		// Each shard is decompiled in its own forked JVM, so sharding is only possible with process isolation.
+		final int shardCount = useProcessIsolation() ? decompilerOptions.getShards().get() : 1;
+		final List<DecompileShard> shards = createShards(inputJar, outputJar, shardCount);
 
-		if (!platform.supportsUnixDomainSockets()) {
-			getProject().getLogger().warn("Decompile worker logging disabled as Unix Domain Sockets is not supported on your operating system.");
+		try {
+			if (!platform.supportsUnixDomainSockets()) {
+				getProject().getLogger().warn("Decompile worker logging disabled as Unix Domain Sockets is not supported on your operating system.");
+
+				doWork(shards, null, existingJar, mappings);
+			} else {
+				doWorkWithLogging(shards, existingJar, mappings);
+			}
 
-			doWork(null, inputJar, outputJar, lineMapFile, existingJar);
+			if (shards.size() > 1) {
+				try (var timer = new Timer("Merge decompile shards")) {
+					DecompileShards.mergeSources(shards.stream().map(DecompileShard::outputJar).toList(), outputJar);
+				}
+			}
 
 			// Inject Forge's own sources
 			if (getExtension().isForgeLike()) {
@@ -408,30 +534,88 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 				}
 			}
 
-			return readLineNumbers(lineMapFile);
+			final List<ClassLineNumbers> lineNumbers = new ArrayList<>();
+
+			for (DecompileShard shard : shards) {
+				final ClassLineNumbers shardLineNumbers = readLineNumbers(shard.linemapFile());
+
+				if (shardLineNumbers != null) {
+					lineNumbers.add(shardLineNumbers);
+				}
+			}
+
+			return DecompileShards.mergeLineNumbers(lineNumbers);
+		} finally {
+			deleteShards(shards);
 		}
+	}
 
-		// Set up the IPC path to get the log output back from the forked JVM
-		final Path ipcPath = Files.createTempFile("loom", "ipc");
-		Files.deleteIfExists(ipcPath);
+	private void doWorkWithLogging(List<DecompileShard> shards, @Nullable Path existingJar, Path mappings) throws IOException {
+		final List<IPCServer> logReceivers = new ArrayList<>();
 
-		try (ThreadedProgressLoggerConsumer loggerConsumer = new ThreadedProgressLoggerConsumer(getProject(), decompilerOptions.getName(), "Decompiling minecraft sources");
-				IPCServer logReceiver = new IPCServer(ipcPath, loggerConsumer)) {
-			doWork(logReceiver, inputJar, outputJar, lineMapFile, existingJar);
+		try (ThreadedProgressLoggerConsumer loggerConsumer = new ThreadedProgressLoggerConsumer(getProject(), decompilerOptions.getName(), "Decompiling minecraft sources")) {
+			try {
+				for (int i = 0; i < shards.size(); i++) {
+					// Set up the IPC path to get the log output back from the forked JVM
+					final Path ipcPath = Files.createTempFile("loom", "ipc");
+					Files.deleteIfExists(ipcPath);
+
+					// Prefix the thread ids with the shard, so each shard gets its own progress loggers
+					final String prefix = i + "/";
+					logReceivers.add(new IPCServer(ipcPath, line -> loggerConsumer.accept(prefix + line)));
+				}
+
+				doWork(shards, logReceivers, existingJar, mappings);
+			} finally {
+				for (IPCServer logReceiver : logReceivers) {
+					logReceiver.close();
+					Files.deleteIfExists(logReceiver.getPath());
+				}
+			}
 		} catch (InterruptedException e) {
 			throw new RuntimeException("Failed to shutdown log receiver", e);
-		} finally {
-			Files.deleteIfExists(ipcPath);
 		}
+	}
 
-		// Inject Forge's own sources
-		if (getExtension().isForgeLike()) {
-			try (var serviceManager = new ScopedSharedServiceManager()) {
-				ForgeSourcesRemapper.addForgeSources(getProject(), serviceManager, inputJar, outputJar);
+	private List<DecompileShard> createShards(Path inputJar, Path outputJar, int shardCount) throws IOException {
+		if (shardCount <= 1) {
+			final Path lineMapFile = File.createTempFile("loom", "linemap").toPath();
+			Files.delete(lineMapFile);
+			return List.of(new DecompileShard(inputJar, outputJar, lineMapFile, false));
+		}
+
+		final Path shardDirectory = Files.createTempDirectory("loom-decompile-shards");
+		final List<DecompileShard> shards = new ArrayList<>(shardCount);
+
+		try (var timer = new Timer("Split decompile shards")) {
+			final List<Path> shardJars = DecompileShards.split(inputJar, shardCount, shardDirectory);
+
+			for (int i = 0; i < shardJars.size(); i++) {
+				final Path shardOutput = shardDirectory.resolve("shard-%d-sources.jar".formatted(i));
+				final Path lineMapFile = shardDirectory.resolve("shard-%d.linemap".formatted(i));
+				shards.add(new DecompileShard(shardJars.get(i), shardOutput, lineMapFile, true));
 			}
 		}
 
-		return readLineNumbers(lineMapFile);
+		return shards;
+	}
+
+	private static void deleteShards(List<DecompileShard> shards) throws IOException {
+		Path shardDirectory = null;
+
+		for (DecompileShard shard : shards) {
+			Files.deleteIfExists(shard.linemapFile());
+
+			if (shard.temporary()) {
+				Files.deleteIfExists(shard.inputJar());
+				Files.deleteIfExists(shard.outputJar());
+				shardDirectory = shard.inputJar().getParent();
+			}
+		}
+
+		if (shardDirectory != null) {
+			Files.deleteIfExists(shardDirectory);
+		}
 	}
 
 	@Nullable
@@ -574,7 +758,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		final var remapper = new LineNumberRemapper(lineNumbers);
 		remapper.process(inputJar, outputJar);
 
-		final Path lineMap = inputJar.resolveSibling(inputJar.getFileName() + ".linemap.txt");
+		final Path lineMap = getLineMapFile(inputJar);
 
 		try (BufferedWriter writer = Files.newBufferedWriter(lineMap)) {
 			lineNumbers.write(writer);
@@ -583,49 +767,87 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		LOGGER.info("Wrote linemap to {}", lineMap);
 	}
 
-	private void doWork(@Nullable IPCServer ipcServer, Path inputJar, Path outputJar, Path linemapFile, @Nullable Path existingJar) {
-		final String jvmMarkerValue = UUID.randomUUID().toString();
-		final WorkQueue workQueue = createWorkQueue(jvmMarkerValue);
+	private static Path getLineMapFile(Path classesJar) {
+		return classesJar.resolveSibling(classesJar.getFileName() + ".linemap.txt");
+	}
 
-		ConfigurableFileCollection classpath = getProject().files();
-		classpath.from(getProject().getConfigurations().getByName(Constants.Configurations.MINECRAFT_COMPILE_LIBRARIES));
+	private void doWork(List<DecompileShard> shards, @Nullable List<IPCServer> ipcServers, @Nullable Path existingJar, Path mappings) {
+		final long memory = shards.size() > 1 ? decompilerOptions.getShardMemory().get() : decompilerOptions.getMemory().get();
+		final Duration idleTimeout = decompilerOptions.getDaemonIdleTimeout().get();
+		final boolean keepAlive = useProcessIsolation() && !idleTimeout.isZero();
+		// A stable marker allows Gradle to reuse an idle JVM with the same classpath, options and memory.
+		final String jvmMarkerValue = keepAlive ? getDaemonKey(memory) : UUID.randomUUID().toString();
 
-		if (existingJar != null) {
-			classpath.from(existingJar);
+		if (keepAlive) {
+			WorkerDaemonClientsManagerHelper.markInUse(jvmMarkerValue);
 		}
 
-		workQueue.submit(DecompileAction.class, params -> {
-			params.getDecompilerOptions().set(decompilerOptions.toDto());
+		// Kept alive JVMs past their timeout are stopped here rather than reused, they also stop themselves shortly after
+		// so that they do not outlive their timeout by much when nothing is decompiled again.
+		WorkerDaemonClientsManagerHelper.stopExpiredJVMs(getWorkerDaemonClientsManager());
+
+		final WorkQueue workQueue = createWorkQueue(jvmMarkerValue, memory);
+		final DecompilerOptions.Dto options = decompilerOptions.toDto();
+		// The threads are shared between the shards, that are decompiled at the same time
+		final var shardOptions = new DecompilerOptions.Dto(options.className(), options.options(), Math.max(1, options.maxThreads() / shards.size()));
 
-			params.getInputJar().set(inputJar.toFile());
-			params.getOutputJar().set(outputJar.toFile());
-			params.getLinemapFile().set(linemapFile.toFile());
-			params.getMappings().set(getMappings().toFile());
+		for (int i = 0; i < shards.size(); i++) {
+			final DecompileShard shard = shards.get(i);
+			final IPCServer ipcServer = ipcServers != null ? ipcServers.get(i) : null;
 
-			if (ipcServer != null) {
-				params.getIPCPath().set(ipcServer.getPath().toFile());
+			ConfigurableFileCollection classpath = getProject().files();
+			classpath.from(getProject().getConfigurations().getByName(Constants.Configurations.MINECRAFT_COMPILE_LIBRARIES));
+
+			if (existingJar != null) {
+				classpath.from(existingJar);
 			}
 
-			params.getClassPath().setFrom(classpath);
+			// The classes in the other shards are needed to decompile this shard correctly
+			for (DecompileShard other : shards) {
+				if (other != shard) {
+					classpath.from(other.inputJar());
+				}
+			}
 
-			// Architectury
-			params.getForge().set(getExtension().isForgeLike());
-		});
+			workQueue.submit(DecompileAction.class, params -> {
+				params.getDecompilerOptions().set(shardOptions);
+
+				params.getInputJar().set(shard.inputJar().toFile());
+				params.getOutputJar().set(shard.outputJar().toFile());
+				params.getLinemapFile().set(shard.linemapFile().toFile());
+				params.getMappings().set(mappings.toFile());
+
+				if (ipcServer != null) {
+					params.getIPCPath().set(ipcServer.getPath().toFile());
+				}
+
+				params.getClassPath().setFrom(classpath);
+
+				if (keepAlive) {
+					params.getIdleTimeout().set(idleTimeout.plus(WORKER_EXIT_GRACE));
+				}
+
+				// Architectury
+				params.getForge().set(getExtension().isForgeLike());
+			});
+		}
 
 		try {
 			workQueue.await();
 		} finally {
-			if (ipcServer != null) {
+			if (keepAlive) {
+				WorkerDaemonClientsManagerHelper.markIdle(jvmMarkerValue, idleTimeout);
+			} else if (ipcServers != null) {
 				boolean stopped = WorkerDaemonClientsManagerHelper.stopIdleJVM(getWorkerDaemonClientsManager(), jvmMarkerValue);
 
-				if (!stopped && ipcServer.hasReceivedMessage()) {
+				if (!stopped && ipcServers.stream().anyMatch(IPCServer::hasReceivedMessage)) {
 					throw new RuntimeException("Failed to stop decompile worker JVM");
 				}
 			}
 		}
 	}
 
-	private WorkQueue createWorkQueue(String jvmMarkerValue) {
+	private WorkQueue createWorkQueue(String jvmMarkerValue, long memory) {
 		if (!useProcessIsolation()) {
 			return getWorkerExecutor().classLoaderIsolation(spec -> {
 				spec.getClasspath().from(getClasspath());
@@ -634,8 +856,8 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		return getWorkerExecutor().processIsolation(spec -> {
 			spec.forkOptions(forkOptions -> {
-				forkOptions.setMinHeapSize(String.format(Locale.ENGLISH, "%dm", Math.min(512, decompilerOptions.getMemory().get())));
-				forkOptions.setMaxHeapSize(String.format(Locale.ENGLISH, "%dm", decompilerOptions.getMemory().get()));
+				forkOptions.setMinHeapSize(String.format(Locale.ENGLISH, "%dm", Math.min(512, memory)));
+				forkOptions.setMaxHeapSize(String.format(Locale.ENGLISH, "%dm", memory));
 				forkOptions.systemProperty(WorkerDaemonClientsManagerHelper.MARKER_PROP, jvmMarkerValue);
 			});
 			spec.getClasspath().from(getClasspath());
@@ -647,6 +869,15 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		return !Boolean.getBoolean("fabric.loom.genSources.debug");
 	}
 
+	/**
+	 * @param inputJar The classes to decompile
+	 * @param outputJar The sources jar to write
+	 * @param linemapFile The line map file to write
+	 * @param temporary Whether the input and output jars were created for this shard, and should be deleted
+	 */
+	private record DecompileShard(Path inputJar, Path outputJar, Path linemapFile, boolean temporary) {
+	}
+
 	public interface DecompileParams extends WorkParameters {
 		Property<DecompilerOptions.Dto> getDecompilerOptions();
 
@@ -659,6 +890,11 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		ConfigurableFileCollection getClassPath();
 
+		/**
+		 * When present, the worker JVM is kept alive and exits by itself once it has been idle for this long.
+		 */
+		Property<Duration> getIdleTimeout();
+
 		// Architectury
 		Property<Boolean> getForge();
 	}
@@ -666,6 +902,21 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	public abstract static class DecompileAction implements WorkAction<DecompileParams> {
 		@Override
 		public void execute() {
+			if (!getParameters().getIdleTimeout().isPresent()) {
+				decompile();
+				return;
+			}
+
+			WorkerIdleWatchdog.busy();
+
+			try {
+				decompile();
+			} finally {
+				WorkerIdleWatchdog.idle(getParameters().getIdleTimeout().get());
+			}
+		}
+
+		private void decompile() {
 			if (!getParameters().getIPCPath().isPresent() || !Platform.CURRENT.supportsUnixDomainSockets()) {
 				// Does not support unix domain sockets, print to sout.
 				doDecompile(System.out::println);
@@ -28,17 +28,14 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import javax.inject.Inject;
 
@@ -89,7 +86,7 @@ import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
 import net.fabricmc.loom.util.fmj.FabricModJsonUtils;
 import net.fabricmc.loom.util.service.BuildSharedServiceManager;
 import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
-import net.fabricmc.tinyremapper.OutputConsumerPath;
+import net.fabricmc.loom.util.zip.StagedJar;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
 public abstract class RemapJarTask extends AbstractRemapJarTask {
@@ -335,34 +332,37 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 					prepare();
 				}
 
-				if (tinyRemapperService != null) {
-					tinyRemapper = tinyRemapperService.getTinyRemapperForRemapping();
+				// All the edits are staged, and the output jar is written once at the end.
+				try (StagedJar outputJar = new StagedJar()) {
+					if (tinyRemapperService != null) {
+						tinyRemapper = tinyRemapperService.getTinyRemapperForRemapping();
 
-					remap();
-				} else {
-					Files.copy(inputFile, outputFile, StandardCopyOption.REPLACE_EXISTING);
-				}
+						remap(outputJar);
+					} else {
+						outputJar.addAll(inputFile, name -> true);
+					}
 
-				if (getParameters().getClientOnlyEntries().isPresent()) {
-					markClientOnlyClasses();
-				}
+					if (getParameters().getClientOnlyEntries().isPresent()) {
+						markClientOnlyClasses(outputJar);
+					}
 
-				if (!injectAccessWidener()) {
-					remapAccessWidener();
-				}
+					if (!injectAccessWidener(outputJar)) {
+						remapAccessWidener(outputJar);
+					}
 
-				addRefmaps();
-				addNestedJars();
-				ModBuildExtensions.convertAwToAt(getParameters().getAtAccessWideners(), outputFile, getParameters().getMappingBuildServiceUuid());
+					addRefmaps(outputJar);
+					addNestedJars(outputJar);
+					ModBuildExtensions.convertAwToAt(getParameters().getAtAccessWideners(), outputJar, outputFile.getFileName().toString(), getParameters().getMappingBuildServiceUuid());
 
-				if (!getParameters().getPlatform().get().isForgeLike()) {
-					modifyJarManifest();
-				}
+					if (!getParameters().getPlatform().get().isForgeLike()) {
+						modifyJarManifest(outputJar);
+					}
 
-				rewriteJar();
+					if (getParameters().getOptimizeFmj().get()) {
+						optimizeFMJ(outputJar);
+					}
 
-				if (getParameters().getOptimizeFmj().get()) {
-					optimizeFMJ();
+					writeJar(outputJar);
 				}
 
 				if (tinyRemapperService != null && !getParameters().getMultiProjectOptimisation().get()) {
@@ -389,51 +389,49 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			}
 		}
 
-		private void remap() throws IOException {
+		private void remap(StagedJar outputJar) throws IOException {
 			Objects.requireNonNull(tinyRemapperService, "tinyRemapperService");
 			Objects.requireNonNull(tinyRemapper, "tinyRemapper");
 
-			try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(outputFile).build()) {
-				outputConsumer.addNonClassFiles(inputFile);
-				tinyRemapper.apply(outputConsumer, tinyRemapperService.getOrCreateTag(inputFile));
-			}
+			// Same as OutputConsumerPath.addNonClassFiles, the classes are replaced by the remapped classes.
+			outputJar.addAll(inputFile, name -> !name.endsWith(".class"));
+			tinyRemapper.apply((name, bytes) -> outputJar.put(name + ".class", bytes), tinyRemapperService.getOrCreateTag(inputFile));
 		}
 
-		private void markClientOnlyClasses() throws IOException {
-			final Stream<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> tranformers = getParameters().getClientOnlyEntries().get().stream()
-					.map(s -> new Pair<>(s,
-							(ZipUtils.AsmClassOperator) classVisitor -> SidedClassVisitor.CLIENT.insertApplyVisitor(null, classVisitor)
-					));
+		private void markClientOnlyClasses(StagedJar outputJar) throws IOException {
+			final ZipUtils.AsmClassOperator transformer = classVisitor -> SidedClassVisitor.CLIENT.insertApplyVisitor(null, classVisitor);
 
-			ZipUtils.transform(outputFile, tranformers);
+			for (String entry : getParameters().getClientOnlyEntries().get()) {
+				outputJar.transform(entry, transformer);
+			}
 		}
 
-		private boolean injectAccessWidener() throws IOException {
+		private boolean injectAccessWidener(StagedJar outputJar) throws IOException {
 			if (!getParameters().getInjectAccessWidener().isPresent()) return false;
 
 			Path path = getParameters().getInjectAccessWidener().getAsFile().get().toPath();
 
 			byte[] remapped = remapAccessWidener(Files.readAllBytes(path));
 
-			ZipUtils.add(outputFile, path.getFileName().toString(), remapped);
+			outputJar.put(path.getFileName().toString(), remapped);
 
 			if (getParameters().getPlatform().get() == ModPlatform.QUILT) {
-				ZipUtils.transformJson(JsonObject.class, outputFile, Map.of("quilt.mod.json", json -> {
+				outputJar.transformJson(JsonObject.class, "quilt.mod.json", json -> {
 					json.addProperty("access_widener", path.getFileName().toString());
 					return json;
-				}));
+				});
 				return true;
 			}
 
-			ZipUtils.transformJson(JsonObject.class, outputFile, Map.of("fabric.mod.json", json -> {
+			outputJar.transformJson(JsonObject.class, "fabric.mod.json", json -> {
 				json.addProperty("accessWidener", path.getFileName().toString());
 				return json;
-			}));
+			});
 
 			return true;
 		}
 
-		private void remapAccessWidener() throws IOException {
+		private void remapAccessWidener(StagedJar outputJar) throws IOException {
 			if (getParameters().namespacesMatch()) {
 				return;
 			}
@@ -447,7 +445,11 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			byte[] remapped = remapAccessWidener(accessWidenerFile.content());
 
 			// Finally, replace the output with the remaped aw
-			ZipUtils.replace(outputFile, accessWidenerFile.path(), remapped);
+			if (!outputJar.contains(accessWidenerFile.path())) {
+				throw new NoSuchFileException(accessWidenerFile.path());
+			}
+
+			outputJar.put(accessWidenerFile.path(), remapped);
 		}
 
 		private byte[] remapAccessWidener(byte[] input) {
@@ -468,7 +470,7 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			return writer.write();
 		}
 
-		private void addNestedJars() {
+		private void addNestedJars(StagedJar outputJar) {
 			FileCollection nestedJars = getParameters().getNestedJars();
 			ListProperty<NestedFile> forgeNestedJars = getParameters().getForgeNestedJars();
 
@@ -479,33 +481,31 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 
 			Set<File> jars = new LinkedHashSet<>(nestedJars.getFiles());
 			jars.addAll(forgeNestedJars.get().stream().map(NestedFile::file).toList());
-			JarNester.nestJars(jars, forgeNestedJars.getOrElse(List.of()), outputFile.toFile(), getParameters().getPlatform().get(), LOGGER);
+			JarNester.nestJars(jars, forgeNestedJars.getOrElse(List.of()), outputJar, outputFile.getFileName().toString(), getParameters().getPlatform().get(), LOGGER);
 		}
 
-		private void addRefmaps() throws IOException {
+		private void addRefmaps(StagedJar outputJar) throws IOException {
 			if (getParameters().getUseMixinExtension().getOrElse(false)) {
 				return;
 			}
 
 			for (RemapParams.RefmapData refmapData : getParameters().getMixinData().get()) {
-				if (ZipUtils.contains(outputFile, refmapData.refmapName())) {
-					int transformed = ZipUtils.transformJson(JsonObject.class, outputFile, refmapData.mixinConfigs().stream().collect(Collectors.toMap(s -> s, s -> json -> {
-						if (!json.has("refmap")) {
-							json.addProperty("refmap", refmapData.refmapName());
-						}
-
-						return json;
-					})));
+				if (outputJar.contains(refmapData.refmapName())) {
+					for (String mixinConfig : refmapData.mixinConfigs()) {
+						outputJar.transformJson(JsonObject.class, mixinConfig, json -> {
+							if (!json.has("refmap")) {
+								json.addProperty("refmap", refmapData.refmapName());
+							}
+
+							return json;
+						});
+					}
 				}
 			}
 		}
 
-		private void optimizeFMJ() throws IOException {
-			if (!ZipUtils.contains(outputFile, FabricModJsonFactory.FABRIC_MOD_JSON)) {
-				return;
-			}
-
-			ZipUtils.transformJson(JsonObject.class, outputFile, FabricModJsonFactory.FABRIC_MOD_JSON, FabricModJsonUtils::optimizeFmj);
+		private void optimizeFMJ(StagedJar outputJar) throws IOException {
+			outputJar.transformJson(JsonObject.class, FabricModJsonFactory.FABRIC_MOD_JSON, FabricModJsonUtils::optimizeFmj);
 		}
 	}
 
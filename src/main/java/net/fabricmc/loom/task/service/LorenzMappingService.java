@@ -47,15 +47,7 @@ public final class LorenzMappingService implements SharedService {
 
 	public static synchronized LorenzMappingService create(SharedServiceManager sharedServiceManager, MappingConfiguration mappingConfiguration, MappingsNamespace from, MappingsNamespace to) {
 		return sharedServiceManager.getOrCreateService(mappingConfiguration.getBuildServiceName("LorenzMappingService", from.toString(), to.toString()), () -> {
-			MappingOption mappingOption = MappingOption.DEFAULT;
-
-			if (from == MappingsNamespace.SRG || to == MappingsNamespace.SRG) {
-				mappingOption = MappingOption.WITH_SRG;
-			} else if (from == MappingsNamespace.MOJANG || to == MappingsNamespace.MOJANG) {
-				mappingOption = MappingOption.WITH_MOJANG;
-			}
-
-			MemoryMappingTree m = mappingConfiguration.getMappingsService(sharedServiceManager, mappingOption).getMappingTree();
+			MemoryMappingTree m = mappingConfiguration.getMappingsService(sharedServiceManager, getMappingOption(from, to)).getMappingTree();
 
 			try {
 				try (var reader = new TinyMappingsReader(m, from.toString(), to.toString())) {
@@ -67,6 +59,19 @@ public final class LorenzMappingService implements SharedService {
 		});
 	}
 
+	/**
+	 * {@return the mappings that contain both namespaces}
+	 */
+	public static MappingOption getMappingOption(MappingsNamespace from, MappingsNamespace to) {
+		if (from == MappingsNamespace.SRG || to == MappingsNamespace.SRG) {
+			return MappingOption.WITH_SRG;
+		} else if (from == MappingsNamespace.MOJANG || to == MappingsNamespace.MOJANG) {
+			return MappingOption.WITH_MOJANG;
+		}
+
+		return MappingOption.DEFAULT;
+	}
+
 	@Override
 	public void close() throws IOException {
 		this.mappings = null;
@@ -31,11 +31,11 @@ import java.nio.file.Path;
 import org.gradle.api.Project;
 
 import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.configuration.providers.mappings.BinaryMappings;
 import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
 import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
-import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.tinyremapper.IMappingProvider;
 
@@ -61,14 +61,23 @@ public final class MappingsService implements SharedService {
 		this.options = options;
 	}
 
+	private BinaryMappings binaryMappings = null;
 	private IMappingProvider mappingProvider = null;
 	private MemoryMappingTree memoryMappingTree = null;
 
+	private BinaryMappings getBinaryMappings() throws IOException {
+		if (binaryMappings == null) {
+			binaryMappings = BinaryMappings.open(options.mappingsFile());
+		}
+
+		return binaryMappings;
+	}
+
 	public synchronized IMappingProvider getMappingsProvider() {
 		if (mappingProvider == null) {
 			try {
 				mappingProvider = TinyRemapperHelper.create(
-						options.mappingsFile(),
+						getBinaryMappings(),
 						options.from(),
 						options.to(),
 						options.remapLocals()
@@ -83,10 +92,10 @@ public final class MappingsService implements SharedService {
 
 	public synchronized MemoryMappingTree getMemoryMappingTree() {
 		if (memoryMappingTree == null) {
-			memoryMappingTree = new MemoryMappingTree();
-
 			try {
-				MappingReader.read(options.mappingsFile(), memoryMappingTree);
+				final var memoryMappingTree = new MemoryMappingTree();
+				getBinaryMappings().accept(memoryMappingTree);
+				this.memoryMappingTree = memoryMappingTree;
 			} catch (IOException e) {
 				throw new UncheckedIOException("Failed to read mappings from: " + options.mappingsFile(), e);
 			}
@@ -106,5 +115,6 @@ public final class MappingsService implements SharedService {
 	@Override
 	public void close() {
 		mappingProvider = null;
+		binaryMappings = null;
 	}
 }
@@ -0,0 +1,330 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+/**
+ * A lock on generated artifacts, such as a Minecraft jar or a mappings file, shared between Gradle processes.
+ *
+ * <p>Processes producing an artifact hold an exclusive lock, processes reading it hold a shared lock. The locks are
+ * {@link FileChannel#lock() file locks} on a lock file for each artifact, so a waiting process is woken up as soon as
+ * the lock is released, and the locks of a killed process are released by the operating system.
+ *
+ * <p>A producer marks the lock file until it calls {@link #complete()}, the next producer of an artifact whose
+ * previous producer failed or was killed can find out that the artifact may be incomplete with {@link #isInterrupted()}.
+ */
+public final class ArtifactLock implements Closeable {
+	private static final Logger LOGGER = Logging.getLogger(ArtifactLock.class);
+	// File locks are held by the whole JVM, so the threads of this process are coordinated separately.
+	private static final Map<Path, LockState> STATES = new ConcurrentHashMap<>();
+
+	private final List<Held> held;
+	private final boolean interrupted;
+	private boolean completed;
+
+	private ArtifactLock(List<Held> held, boolean interrupted) {
+		this.held = held;
+		this.interrupted = interrupted;
+	}
+
+	/**
+	 * Lock artifacts for producing them.
+	 */
+	public static ArtifactLock exclusive(Path locksDir, Path... artifacts) throws IOException {
+		return acquire(locksDir, List.of(), List.of(artifacts));
+	}
+
+	/**
+	 * Lock artifacts for reading them.
+	 */
+	public static ArtifactLock shared(Path locksDir, Path... artifacts) throws IOException {
+		return acquire(locksDir, List.of(artifacts), List.of());
+	}
+
+	/**
+	 * Lock the artifacts read and produced by a step. The locks are always acquired in the same order,
+	 * so that processes locking the same artifacts cannot deadlock.
+	 *
+	 * @param locksDir The directory containing the lock files
+	 * @param shared The artifacts that are read
+	 * @param exclusive The artifacts that are produced, these are locked exclusively even when they are also read
+	 * @return The held lock, it must be closed by the thread that acquired it
+	 *
+	 * @throws IOException If the lock could not be acquired
+	 */
+	public static ArtifactLock acquire(Path locksDir, Collection<Path> shared, Collection<Path> exclusive) throws IOException {
+		// Lock file -> whether it is locked exclusively
+		final Map<Path, Boolean> lockFiles = new TreeMap<>();
+		final Map<Path, Path> artifacts = new TreeMap<>();
+
+		for (Path artifact : shared) {
+			final Path lockFile = getLockFile(locksDir, artifact);
+			lockFiles.putIfAbsent(lockFile, false);
+			artifacts.putIfAbsent(lockFile, artifact);
+		}
+
+		for (Path artifact : exclusive) {
+			final Path lockFile = getLockFile(locksDir, artifact);
+			lockFiles.put(lockFile, true);
+			artifacts.putIfAbsent(lockFile, artifact);
+		}
+
+		final List<Held> held = new ArrayList<>(lockFiles.size());
+		boolean interrupted = false;
+
+		try {
+			for (Map.Entry<Path, Boolean> entry : lockFiles.entrySet()) {
+				final LockState state = STATES.computeIfAbsent(entry.getKey(), LockState::new);
+				final Held lock = state.lock(artifacts.get(entry.getKey()), entry.getValue());
+				held.add(lock);
+				interrupted |= lock.interrupted();
+			}
+		} catch (IOException | RuntimeException e) {
+			try {
+				release(held, false);
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+
+			throw e;
+		}
+
+		return new ArtifactLock(held, interrupted);
+	}
+
+	private static Path getLockFile(Path locksDir, Path artifact) throws IOException {
+		final String path = artifact.toAbsolutePath().normalize().toString();
+		return locksDir.resolve(Checksum.sha256Hex(path.getBytes(StandardCharsets.UTF_8)).substring(0, 32) + ".lock");
+	}
+
+	/**
+	 * @return Whether a previous producer of an exclusively locked artifact did not complete, the artifact should be produced again
+	 */
+	public boolean isInterrupted() {
+		return interrupted;
+	}
+
+	/**
+	 * Mark the exclusively locked artifacts as successfully produced, this must be called before the lock is closed.
+	 */
+	public void complete() {
+		completed = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		release(held, completed);
+	}
+
+	private static void release(List<Held> held, boolean completed) throws IOException {
+		IOException exception = null;
+
+		for (int i = held.size() - 1; i >= 0; i--) {
+			try {
+				held.get(i).state().unlock(held.get(i), completed);
+			} catch (IOException e) {
+				if (exception == null) {
+					exception = e;
+				} else {
+					exception.addSuppressed(e);
+				}
+			}
+		}
+
+		held.clear();
+
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	private static Duration getTimeout() {
+		if (System.getenv("CI") != null) {
+			// Set a small timeout on CI, as it's unlikely going to unlock.
+			return Duration.ofMinutes(1);
+		}
+
+		return Duration.ofHours(1);
+	}
+
+	private record Held(LockState state, Lock lock, boolean exclusive, boolean interrupted) {
+	}
+
+	private static final class LockState {
+		private final Path lockFile;
+		private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		// Guarded by this, the file lock is held while any thread of this process holds the lock.
+		private FileChannel channel;
+		private FileLock fileLock;
+		private int holders;
+
+		private LockState(Path lockFile) {
+			this.lockFile = lockFile;
+		}
+
+		private Held lock(Path artifact, boolean exclusive) throws IOException {
+			final Lock lock = exclusive ? this.lock.writeLock() : this.lock.readLock();
+			lock.lock();
+
+			try {
+				synchronized (this) {
+					if (holders == 0) {
+						lockFile(artifact, exclusive);
+					}
+
+					holders++;
+
+					try {
+						boolean interrupted = false;
+
+						if (exclusive) {
+							// Other threads cannot hold the lock, so the marker was left by another producer
+							interrupted = channel.size() > 0;
+
+							if (interrupted) {
+								LOGGER.lifecycle("{} was not completed by a previous build, rebuilding it. This may have been caused by a failed or canceled build.", artifact);
+							}
+
+							channel.write(ByteBuffer.wrap(new byte[]{1}), 0);
+							channel.force(false);
+						}
+
+						return new Held(this, lock, exclusive, interrupted);
+					} catch (IOException | RuntimeException e) {
+						releaseFile(false);
+						throw e;
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				lock.unlock();
+				throw e;
+			}
+		}
+
+		private void lockFile(Path artifact, boolean exclusive) throws IOException {
+			Files.createDirectories(lockFile.getParent());
+			channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			try {
+				fileLock = channel.tryLock(0, Long.MAX_VALUE, !exclusive);
+
+				if (fileLock == null) {
+					fileLock = waitForLock(artifact, exclusive);
+				}
+			} catch (IOException | RuntimeException e) {
+				channel.close();
+				channel = null;
+				throw e;
+			}
+		}
+
+		private FileLock waitForLock(Path artifact, boolean exclusive) throws IOException {
+			final Duration timeout = getTimeout();
+			final AtomicBoolean done = new AtomicBoolean();
+			final FileChannel channel = this.channel;
+
+			LOGGER.lifecycle("Waiting for another process to release the lock on {}", artifact);
+
+			// Closing the channel wakes up the waiting thread once the timeout has passed.
+			CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+				if (done.compareAndSet(false, true)) {
+					try {
+						channel.close();
+					} catch (IOException e) {
+						LOGGER.warn("Failed to close lock file {}", lockFile, e);
+					}
+				}
+			});
+
+			try {
+				final FileLock fileLock = channel.lock(0, Long.MAX_VALUE, !exclusive);
+
+				if (done.compareAndSet(false, true)) {
+					return fileLock;
+				}
+			} catch (ClosedChannelException e) {
+				if (done.compareAndSet(false, true)) {
+					throw e;
+				}
+			}
+
+			throw new IOException("Have been waiting on the lock on '%s' for %s, giving up. If this persists, kill the process holding the lock, run './gradlew --stop' and then try again."
+					.formatted(artifact, timeout));
+		}
+
+		private void unlock(Held held, boolean completed) throws IOException {
+			try {
+				synchronized (this) {
+					releaseFile(completed && held.exclusive());
+				}
+			} finally {
+				held.lock().unlock();
+			}
+		}
+
+		// Must be called while synchronized
+		private void releaseFile(boolean clearMarker) throws IOException {
+			if (--holders > 0) {
+				return;
+			}
+
+			try (FileChannel channel = this.channel) {
+				if (clearMarker) {
+					channel.truncate(0);
+				}
+
+				fileLock.release();
+			} finally {
+				this.channel = null;
+				this.fileLock = null;
+			}
+		}
+	}
+}
@@ -152,6 +152,12 @@ public class Constants {
 		public static final String DISABLE_PROJECT_DEPENDENT_MODS = "fabric.loom.disableProjectDependentMods";
 		public static final String LIBRARY_PROCESSORS = "fabric.loom.libraryProcessors";
 		public static final String ALLOW_MISMATCHED_PLATFORM_VERSION = "loom.allowMismatchedPlatformVersion";
+		public static final String MCP_MAX_PARALLEL_TOOLS = "loom.mcpMaxParallelTools";
+		public static final String DISABLE_MCP_STEP_CACHE = "loom.disableMcpStepCache";
+		public static final String DISABLE_REMAPPED_MOD_STORE = "loom.disableRemappedModStore";
+		public static final String SOURCE_REMAP_MAX_THREADS = "loom.sourceRemapMaxThreads";
+		public static final String FORK_ACCESS_TRANSFORMERS = "loom.forkAccessTransformers";
+		public static final String CONFIGURATION_TRACE = "loom.configurationTrace";
 	}
 
 	public static final class Manifest {
@@ -24,17 +24,21 @@
 
 package net.fabricmc.loom.util;
 
+import java.io.File;
+
 import javax.inject.Inject;
 
 import org.apache.commons.io.output.NullOutputStream;
 import org.gradle.api.Action;
 import org.gradle.api.Project;
 import org.gradle.api.logging.LogLevel;
+import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.configuration.ShowStacktrace;
 import org.gradle.api.plugins.JavaPluginExtension;
 import org.gradle.jvm.toolchain.JavaLauncher;
 import org.gradle.jvm.toolchain.JavaToolchainService;
 import org.gradle.jvm.toolchain.JavaToolchainSpec;
+import org.gradle.process.ExecOperations;
 import org.gradle.process.ExecResult;
 import org.gradle.process.JavaExecSpec;
 import org.jetbrains.annotations.Nullable;
@@ -44,11 +48,17 @@ import org.jetbrains.annotations.Nullable;
  * with suppressed output streams to prevent annoying log spam.
  */
 public abstract class ForgeToolExecutor {
+	private @Nullable String javaExecutable;
+	private File workingDirectory;
+	private Logger logger;
+	private boolean showStdout;
+	private boolean showStderr;
+
 	@Inject
 	protected abstract JavaToolchainService getToolchainService();
 
 	@Inject
-	protected abstract Project getProject();
+	protected abstract ExecOperations getExecOperations();
 
 	public static boolean shouldShowVerboseStdout(Project project) {
 		// if running with INFO or DEBUG logging
@@ -61,43 +71,54 @@ public abstract class ForgeToolExecutor {
 	}
 
 	/**
-	 * Executes a {@link Project#javaexec(Action) javaexec} action with suppressed output.
+	 * Executes a {@link ExecOperations#javaexec(Action) javaexec} action with suppressed output.
 	 *
 	 * @param project      the project
 	 * @param configurator the {@code javaexec} configuration action
 	 * @return the execution result
 	 */
 	public static ExecResult exec(Project project, Action<? super JavaExecSpec> configurator) {
-		return project.getObjects().newInstance(ForgeToolExecutor.class)
-				.exec(configurator);
+		return create(project).exec(configurator);
 	}
 
-	private ExecResult exec(Action<? super JavaExecSpec> configurator) {
-		final Project project = getProject();
-		return project.javaexec(spec -> {
-			configurator.execute(spec);
-
-			if (shouldShowVerboseStdout(project)) {
-				spec.setStandardOutput(System.out);
-			} else {
-				spec.setStandardOutput(NullOutputStream.NULL_OUTPUT_STREAM);
-			}
-
-			if (shouldShowVerboseStderr(project)) {
-				spec.setErrorOutput(System.err);
-			} else {
-				spec.setErrorOutput(NullOutputStream.NULL_OUTPUT_STREAM);
-			}
+	/**
+	 * Creates an executor for the project. The toolchain and the output settings are resolved with the project's
+	 * services, so this must be called on a thread managed by Gradle. The executor itself can be used from any thread.
+	 *
+	 * @param project the project
+	 * @return the executor
+	 */
+	public static ForgeToolExecutor create(Project project) {
+		final ForgeToolExecutor executor = project.getObjects().newInstance(ForgeToolExecutor.class);
+		// Use project toolchain for executing if possible.
+		// Note: This feature cannot be tested using the test kit since
+		//  - Gradle disables native services in test kit environments.
+		//  - The only resolver plugin I could find, foojay-resolver,
+		//    requires the services for finding the OS architecture.
+		executor.javaExecutable = executor.findJavaToolchainExecutable(project);
+		executor.workingDirectory = project.getProjectDir();
+		executor.logger = project.getLogger();
+		executor.showStdout = shouldShowVerboseStdout(project);
+		executor.showStderr = shouldShowVerboseStderr(project);
+		return executor;
+	}
 
-			// Use project toolchain for executing if possible.
-			// Note: This feature cannot be tested using the test kit since
-			//  - Gradle disables native services in test kit environments.
-			//  - The only resolver plugin I could find, foojay-resolver,
-			//    requires the services for finding the OS architecture.
-			final @Nullable String executable = findJavaToolchainExecutable(project);
+	/**
+	 * Executes a {@link ExecOperations#javaexec(Action) javaexec} action with suppressed output.
+	 * The output is logged through the project's logger when it is shown.
+	 *
+	 * @param configurator the {@code javaexec} configuration action
+	 * @return the execution result
+	 */
+	public ExecResult exec(Action<? super JavaExecSpec> configurator) {
+		return getExecOperations().javaexec(spec -> {
+			spec.setWorkingDir(workingDirectory);
+			configurator.execute(spec);
+			spec.setStandardOutput(showStdout ? new ConsumingOutputStream(logger::lifecycle) : NullOutputStream.NULL_OUTPUT_STREAM);
+			spec.setErrorOutput(showStderr ? new ConsumingOutputStream(logger::error) : NullOutputStream.NULL_OUTPUT_STREAM);
 
-			if (executable != null) {
-				spec.setExecutable(executable);
+			if (javaExecutable != null) {
+				spec.setExecutable(javaExecutable);
 			}
 		});
 	}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.configuration.mods.RemappedModStore;
+
+/**
+ * Runs remap jobs in parallel, each job borrows one of the workers while it runs, so the number of workers is the
+ * number of threads. Outputs of jobs that were fully remapped are added to the {@link RemappedModStore}, the
+ * completion callbacks are then run on the calling thread in the order of the jobs.
+ */
+public final class ParallelRemapper {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ParallelRemapper.class);
+
+	private ParallelRemapper() {
+	}
+
+	public static <W> void run(List<? extends Job<W>> jobs, List<W> workers, @Nullable RemappedModStore store) {
+		final BlockingQueue<W> availableWorkers = new ArrayBlockingQueue<>(workers.size(), false, workers);
+		final ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+		final List<Future<?>> futures = new ArrayList<>(jobs.size());
+
+		try {
+			for (Job<W> job : jobs) {
+				futures.add(executor.submit(() -> {
+					final W worker = availableWorkers.take();
+					final boolean fullyRemapped;
+
+					try {
+						fullyRemapped = job.remap(worker);
+					} finally {
+						availableWorkers.add(worker);
+					}
+
+					final String key = job.storeKey();
+
+					if (store == null || key == null) {
+						return null;
+					}
+
+					if (fullyRemapped) {
+						store.put(key, job.output());
+					} else {
+						// Other projects would reuse the broken output rather than trying again
+						LOGGER.info("Not adding {} to the mod store as it was not fully remapped", job.name());
+					}
+
+					return null;
+				}));
+			}
+
+			for (int i = 0; i < jobs.size(); i++) {
+				final Job<W> job = jobs.get(i);
+
+				try {
+					futures.get(i).get();
+				} catch (ExecutionException e) {
+					throw new RuntimeException("Failed to remap " + job.name(), e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while remapping " + job.name(), e);
+				}
+
+				job.complete();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public interface Job<W> {
+		/**
+		 * @return true when fully remapped, false when the output was written but could not be remapped fully
+		 */
+		boolean remap(W worker) throws Exception;
+
+		Path output();
+
+		/**
+		 * @return the key to store the output with, or null when it is not stored
+		 */
+		@Nullable
+		String storeKey();
+
+		/**
+		 * Run on the calling thread once the job and every job before it has completed.
+		 */
+		void complete();
+
+		String name();
+	}
+}
@@ -30,16 +30,16 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.RecordComponentVisitor;
 
-import net.fabricmc.mappingio.tree.MemoryMappingTree;
+import net.fabricmc.loom.configuration.providers.mappings.BinaryMappings;
 
 public class RecordComponentFixVisitor extends ClassVisitor {
-	private final MemoryMappingTree mappings;
+	private final BinaryMappings mappings;
 	private final int intermediaryNsId;
 
 	private String owner;
 	private boolean hasExistingComponents = false;
 
-	public RecordComponentFixVisitor(ClassVisitor classVisitor, MemoryMappingTree mappings, int intermediaryNsId) {
+	public RecordComponentFixVisitor(ClassVisitor classVisitor, BinaryMappings mappings, int intermediaryNsId) {
 		super(Constants.ASM_VERSION, classVisitor);
 		this.mappings = mappings;
 		this.intermediaryNsId = intermediaryNsId;
@@ -62,7 +62,9 @@ public class RecordComponentFixVisitor extends ClassVisitor {
 
 	@Override
 	public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
-		String intermediaryName = Objects.requireNonNull(mappings.getField(owner, name, descriptor), "Could not get field for %s:%s%s".formatted(owner, name, descriptor)).getName(intermediaryNsId);
+		final BinaryMappings.ClassView classView = mappings.getClass(owner);
+		final BinaryMappings.MemberView field = classView != null ? classView.getField(name, descriptor) : null;
+		String intermediaryName = Objects.requireNonNull(field, "Could not get field for %s:%s%s".formatted(owner, name, descriptor)).getName(intermediaryNsId);
 
 		if (!hasExistingComponents && intermediaryName != null && intermediaryName.startsWith("comp_")) {
 			super.visitRecordComponent(name, descriptor, signature);
@@ -26,15 +26,21 @@ package net.fabricmc.loom.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
+import dev.architectury.loom.util.TempFiles;
 import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.mercury.Mercury;
 import org.cadixdev.mercury.remapper.MercuryRemapper;
@@ -42,27 +48,35 @@ import org.gradle.api.JavaVersion;
 import org.gradle.api.Project;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.bundling.ZipEntryCompression;
 import org.gradle.api.tasks.compile.JavaCompile;
 import org.gradle.internal.logging.progress.ProgressLogger;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.api.RemapConfigurationSettings;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.build.IntermediaryNamespaces;
+import net.fabricmc.loom.configuration.mods.RemappedModStore;
 import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
 import net.fabricmc.loom.task.service.LorenzMappingService;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.service.SharedServiceManager;
+import net.fabricmc.loom.util.zip.RawZipFile;
+import net.fabricmc.loom.util.zip.StagedJar;
 
 public class SourceRemapper {
+	// JDT keeps the parsed sources and bindings of a whole jar in memory while remapping it.
+	private static final long MEMORY_PER_THREAD = 512L * 1024 * 1024;
+
 	private final Project project;
 	private final SharedServiceManager serviceManager;
 	private String from;
 	private String to;
-	private final List<Consumer<ProgressLogger>> remapTasks = new ArrayList<>();
-
-	private Mercury mercury;
+	private final List<RemapTask> remapTasks = new ArrayList<>();
 
 	public SourceRemapper(Project project, SharedServiceManager serviceManager, boolean toNamed) {
 		this(project, serviceManager, toNamed ? IntermediaryNamespaces.runtimeIntermediary(project) : "named", !toNamed ? IntermediaryNamespaces.runtimeIntermediary(project) : "named");
@@ -76,21 +90,7 @@ public class SourceRemapper {
 	}
 
 	public void scheduleRemapSources(File source, File destination, boolean reproducibleFileOrder, boolean preserveFileTimestamps, Runnable completionCallback) {
-		remapTasks.add((logger) -> {
-			try {
-				logger.progress("remapping sources - " + source.getName());
-				remapSourcesInner(source, destination);
-				ZipReprocessorUtil.reprocessZip(destination.toPath(), reproducibleFileOrder, preserveFileTimestamps);
-
-				// Set the remapped sources creation date to match the sources if we're likely succeeded in making it
-				destination.setLastModified(source.lastModified());
-				completionCallback.run();
-			} catch (Exception e) {
-				// Failed to remap, lets clean up to ensure we try again next time
-				destination.delete();
-				throw new RuntimeException("Failed to remap sources for " + source, e);
-			}
-		});
+		remapTasks.add(new RemapTask(source, destination, reproducibleFileOrder, preserveFileTimestamps, completionCallback));
 	}
 
 	public void remapAll() {
@@ -104,7 +104,40 @@ public class SourceRemapper {
 		ProgressLogger progressLogger = progressLoggerFactory.newOperation(SourceRemapper.class.getName());
 		progressLogger.start("Remapping dependency sources", "sources");
 
-		remapTasks.forEach(consumer -> consumer.accept(progressLogger));
+		final SourceStore store = createSourceStore();
+		final Map<RemapTask, String> storeKeys = new HashMap<>();
+		final List<RemapTask> toRemap = new ArrayList<>();
+
+		try {
+			for (RemapTask task : remapTasks) {
+				// The source is moved when it is also the destination, so it is always remapped.
+				if (store == null || task.source().equals(task.destination()) || !task.source().isFile()) {
+					toRemap.add(task);
+					continue;
+				}
+
+				final String key = store.getKey(task);
+				final Path stored = store.store().get(key);
+
+				if (stored == null) {
+					storeKeys.put(task, key);
+					toRemap.add(task);
+					continue;
+				}
+
+				project.getLogger().info("Using remapped sources of {} from the mod store", task.source().getName());
+				Files.createDirectories(task.destination().toPath().getParent());
+				Files.copy(stored, task.destination().toPath(), StandardCopyOption.REPLACE_EXISTING);
+				task.destination().setLastModified(task.source().lastModified());
+				task.completionCallback().run();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read remapped sources from the mod store", e);
+		}
+
+		if (!toRemap.isEmpty()) {
+			remapInParallel(toRemap, progressLogger, store, storeKeys);
+		}
 
 		progressLogger.completed();
 
@@ -112,9 +145,37 @@ public class SourceRemapper {
 		System.gc();
 	}
 
-	private void remapSourcesInner(File source, File destination) throws Exception {
+	private void remapInParallel(List<RemapTask> tasks, ProgressLogger progressLogger, @Nullable SourceStore store, Map<RemapTask, String> storeKeys) {
+		final int threads = Math.min(tasks.size(), getMaxThreads());
+		// Each job takes a Mercury instance while remapping a jar, and returns it afterwards.
+		final List<RemapJob> jobs = new ArrayList<>(tasks.size());
+
+		for (RemapTask task : tasks) {
+			jobs.add(new RemapJob(task, storeKeys.get(task), progressLogger));
+		}
+
+		ParallelRemapper.run(jobs, createMercuryInstances(threads), store != null ? store.store() : null);
+	}
+
+	/**
+	 * @return false when Mercury failed to rewrite the sources, the output then contains the partially remapped sources
+	 */
+	private boolean remap(RemapTask task, Mercury mercury) {
+		try {
+			final boolean fullyRemapped = remapSourcesInner(task.source(), task.destination(), mercury, task.reproducibleFileOrder(), task.preserveFileTimestamps());
+
+			// Set the remapped sources creation date to match the sources if we're likely succeeded in making it
+			task.destination().setLastModified(task.source().lastModified());
+			return fullyRemapped;
+		} catch (Exception e) {
+			// Failed to remap, lets clean up to ensure we try again next time
+			task.destination().delete();
+			throw new RuntimeException("Failed to remap sources for " + task.source(), e);
+		}
+	}
+
+	private boolean remapSourcesInner(File source, File destination, Mercury mercury, boolean reproducibleFileOrder, boolean preserveFileTimestamps) throws Exception {
 		project.getLogger().info(":remapping source jar");
-		Mercury mercury = getMercuryInstance();
 
 		if (source.equals(destination)) {
 			if (source.isDirectory()) {
@@ -130,47 +191,74 @@ public class SourceRemapper {
 			}
 		}
 
-		Path srcPath = source.toPath();
-		boolean isSrcTmp = false;
+		try (TempFiles tempFiles = new TempFiles(); StagedJar outputJar = new StagedJar()) {
+			Path srcPath = source.toPath();
 
-		if (!source.isDirectory()) {
-			// create tmp directory
-			isSrcTmp = true;
-			srcPath = Files.createTempDirectory("fabric-loom-src");
-			ZipUtils.unpackAll(source.toPath(), srcPath);
-		}
+			if (source.isDirectory()) {
+				addFiles(outputJar, srcPath, path -> !isJavaFile(path));
+			} else {
+				// Only the java files are extracted for the parser, the other files are copied from the jar as is.
+				srcPath = tempFiles.directory("fabric-loom-src");
+				extractJavaFiles(source.toPath(), srcPath);
+				outputJar.addAll(source.toPath(), name -> !name.endsWith("/") && !isJavaFile(name));
+			}
 
-		if (!destination.isDirectory() && destination.exists()) {
-			if (!destination.delete()) {
-				throw new RuntimeException("Could not delete " + destination.getName() + "!");
+			final Path dstPath = tempFiles.directory("fabric-loom-src-remapped");
+			boolean fullyRemapped = true;
+
+			try {
+				mercury.rewrite(srcPath, dstPath);
+			} catch (Exception e) {
+				project.getLogger().warn("Could not remap " + source.getName() + " fully!", e);
+				fullyRemapped = false;
 			}
+
+			addFiles(outputJar, dstPath, path -> true);
+			Files.createDirectories(destination.toPath().getParent());
+			outputJar.write(destination.toPath(), reproducibleFileOrder, preserveFileTimestamps, ZipEntryCompression.DEFLATED);
+			return fullyRemapped;
 		}
+	}
 
-		FileSystemUtil.Delegate dstFs = destination.isDirectory() ? null : FileSystemUtil.getJarFileSystem(destination, true);
-		Path dstPath = dstFs != null ? dstFs.get().getPath("/") : destination.toPath();
+	private static void extractJavaFiles(Path jar, Path directory) throws IOException {
+		try (RawZipFile zip = RawZipFile.open(jar)) {
+			for (RawZipFile.Entry entry : zip.entries()) {
+				if (entry.isDirectory() || !isJavaFile(entry.name())) {
+					continue;
+				}
 
-		try {
-			mercury.rewrite(srcPath, dstPath);
-		} catch (Exception e) {
-			project.getLogger().warn("Could not remap " + source.getName() + " fully!", e);
-		}
+				final Path path = directory.resolve(entry.name()).normalize();
 
-		copyNonJavaFiles(srcPath, dstPath, project.getLogger(), source.toPath());
+				if (!path.startsWith(directory)) {
+					throw new IOException("Entry " + entry.name() + " is outside of the jar");
+				}
 
-		if (dstFs != null) {
-			dstFs.close();
+				Files.createDirectories(path.getParent());
+				Files.write(path, zip.readAllBytes(entry));
+			}
 		}
+	}
 
-		if (isSrcTmp) {
-			Files.walkFileTree(srcPath, new DeletingFileVisitor());
+	private static void addFiles(StagedJar jar, Path directory, Predicate<Path> filter) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile).filter(filter)::iterator) {
+				jar.put(directory.relativize(file).toString().replace(File.separatorChar, '/'), file);
+			}
 		}
 	}
 
-	private Mercury getMercuryInstance() {
-		if (this.mercury != null) {
-			return this.mercury;
+	private int getMaxThreads() {
+		final int maxThreads = GradleUtils.getIntegerProperty(project, Constants.Properties.SOURCE_REMAP_MAX_THREADS, -1);
+
+		if (maxThreads > 0) {
+			return maxThreads;
 		}
 
+		final long memoryLimit = Runtime.getRuntime().maxMemory() / MEMORY_PER_THREAD;
+		return (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), memoryLimit));
+	}
+
+	private List<Mercury> createMercuryInstances(int count) {
 		LoomGradleExtension extension = LoomGradleExtension.get(project);
 		MappingConfiguration mappingConfiguration = extension.getMappingConfiguration();
 
@@ -180,33 +268,23 @@ public class SourceRemapper {
 															Objects.requireNonNull(MappingsNamespace.of(to))
 		).mappings();
 
-		Mercury mercury = createMercuryWithClassPath(project, MappingsNamespace.of(to) == MappingsNamespace.NAMED);
-		mercury.setSourceCompatibilityFromRelease(getJavaCompileRelease(project));
+		final List<Path> classPath = getClassPath(project, MappingsNamespace.of(to) == MappingsNamespace.NAMED);
 
 		for (File file : extension.getUnmappedModCollection()) {
 			Path path = file.toPath();
 
 			if (Files.isRegularFile(path)) {
-				mercury.getClassPath().add(path);
+				classPath.add(path);
 			}
 		}
 
-		for (Path intermediaryJar : extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
-			mercury.getClassPath().add(intermediaryJar);
-		}
-
-		for (Path intermediaryJar : extension.getMinecraftJars(MappingsNamespace.NAMED)) {
-			mercury.getClassPath().add(intermediaryJar);
-		}
+		classPath.addAll(extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY));
+		classPath.addAll(extension.getMinecraftJars(MappingsNamespace.NAMED));
 
 		if (extension.isForge()) {
-			for (Path srgJar : extension.getMinecraftJars(MappingsNamespace.SRG)) {
-				mercury.getClassPath().add(srgJar);
-			}
+			classPath.addAll(extension.getMinecraftJars(MappingsNamespace.SRG));
 		} else if (extension.isNeoForge()) {
-			for (Path mojangJar : extension.getMinecraftJars(MappingsNamespace.MOJANG)) {
-				mercury.getClassPath().add(mojangJar);
-			}
+			classPath.addAll(extension.getMinecraftJars(MappingsNamespace.MOJANG));
 		}
 
 		Set<File> files = project.getConfigurations()
@@ -214,13 +292,50 @@ public class SourceRemapper {
 				.resolve();
 
 		for (File file : files) {
-			mercury.getClassPath().add(file.toPath());
+			classPath.add(file.toPath());
 		}
 
-		mercury.getProcessors().add(MercuryRemapper.create(mappings));
+		final int release = getJavaCompileRelease(project);
+		final List<Mercury> instances = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			Mercury mercury = new Mercury();
+			mercury.setGracefulClasspathChecks(true);
+			mercury.setSourceCompatibilityFromRelease(release);
+			mercury.getClassPath().addAll(classPath);
+			// Mercury completes the mappings while remapping, so each instance needs its own copy.
+			mercury.getProcessors().add(MercuryRemapper.create(i == 0 ? mappings : mappings.copy()));
+			instances.add(mercury);
+		}
 
-		this.mercury = mercury;
-		return this.mercury;
+		return instances;
+	}
+
+	@Nullable
+	private SourceStore createSourceStore() {
+		if (GradleUtils.getBooleanProperty(project, Constants.Properties.DISABLE_REMAPPED_MOD_STORE)) {
+			return null;
+		}
+
+		final LoomGradleExtension extension = LoomGradleExtension.get(project);
+		final var store = new RemappedModStore(extension.getFiles().getRemappedModStore().toPath());
+		final MappingsNamespace fromNamespace = Objects.requireNonNull(MappingsNamespace.of(from));
+		final MappingsNamespace toNamespace = Objects.requireNonNull(MappingsNamespace.of(to));
+		final Path mappings = extension.getMappingConfiguration().getMappingsPath(LorenzMappingService.getMappingOption(fromNamespace, toNamespace));
+
+		try {
+			final String settingsKey = store.newKey()
+					.add("type", "sources")
+					.add("loom", LoomGradlePlugin.LOOM_VERSION)
+					.add("from", from)
+					.add("to", to)
+					.addFile("mappings", mappings)
+					.add("release", Integer.toString(getJavaCompileRelease(project)))
+					.build();
+			return new SourceStore(store, settingsKey);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to create the remapped sources store key", e);
+		}
 	}
 
 	public static int getJavaCompileRelease(Project project) {
@@ -264,7 +379,11 @@ public class SourceRemapper {
 	public static Mercury createMercuryWithClassPath(Project project, boolean toNamed) {
 		Mercury m = new Mercury();
 		m.setGracefulClasspathChecks(true);
+		m.getClassPath().addAll(getClassPath(project, toNamed));
+		return m;
+	}
 
+	private static List<Path> getClassPath(Project project, boolean toNamed) {
 		final List<Path> classPath = new ArrayList<>();
 
 		for (File file : project.getConfigurations().getByName(Constants.Configurations.MINECRAFT_COMPILE_LIBRARIES).getFiles()) {
@@ -285,18 +404,74 @@ public class SourceRemapper {
 			}
 		}
 
-		for (Path path : classPath) {
-			if (Files.exists(path)) {
-				m.getClassPath().add(path);
-			}
-		}
-
-		return m;
+		classPath.removeIf(Files::notExists);
+		return classPath;
 	}
 
 	private static boolean isJavaFile(Path path) {
-		String name = path.getFileName().toString();
+		return isJavaFile(path.getFileName().toString());
+	}
+
+	private static boolean isJavaFile(String path) {
+		String name = path.substring(path.lastIndexOf('/') + 1);
 		// ".java" is not a valid java file
 		return name.endsWith(".java") && name.length() != 5;
 	}
+
+	private record RemapTask(File source, File destination, boolean reproducibleFileOrder, boolean preserveFileTimestamps, Runnable completionCallback) {
+	}
+
+	private final class RemapJob implements ParallelRemapper.Job<Mercury> {
+		private final RemapTask task;
+		@Nullable
+		private final String storeKey;
+		private final ProgressLogger progressLogger;
+
+		private RemapJob(RemapTask task, @Nullable String storeKey, ProgressLogger progressLogger) {
+			this.task = task;
+			this.storeKey = storeKey;
+			this.progressLogger = progressLogger;
+		}
+
+		@Override
+		public boolean remap(Mercury mercury) {
+			synchronized (progressLogger) {
+				progressLogger.progress("remapping sources - " + task.source().getName());
+			}
+
+			return SourceRemapper.this.remap(task, mercury);
+		}
+
+		@Override
+		public Path output() {
+			return task.destination().toPath();
+		}
+
+		@Override
+		public @Nullable String storeKey() {
+			return storeKey;
+		}
+
+		@Override
+		public void complete() {
+			task.completionCallback().run();
+		}
+
+		@Override
+		public String name() {
+			return "sources for " + task.source();
+		}
+	}
+
+	private record SourceStore(RemappedModStore store, String settingsKey) {
+		// Like the remapped mods, the class path is not part of the key.
+		String getKey(RemapTask task) throws IOException {
+			return store.newKey()
+					.add("settings", settingsKey)
+					.addFile("input", task.source().toPath())
+					.add("reproducibleFileOrder", Boolean.toString(task.reproducibleFileOrder()))
+					.add("preserveFileTimestamps", Boolean.toString(task.preserveFileTimestamps()))
+					.build();
+		}
+	}
 }
@@ -37,12 +37,12 @@ import org.gradle.api.Project;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.providers.mappings.BinaryMappings;
+import net.fabricmc.loom.configuration.providers.mappings.TinyMappingsService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.loom.util.srg.InnerClassRemapper;
-import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.tree.MappingTree;
 import net.fabricmc.mappingio.tree.MappingTreeView;
-import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.tinyremapper.IMappingProvider;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
@@ -71,18 +71,19 @@ public final class TinyRemapperHelper {
 	public static TinyRemapper getTinyRemapper(Project project, SharedServiceManager serviceManager, String fromM, String toM, boolean fixRecords, Consumer<TinyRemapper.Builder> builderConsumer, Set<String> fromClassNames) throws IOException {
 		LoomGradleExtension extension = LoomGradleExtension.get(project);
 		final MappingOption mappingOption = MappingOption.forPlatform(extension);
-		MemoryMappingTree mappingTree = extension.getMappingConfiguration().getMappingsService(serviceManager, mappingOption).getMappingTree();
+		final TinyMappingsService mappingsService = extension.getMappingConfiguration().getMappingsService(serviceManager, mappingOption);
+		final BinaryMappings mappings = mappingsService.getBinaryMappings();
 
-		if (fixRecords && !mappingTree.getSrcNamespace().equals(fromM)) {
-			throw new IllegalStateException("Mappings src namespace must match remap src namespace, expected " + fromM + " but got " + mappingTree.getSrcNamespace());
+		if (fixRecords && !mappings.getSrcNamespace().equals(fromM)) {
+			throw new IllegalStateException("Mappings src namespace must match remap src namespace, expected " + fromM + " but got " + mappings.getSrcNamespace());
 		}
 
-		int intermediaryNsId = mappingTree.getNamespaceId(MappingsNamespace.INTERMEDIARY.toString());
+		int intermediaryNsId = mappings.getNamespaceId(MappingsNamespace.INTERMEDIARY.toString());
 
 		TinyRemapper.Builder builder = TinyRemapper.newRemapper()
 				.ignoreConflicts(extension.isForgeLike())
 				.threads(Runtime.getRuntime().availableProcessors())
-				.withMappings(create(mappingTree, fromM, toM, true))
+				.withMappings(create(mappings, fromM, toM, true))
 				.renameInvalidLocals(true)
 				.rebuildSourceFilenames(true)
 				.invalidLvNamePattern(MC_LV_PATTERN)
@@ -90,7 +91,7 @@ public final class TinyRemapperHelper {
 				.withKnownIndyBsm(extension.getKnownIndyBsms().get())
 				.extraPreApplyVisitor((cls, next) -> {
 					if (fixRecords && !cls.isRecord() && "java/lang/Record".equals(cls.getSuperName())) {
-						return new RecordComponentFixVisitor(next, mappingTree, intermediaryNsId);
+						return new RecordComponentFixVisitor(next, mappings, intermediaryNsId);
 					}
 
 					return next;
@@ -98,7 +99,7 @@ public final class TinyRemapperHelper {
 
 		if (extension.isForgeLike()) {
 			if (!fromClassNames.isEmpty()) {
-				builder.withMappings(InnerClassRemapper.of(fromClassNames, mappingTree, fromM, toM));
+				builder.withMappings(InnerClassRemapper.of(fromClassNames, mappingsService.getMappingTree(), fromM, toM));
 			}
 		} else {
 			builder.withMappings(out -> TinyRemapperHelper.JSR_TO_JETBRAINS.forEach(out::acceptClass));
@@ -113,9 +114,7 @@ public final class TinyRemapperHelper {
 	}
 
 	public static IMappingProvider create(Path mappings, String from, String to, boolean remapLocalVariables) throws IOException {
-		MemoryMappingTree mappingTree = new MemoryMappingTree();
-		MappingReader.read(mappings, mappingTree);
-		return create(mappingTree, from, to, remapLocalVariables);
+		return create(BinaryMappings.open(mappings), from, to, remapLocalVariables);
 	}
 
 	public static IMappingProvider create(MappingTree mappings, String from, String to, boolean remapLocalVariables) {
@@ -170,4 +169,64 @@ public final class TinyRemapperHelper {
 			}
 		};
 	}
+
+	/**
+	 * Create a mapping provider without reading all the mappings into memory.
+	 */
+	public static IMappingProvider create(BinaryMappings mappings, String from, String to, boolean remapLocalVariables) {
+		return (acceptor) -> {
+			final int fromId = mappings.getNamespaceId(from);
+			final int toId = mappings.getNamespaceId(to);
+
+			if (toId == MappingTreeView.NULL_NAMESPACE_ID) {
+				throw new MappingException(
+						"Trying to remap from '%s' (id: %d) to unknown namespace '%s'. Available namespaces: [%s -> %s]"
+								.formatted(from, fromId, to, mappings.getSrcNamespace(), String.join(", ", mappings.getDstNamespaces()))
+				);
+			}
+
+			for (int i = 0; i < mappings.getClassCount(); i++) {
+				final BinaryMappings.ClassView classDef = mappings.getClass(i);
+				String className = classDef.getName(fromId);
+				String dstName = classDef.getName(toId);
+
+				if (dstName == null) {
+					dstName = className;
+				}
+
+				acceptor.acceptClass(className, dstName);
+
+				for (int j = 0; j < classDef.getFieldCount(); j++) {
+					final BinaryMappings.MemberView field = classDef.getField(j);
+					acceptor.acceptField(memberOf(className, field.getName(fromId), field.getDesc(fromId)), field.getName(toId));
+				}
+
+				for (int j = 0; j < classDef.getMethodCount(); j++) {
+					final BinaryMappings.MethodView method = classDef.getMethod(j);
+					IMappingProvider.Member methodIdentifier = memberOf(className, method.getName(fromId), method.getDesc(fromId));
+					acceptor.acceptMethod(methodIdentifier, method.getName(toId));
+
+					if (remapLocalVariables) {
+						for (int k = 0; k < method.getArgCount(); k++) {
+							final BinaryMappings.ArgView parameter = method.getArg(k);
+							String name = parameter.getName(toId);
+
+							if (name == null) {
+								continue;
+							}
+
+							acceptor.acceptMethodArg(methodIdentifier, parameter.getLvIndex(), name);
+						}
+
+						for (int k = 0; k < method.getVarCount(); k++) {
+							final BinaryMappings.VarView localVariable = method.getVar(k);
+							acceptor.acceptMethodVar(methodIdentifier, localVariable.getLvIndex(),
+									localVariable.getStartOpIdx(), localVariable.getLvtRowIndex(),
+									localVariable.getName(toId));
+						}
+					}
+				}
+			}
+		};
+	}
 }
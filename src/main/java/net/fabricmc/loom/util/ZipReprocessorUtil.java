@@ -63,7 +63,10 @@ public class ZipReprocessorUtil {
 				|| parts[1].endsWith(".EC");
 	}
 
-	private static int specialOrdering(String name1, String name2) {
+	/**
+	 * Compares zip entry names in the reproducible order, the manifest first, followed by the signature files and then by name.
+	 */
+	public static int specialOrdering(String name1, String name2) {
 		if (name1.equals(name2)) {
 			return 0;
 		} else if (name1.equals(Constants.Manifest.PATH)) {
@@ -34,6 +34,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
@@ -50,6 +51,7 @@ import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.ModPlatform;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
+import net.fabricmc.loom.util.zip.StagedJar;
 
 public final class FabricModJsonFactory {
 	public static final String FABRIC_MOD_JSON = "fabric.mod.json";
@@ -176,15 +178,19 @@ public final class FabricModJsonFactory {
 	}
 
 	public static boolean isModJar(Path input, ModPlatform platform) {
+		return isModJar(path -> ZipUtils.contains(input, path), platform);
+	}
+
+	private static boolean isModJar(Predicate<String> contains, ModPlatform platform) {
 		if (platform.isForgeLike()) {
-			return ZipUtils.contains(input, "META-INF/mods.toml")
-					|| ZipUtils.contains(input, "mcmod.info")
-					|| (platform == ModPlatform.NEOFORGE && ZipUtils.contains(input, "META-INF/neoforge.mods.toml"));
+			return contains.test("META-INF/mods.toml")
+					|| contains.test("mcmod.info")
+					|| (platform == ModPlatform.NEOFORGE && contains.test("META-INF/neoforge.mods.toml"));
 		} else if (platform == ModPlatform.QUILT) {
-			return ZipUtils.contains(input, "quilt.mod.json") || isModJar(input, ModPlatform.FABRIC);
+			return contains.test("quilt.mod.json") || isModJar(contains, ModPlatform.FABRIC);
 		}
 
-		return ZipUtils.contains(input, FABRIC_MOD_JSON);
+		return contains.test(FABRIC_MOD_JSON);
 	}
 
 	public static boolean isNestableModJar(File file, ModPlatform platform) {
@@ -197,6 +203,11 @@ public final class FabricModJsonFactory {
 		return isModJar(input, platform);
 	}
 
+	public static boolean isNestableModJar(StagedJar jar, ModPlatform platform) {
+		if (platform.isForgeLike()) return true;
+		return isModJar(jar::contains, platform);
+	}
+
 	public static boolean containsMod(FileSystemUtil.Delegate fs, ModPlatform platform) {
 		if (Files.exists(fs.getPath("architectury.common.marker"))) {
 			return true;
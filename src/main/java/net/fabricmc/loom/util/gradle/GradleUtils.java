@@ -92,6 +92,22 @@ public final class GradleUtils {
 		return getBooleanPropertyProvider(project, key).getOrElse(false);
 	}
 
+	public static int getIntegerProperty(Project project, String key, int defaultValue) {
+		final Object value = project.findProperty(key);
+
+		if (value instanceof String str) {
+			try {
+				return Integer.parseInt(str.trim());
+			} catch (final NumberFormatException ex) {
+				throw new IllegalArgumentException("Property '%s' must be an integer, got '%s'".formatted(key, str), ex);
+			}
+		} else if (value instanceof Number number) {
+			return number.intValue();
+		}
+
+		return defaultValue;
+	}
+
 	// TODO remove when updating loom to Gradle 8.1
 	private static MethodHandle getJavaExecSpec_getJvmArguments() {
 		try {
@@ -26,9 +26,12 @@ package net.fabricmc.loom.util.gradle;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Collections;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.gradle.api.Transformer;
@@ -38,11 +41,46 @@ import org.gradle.workers.internal.WorkerDaemonClientsManager;
 public class WorkerDaemonClientsManagerHelper {
 	public static final String MARKER_PROP = "fabric.loom.decompile.worker";
 
+	// Marker -> when the kept alive JVMs with the marker may be stopped. Only the markers are kept between builds,
+	// the JVMs are stopped using the manager of a later build.
+	private static final Map<String, Instant> IDLE_DEADLINES = new ConcurrentHashMap<>();
+
+	/**
+	 * Mark the JVMs with the marker as idle, they are stopped by {@link #stopExpiredJVMs(WorkerDaemonClientsManager)}
+	 * once they have been idle for the given time, allowing them to be reused until then.
+	 */
+	public static void markIdle(String jvmMarkerValue, Duration idleTimeout) {
+		IDLE_DEADLINES.put(jvmMarkerValue, Instant.now().plus(idleTimeout));
+	}
+
+	/**
+	 * Mark the JVMs with the marker as in use, as they are about to be reused.
+	 */
+	public static void markInUse(String jvmMarkerValue) {
+		IDLE_DEADLINES.remove(jvmMarkerValue);
+	}
+
+	/**
+	 * Stop the kept alive JVMs that have been idle for longer than their timeout.
+	 */
+	public static void stopExpiredJVMs(WorkerDaemonClientsManager manager) {
+		final Instant now = Instant.now();
+
+		for (Map.Entry<String, Instant> entry : IDLE_DEADLINES.entrySet()) {
+			if (entry.getValue().isBefore(now) && IDLE_DEADLINES.remove(entry.getKey(), entry.getValue())) {
+				stopIdleJVM(manager, entry.getKey());
+			}
+		}
+	}
+
 	public static boolean stopIdleJVM(WorkerDaemonClientsManager manager, String jvmMarkerValue) {
 		AtomicBoolean stopped = new AtomicBoolean(false);
 
 		/* Transformer<List<WorkerDaemonClient>, List<WorkerDaemonClient>> */
 		Transformer<List<Object>, List<Object>> transformer = workerDaemonClients -> {
+			// More than one JVM may have been started with the same marker, such as when decompiling in shards
+			List<Object> toStop = new ArrayList<>();
+
 			for (Object /* WorkerDaemonClient */ client : workerDaemonClients) {
 				DaemonForkOptions forkOptions = getForkOptions(client);
 				Map<String, Object> systemProperties = forkOptions.getJavaForkOptions().getSystemProperties();
@@ -53,10 +91,10 @@ public class WorkerDaemonClientsManagerHelper {
 				}
 
 				stopped.set(true);
-				return Collections.singletonList(client);
+				toStop.add(client);
 			}
 
-			return Collections.emptyList();
+			return toStop;
 		};
 
 		//noinspection unchecked
@@ -0,0 +1,102 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.gradle;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Stops a kept alive worker JVM once it has been idle for its timeout. This runs inside the worker, so the JVM is stopped
+ * even when no later build starts to stop it with {@link WorkerDaemonClientsManagerHelper}.
+ */
+public final class WorkerIdleWatchdog {
+	private static final Object LOCK = new Object();
+
+	private static int running;
+	private static @Nullable Instant deadline;
+	private static @Nullable Thread thread;
+
+	private WorkerIdleWatchdog() {
+	}
+
+	/**
+	 * Mark the start of some work, the JVM is not stopped until all the started work is {@link #idle(Duration) done}.
+	 */
+	public static void busy() {
+		synchronized (LOCK) {
+			running++;
+			deadline = null;
+		}
+	}
+
+	/**
+	 * Mark the end of some work, when no other work is running the JVM exits once the timeout has passed.
+	 */
+	public static void idle(Duration timeout) {
+		synchronized (LOCK) {
+			if (--running > 0) {
+				return;
+			}
+
+			deadline = Instant.now().plus(timeout);
+
+			if (thread == null) {
+				thread = new Thread(WorkerIdleWatchdog::watch, "Loom worker idle watchdog");
+				thread.setDaemon(true);
+				thread.start();
+			}
+
+			LOCK.notifyAll();
+		}
+	}
+
+	private static void watch() {
+		synchronized (LOCK) {
+			try {
+				while (true) {
+					if (deadline == null) {
+						LOCK.wait();
+						continue;
+					}
+
+					final long remaining = Duration.between(Instant.now(), deadline).toMillis();
+
+					if (remaining <= 0) {
+						break;
+					}
+
+					LOCK.wait(remaining);
+				}
+			} catch (InterruptedException e) {
+				// The worker is shutting down
+				return;
+			}
+		}
+
+		System.exit(0);
+	}
+}
@@ -27,20 +27,15 @@ package net.fabricmc.loom.util.srg;
 import java.io.IOException;
 import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.UnaryOperator;
 
-import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
 
-import net.fabricmc.loom.build.IntermediaryNamespaces;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.function.CollectionUtil;
+import net.fabricmc.loom.util.zip.StagedJar;
 import net.fabricmc.mappingio.tree.MappingTree;
 
 /**
@@ -49,58 +44,51 @@ import net.fabricmc.mappingio.tree.MappingTree;
  * @author Juuz
  */
 public final class AtClassRemapper {
-	public static void remap(Project project, Path jar, MappingTree mappings) throws IOException {
-		final Logger logger = project.getLogger();
-		final String sourceNamespace = IntermediaryNamespaces.intermediary(project);
+	public static void remap(Logger logger, String sourceNamespace, StagedJar jar, MappingTree mappings) throws IOException {
+		jar.transform(Constants.Forge.ACCESS_TRANSFORMER_PATH, bytes -> {
+			String atContent = new String(bytes, StandardCharsets.UTF_8);
 
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jar, false)) {
-			Path atPath = fs.getPath(Constants.Forge.ACCESS_TRANSFORMER_PATH);
+			String[] lines = atContent.split("\n");
+			List<String> output = new ArrayList<>(lines.length);
 
-			if (Files.exists(atPath)) {
-				String atContent = Files.readString(atPath, StandardCharsets.UTF_8);
+			for (int i = 0; i < lines.length; i++) {
+				String line = lines[i].trim();
 
-				String[] lines = atContent.split("\n");
-				List<String> output = new ArrayList<>(lines.length);
-
-				for (int i = 0; i < lines.length; i++) {
-					String line = lines[i].trim();
-
-					if (line.startsWith("#") || line.isBlank()) {
-						output.add(i, line);
-						continue;
-					}
+				if (line.startsWith("#") || line.isBlank()) {
+					output.add(i, line);
+					continue;
+				}
 
-					String[] parts = line.split("\\s+");
+				String[] parts = line.split("\\s+");
 
-					if (parts.length < 2) {
-						logger.warn("Invalid AT Line: " + line);
-						output.add(i, line);
-						continue;
-					}
+				if (parts.length < 2) {
+					logger.warn("Invalid AT Line: " + line);
+					output.add(i, line);
+					continue;
+				}
 
-					String name = parts[1].replace('.', '/');
-					parts[1] = CollectionUtil.find(
-							mappings.getClasses(),
-							def -> def.getName(sourceNamespace).equals(name)
-					).map(def -> def.getName("named")).orElse(name).replace('/', '.');
-
-					if (parts.length >= 3) {
-						if (parts[2].contains("(")) {
-							parts[2] = parts[2].substring(0, parts[2].indexOf('(')) + remapDescriptor(parts[2].substring(parts[2].indexOf('(')), s -> {
-								return CollectionUtil.find(
-										mappings.getClasses(),
-										def -> def.getName(sourceNamespace).equals(s)
-								).map(def -> def.getName("named")).orElse(s);
-							});
-						}
+				String name = parts[1].replace('.', '/');
+				parts[1] = CollectionUtil.find(
+						mappings.getClasses(),
+						def -> def.getName(sourceNamespace).equals(name)
+				).map(def -> def.getName("named")).orElse(name).replace('/', '.');
+
+				if (parts.length >= 3) {
+					if (parts[2].contains("(")) {
+						parts[2] = parts[2].substring(0, parts[2].indexOf('(')) + remapDescriptor(parts[2].substring(parts[2].indexOf('(')), s -> {
+							return CollectionUtil.find(
+									mappings.getClasses(),
+									def -> def.getName(sourceNamespace).equals(s)
+							).map(def -> def.getName("named")).orElse(s);
+						});
 					}
-
-					output.add(i, String.join(" ", parts));
 				}
 
-				Files.write(atPath, String.join("\n", output).getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE);
+				output.add(i, String.join(" ", parts));
 			}
-		}
+
+			return String.join("\n", output).getBytes(StandardCharsets.UTF_8);
+		});
 	}
 
 	private static String remapDescriptor(String original, UnaryOperator<String> classMappings) {
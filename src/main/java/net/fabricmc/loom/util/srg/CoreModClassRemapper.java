@@ -48,6 +48,7 @@ import net.fabricmc.loom.build.IntermediaryNamespaces;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.ModPlatform;
 import net.fabricmc.loom.util.function.CollectionUtil;
+import net.fabricmc.loom.util.zip.StagedJar;
 import net.fabricmc.mappingio.tree.MappingTree;
 
 /**
@@ -91,8 +92,44 @@ public final class CoreModClassRemapper {
 		}
 	}
 
+	public static void remapJar(Logger logger, ModPlatform platform, String sourceNamespace, StagedJar jar, String jarName, MappingTree mappings) throws IOException {
+		final byte[] coremodsJsonBytes = jar.get("META-INF/coremods.json");
+
+		if (coremodsJsonBytes == null) {
+			logger.info(":no coremods in " + jarName);
+			return;
+		}
+
+		JsonObject coremodsJson = new Gson().fromJson(new String(coremodsJsonBytes, StandardCharsets.UTF_8), JsonObject.class);
+
+		for (Map.Entry<String, JsonElement> nameFileEntry : coremodsJson.entrySet()) {
+			String file = nameFileEntry.getValue().getAsString();
+
+			boolean exists = jar.transform(file, bytes -> {
+				logger.info(":remapping coremod '" + file + "'");
+				List<String> lines = new String(bytes, StandardCharsets.UTF_8).lines().toList();
+				List<String> output = remap(lines, platform, mappings, sourceNamespace);
+				return lines.equals(output) ? bytes : String.join("\n", output).getBytes(StandardCharsets.UTF_8);
+			});
+
+			if (!exists) {
+				logger.warn("Coremod '" + file + "' listed in coremods.json but not found");
+			}
+		}
+	}
+
 	public static void remap(Path js, ModPlatform platform, MappingTree mappings, String sourceNamespace) throws IOException {
 		List<String> lines = Files.readAllLines(js);
+		List<String> output = remap(lines, platform, mappings, sourceNamespace);
+
+		if (!lines.equals(output)) {
+			try (Writer writer = Files.newBufferedWriter(js, StandardCharsets.UTF_8, StandardOpenOption.WRITE)) {
+				writer.write(String.join("\n", output));
+			}
+		}
+	}
+
+	private static List<String> remap(List<String> lines, ModPlatform platform, MappingTree mappings, String sourceNamespace) {
 		List<String> output = new ArrayList<>(lines);
 		String lastClassName = null;
 
@@ -138,10 +175,6 @@ public final class CoreModClassRemapper {
 			}
 		}
 
-		if (!lines.equals(output)) {
-			try (Writer writer = Files.newBufferedWriter(js, StandardCharsets.UTF_8, StandardOpenOption.WRITE)) {
-				writer.write(String.join("\n", output));
-			}
-		}
+		return output;
 	}
 }
@@ -0,0 +1,276 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.zip;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.ExceptionUtil;
+
+/**
+ * Applies a chain of ASM class visitors to every class in a jar in a single pass.
+ *
+ * <p>Each class is read once, passed through all the transformers in the order they were added, and written once.
+ * The output is streamed to a new jar: classes the transformers did not change and all other entries are copied
+ * without being decompressed, see {@link RawZipWriter}.
+ */
+public final class ClassTransformerPipeline {
+	private final List<NamedTransformer> transformers = new ArrayList<>();
+	private Predicate<String> classFilter = name -> true;
+
+	/**
+	 * Add a transformer, it will see the output of all previously added transformers.
+	 */
+	public ClassTransformerPipeline add(Transformer transformer) {
+		transformers.add((className, next) -> transformer.wrap(next));
+		return this;
+	}
+
+	/**
+	 * Add a transformer that is given the internal name of the class, it can return {@code next} to leave a class untouched.
+	 */
+	public ClassTransformerPipeline addNamed(NamedTransformer transformer) {
+		transformers.add(transformer);
+		return this;
+	}
+
+	/**
+	 * Add a transformer that operates on a complete {@link ClassNode}, such as one that only applies its changes in
+	 * {@link ClassVisitor#visitEnd()}. The class node is visited into the rest of the chain once it is complete.
+	 *
+	 * @param factory Creates the visitor of the class node
+	 */
+	public ClassTransformerPipeline addTree(Function<ClassNode, ClassVisitor> factory) {
+		return add(next -> {
+			final var node = new ClassNode(Constants.ASM_VERSION);
+
+			return new ClassVisitor(Constants.ASM_VERSION, factory.apply(node)) {
+				@Override
+				public void visitEnd() {
+					super.visitEnd();
+					node.accept(next);
+				}
+			};
+		});
+	}
+
+	/**
+	 * Only transform the classes whose entry name matches the filter, the other classes are copied as is.
+	 */
+	public ClassTransformerPipeline filter(Predicate<String> classFilter) {
+		this.classFilter = classFilter;
+		return this;
+	}
+
+	public boolean isEmpty() {
+		return transformers.isEmpty();
+	}
+
+	/**
+	 * Transform a single class.
+	 *
+	 * @return The transformed class, or {@code null} when it did not change
+	 */
+	public byte @Nullable [] transform(byte[] bytes) {
+		final var reader = new ClassReader(bytes);
+		final var writer = new ClassWriter(reader, 0);
+		ClassVisitor visitor = writer;
+
+		for (int i = transformers.size() - 1; i >= 0; i--) {
+			visitor = transformers.get(i).wrap(reader.getClassName(), visitor);
+		}
+
+		reader.accept(visitor, 0);
+		final byte[] out = writer.toByteArray();
+		return Arrays.equals(bytes, out) ? null : out;
+	}
+
+	/**
+	 * Transform all classes from the inputs into a new output jar.
+	 *
+	 * @param inputs The input jars, all entries of the first jar are included. The following jars only add the classes
+	 *               that are missing from the jars before them.
+	 * @param output The jar to create, this must not be one of the inputs
+	 *
+	 * @throws IOException If an error occurs while reading, transforming or writing the jars
+	 */
+	public void transformJar(List<Path> inputs, Path output) throws IOException {
+		transformJar(inputs, null, name -> false, output);
+	}
+
+	/**
+	 * Transform all classes from the input into a new output jar, reusing the entries of a previous output.
+	 *
+	 * @param input The input jar
+	 * @param previousOutput A jar previously created from the same input, this must not be the output
+	 * @param reuse Selects the entries copied from the previous output instead of the input, these are not transformed
+	 * @param output The jar to create, this must not be the input
+	 *
+	 * @throws IOException If an error occurs while reading, transforming or writing the jars
+	 */
+	public void transformJar(Path input, Path previousOutput, Predicate<String> reuse, Path output) throws IOException {
+		transformJar(List.of(input), previousOutput, reuse, output);
+	}
+
+	private void transformJar(List<Path> inputs, @Nullable Path previousOutput, Predicate<String> reuse, Path output) throws IOException {
+		final List<RawZipFile> zips = new ArrayList<>(inputs.size() + 1);
+		final int threads = Runtime.getRuntime().availableProcessors();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try (RawZipWriter writer = RawZipWriter.create(output)) {
+			// Keep a bounded number of classes in flight, entries are written in order as they complete.
+			final Deque<PendingEntry> pending = new ArrayDeque<>();
+			final Set<String> seen = new HashSet<>();
+			final RawZipFile previousZip = previousOutput != null ? RawZipFile.open(previousOutput) : null;
+
+			boolean first = true;
+
+			if (previousZip != null) {
+				zips.add(previousZip);
+			}
+
+			for (Path input : inputs) {
+				final RawZipFile zip = RawZipFile.open(input);
+				zips.add(zip);
+
+				for (RawZipFile.Entry entry : zip.entries()) {
+					final boolean isClass = entry.name().endsWith(".class");
+
+					if ((!first && !isClass) || !seen.add(entry.name())) {
+						continue;
+					}
+
+					final RawZipFile.Entry previousEntry = previousZip != null && reuse.test(entry.name()) ? previousZip.getEntry(entry.name()) : null;
+
+					if (previousEntry != null) {
+						pending.add(new PendingEntry(previousZip, previousEntry, CompletableFuture.completedFuture(null)));
+					} else {
+						final CompletableFuture<RawZipWriter.Deflated> future = isClass && !isEmpty() && classFilter.test(entry.name())
+								? CompletableFuture.supplyAsync(() -> transformEntry(zip, entry), executor)
+								: CompletableFuture.completedFuture(null);
+						pending.add(new PendingEntry(zip, entry, future));
+					}
+
+					if (pending.size() >= threads * 4) {
+						write(writer, pending.remove());
+					}
+				}
+
+				first = false;
+			}
+
+			while (!pending.isEmpty()) {
+				write(writer, pending.remove());
+			}
+		} finally {
+			executor.shutdownNow();
+
+			for (RawZipFile zip : zips) {
+				zip.close();
+			}
+		}
+	}
+
+	private RawZipWriter.@Nullable Deflated transformEntry(RawZipFile zip, RawZipFile.Entry entry) {
+		try {
+			final byte[] out = transform(zip.readAllBytes(entry));
+			return out == null ? null : RawZipWriter.deflate(out, Deflater.DEFAULT_COMPRESSION);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (RuntimeException e) {
+			throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Failed to transform " + entry.name() + " in " + zip.getPath(), e);
+		}
+	}
+
+	private static void write(RawZipWriter writer, PendingEntry pending) throws IOException {
+		final RawZipWriter.Deflated deflated;
+
+		try {
+			deflated = pending.future().join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+				throw uncheckedIOException.getCause();
+			}
+
+			throw e;
+		}
+
+		if (deflated == null) {
+			writer.copy(pending.zip(), pending.entry());
+		} else {
+			writer.write(pending.entry().name(), deflated, pending.entry().dosTime());
+		}
+	}
+
+	/**
+	 * A step of the pipeline.
+	 */
+	@FunctionalInterface
+	public interface Transformer {
+		/**
+		 * @param next The visitor of the following steps
+		 * @return A visitor that passes the transformed class to {@code next}
+		 */
+		ClassVisitor wrap(ClassVisitor next);
+	}
+
+	/**
+	 * A step of the pipeline that depends on the class being transformed.
+	 */
+	@FunctionalInterface
+	public interface NamedTransformer {
+		/**
+		 * @param className The internal name of the class
+		 * @param next The visitor of the following steps
+		 * @return A visitor that passes the transformed class to {@code next}
+		 */
+		ClassVisitor wrap(String className, ClassVisitor next);
+	}
+
+	private record PendingEntry(RawZipFile zip, RawZipFile.Entry entry, CompletableFuture<RawZipWriter.Deflated> future) {
+	}
+}
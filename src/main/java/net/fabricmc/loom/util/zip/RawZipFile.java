@@ -0,0 +1,382 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.zip;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A minimal zip file reader that gives access to the raw, still compressed, entry data.
+ *
+ * <p>This allows entries to be copied between zip files without inflating and deflating them again, see {@link RawZipWriter}.
+ * All reads are positional, so a single instance can safely be shared between threads.
+ */
+public final class RawZipFile implements Closeable {
+	static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	static final int END_SIGNATURE = 0x06054b50;
+	static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	static final int ZIP64_EXTRA_ID = 0x0001;
+
+	static final int LOCAL_HEADER_SIZE = 30;
+	static final int CENTRAL_HEADER_SIZE = 46;
+	static final int END_SIZE = 22;
+	static final int ZIP64_END_SIZE = 56;
+	static final int ZIP64_LOCATOR_SIZE = 20;
+
+	static final int FLAG_ENCRYPTED = 1;
+	static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+	static final int FLAG_UTF8 = 1 << 11;
+
+	static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+	static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final List<Entry> entries;
+	private final Map<String, Entry> entriesByName;
+
+	private RawZipFile(Path path, FileChannel channel) throws IOException {
+		this.path = path;
+		this.channel = channel;
+		this.entries = Collections.unmodifiableList(readCentralDirectory());
+
+		Map<String, Entry> entriesByName = new HashMap<>();
+
+		for (Entry entry : entries) {
+			entriesByName.putIfAbsent(entry.name(), entry);
+		}
+
+		this.entriesByName = Collections.unmodifiableMap(entriesByName);
+	}
+
+	public static RawZipFile open(Path path) throws IOException {
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+			return new RawZipFile(path, channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * @return All entries, in the order of the central directory
+	 */
+	public List<Entry> entries() {
+		return entries;
+	}
+
+	public @Nullable Entry getEntry(String name) {
+		return entriesByName.get(name);
+	}
+
+	/**
+	 * Read and inflate the entry.
+	 */
+	public byte[] readAllBytes(Entry entry) throws IOException {
+		if (entry.size() > Integer.MAX_VALUE - 8) {
+			throw new ZipException("Entry %s is too large to read".formatted(entry.name()));
+		}
+
+		final byte[] compressed = readCompressed(entry);
+		final byte[] data;
+
+		switch (entry.method()) {
+		case Entry.STORED -> data = compressed;
+		case Entry.DEFLATED -> {
+			data = new byte[(int) entry.size()];
+			final Inflater inflater = new Inflater(true);
+
+			try {
+				inflater.setInput(compressed);
+				int inflated = 0;
+
+				while (inflated < data.length) {
+					final int count = inflater.inflate(data, inflated, data.length - inflated);
+
+					if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+						break;
+					}
+
+					inflated += count;
+				}
+
+				if (inflated != data.length) {
+					throw new ZipException("Invalid deflated data for entry %s".formatted(entry.name()));
+				}
+			} catch (DataFormatException e) {
+				throw new ZipException("Invalid deflated data for entry %s: %s".formatted(entry.name(), e.getMessage()));
+			} finally {
+				inflater.end();
+			}
+		}
+		default -> throw new ZipException("Unsupported compression method %d for entry %s".formatted(entry.method(), entry.name()));
+		}
+
+		final var crc = new CRC32();
+		crc.update(data);
+
+		if (crc.getValue() != entry.crc()) {
+			throw new ZipException("CRC mismatch for entry %s in %s".formatted(entry.name(), path));
+		}
+
+		return data;
+	}
+
+	public InputStream getInputStream(Entry entry) throws IOException {
+		return new ByteArrayInputStream(readAllBytes(entry));
+	}
+
+	/**
+	 * Read the compressed entry data, as stored in the zip file.
+	 */
+	public byte[] readCompressed(Entry entry) throws IOException {
+		if (entry.compressedSize() > Integer.MAX_VALUE - 8) {
+			throw new ZipException("Entry %s is too large to read".formatted(entry.name()));
+		}
+
+		final ByteBuffer buffer = ByteBuffer.allocate((int) entry.compressedSize());
+		readFully(buffer, dataOffset(entry));
+		return buffer.array();
+	}
+
+	/**
+	 * Transfer the compressed entry data to the target channel, without copying it through the java heap where possible.
+	 */
+	public void transferCompressed(Entry entry, WritableByteChannel target) throws IOException {
+		final long offset = dataOffset(entry);
+		long transferred = 0;
+
+		while (transferred < entry.compressedSize()) {
+			final long count = channel.transferTo(offset + transferred, entry.compressedSize() - transferred, target);
+
+			if (count <= 0) {
+				throw new EOFException("Unexpected end of %s while reading %s".formatted(path, entry.name()));
+			}
+
+			transferred += count;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	// The local header may have a different extra field to the central directory, so it must be read to find the data.
+	private long dataOffset(Entry entry) throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(header, entry.localHeaderOffset());
+
+		if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+			throw new ZipException("Invalid local header for entry %s in %s".formatted(entry.name(), path));
+		}
+
+		return entry.localHeaderOffset() + LOCAL_HEADER_SIZE + Short.toUnsignedInt(header.getShort(26)) + Short.toUnsignedInt(header.getShort(28));
+	}
+
+	private List<Entry> readCentralDirectory() throws IOException {
+		final long fileSize = channel.size();
+
+		if (fileSize < END_SIZE) {
+			throw new ZipException("Not a zip file: " + path);
+		}
+
+		// The end of central directory record is followed by a comment of up to 65535 bytes
+		final int tailSize = (int) Math.min(fileSize, END_SIZE + 0xFFFF);
+		final ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(tail, fileSize - tailSize);
+
+		int endPosition = -1;
+
+		for (int i = tailSize - END_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_SIGNATURE) {
+				endPosition = i;
+				break;
+			}
+		}
+
+		if (endPosition < 0) {
+			throw new ZipException("Could not find the end of central directory in " + path);
+		}
+
+		long entryCount = Short.toUnsignedInt(tail.getShort(endPosition + 10));
+		long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(endPosition + 12));
+		long centralDirectoryOffset = Integer.toUnsignedLong(tail.getInt(endPosition + 16));
+
+		if (entryCount == ZIP64_MAGIC_COUNT || centralDirectorySize == ZIP64_MAGIC || centralDirectoryOffset == ZIP64_MAGIC) {
+			final long locatorPosition = fileSize - tailSize + endPosition - ZIP64_LOCATOR_SIZE;
+
+			if (locatorPosition >= 0) {
+				final ByteBuffer locator = ByteBuffer.allocate(ZIP64_LOCATOR_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+				readFully(locator, locatorPosition);
+
+				if (locator.getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+					final ByteBuffer zip64End = ByteBuffer.allocate(ZIP64_END_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+					readFully(zip64End, locator.getLong(8));
+
+					if (zip64End.getInt(0) != ZIP64_END_SIGNATURE) {
+						throw new ZipException("Invalid zip64 end of central directory in " + path);
+					}
+
+					entryCount = zip64End.getLong(32);
+					centralDirectorySize = zip64End.getLong(40);
+					centralDirectoryOffset = zip64End.getLong(48);
+				}
+			}
+		}
+
+		if (centralDirectorySize > Integer.MAX_VALUE || centralDirectoryOffset + centralDirectorySize > fileSize) {
+			throw new ZipException("Invalid central directory in " + path);
+		}
+
+		final ByteBuffer centralDirectory = ByteBuffer.allocate((int) centralDirectorySize).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(centralDirectory, centralDirectoryOffset);
+
+		final List<Entry> entries = new ArrayList<>((int) Math.min(entryCount, 0xFFFF));
+		int position = 0;
+
+		while (position + CENTRAL_HEADER_SIZE <= centralDirectory.limit()) {
+			if (centralDirectory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid central directory header in " + path);
+			}
+
+			final int flags = Short.toUnsignedInt(centralDirectory.getShort(position + 8));
+			final int method = Short.toUnsignedInt(centralDirectory.getShort(position + 10));
+			final int dosTime = centralDirectory.getInt(position + 12);
+			final long crc = Integer.toUnsignedLong(centralDirectory.getInt(position + 16));
+			long compressedSize = Integer.toUnsignedLong(centralDirectory.getInt(position + 20));
+			long size = Integer.toUnsignedLong(centralDirectory.getInt(position + 24));
+			final int nameLength = Short.toUnsignedInt(centralDirectory.getShort(position + 28));
+			final int extraLength = Short.toUnsignedInt(centralDirectory.getShort(position + 30));
+			final int commentLength = Short.toUnsignedInt(centralDirectory.getShort(position + 32));
+			long localHeaderOffset = Integer.toUnsignedLong(centralDirectory.getInt(position + 42));
+
+			final byte[] nameBytes = new byte[nameLength];
+			centralDirectory.get(position + CENTRAL_HEADER_SIZE, nameBytes);
+			final String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+			// Read the real values from the zip64 extra field
+			int extraPosition = position + CENTRAL_HEADER_SIZE + nameLength;
+			final int extraEnd = extraPosition + extraLength;
+
+			while (extraPosition + 4 <= extraEnd) {
+				final int id = Short.toUnsignedInt(centralDirectory.getShort(extraPosition));
+				final int length = Short.toUnsignedInt(centralDirectory.getShort(extraPosition + 2));
+				int valuePosition = extraPosition + 4;
+
+				if (id == ZIP64_EXTRA_ID) {
+					if (size == ZIP64_MAGIC) {
+						size = centralDirectory.getLong(valuePosition);
+						valuePosition += 8;
+					}
+
+					if (compressedSize == ZIP64_MAGIC) {
+						compressedSize = centralDirectory.getLong(valuePosition);
+						valuePosition += 8;
+					}
+
+					if (localHeaderOffset == ZIP64_MAGIC) {
+						localHeaderOffset = centralDirectory.getLong(valuePosition);
+					}
+				}
+
+				extraPosition += 4 + length;
+			}
+
+			if ((flags & FLAG_ENCRYPTED) != 0) {
+				throw new ZipException("Encrypted entry %s in %s is not supported".formatted(name, path));
+			}
+
+			entries.add(new Entry(name, flags, method, dosTime, crc, compressedSize, size, localHeaderOffset));
+			position = extraEnd + commentLength;
+		}
+
+		if (entries.size() != entryCount) {
+			throw new ZipException("Expected %d entries but found %d in %s".formatted(entryCount, entries.size(), path));
+		}
+
+		return entries;
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		final int start = buffer.position();
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position() - start) < 0) {
+				throw new EOFException("Unexpected end of " + path);
+			}
+		}
+	}
+
+	/**
+	 * An entry in the central directory.
+	 *
+	 * @param name The entry name
+	 * @param flags The general purpose bit flags
+	 * @param method The compression method, {@link #STORED} or {@link #DEFLATED}
+	 * @param dosTime The last modified time in MS-DOS format, date in the high 16 bits and time in the low 16 bits
+	 * @param crc The CRC-32 of the uncompressed data
+	 * @param compressedSize The size of the compressed data
+	 * @param size The size of the uncompressed data
+	 * @param localHeaderOffset The offset of the local file header
+	 */
+	public record Entry(String name, int flags, int method, int dosTime, long crc, long compressedSize, long size, long localHeaderOffset) {
+		public static final int STORED = 0;
+		public static final int DEFLATED = 8;
+
+		public boolean isDirectory() {
+			return name.endsWith("/");
+		}
+	}
+}
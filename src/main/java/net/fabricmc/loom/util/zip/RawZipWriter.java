@@ -0,0 +1,321 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.zip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * A zip file writer that can copy the raw compressed data of entries from a {@link RawZipFile}.
+ *
+ * <p>Copied entries keep their compression method, CRC and time stamp. New entries can be written from uncompressed
+ * data, optionally deflated ahead of time on another thread with {@link #deflate(byte[], int)}.
+ * A writer must only be used by a single thread.
+ */
+public final class RawZipWriter implements Closeable {
+	/**
+	 * 1980-01-01 00:00 in MS-DOS format, the same constant time stamp used by {@link net.fabricmc.loom.util.ZipReprocessorUtil}.
+	 */
+	public static final int CONSTANT_DOS_TIME = ((1 << 5) | 1) << 16;
+
+	private static final int VERSION_STORED = 10;
+	private static final int VERSION_DEFLATED = 20;
+	private static final int VERSION_ZIP64 = 45;
+
+	private final FileChannel channel;
+	private final List<CentralEntry> entries = new ArrayList<>();
+	private final Set<String> names = new HashSet<>();
+	private final ByteBuffer header = ByteBuffer.allocate(RawZipFile.LOCAL_HEADER_SIZE + 0xFFFF).order(ByteOrder.LITTLE_ENDIAN);
+	private int level = Deflater.DEFAULT_COMPRESSION;
+	private long position;
+
+	private RawZipWriter(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	public static RawZipWriter create(Path path) throws IOException {
+		return new RawZipWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+	}
+
+	/**
+	 * Set the compression level used by {@link #write(String, byte[])}.
+	 */
+	public void setLevel(int level) {
+		this.level = level;
+	}
+
+	public boolean contains(String name) {
+		return names.contains(name);
+	}
+
+	/**
+	 * Copy an entry without decompressing it.
+	 */
+	public void copy(RawZipFile source, RawZipFile.Entry entry) throws IOException {
+		copy(source, entry, entry.name());
+	}
+
+	/**
+	 * Copy an entry without decompressing it, using a new name.
+	 */
+	public void copy(RawZipFile source, RawZipFile.Entry entry, String name) throws IOException {
+		copy(source, entry, name, entry.dosTime());
+	}
+
+	/**
+	 * Copy an entry without decompressing it, using a new name and time stamp.
+	 */
+	public void copy(RawZipFile source, RawZipFile.Entry entry, String name, int dosTime) throws IOException {
+		final var centralEntry = new CentralEntry(name, entry.method(), dosTime, entry.crc(), entry.compressedSize(), entry.size(), position);
+		writeLocalHeader(centralEntry);
+		source.transferCompressed(entry, channel);
+		position += entry.compressedSize();
+	}
+
+	/**
+	 * Deflate and write a new entry with a constant time stamp.
+	 */
+	public void write(String name, byte[] data) throws IOException {
+		write(name, deflate(data, level), CONSTANT_DOS_TIME);
+	}
+
+	/**
+	 * Write a new entry from data compressed by {@link #deflate(byte[], int)}.
+	 */
+	public void write(String name, Deflated data, int dosTime) throws IOException {
+		final var centralEntry = new CentralEntry(name, RawZipFile.Entry.DEFLATED, dosTime, data.crc(), data.compressed().length, data.size(), position);
+		writeLocalHeader(centralEntry);
+		writeFully(ByteBuffer.wrap(data.compressed()));
+	}
+
+	/**
+	 * Write a new entry without compressing it, this is also used for directory entries.
+	 */
+	public void store(String name, byte[] data, int dosTime) throws IOException {
+		final var crc = new CRC32();
+		crc.update(data);
+
+		final var centralEntry = new CentralEntry(name, RawZipFile.Entry.STORED, dosTime, crc.getValue(), data.length, data.length, position);
+		writeLocalHeader(centralEntry);
+		writeFully(ByteBuffer.wrap(data));
+	}
+
+	/**
+	 * Convert a time in milliseconds to the MS-DOS format, using the local time zone in the same way as {@link java.util.zip.ZipEntry#setTime(long)}.
+	 * Times before 1980 are clamped to {@link #CONSTANT_DOS_TIME}.
+	 */
+	public static int toDosTime(long millis) {
+		final LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+
+		if (time.getYear() < 1980) {
+			return CONSTANT_DOS_TIME;
+		}
+
+		return (time.getYear() - 1980) << 25
+				| time.getMonthValue() << 21
+				| time.getDayOfMonth() << 16
+				| time.getHour() << 11
+				| time.getMinute() << 5
+				| time.getSecond() >> 1;
+	}
+
+	/**
+	 * Deflate data ready to be written by {@link #write(String, Deflated, int)}, this can be called from any thread.
+	 */
+	public static Deflated deflate(byte[] data, int level) {
+		final var crc = new CRC32();
+		crc.update(data);
+
+		final Deflater deflater = new Deflater(level, true);
+		final var output = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+		final byte[] buffer = new byte[8192];
+
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+
+			while (!deflater.finished()) {
+				final int count = deflater.deflate(buffer);
+				output.write(buffer, 0, count);
+			}
+		} finally {
+			deflater.end();
+		}
+
+		return new Deflated(output.toByteArray(), crc.getValue(), data.length);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try (channel) {
+			final long centralDirectoryOffset = position;
+
+			for (CentralEntry entry : entries) {
+				writeCentralHeader(entry);
+			}
+
+			final long centralDirectorySize = position - centralDirectoryOffset;
+			writeEnd(centralDirectoryOffset, centralDirectorySize);
+		}
+	}
+
+	private void writeLocalHeader(CentralEntry entry) throws IOException {
+		if (!names.add(entry.name())) {
+			throw new ZipException("Duplicate entry: " + entry.name());
+		}
+
+		if (entry.compressedSize() >= RawZipFile.ZIP64_MAGIC || entry.size() >= RawZipFile.ZIP64_MAGIC || entry.offset() >= RawZipFile.ZIP64_MAGIC) {
+			throw new ZipException("Entry %s is too large, zip64 entries are not supported".formatted(entry.name()));
+		}
+
+		final byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+
+		if (name.length > 0xFFFF) {
+			throw new ZipException("Entry name is too long: " + entry.name());
+		}
+
+		header.clear();
+		header.putInt(RawZipFile.LOCAL_HEADER_SIGNATURE);
+		header.putShort((short) versionNeeded(entry));
+		header.putShort((short) RawZipFile.FLAG_UTF8);
+		header.putShort((short) entry.method());
+		header.putInt(entry.dosTime());
+		header.putInt((int) entry.crc());
+		header.putInt((int) entry.compressedSize());
+		header.putInt((int) entry.size());
+		header.putShort((short) name.length);
+		header.putShort((short) 0);
+		header.put(name);
+		header.flip();
+
+		writeFully(header);
+		entries.add(entry);
+	}
+
+	private void writeCentralHeader(CentralEntry entry) throws IOException {
+		final byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+		final ByteBuffer buffer = ByteBuffer.allocate(RawZipFile.CENTRAL_HEADER_SIZE + name.length).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(RawZipFile.CENTRAL_HEADER_SIGNATURE);
+		buffer.putShort((short) VERSION_DEFLATED);
+		buffer.putShort((short) versionNeeded(entry));
+		buffer.putShort((short) RawZipFile.FLAG_UTF8);
+		buffer.putShort((short) entry.method());
+		buffer.putInt(entry.dosTime());
+		buffer.putInt((int) entry.crc());
+		buffer.putInt((int) entry.compressedSize());
+		buffer.putInt((int) entry.size());
+		buffer.putShort((short) name.length);
+		// Extra field length, comment length, disk number start, internal attributes, external attributes
+		buffer.putShort((short) 0);
+		buffer.putShort((short) 0);
+		buffer.putShort((short) 0);
+		buffer.putShort((short) 0);
+		buffer.putInt(0);
+		buffer.putInt((int) entry.offset());
+		buffer.put(name);
+		buffer.flip();
+
+		writeFully(buffer);
+	}
+
+	private void writeEnd(long centralDirectoryOffset, long centralDirectorySize) throws IOException {
+		final boolean zip64 = entries.size() >= RawZipFile.ZIP64_MAGIC_COUNT || centralDirectoryOffset >= RawZipFile.ZIP64_MAGIC;
+		final ByteBuffer buffer = ByteBuffer.allocate(RawZipFile.ZIP64_END_SIZE + RawZipFile.ZIP64_LOCATOR_SIZE + RawZipFile.END_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		if (zip64) {
+			final long zip64EndOffset = position;
+
+			buffer.putInt(RawZipFile.ZIP64_END_SIGNATURE);
+			buffer.putLong(RawZipFile.ZIP64_END_SIZE - 12);
+			buffer.putShort((short) VERSION_ZIP64);
+			buffer.putShort((short) VERSION_ZIP64);
+			buffer.putInt(0);
+			buffer.putInt(0);
+			buffer.putLong(entries.size());
+			buffer.putLong(entries.size());
+			buffer.putLong(centralDirectorySize);
+			buffer.putLong(centralDirectoryOffset);
+
+			buffer.putInt(RawZipFile.ZIP64_LOCATOR_SIGNATURE);
+			buffer.putInt(0);
+			buffer.putLong(zip64EndOffset);
+			buffer.putInt(1);
+		}
+
+		final int count = (int) Math.min(entries.size(), RawZipFile.ZIP64_MAGIC_COUNT);
+
+		buffer.putInt(RawZipFile.END_SIGNATURE);
+		buffer.putShort((short) 0);
+		buffer.putShort((short) 0);
+		buffer.putShort((short) count);
+		buffer.putShort((short) count);
+		buffer.putInt((int) Math.min(centralDirectorySize, RawZipFile.ZIP64_MAGIC));
+		buffer.putInt((int) Math.min(centralDirectoryOffset, RawZipFile.ZIP64_MAGIC));
+		buffer.putShort((short) 0);
+		buffer.flip();
+
+		writeFully(buffer);
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer);
+		}
+	}
+
+	private static int versionNeeded(CentralEntry entry) {
+		return entry.method() == RawZipFile.Entry.STORED ? VERSION_STORED : VERSION_DEFLATED;
+	}
+
+	/**
+	 * Deflated entry data.
+	 *
+	 * @param compressed The raw deflated data
+	 * @param crc The CRC-32 of the uncompressed data
+	 * @param size The size of the uncompressed data
+	 */
+	public record Deflated(byte[] compressed, long crc, long size) {
+	}
+
+	private record CentralEntry(String name, int method, int dosTime, long crc, long compressedSize, long size, long offset) {
+	}
+}
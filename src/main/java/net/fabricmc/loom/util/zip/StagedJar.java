@@ -0,0 +1,299 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.zip;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+
+import org.gradle.api.tasks.bundling.ZipEntryCompression;
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.util.ZipReprocessorUtil;
+import net.fabricmc.loom.util.ZipUtils;
+
+/**
+ * The entries of a jar that is being built, the jar is only written once all edits have been made.
+ *
+ * <p>Entries added from an existing zip are only referenced, and unless they are edited they are copied to the output
+ * without being decompressed. Edits are applied in the order they are made, so a chain of edits to the same jar
+ * behaves the same as rewriting the jar after each of them. Entries can be added from multiple threads.
+ */
+public final class StagedJar implements Closeable {
+	private final Map<String, Source> entries = new LinkedHashMap<>();
+	private final List<RawZipFile> zips = new ArrayList<>();
+
+	/**
+	 * Add the entries of a zip file, entries that have already been added are kept.
+	 */
+	public synchronized void addAll(Path zip, Predicate<String> filter) throws IOException {
+		final RawZipFile rawZip = RawZipFile.open(zip);
+		zips.add(rawZip);
+
+		for (RawZipFile.Entry entry : rawZip.entries()) {
+			if (filter.test(entry.name())) {
+				entries.putIfAbsent(entry.name(), new ZipSource(rawZip, entry));
+			}
+		}
+	}
+
+	public synchronized boolean contains(String name) {
+		return entries.containsKey(name);
+	}
+
+	/**
+	 * @return The contents of the entry, or null if there is no such entry
+	 */
+	public byte @Nullable [] get(String name) throws IOException {
+		final Source source;
+
+		synchronized (this) {
+			source = entries.get(name);
+		}
+
+		return source != null ? source.read() : null;
+	}
+
+	/**
+	 * Add or replace an entry.
+	 */
+	public synchronized void put(String name, byte[] data) {
+		entries.put(name, new BytesSource(data, RawZipWriter.toDosTime(System.currentTimeMillis())));
+	}
+
+	/**
+	 * Add or replace an entry with the contents of a file, the file is read when the jar is written.
+	 */
+	public synchronized void put(String name, Path file) throws IOException {
+		entries.put(name, new FileSource(file, RawZipWriter.toDosTime(Files.getLastModifiedTime(file).toMillis())));
+	}
+
+	/**
+	 * @return Whether the entry existed
+	 */
+	public synchronized boolean remove(String name) {
+		return entries.remove(name) != null;
+	}
+
+	/**
+	 * Transform an entry if it exists, the entry keeps its time stamp.
+	 * When the transformer returns the array it was given the entry is left untouched.
+	 *
+	 * @return Whether the entry existed
+	 */
+	public synchronized boolean transform(String name, ZipUtils.UnsafeUnaryOperator<byte[]> transformer) throws IOException {
+		final Source source = entries.get(name);
+
+		if (source == null) {
+			return false;
+		}
+
+		final byte[] data = source.read();
+		final byte[] transformed = transformer.apply(data);
+
+		if (transformed != data) {
+			entries.put(name, new BytesSource(transformed, source.dosTime()));
+		}
+
+		return true;
+	}
+
+	/**
+	 * Transform a json entry if it exists, in the same way as {@link ZipUtils#transformJson(Class, Path, Map)}.
+	 *
+	 * @return Whether the entry existed
+	 */
+	public <T> boolean transformJson(Class<T> typeOfT, String name, ZipUtils.UnsafeUnaryOperator<T> transformer) throws IOException {
+		return transform(name, bytes -> {
+			final T json = LoomGradlePlugin.GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(bytes)), typeOfT);
+			return LoomGradlePlugin.GSON.toJson(transformer.apply(json), typeOfT).getBytes(StandardCharsets.UTF_8);
+		});
+	}
+
+	/**
+	 * Write the jar, the output is written to a temporary file first so it may be the same as one of the added zips.
+	 * Missing parent directory entries are added. The added zips are closed once the jar has been written.
+	 *
+	 * @param output The jar to write
+	 * @param reproducibleFileOrder Whether to sort the entries, see {@link ZipReprocessorUtil#specialOrdering(String, String)}
+	 * @param preserveFileTimestamps Whether to keep the entry time stamps, otherwise a constant time stamp is used
+	 * @param compression The compression of the entries, entries that are already compressed this way are copied as is
+	 */
+	public synchronized void write(Path output, boolean reproducibleFileOrder, boolean preserveFileTimestamps, ZipEntryCompression compression) throws IOException {
+		final int method = compression == ZipEntryCompression.STORED ? RawZipFile.Entry.STORED : RawZipFile.Entry.DEFLATED;
+		final List<Map.Entry<String, Source>> ordered = new ArrayList<>(withParentDirectories().entrySet());
+
+		if (reproducibleFileOrder) {
+			ordered.sort(Map.Entry.comparingByKey(ZipReprocessorUtil::specialOrdering));
+		}
+
+		// Deflating is the most expensive part of writing, so it is done ahead of time in parallel.
+		final Map<String, RawZipWriter.Deflated> deflated = new ConcurrentHashMap<>();
+
+		if (method == RawZipFile.Entry.DEFLATED) {
+			ordered.parallelStream()
+					.filter(entry -> !isDirectory(entry.getKey()) && !entry.getValue().isCompressed(method))
+					.forEach(entry -> {
+						try {
+							deflated.put(entry.getKey(), RawZipWriter.deflate(entry.getValue().read(), Deflater.DEFAULT_COMPRESSION));
+						} catch (IOException e) {
+							throw new UncheckedIOException("Failed to read " + entry.getKey(), e);
+						}
+					});
+		}
+
+		final Path tempFile = output.resolveSibling(output.getFileName() + ".tmp");
+
+		try (RawZipWriter writer = RawZipWriter.create(tempFile)) {
+			for (Map.Entry<String, Source> entry : ordered) {
+				final String name = entry.getKey();
+				final Source source = entry.getValue();
+				final int dosTime = preserveFileTimestamps ? source.dosTime() : RawZipWriter.CONSTANT_DOS_TIME;
+
+				if (isDirectory(name)) {
+					writer.store(name, new byte[0], dosTime);
+				} else if (source instanceof ZipSource zipSource && zipSource.isCompressed(method)) {
+					writer.copy(zipSource.zip(), zipSource.entry(), name, dosTime);
+				} else if (method == RawZipFile.Entry.DEFLATED) {
+					writer.write(name, deflated.get(name), dosTime);
+				} else {
+					writer.store(name, source.read(), dosTime);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tempFile);
+			throw e;
+		}
+
+		// The output cannot be replaced while it is open on Windows
+		close();
+		Files.move(tempFile, output, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private Map<String, Source> withParentDirectories() {
+		final Map<String, Source> result = new LinkedHashMap<>();
+
+		for (Map.Entry<String, Source> entry : entries.entrySet()) {
+			final String name = entry.getKey();
+			int index = name.indexOf('/');
+
+			while (index != -1 && index < name.length() - 1) {
+				final String directory = name.substring(0, index + 1);
+
+				if (!entries.containsKey(directory)) {
+					result.putIfAbsent(directory, new BytesSource(new byte[0], entry.getValue().dosTime()));
+				}
+
+				index = name.indexOf('/', index + 1);
+			}
+
+			result.put(name, entry.getValue());
+		}
+
+		return result;
+	}
+
+	private static boolean isDirectory(String name) {
+		return name.endsWith("/");
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		IOException exception = null;
+
+		for (RawZipFile zip : zips) {
+			try {
+				zip.close();
+			} catch (IOException e) {
+				if (exception == null) {
+					exception = e;
+				} else {
+					exception.addSuppressed(e);
+				}
+			}
+		}
+
+		zips.clear();
+
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	private sealed interface Source {
+		byte[] read() throws IOException;
+
+		int dosTime();
+
+		default boolean isCompressed(int method) {
+			return false;
+		}
+	}
+
+	private record ZipSource(RawZipFile zip, RawZipFile.Entry entry) implements Source {
+		@Override
+		public byte[] read() throws IOException {
+			return zip.readAllBytes(entry);
+		}
+
+		@Override
+		public int dosTime() {
+			return entry.dosTime();
+		}
+
+		@Override
+		public boolean isCompressed(int method) {
+			return entry.method() == method;
+		}
+	}
+
+	private record BytesSource(byte[] data, int dosTime) implements Source {
+		@Override
+		public byte[] read() {
+			return data;
+		}
+	}
+
+	private record FileSource(Path file, int dosTime) implements Source {
+		@Override
+		public byte[] read() throws IOException {
+			return Files.readAllBytes(file);
+		}
+	}
+}
@@ -33,7 +33,7 @@ import static net.fabricmc.loom.test.LoomTestConstants.PRE_RELEASE_GRADLE
 import static org.gradle.testkit.runner.TaskOutcome.SUCCESS
 
 class OfflineModeTest extends Specification implements GradleProjectTestTrait {
-	// Test offline mode when running on a previously locked project
+	// Test offline mode when running on artifacts left incomplete by a previous build
 	@Unroll
 	def "Offline refresh deps"() {
 		setup:
@@ -45,29 +45,25 @@ class OfflineModeTest extends Specification implements GradleProjectTestTrait {
                 modImplementation 'net.fabricmc:fabric-loader:0.15.6'
                 modImplementation 'net.fabricmc.fabric-api:fabric-api:0.95.4+1.20.4'
             }
-
-			import net.fabricmc.loom.util.Checksum
-			def projectHash = Checksum.projectHash(getProject())
-            println("%%" + projectHash + "%%")
-
             """.stripIndent()
 		when:
 		// Normal online run to populate the caches
 		def result1 = gradle.run(task: "build")
 
-		def projectHash = result1.output.split("%%")[1]
+		// Mark every artifact as being produced, as a killed build would leave them
+		def locks = new File(gradle.gradleHomeDir, "caches/essential-loom/locks").listFiles()
 
-		// Create a dummy lock file to ensure that the loom cache is rebuilt on the next run
-		def lockFile = new File(gradle.gradleHomeDir, "caches/essential-loom/.${projectHash}.lock")
-		lockFile.text = "12345"
+		for (File lockFile : locks) {
+			lockFile.bytes = [1] as byte[]
+		}
 
 		// Run with --offline to ensure that nothing is downloaded.
 		def result2 = gradle.run(tasks: ["clean", "build"], args: ["--offline"])
 		then:
+		locks.length > 0
 		result1.task(":build").outcome == SUCCESS
 		result2.task(":build").outcome == SUCCESS
 
-		result2.output.contains("is currently held by pid '12345'")
-		result2.output.contains("rebuilding loom cache")
+		result2.output.contains("was not completed by a previous build, rebuilding it")
 	}
 }
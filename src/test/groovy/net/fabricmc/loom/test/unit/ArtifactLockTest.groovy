@@ -0,0 +1,111 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Path
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.ArtifactLock
+
+class ArtifactLockTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "shared locks do not block each other"() {
+		given:
+		def artifact = tempDir.resolve("artifact.jar")
+		def first = ArtifactLock.shared(locksDir(), artifact)
+		def acquired = new CountDownLatch(1)
+
+		when:
+		def thread = Thread.start {
+			ArtifactLock.shared(locksDir(), artifact).withCloseable {
+				acquired.countDown()
+			}
+		}
+
+		then:
+		acquired.await(10, TimeUnit.SECONDS)
+
+		cleanup:
+		thread?.join()
+		first?.close()
+	}
+
+	def "exclusive lock waits for readers"() {
+		given:
+		def artifact = tempDir.resolve("artifact.jar")
+		def reader = ArtifactLock.shared(locksDir(), artifact)
+		def acquired = new CountDownLatch(1)
+
+		when:
+		def thread = Thread.start {
+			ArtifactLock.exclusive(locksDir(), artifact).withCloseable {
+				it.complete()
+				acquired.countDown()
+			}
+		}
+
+		then:
+		!acquired.await(200, TimeUnit.MILLISECONDS)
+
+		when:
+		reader.close()
+
+		then:
+		acquired.await(10, TimeUnit.SECONDS)
+
+		cleanup:
+		thread?.join()
+	}
+
+	def "interrupted when not completed"() {
+		given:
+		def artifact = tempDir.resolve("artifact.jar")
+
+		when:
+		ArtifactLock.exclusive(locksDir(), artifact).close()
+		def second = ArtifactLock.exclusive(locksDir(), artifact)
+		def interrupted = second.interrupted
+		second.complete()
+		second.close()
+		def third = ArtifactLock.exclusive(locksDir(), artifact)
+
+		then:
+		interrupted
+		!third.interrupted
+
+		cleanup:
+		third?.close()
+	}
+
+	private Path locksDir() {
+		return tempDir.resolve("locks")
+	}
+}
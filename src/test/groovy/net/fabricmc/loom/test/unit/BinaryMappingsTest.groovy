@@ -0,0 +1,132 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.providers.mappings.BinaryMappings
+import net.fabricmc.mappingio.MappingReader
+import net.fabricmc.mappingio.format.tiny.Tiny2FileWriter
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class BinaryMappingsTest extends Specification {
+	private static final String MAPPINGS = """tiny\t2\t0\tintermediary\tnamed
+\tsorted\ttrue
+c\tclass_1\tnet/example/Foo
+\tm\t()V\tmethod_2\ttick
+c\tclass_2\tnet/example/Bar
+\tc\tThe bar.
+\tf\tLclass_1;\tfield_1\tfoo
+\tf\tI\tfield_2\tcount
+\tm\t(Lclass_1;I)V\tmethod_1\tupdate
+\t\tp\t1\t\tfoo
+\t\tp\t2\t\tcount
+\t\t\tc\tThe count.
+"""
+
+	@TempDir
+	Path tempDir
+
+	def "lookups"() {
+		given:
+		def mappingsFile = tempDir.resolve("mappings.tiny")
+		Files.writeString(mappingsFile, MAPPINGS)
+
+		when:
+		def mappings = BinaryMappings.open(mappingsFile)
+		def named = mappings.getNamespaceId("named")
+		def bar = mappings.getClass("class_2")
+		def method = bar.getMethod("method_1", "(Lclass_1;I)V")
+
+		then:
+		mappings.srcNamespace == "intermediary"
+		mappings.dstNamespaces == ["named"]
+		mappings.metadata == ["sorted": "true"]
+		mappings.mapClassName("class_2", named) == "net/example/Bar"
+		mappings.mapClassName("class_3", named) == "class_3"
+		bar.comment == "The bar."
+		bar.getField("field_1", "Lclass_1;").getName(named) == "foo"
+		bar.getField("field_1", "Lclass_1;").getDesc(named) == "Lnet/example/Foo;"
+		bar.getField("field_2", "J") == null
+		method.getName(named) == "update"
+		method.argCount == 2
+		method.getArg(1).lvIndex == 2
+		method.getArg(1).comment == "The count."
+		mappings.getClass("class_1").getMethod("method_2", null).getName(named) == "tick"
+	}
+
+	def "accept matches the text mappings"() {
+		given:
+		def mappingsFile = tempDir.resolve("mappings.tiny")
+		Files.writeString(mappingsFile, MAPPINGS)
+
+		def expected = new MemoryMappingTree()
+		MappingReader.read(mappingsFile, expected)
+
+		when:
+		def actual = new MemoryMappingTree()
+		BinaryMappings.open(mappingsFile).accept(actual)
+
+		then:
+		write(actual) == write(expected)
+	}
+
+	def "binary mappings are reused until the mappings change"() {
+		given:
+		def mappingsFile = tempDir.resolve("mappings.tiny")
+		Files.writeString(mappingsFile, MAPPINGS)
+
+		when:
+		BinaryMappings.open(mappingsFile)
+		def first = binaryFiles()
+		BinaryMappings.open(mappingsFile)
+		def second = binaryFiles()
+
+		Files.writeString(mappingsFile, MAPPINGS.replace("net/example/Bar", "net/example/Bar2"))
+		def mappings = BinaryMappings.open(mappingsFile)
+		def third = binaryFiles()
+
+		then:
+		first.size() == 1
+		second == first
+		// The previous file is only deleted when it is not mapped, which is not the case on Windows
+		!first.containsAll(third)
+		mappings.mapClassName("class_2", mappings.getNamespaceId("named")) == "net/example/Bar2"
+	}
+
+	private List<Path> binaryFiles() {
+		return Files.list(tempDir).withCloseable { it.filter { it.fileName.toString().endsWith(".bin") }.toList() }
+	}
+
+	private static String write(MemoryMappingTree mappingTree) {
+		def writer = new StringWriter()
+		mappingTree.accept(new Tiny2FileWriter(writer, false))
+		return writer.toString()
+	}
+}
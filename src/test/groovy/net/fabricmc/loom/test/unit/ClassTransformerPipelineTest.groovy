@@ -0,0 +1,103 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Path
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.test.util.ZipTestUtils
+import net.fabricmc.loom.util.Constants
+import net.fabricmc.loom.util.ZipUtils
+import net.fabricmc.loom.util.zip.ClassTransformerPipeline
+
+class ClassTransformerPipelineTest extends Specification {
+	@TempDir
+	Path testPath
+
+	def "transform jar"() {
+		given:
+		def patched = ZipTestUtils.createZipFromBytes([
+			"net/example/Patched.class": createClass("net/example/Patched"),
+			"resource.txt": "patched".getBytes(StandardCharsets.UTF_8)
+		])
+		def clean = ZipTestUtils.createZipFromBytes([
+			"net/example/Patched.class": createClass("net/example/Unused"),
+			"net/example/Missing.class": createClass("net/example/Missing"),
+			"resource.txt": "clean".getBytes(StandardCharsets.UTF_8),
+			"other.txt": "clean".getBytes(StandardCharsets.UTF_8)
+		])
+		def output = testPath.resolve("output.jar")
+		def pipeline = new ClassTransformerPipeline()
+				.add { next -> addField(next, "first") }
+				.addTree { node -> addField(node, "second") }
+		when:
+		pipeline.transformJar([patched, clean], output)
+		then:
+		fields(ZipUtils.unpack(output, "net/example/Patched.class")) == ["first", "second"]
+		fields(ZipUtils.unpack(output, "net/example/Missing.class")) == ["first", "second"]
+		new String(ZipUtils.unpack(output, "resource.txt"), StandardCharsets.UTF_8) == "patched"
+		!ZipUtils.contains(output, "other.txt")
+	}
+
+	def "unchanged class"() {
+		given:
+		def bytes = createClass("net/example/Foo")
+		def pipeline = new ClassTransformerPipeline()
+				.add { next -> new ClassVisitor(Constants.ASM_VERSION, next) { } }
+		expect:
+		pipeline.transform(bytes) == null
+	}
+
+	private static ClassVisitor addField(ClassVisitor next, String name) {
+		return new ClassVisitor(Constants.ASM_VERSION, next) {
+			@Override
+			void visitEnd() {
+				super.visitField(Opcodes.ACC_PUBLIC, name, "I", null, null)?.visitEnd()
+				super.visitEnd()
+			}
+		}
+	}
+
+	private static List<String> fields(byte[] bytes) {
+		def node = new ClassNode()
+		new ClassReader(bytes).accept(node, 0)
+		return node.fields.collect { it.name }
+	}
+
+	private static byte[] createClass(String name) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+}
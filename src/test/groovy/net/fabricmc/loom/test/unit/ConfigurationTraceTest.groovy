@@ -0,0 +1,107 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.ConfigurationTrace
+
+class ConfigurationTraceTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "disabled trace does not record spans"() {
+		given:
+		def trace = ConfigurationTrace.create(false)
+
+		when:
+		trace.span("MinecraftProvider.provide", null).withCloseable {
+			it.cacheHit(true)
+		}
+
+		then:
+		!trace.enabled
+		trace.spans.isEmpty()
+	}
+
+	def "spans record cache outcome and sizes"() {
+		given:
+		def trace = ConfigurationTrace.create(true)
+		def input = tempDir.resolve("input.jar")
+		def output = tempDir.resolve("output.jar")
+		Files.write(input, new byte[100])
+		Files.write(output, new byte[40])
+
+		when:
+		trace.span("AbstractMappedMinecraftProvider.remapJar", "named").withCloseable {
+			it.cacheHit(false).read(input).written([output, tempDir.resolve("missing.jar")])
+		}
+		trace.span("AbstractMappedMinecraftProvider.remapJar", "intermediary").withCloseable {
+			it.cacheHit(true)
+		}
+
+		def spans = trace.spans
+		def summary = trace.createSummary()
+
+		then:
+		spans.size() == 2
+		spans[0].detail() == "named"
+		spans[0].cacheHit() == false
+		spans[0].bytesRead() == 100
+		spans[0].bytesWritten() == 40
+		spans[1].cacheHit() == true
+		spans[1].bytesRead() == 0
+		summary.readLines()[2] ==~ /AbstractMappedMinecraftProvider\.remapJar\s+2\s+\d+\s+\d+\s+1\s+1\s+0\.0\s+0\.0/
+	}
+
+	def "write chrome trace"() {
+		given:
+		def trace = ConfigurationTrace.create(true)
+		def output = tempDir.resolve("trace/configuration-trace.json")
+
+		when:
+		trace.span("MappingConfiguration.create", "yarn").withCloseable {
+			it.cacheHit(true)
+		}
+		trace.writeChromeTrace(output)
+		def json = new JsonSlurper().parse(output.toFile())
+		def events = json.traceEvents
+
+		then:
+		events.size() == 2
+		events[0].name == "MappingConfiguration.create"
+		events[0].ph == "X"
+		events[0].tid == Thread.currentThread().id
+		events[0].args.detail == "yarn"
+		events[0].args.cache == "hit"
+		events[1].ph == "M"
+		events[1].args.name == Thread.currentThread().name
+	}
+}
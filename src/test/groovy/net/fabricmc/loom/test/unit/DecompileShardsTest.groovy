@@ -0,0 +1,98 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.decompilers.DecompileShards
+import net.fabricmc.loom.test.util.ZipTestUtils
+import net.fabricmc.loom.util.ZipUtils
+
+class DecompileShardsTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "split keeps inner classes together"() {
+		given:
+		def jar = ZipTestUtils.createZip([
+			"net/fabricmc/Large.class": "a" * 1000,
+			"net/fabricmc/Large\$Inner.class": "b" * 10,
+			"net/fabricmc/Medium.class": "c" * 600,
+			"net/fabricmc/Small.class": "d" * 500,
+			"META-INF/MANIFEST.MF": "Manifest-Version: 1.0\n",
+		])
+
+		when:
+		def shards = DecompileShards.split(jar, 2, tempDir)
+
+		then:
+		shards.size() == 2
+		entries(shards[0]) == ["META-INF/MANIFEST.MF", "net/fabricmc/Large\$Inner.class", "net/fabricmc/Large.class"]
+		entries(shards[1]) == ["net/fabricmc/Medium.class", "net/fabricmc/Small.class"]
+	}
+
+	def "split skips empty shards"() {
+		given:
+		def jar = ZipTestUtils.createZip(["net/fabricmc/Example.class": "Example"])
+
+		when:
+		def shards = DecompileShards.split(jar, 4, tempDir)
+
+		then:
+		shards.size() == 1
+		entries(shards[0]) == ["net/fabricmc/Example.class"]
+	}
+
+	def "merge sources"() {
+		given:
+		def first = ZipTestUtils.createZip([
+			"net/fabricmc/b/Example.java": "B",
+			"META-INF/MANIFEST.MF": "first",
+		])
+		def second = ZipTestUtils.createZip([
+			"net/fabricmc/a/Example.java": "A",
+			"META-INF/MANIFEST.MF": "second",
+		])
+		def output = tempDir.resolve("output.jar")
+
+		when:
+		DecompileShards.mergeSources([first, second], output)
+
+		then:
+		entries(output) == ["META-INF/MANIFEST.MF", "net/fabricmc/a/Example.java", "net/fabricmc/b/Example.java"]
+		ZipUtils.unpack(output, "META-INF/MANIFEST.MF") == "first".bytes
+		ZipUtils.unpack(output, "net/fabricmc/a/Example.java") == "A".bytes
+	}
+
+	private static List<String> entries(Path jar) {
+		return new ZipFile(jar.toFile()).withCloseable { zip ->
+			zip.entries().collect { it.name }.findAll { !it.endsWith("/") }
+		}
+	}
+}
@@ -24,8 +24,11 @@
 
 package net.fabricmc.loom.test.unit
 
+import java.util.zip.ZipFile
+
 import spock.lang.Specification
 
+import net.fabricmc.loom.decompilers.cache.ClassEntry
 import net.fabricmc.loom.decompilers.cache.JarWalker
 import net.fabricmc.loom.test.util.ZipTestUtils
 import net.fabricmc.loom.util.FileSystemUtil
@@ -84,4 +87,21 @@ class JarWalkerTest extends Specification {
 			"net/fabricmc/other/Test\$1.class": "test",
 		]
 	}
+
+	def "Hash Classes from zip file"() {
+		given:
+		def jar = ZipTestUtils.createZip([
+			"net/fabricmc/other/Test.class": "Hello",
+			"net/fabricmc/other/Test\$Inner.class": "World",
+			"net/fabricmc/other/Test\$Inner\$2.class": "123",
+			"net/fabricmc/other/Test\$1.class": "test",
+		])
+		when:
+		def hash = new ZipFile(jar.toFile()).withCloseable { zipFile ->
+			def entries = JarWalker.findClasses(zipFile)
+			return ClassEntry.hash(entries[0].readClasses(zipFile))
+		}
+		then:
+		hash == "1053cfadf4e371ec89ff5b58d9b3bdb80373f3179e804b2e241171223709f4d1"
+	}
 }
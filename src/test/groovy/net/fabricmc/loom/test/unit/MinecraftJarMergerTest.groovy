@@ -0,0 +1,138 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarMerger
+
+class MinecraftJarMergerTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "merge client and server jars"() {
+		given:
+		def client = tempDir.resolve("client.jar")
+		def server = tempDir.resolve("server.jar")
+		def merged = tempDir.resolve("merged/merged.jar")
+
+		createJar(client, [
+			"META-INF/MANIFEST.MF": "Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8),
+			"META-INF/MOJANGCS.SF": new byte[0],
+			"net/minecraft/Common.class": createClass("net/minecraft/Common", "tick"),
+			"net/minecraft/Client.class": createClass("net/minecraft/Client"),
+			"assets/icon.png": "client".getBytes(StandardCharsets.UTF_8),
+		])
+		createJar(server, [
+			"net/minecraft/Common.class": createClass("net/minecraft/Common", "tick", "serverTick"),
+			"net/minecraft/Server.class": createClass("net/minecraft/Server"),
+			"com/example/Library.class": createClass("com/example/Library"),
+			"assets/icon.png": "server".getBytes(StandardCharsets.UTF_8),
+		])
+
+		when:
+		new MinecraftJarMerger(client.toFile(), server.toFile(), merged.toFile()).withCloseable {
+			it.merge()
+		}
+
+		def entries = [:]
+
+		new ZipFile(merged.toFile()).withCloseable { zip ->
+			zip.entries().each { ZipEntry entry -> entries[entry.name] = zip.getInputStream(entry).bytes }
+		}
+
+		then:
+		entries.keySet().toList() == [
+			"META-INF/",
+			"META-INF/MANIFEST.MF",
+			"assets/",
+			"assets/icon.png",
+			"net/",
+			"net/minecraft/",
+			"net/minecraft/Client.class",
+			"net/minecraft/Common.class",
+			"net/minecraft/Server.class"
+		]
+		new String(entries["META-INF/MANIFEST.MF"], StandardCharsets.UTF_8).contains("Main-Class: net.minecraft.client.Main")
+		new String(entries["assets/icon.png"], StandardCharsets.UTF_8) == "client"
+		side(entries["net/minecraft/Client.class"]) == "CLIENT"
+		side(entries["net/minecraft/Server.class"]) == "SERVER"
+		side(entries["net/minecraft/Common.class"]) == null
+		readClass(entries["net/minecraft/Common.class"]).methods*.name == ["tick", "serverTick"]
+		side(readClass(entries["net/minecraft/Common.class"]).methods.find { it.name == "serverTick" }.invisibleAnnotations) == "SERVER"
+	}
+
+	private static void createJar(Path path, Map<String, byte[]> entries) {
+		new ZipOutputStream(path.newOutputStream()).withCloseable { zip ->
+			entries.each { name, data ->
+				zip.putNextEntry(new ZipEntry(name))
+				zip.write(data)
+				zip.closeEntry()
+			}
+		}
+	}
+
+	private static byte[] createClass(String name, String... methods) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+
+		for (String method : methods) {
+			def visitor = writer.visitMethod(Opcodes.ACC_PUBLIC, method, "()V", null, null)
+			visitor.visitCode()
+			visitor.visitInsn(Opcodes.RETURN)
+			visitor.visitMaxs(0, 1)
+			visitor.visitEnd()
+		}
+
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+
+	private static ClassNode readClass(byte[] data) {
+		def node = new ClassNode()
+		new ClassReader(data).accept(node, 0)
+		return node
+	}
+
+	private static String side(byte[] data) {
+		return side(readClass(data).visibleAnnotations)
+	}
+
+	private static String side(List annotations) {
+		def annotation = annotations?.find { it.desc == "Lnet/fabricmc/api/Environment;" }
+		return annotation == null ? null : annotation.values[1][1]
+	}
+}
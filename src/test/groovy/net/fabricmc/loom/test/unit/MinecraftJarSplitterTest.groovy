@@ -24,7 +24,13 @@
 
 package net.fabricmc.loom.test.unit
 
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
 import spock.lang.Specification
+import spock.lang.TempDir
 
 import net.fabricmc.loom.configuration.providers.BundleMetadata
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarSplitter
@@ -36,6 +42,9 @@ class MinecraftJarSplitterTest extends Specification {
 
 	public static final File mcJarDir = File.createTempDir()
 
+	@TempDir
+	Path tempDir
+
 	def "split jars"() {
 		given:
 		def clientJar = downloadJarIfNotExists(CLIENT_JAR_URL, "client.jar")
@@ -58,6 +67,81 @@ class MinecraftJarSplitterTest extends Specification {
 		serverBundleMetadata.versions().size() == 1
 	}
 
+	def "split entries"() {
+		given:
+		def clientJar = tempDir.resolve("client.jar")
+		def serverJar = tempDir.resolve("server.jar")
+		def clientOnlyJar = tempDir.resolve("client_only.jar")
+		def commonJar = tempDir.resolve("common.jar")
+
+		createJar(clientJar, [
+			"META-INF/MANIFEST.MF": "client manifest",
+			"net/minecraft/Common.class": "client common",
+			"net/minecraft/client/Client.class": "client",
+			"version.json": "client version",
+			"forced.txt": "client forced"
+		])
+		createJar(serverJar, [
+			"net/minecraft/Common.class": "server common",
+			"version.json": "server version",
+			"forced.txt": "server forced"
+		])
+
+		when:
+		new MinecraftJarSplitter(clientJar, serverJar).withCloseable {
+			it.sharedEntry("version.json")
+			it.forcedClientEntry("forced.txt")
+			it.split(clientOnlyJar, commonJar)
+		}
+
+		def clientOnly = readJar(clientOnlyJar)
+		def common = readJar(commonJar)
+
+		then:
+		clientOnly.keySet().toList() == [
+			"META-INF/",
+			"META-INF/MANIFEST.MF",
+			"forced.txt",
+			"net/",
+			"net/minecraft/",
+			"net/minecraft/client/",
+			"net/minecraft/client/Client.class",
+			"version.json"
+		]
+		clientOnly["net/minecraft/client/Client.class"] == "client"
+		clientOnly["forced.txt"] == "client forced"
+		clientOnly["version.json"] == "client version"
+		clientOnly["META-INF/MANIFEST.MF"].contains("client")
+
+		common.keySet().toList() == [
+			"META-INF/",
+			"META-INF/MANIFEST.MF",
+			"net/",
+			"net/minecraft/",
+			"net/minecraft/Common.class",
+			"version.json"
+		]
+		common["net/minecraft/Common.class"] == "server common"
+		common["version.json"] == "server version"
+		common["META-INF/MANIFEST.MF"].contains("common")
+	}
+
+	private static void createJar(Path path, Map<String, String> entries) {
+		new ZipOutputStream(path.newOutputStream()).withCloseable { zip ->
+			entries.each { name, content ->
+				zip.putNextEntry(new ZipEntry(name))
+				zip.write(content.bytes)
+				zip.closeEntry()
+			}
+		}
+	}
+
+	private static Map<String, String> readJar(Path path) {
+		new ZipFile(path.toFile()).withCloseable { zip ->
+			zip.entries().toList().collectEntries { [it.name, zip.getInputStream(it).text] }
+		}
+	}
+
 	File downloadJarIfNotExists(String url, String name) {
 		File dst = new File(mcJarDir, name)
 
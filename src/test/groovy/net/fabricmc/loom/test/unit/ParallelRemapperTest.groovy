@@ -0,0 +1,136 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.mods.RemappedModStore
+import net.fabricmc.loom.util.ParallelRemapper
+
+class ParallelRemapperTest extends Specification {
+	@TempDir
+	Path testPath
+
+	def "fully remapped outputs are stored"() {
+		given:
+		def store = new RemappedModStore(testPath.resolve("store"))
+		def completed = Collections.synchronizedList([])
+		def jobs = (0..<8).collect { new TestJob("job$it", testPath.resolve("job${it}.jar"), "key$it", true, completed) }
+
+		when:
+		ParallelRemapper.run(jobs, ["a", "b", "c"], store)
+
+		then:
+		// The callbacks are run in order, after the job completed
+		completed == jobs*.name()
+		jobs.every { Files.readString(store.get(it.storeKey())) == it.name() }
+	}
+
+	def "partially remapped outputs are not stored"() {
+		given:
+		def store = new RemappedModStore(testPath.resolve("store"))
+		def completed = []
+		def full = new TestJob("full", testPath.resolve("full.jar"), "full", true, completed)
+		def partial = new TestJob("partial", testPath.resolve("partial.jar"), "partial", false, completed)
+
+		when:
+		ParallelRemapper.run([full, partial], ["a", "b"], store)
+
+		then:
+		completed == ["full", "partial"]
+		Files.readString(partial.output()) == "partial"
+		store.get("full") != null
+		store.get("partial") == null
+	}
+
+	def "failures are reported for the job"() {
+		given:
+		def store = new RemappedModStore(testPath.resolve("store"))
+		def completed = []
+		def failing = new TestJob("failing", testPath.resolve("failing.jar"), "failing", true, completed) {
+			@Override
+			boolean remap(String worker) throws Exception {
+				throw new IOException("Broken")
+			}
+		}
+
+		when:
+		ParallelRemapper.run([failing], ["a"], store)
+
+		then:
+		def e = thrown(RuntimeException)
+		e.message == "Failed to remap failing"
+		e.cause.message == "Broken"
+		completed.isEmpty()
+		store.get("failing") == null
+	}
+
+	private static class TestJob implements ParallelRemapper.Job<String> {
+		final String name
+		final Path output
+		final String storeKey
+		final boolean fullyRemapped
+		final List<String> completed
+
+		TestJob(String name, Path output, String storeKey, boolean fullyRemapped, List<String> completed) {
+			this.name = name
+			this.output = output
+			this.storeKey = storeKey
+			this.fullyRemapped = fullyRemapped
+			this.completed = completed
+		}
+
+		@Override
+		boolean remap(String worker) throws Exception {
+			Files.writeString(output, name)
+			return fullyRemapped
+		}
+
+		@Override
+		Path output() {
+			return output
+		}
+
+		@Override
+		String storeKey() {
+			return storeKey
+		}
+
+		@Override
+		void complete() {
+			assert Files.exists(output)
+			completed << name
+		}
+
+		@Override
+		String name() {
+			return name
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.test.util.ZipTestUtils
+import net.fabricmc.loom.util.ZipUtils
+import net.fabricmc.loom.util.zip.RawZipFile
+import net.fabricmc.loom.util.zip.RawZipWriter
+
+class RawZipTest extends Specification {
+	@TempDir
+	Path testPath
+
+	def "read entries"() {
+		given:
+		def zip = ZipTestUtils.createZip([
+			"test.txt": "Hello world",
+			"dir/other.txt": "Other"
+		])
+		when:
+		def (names, contents) = RawZipFile.open(zip).withCloseable { rawZip ->
+			[
+				rawZip.entries().findAll { !it.isDirectory() }.collect { it.name() }.sort(),
+				new String(rawZip.readAllBytes(rawZip.getEntry("dir/other.txt")), StandardCharsets.UTF_8)
+			]
+		}
+		then:
+		names == ["dir/other.txt", "test.txt"]
+		contents == "Other"
+	}
+
+	def "copy raw entries"() {
+		given:
+		def input = testPath.resolve("input.zip")
+
+		// ZipOutputStream writes data descriptors, which must not be copied
+		new ZipOutputStream(Files.newOutputStream(input)).withCloseable { zos ->
+			for (i in 0..<100) {
+				zos.putNextEntry(new ZipEntry("entry_" + i + ".txt"))
+				zos.write(("Entry " + i).repeat(i).getBytes(StandardCharsets.UTF_8))
+				zos.closeEntry()
+			}
+		}
+
+		def output = testPath.resolve("output.zip")
+		when:
+		RawZipFile.open(input).withCloseable { rawZip ->
+			RawZipWriter.create(output).withCloseable { writer ->
+				for (entry in rawZip.entries()) {
+					writer.copy(rawZip, entry)
+				}
+
+				writer.write("new.txt", "New entry".getBytes(StandardCharsets.UTF_8))
+			}
+		}
+		then:
+		new String(ZipUtils.unpack(output, "entry_50.txt"), StandardCharsets.UTF_8) == "Entry 50".repeat(50)
+		new String(ZipUtils.unpack(output, "entry_0.txt"), StandardCharsets.UTF_8) == ""
+		new String(ZipUtils.unpack(output, "new.txt"), StandardCharsets.UTF_8) == "New entry"
+	}
+
+	def "duplicate entry"() {
+		given:
+		def output = testPath.resolve("output.zip")
+		def writer = RawZipWriter.create(output)
+		when:
+		writer.write("test.txt", new byte[0])
+		writer.write("test.txt", new byte[0])
+		then:
+		thrown(IOException)
+		cleanup:
+		writer.close()
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Duration
+import java.time.Instant
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.mods.RemappedModStore
+
+class RemappedModStoreTest extends Specification {
+	@TempDir
+	Path testPath
+
+	def "jars are keyed by their contents"() {
+		given:
+		def store = new RemappedModStore(testPath.resolve("store"))
+		def a = Files.writeString(testPath.resolve("a.jar"), "contents")
+		def b = Files.writeString(testPath.resolve("b.jar"), "contents")
+		def c = Files.writeString(testPath.resolve("c.jar"), "other contents")
+
+		expect:
+		key(store, a, "STATIC") == key(store, b, "STATIC")
+		key(store, a, "STATIC") != key(store, c, "STATIC")
+		key(store, a, "STATIC") != key(store, a, "MIXIN")
+	}
+
+	def "changed jars get a new key"() {
+		given:
+		def store = new RemappedModStore(testPath.resolve("store"))
+		def jar = Files.writeString(testPath.resolve("mod.jar"), "contents")
+
+		when:
+		def before = key(store, jar, "MIXIN")
+		Files.writeString(jar, "changed contents")
+		def after = key(store, jar, "MIXIN")
+
+		then:
+		before != after
+	}
+
+	def "put and get"() {
+		given:
+		def store = new RemappedModStore(testPath.resolve("store"))
+		def jar = Files.writeString(testPath.resolve("mod.jar"), "remapped")
+		def key = key(store, jar, "MIXIN")
+
+		when:
+		def missing = store.get(key)
+		def stored = store.put(key, jar)
+		// Storing the same jar again keeps a single entry
+		def storedAgain = store.put(key, jar)
+
+		then:
+		missing == null
+		Files.readString(stored) == "remapped"
+		store.get(key) == stored
+		storedAgain == stored
+	}
+
+	def "using a stored jar does not change its timestamp"() {
+		given:
+		def store = new RemappedModStore(testPath.resolve("store"))
+		def jar = Files.writeString(testPath.resolve("mod.jar"), "remapped")
+		def key = key(store, jar, "MIXIN")
+		def stored = store.put(key, jar)
+		def timestamp = FileTime.from(Instant.now().minus(Duration.ofDays(1)))
+		Files.setLastModifiedTime(stored, timestamp)
+
+		when:
+		store.get(key)
+
+		then:
+		Files.getLastModifiedTime(stored) == timestamp
+	}
+
+	def "cleanup deletes jars that were not used recently"() {
+		given:
+		def store = new RemappedModStore(testPath.resolve("store"))
+		def jar = Files.writeString(testPath.resolve("mod.jar"), "remapped")
+		def usedKey = key(store, jar, "MIXIN")
+		def unusedKey = key(store, jar, "STATIC")
+		def used = store.put(usedKey, jar)
+		def unused = store.put(unusedKey, jar)
+		def old = FileTime.from(Instant.now().minus(Duration.ofDays(60)))
+
+		// Both jars are old, only one of them was used recently
+		Files.setLastModifiedTime(used, old)
+		Files.setLastModifiedTime(unused, old)
+		Files.setLastModifiedTime(unused.resolveSibling(unused.fileName.toString() + ".used"), old)
+
+		when:
+		store.cleanup()
+
+		then:
+		store.get(usedKey) == used
+		store.get(unusedKey) == null
+	}
+
+	private static String key(RemappedModStore store, Path jar, String mixinRemapType) {
+		return store.newKey().addFile("input", jar).add("mixinRemapType", mixinRemapType).build()
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.configuration.SetupStages
+
+class SetupStagesTest extends Specification {
+	def "stages run after their dependencies"() {
+		given:
+		def stages = new SetupStages(2)
+		def order = new CopyOnWriteArrayList<String>()
+		def configureThreads = new CopyOnWriteArrayList<Thread>()
+
+		def first = stages.configure("first") {
+			order.add("first")
+			configureThreads.add(Thread.currentThread())
+		}
+		def a = stages.background("a", { order.add("a") }, first)
+		def b = stages.background("b", { order.add("b") }, first)
+		stages.configure("last", {
+			order.add("last")
+			configureThreads.add(Thread.currentThread())
+		}, a, b)
+
+		when:
+		stages.run()
+
+		then:
+		order.size() == 4
+		order.first() == "first"
+		order.last() == "last"
+		configureThreads == [Thread.currentThread(), Thread.currentThread()]
+	}
+
+	def "configure stages run while background stages are running"() {
+		given:
+		def stages = new SetupStages(1)
+		def configured = new CountDownLatch(1)
+		def completed = false
+
+		stages.background("background") {
+			// Only completes once the configure stage has run
+			completed = configured.await(10, TimeUnit.SECONDS)
+		}
+		stages.configure("configure") {
+			configured.countDown()
+		}
+
+		when:
+		stages.run()
+
+		then:
+		completed
+	}
+
+	def "failures are thrown and dependent stages are not run"() {
+		given:
+		def stages = new SetupStages(2)
+		def ran = false
+
+		def failing = stages.background("failing") {
+			throw new IOException("Failed")
+		}
+		stages.configure("dependent", { ran = true }, failing)
+
+		when:
+		stages.run()
+
+		then:
+		def e = thrown(IOException)
+		e.message == "Failed"
+		!ran
+	}
+}
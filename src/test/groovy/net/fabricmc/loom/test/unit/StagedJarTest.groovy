@@ -0,0 +1,102 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.util.zip.ZipFile
+
+import com.google.gson.JsonObject
+import org.gradle.api.tasks.bundling.ZipEntryCompression
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.ZipUtils
+import net.fabricmc.loom.util.zip.StagedJar
+
+class StagedJarTest extends Specification {
+	def "edits are applied in order and written once"() {
+		given:
+		def dir = File.createTempDir()
+		def input = File.createTempFile("loom-staged-jar-test", ".jar").toPath()
+		def output = File.createTempFile("loom-staged-jar-test", ".jar").toPath()
+		new File(dir, "META-INF").mkdirs()
+		new File(dir, "META-INF/MANIFEST.MF").text = "Manifest-Version: 1.0\n"
+		new File(dir, "fabric.mod.json").text = '{"id": "test"}'
+		new File(dir, "removed.txt").text = "removed"
+		ZipUtils.pack(dir.toPath(), input)
+
+		when:
+		def jar = new StagedJar()
+		jar.addAll(input) { true }
+		jar.put("net/example/Foo.class", "class".getBytes(StandardCharsets.UTF_8))
+		jar.transformJson(JsonObject, "fabric.mod.json") {
+			it.addProperty("accessWidener", "test.accesswidener")
+			return it
+		}
+		jar.transform("net/example/Foo.class") { new String(it, StandardCharsets.UTF_8).toUpperCase().getBytes(StandardCharsets.UTF_8) }
+		jar.remove("removed.txt")
+		jar.write(output, true, false, ZipEntryCompression.DEFLATED)
+		jar.close()
+
+		def entries = []
+
+		new ZipFile(output.toFile()).withCloseable { zip ->
+			zip.entries().each { entries << it.name }
+		}
+
+		then:
+		entries == [
+			"META-INF/MANIFEST.MF",
+			"META-INF/",
+			"fabric.mod.json",
+			"net/",
+			"net/example/",
+			"net/example/Foo.class"
+		]
+		new String(ZipUtils.unpack(output, "net/example/Foo.class"), StandardCharsets.UTF_8) == "CLASS"
+		ZipUtils.unpackJson(output, "fabric.mod.json", JsonObject).get("accessWidener").asString == "test.accesswidener"
+		!ZipUtils.contains(output, "removed.txt")
+	}
+
+	def "output can replace the input"() {
+		given:
+		def dir = File.createTempDir()
+		def jarPath = File.createTempFile("loom-staged-jar-test", ".jar").toPath()
+		new File(dir, "test.txt").text = "test"
+		ZipUtils.pack(dir.toPath(), jarPath)
+
+		when:
+		def jar = new StagedJar()
+		jar.addAll(jarPath) { true }
+		jar.put("added.txt", "added".getBytes(StandardCharsets.UTF_8))
+		jar.write(jarPath, false, true, ZipEntryCompression.STORED)
+		jar.close()
+
+		then:
+		Files.exists(jarPath)
+		new String(ZipUtils.unpack(jarPath, "test.txt"), StandardCharsets.UTF_8) == "test"
+		new String(ZipUtils.unpack(jarPath, "added.txt"), StandardCharsets.UTF_8) == "added"
+	}
+}
@@ -123,6 +123,28 @@ class CachedJarProcessorTest extends Specification {
 		0 * _ // Strict mock
 	}
 
+	def "prepare filtered work job"() {
+		given:
+		def jar = ZipTestUtils.createZip(jarEntries)
+		def cache = Mock(CachedFileStore)
+		def processor = new CachedJarProcessor(cache, "abc123")
+
+		when:
+		def workRequest = processor.prepareJob(jar) { it.parentClass() == "net/fabricmc/Example.class" }
+		def workJob = workRequest.job() as CachedJarProcessor.PartialWorkJob
+
+		then:
+		workRequest.stats().misses() == 1
+		workRequest.stats().skipped() == 1
+		workJob.outputNameMap().keySet() == ["net/fabricmc/Example.java"] as Set
+		ZipUtils.unpackNullable(workJob.incomplete(), "net/fabricmc/other/Test.class") == null
+
+		// Neither entry is cached, but only the example is going to be processed
+		2 * cache.getEntry(_) >> null
+
+		0 * _ // Strict mock
+	}
+
 	def "complete full work job"() {
 		given:
 		def jar = ZipTestUtils.createZip(jarEntries)
@@ -0,0 +1,209 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.cache
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+import net.fabricmc.loom.decompilers.cache.NameTokens
+
+class NameTokensTest extends Specification {
+	def "same fingerprint with different names"() {
+		when:
+		def a = NameTokens.read([createClass("net/example/Foo", "tick", "pos")])
+		def b = NameTokens.read([createClass("net/example/Bar", "update", "position")])
+
+		then:
+		a.fingerprint() == b.fingerprint()
+	}
+
+	def "different fingerprint when names are merged"() {
+		when:
+		def a = NameTokens.read([createClass("net/example/Foo", "tick", "pos")])
+		// The method and variable now share a token, this cannot be renamed token by token
+		def b = NameTokens.read([createClass("net/example/Foo", "pos", "pos")])
+
+		then:
+		a.fingerprint() != b.fingerprint()
+	}
+
+	def "restore sources with new names"() {
+		given:
+		def a = NameTokens.read([createClass("net/example/Foo", "tick", "pos")])
+		def b = NameTokens.read([createClass("net/example/Bar", "update", "position")])
+		def sources = """package net.example;
+
+/**
+ * Calls tick on Foo.
+ */
+public class Foo {
+	public void tick(int pos) {
+		String name = "tick"; // tick
+		char c = 'p';
+		long value = 10L + pos;
+	}
+}
+"""
+
+		when:
+		def canonical = a.canonicalizeSources(sources)
+		def restored = b.restoreSources(canonical)
+
+		then:
+		!canonical.contains("class Foo")
+		restored == """package net.example;
+
+/**
+ * Calls tick on Foo.
+ */
+public class Bar {
+	public void update(int position) {
+		String name = "tick"; // tick
+		char c = 'p';
+		long value = 10L + position;
+	}
+}
+"""
+	}
+
+	def "do not rename names declared only by the sources"() {
+		given:
+		def a = NameTokens.read([createClass("net/example/Foo", "tick", "pos")])
+		def sources = """public class Foo {
+	public void tick(int pos) {
+		String tick = "tick";
+	}
+}
+"""
+
+		when:
+		def canonical = a.canonicalizeSources(sources)
+
+		then:
+		// The local variable would be renamed with the method
+		NameTokens.read([createClass("net/example/Foo", "update", "pos")]).restoreSources(canonical) == null
+		// The local variable keeps its name
+		NameTokens.read([createClass("net/example/Bar", "tick", "position")]).restoreSources(canonical) == """public class Bar {
+	public void tick(int position) {
+		String tick = "tick";
+	}
+}
+"""
+	}
+
+	def "do not rename pattern variables declared only by the sources"() {
+		given:
+		def a = NameTokens.read([createClass("net/example/Foo", "tick", "pos")])
+		def sources = """public class Foo {
+	public void tick(Object pos) {
+		${condition}
+	}
+}
+"""
+
+		expect:
+		// The pattern variable would be renamed with the method
+		NameTokens.read([createClass("net/example/Foo", "update", "pos")]).restoreSources(a.canonicalizeSources(sources)) == null
+
+		where:
+		condition << [
+			"if (pos instanceof String tick && tick.isEmpty()) {}",
+			"if (pos instanceof String tick || pos == null) {}",
+			"boolean empty = pos instanceof String tick ? tick.isEmpty() : false;",
+			"switch (pos) { case String tick -> {} default -> {} }",
+		]
+	}
+
+	def "do not restore when a new name is already used"() {
+		given:
+		def a = NameTokens.read([createClass("net/example/Foo", "tick", "pos")])
+		def b = NameTokens.read([createClass("net/example/Foo", "tick", "value")])
+		def sources = """public class Foo {
+	public void tick(int pos) {
+		long value = 10L + pos;
+	}
+}
+"""
+
+		expect:
+		b.restoreSources(a.canonicalizeSources(sources)) == null
+	}
+
+	def "do not restore when the imports would be reordered"() {
+		given:
+		def a = NameTokens.read([createClass("net/example/Foo", "tick", "pos")])
+		def sources = """package net.other;
+
+import net.example.Foo;
+import net.example.Other;
+
+public class Foo {
+}
+"""
+
+		when:
+		def canonical = a.canonicalizeSources(sources)
+
+		then:
+		NameTokens.read([createClass("net/example/Bar", "tick", "pos")]).restoreSources(canonical) != null
+		NameTokens.read([createClass("net/example/Zed", "tick", "pos")]).restoreSources(canonical) == null
+	}
+
+	def "restore rejects unknown placeholders"() {
+		given:
+		def tokens = NameTokens.read([createClass("net/example/Foo", "tick", "pos")])
+
+		when:
+		tokens.restore("class \u00011000\u0002 {}")
+
+		then:
+		thrown IllegalArgumentException
+	}
+
+	private static byte[] createClass(String name, String methodName, String variableName) {
+		def writer = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+
+		def method = writer.visitMethod(Opcodes.ACC_PUBLIC, methodName, "(I)V", null, null)
+		def start = new Label()
+		def end = new Label()
+		method.visitCode()
+		method.visitLabel(start)
+		method.visitVarInsn(Opcodes.ALOAD, 0)
+		method.visitVarInsn(Opcodes.ILOAD, 1)
+		method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, name, methodName, "(I)V", false)
+		method.visitInsn(Opcodes.RETURN)
+		method.visitLabel(end)
+		method.visitLocalVariable("this", "L${name};", null, start, end, 0)
+		method.visitLocalVariable(variableName, "I", null, start, end, 1)
+		method.visitMaxs(0, 0)
+		method.visitEnd()
+
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.cache
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneId
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.decompilers.ClassLineNumbers
+import net.fabricmc.loom.decompilers.cache.CachedData
+import net.fabricmc.loom.decompilers.cache.CachedFileStoreImpl
+import net.fabricmc.loom.decompilers.cache.PackedFileStore
+
+class PackedFileStoreTest extends Specification {
+	@TempDir
+	Path testPath
+
+	MutableClock clock = new MutableClock()
+
+	def "putEntry + getEntry"() {
+		given:
+		def store = new PackedFileStore(testPath, new CachedFileStoreImpl.CacheRules(100, Duration.ofDays(7)), clock)
+		when:
+		store.putEntry("abc/0123", cachedData("net/test/Example"))
+		def entry = store.getEntry("abc/0123")
+		def unknownEntry = store.getEntry("abc/4567")
+		store.close()
+		then:
+		entry == cachedData("net/test/Example")
+		unknownEntry == null
+		Files.exists(testPath.resolve("0.pack"))
+		Files.exists(testPath.resolve("0.idx"))
+	}
+
+	def "replace entry"() {
+		given:
+		def store = new PackedFileStore(testPath, new CachedFileStoreImpl.CacheRules(100, Duration.ofDays(7)), clock)
+		when:
+		store.putEntry("abc/0123", cachedData("net/test/Example"))
+		store.putEntry("abc/0123", cachedData("net/test/Other"))
+		def entry = store.getEntry("abc/0123")
+		store.close()
+		then:
+		entry == cachedData("net/test/Other")
+	}
+
+	def "reopen"() {
+		given:
+		def rules = new CachedFileStoreImpl.CacheRules(10_000, Duration.ofDays(7))
+		def store = new PackedFileStore(testPath, rules, clock)
+		when:
+		for (i in 0..<5000) {
+			store.putEntry("abc/" + Integer.toHexString(i), cachedData("net/test/Example" + i))
+		}
+
+		store.close()
+		store = new PackedFileStore(testPath, rules, clock)
+		def first = store.getEntry("abc/0")
+		def last = store.getEntry("abc/" + Integer.toHexString(4999))
+		store.close()
+		then:
+		first == cachedData("net/test/Example0")
+		last == cachedData("net/test/Example4999")
+	}
+
+	def "rebuild index"() {
+		given:
+		def rules = new CachedFileStoreImpl.CacheRules(100, Duration.ofDays(7))
+		def store = new PackedFileStore(testPath, rules, clock)
+		when:
+		store.putEntry("abc/0123", cachedData("net/test/Example"))
+		store.close()
+
+		// Delete the index, and append some garbage to the end of the pack
+		Files.delete(testPath.resolve("0.idx"))
+		testPath.resolve("0.pack") << "garbage"
+
+		store = new PackedFileStore(testPath, rules, clock)
+		def entry = store.getEntry("abc/0123")
+		store.putEntry("abc/0456", cachedData("net/test/Other"))
+		def other = store.getEntry("abc/0456")
+		store.close()
+		then:
+		entry == cachedData("net/test/Example")
+		other == cachedData("net/test/Other")
+	}
+
+	def "compact many entries"() {
+		given:
+		def store = new PackedFileStore(testPath, new CachedFileStoreImpl.CacheRules(250, Duration.ofDays(7)), clock)
+		when:
+		for (i in 0..<500) {
+			// Higher entries are older and should be removed.
+			clock.instant = Instant.now().minusSeconds(i)
+			store.putEntry("abc/" + Integer.toHexString(i), cachedData("net/test/Example"))
+		}
+
+		clock.instant = Instant.now()
+		store.compact()
+
+		then:
+		store.getEntry("abc/0") != null
+		store.getEntry("abc/" + Integer.toHexString(100)) != null
+		store.getEntry("abc/" + Integer.toHexString(300)) == null
+
+		cleanup:
+		store.close()
+	}
+
+	def "compact old entries"() {
+		given:
+		def store = new PackedFileStore(testPath, new CachedFileStoreImpl.CacheRules(1000, Duration.ofSeconds(250)), clock)
+		when:
+		for (i in 0..<500) {
+			// Higher entries are older and should be removed.
+			clock.instant = Instant.now().minusSeconds(i)
+			store.putEntry("abc/" + Integer.toHexString(i), cachedData("net/test/Example"))
+		}
+
+		clock.instant = Instant.now()
+		store.compact()
+
+		then:
+		store.getEntry("abc/0") != null
+		store.getEntry("abc/" + Integer.toHexString(100)) != null
+		store.getEntry("abc/" + Integer.toHexString(300)) == null
+
+		cleanup:
+		store.close()
+	}
+
+	def "getEntry keeps entries alive"() {
+		given:
+		def store = new PackedFileStore(testPath, new CachedFileStoreImpl.CacheRules(1000, Duration.ofSeconds(250)), clock)
+		when:
+		clock.instant = Instant.now().minusSeconds(500)
+		store.putEntry("abc/0123", cachedData("net/test/Example"))
+		store.putEntry("abc/0456", cachedData("net/test/Other"))
+
+		clock.instant = Instant.now()
+		store.getEntry("abc/0123")
+		store.compact()
+
+		then:
+		store.getEntry("abc/0123") != null
+		store.getEntry("abc/0456") == null
+
+		cleanup:
+		store.close()
+	}
+
+	def "second store waits for the first to close"() {
+		given:
+		def rules = new CachedFileStoreImpl.CacheRules(100, Duration.ofDays(7))
+		def first = new PackedFileStore(testPath, rules, clock)
+		def opened = new CountDownLatch(1)
+		def entry = null
+
+		when:
+		def thread = Thread.start {
+			new PackedFileStore(testPath, rules, clock).withCloseable {
+				entry = it.getEntry("abc/0123")
+				opened.countDown()
+			}
+		}
+
+		then:
+		!opened.await(500, TimeUnit.MILLISECONDS)
+
+		when:
+		first.putEntry("abc/0123", cachedData("net/test/Example"))
+		first.close()
+
+		then:
+		opened.await(10, TimeUnit.SECONDS)
+		entry == cachedData("net/test/Example")
+
+		cleanup:
+		thread?.join()
+	}
+
+	private static CachedData cachedData(String className) {
+		return new CachedData(className, "Sources of " + className, new ClassLineNumbers.Entry(className, 1, 2, [1: 2, 4: 7]))
+	}
+
+	private static class MutableClock extends Clock {
+		Instant instant = Instant.now()
+
+		@Override
+		ZoneId getZone() {
+			return ZoneId.systemDefault()
+		}
+
+		@Override
+		Clock withZone(ZoneId zone) {
+			return this
+		}
+
+		@Override
+		Instant instant() {
+			return instant
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.forge
+
+import dev.architectury.at.io.AccessTransformFormats
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import org.objectweb.asm.tree.MethodInsnNode
+import spock.lang.Specification
+
+import net.fabricmc.loom.configuration.accesstransformer.AccessTransformerApplier
+import net.fabricmc.loom.util.zip.ClassTransformerPipeline
+
+class AccessTransformerApplierTest extends Specification {
+	def "apply access transformers"() {
+		given:
+		def applier = createApplier("""
+public net.example.Foo
+public-f net.example.Foo value
+protected net.example.Foo helper()V
+""")
+
+		when:
+		def node = readClass(new ClassTransformerPipeline().add(applier).transform(createClass()))
+
+		then:
+		node.access == (Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER)
+		node.fields.find { it.name == "value" }.access == Opcodes.ACC_PUBLIC
+		node.methods.find { it.name == "helper" }.access == Opcodes.ACC_PROTECTED
+		// The call to the previously private method must be virtual
+		callOpcode(node) == Opcodes.INVOKEVIRTUAL
+	}
+
+	def "access is never narrowed"() {
+		given:
+		def applier = createApplier("""
+private net.example.Foo
+private net.example.Foo value
+""")
+
+		when:
+		def node = readClass(new ClassTransformerPipeline().add(applier).transform(createClass()) ?: createClass())
+
+		then:
+		node.access == Opcodes.ACC_SUPER
+		node.fields.find { it.name == "value" }.access == (Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL)
+		callOpcode(node) == Opcodes.INVOKESPECIAL
+	}
+
+	def "other classes are untouched"() {
+		given:
+		def applier = createApplier("public net.example.Bar")
+
+		expect:
+		new ClassTransformerPipeline().add(applier).transform(createClass()) == null
+	}
+
+	private static AccessTransformerApplier createApplier(String accessTransformers) {
+		return new AccessTransformerApplier(AccessTransformFormats.FML.read(new StringReader(accessTransformers)))
+	}
+
+	private static ClassNode readClass(byte[] bytes) {
+		def node = new ClassNode()
+		new ClassReader(bytes).accept(node, 0)
+		return node
+	}
+
+	private static int callOpcode(ClassNode node) {
+		def method = node.methods.find { it.name == "run" }
+		return method.instructions.find { it instanceof MethodInsnNode && it.name == "helper" }.opcode
+	}
+
+	private static byte[] createClass() {
+		def writer = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+		writer.visit(Opcodes.V17, Opcodes.ACC_SUPER, "net/example/Foo", null, "java/lang/Object", null)
+		writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "value", "I", null, null).visitEnd()
+
+		def helper = writer.visitMethod(Opcodes.ACC_PRIVATE, "helper", "()V", null, null)
+		helper.visitCode()
+		helper.visitInsn(Opcodes.RETURN)
+		helper.visitMaxs(0, 0)
+		helper.visitEnd()
+
+		def run = writer.visitMethod(Opcodes.ACC_PUBLIC, "run", "()V", null, null)
+		run.visitCode()
+		run.visitVarInsn(Opcodes.ALOAD, 0)
+		run.visitMethodInsn(Opcodes.INVOKESPECIAL, "net/example/Foo", "helper", "()V", false)
+		run.visitInsn(Opcodes.RETURN)
+		run.visitMaxs(0, 0)
+		run.visitEnd()
+
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+}
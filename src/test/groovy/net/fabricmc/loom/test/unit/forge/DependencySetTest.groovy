@@ -99,4 +99,11 @@ class DependencySetTest extends Specification {
 			'childAB'
 		]
 	}
+
+	def "dependencies"() {
+		expect:
+		dependencySet.getDependencies('childAB').toList() == ['childA2', 'childB']
+		dependencySet.getDependencies('root').isEmpty()
+		dependencySet.getDependencies('missing').isEmpty()
+	}
 }
@@ -0,0 +1,63 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.forge
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.providers.forge.mcpconfig.McpConfigProvider
+import net.fabricmc.loom.util.ArtifactLock
+import net.fabricmc.loom.util.ZipUtils
+
+class McpConfigProviderTest extends Specification {
+	@TempDir
+	Path testPath
+
+	def "unpacks again when the previous unpack was interrupted"() {
+		given:
+		def locksDir = testPath.resolve("locks")
+		def mcpZip = testPath.resolve("mcp_config.zip")
+		def mcp = testPath.resolve("mcp.zip")
+		def unpacked = testPath.resolve("unpacked")
+		ZipUtils.add(mcpZip, "config.json", "{}")
+
+		when:
+		def first = McpConfigProvider.unpack(locksDir, mcpZip, mcp, unpacked, false)
+		def cached = McpConfigProvider.unpack(locksDir, mcpZip, mcp, unpacked, false)
+		// A producer killed half way through leaves its lock marked and the unpacked files incomplete
+		ArtifactLock.exclusive(locksDir, mcp, unpacked).close()
+		Files.delete(unpacked.resolve("config.json"))
+		def rebuilt = McpConfigProvider.unpack(locksDir, mcpZip, mcp, unpacked, false)
+
+		then:
+		first
+		!cached
+		rebuilt
+		Files.readString(unpacked.resolve("config.json")) == "{}"
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.forge
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.providers.forge.mcpconfig.McpStepCache
+
+class McpStepCacheTest extends Specification {
+	@TempDir
+	Path testPath
+
+	def "files are keyed by their contents"() {
+		given:
+		def cache = new McpStepCache(testPath.resolve("cache"))
+		def a = Files.writeString(testPath.resolve("a.jar"), "contents")
+		def b = Files.writeString(testPath.resolve("b.jar"), "contents")
+		def c = Files.writeString(testPath.resolve("c.jar"), "other contents")
+
+		expect:
+		key(cache, a.toString()) == key(cache, b.toString())
+		key(cache, a.toString()) != key(cache, c.toString())
+		key(cache, "--flag") != key(cache, "--other-flag")
+	}
+
+	def "directories are keyed by their contents"() {
+		given:
+		def cache = new McpStepCache(testPath.resolve("cache"))
+		def a = testPath.resolve("a")
+		def b = testPath.resolve("b")
+		Files.createDirectories(a.resolve("dir"))
+		Files.createDirectories(b.resolve("dir"))
+		Files.writeString(a.resolve("dir/file.txt"), "contents")
+		Files.writeString(b.resolve("dir/file.txt"), "contents")
+
+		when:
+		def keyA = key(cache, a.toString())
+		def keyB = key(cache, b.toString())
+		Files.writeString(b.resolve("dir/file.txt"), "changed")
+		def keyChanged = key(cache, b.toString())
+
+		then:
+		keyA == keyB
+		keyA != keyChanged
+	}
+
+	def "put and get"() {
+		given:
+		def cache = new McpStepCache(testPath.resolve("cache"))
+		def output = Files.writeString(testPath.resolve("output.jar"), "output")
+		def key = key(cache, "value")
+
+		when:
+		def missing = cache.get(key)
+		def cached = cache.put(key, output)
+		// Adding the same output again uses the existing entry
+		def cachedAgain = cache.put(key, output)
+
+		then:
+		missing == null
+		cached.fileName.toString() == "output.jar"
+		Files.readString(cached) == "output"
+		cache.get(key) == cached
+		cachedAgain == cached
+	}
+
+	private static String key(McpStepCache cache, String value) {
+		return cache.newKey("test").add("input", value).build()
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.forge
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import net.fabricmc.loom.configuration.providers.forge.mcpconfig.McpConfigStep
+import net.fabricmc.loom.configuration.providers.forge.mcpconfig.McpStepScheduler
+
+@Timeout(30)
+class McpStepSchedulerTest extends Specification {
+	List<McpConfigStep> steps = ['root', 'childA', 'childB', 'childAB'].collect { new McpConfigStep('foo', it, [:]) }
+	Map<String, List<String>> dependencies = [
+		childA: ['root'],
+		childB: ['root', 'notExecuted'],
+		childAB: ['childA', 'childB']
+	]
+
+	def "runs steps after their dependencies"() {
+		given:
+		def completed = Collections.synchronizedList([])
+		when:
+		def timings = new McpStepScheduler().run(steps, dependencies) { step ->
+			dependencies.getOrDefault(step.name(), []).findAll { it != 'notExecuted' }.each { assert completed.contains(it) }
+			completed.add(step.name())
+		}
+		then:
+		completed.size() == 4
+		timings*.name().toSet() == ['root', 'childA', 'childB', 'childAB'] as Set
+	}
+
+	def "runs independent steps concurrently"() {
+		given:
+		// Both children wait for each other, this only completes when they run at the same time
+		def latch = new CountDownLatch(2)
+		when:
+		new McpStepScheduler().run(steps, dependencies) { step ->
+			if (step.name().startsWith('child') && step.name() != 'childAB') {
+				latch.countDown()
+				assert latch.await(10, TimeUnit.SECONDS)
+			}
+		}
+		then:
+		latch.count == 0
+	}
+
+	def "runs actions on the main thread"() {
+		given:
+		def mainThread = Thread.currentThread()
+		def threads = Collections.synchronizedList([])
+		def scheduler = new McpStepScheduler()
+		when:
+		scheduler.run(steps, dependencies) { step ->
+			threads.add(scheduler.runOnMainThread { Thread.currentThread() })
+		}
+		then:
+		threads.size() == 4
+		threads.every { it == mainThread }
+	}
+
+	def "rethrows step failures"() {
+		given:
+		def executed = Collections.synchronizedList([])
+		when:
+		new McpStepScheduler().run(steps, dependencies) { step ->
+			executed.add(step.name())
+
+			if (step.name() == 'childA') {
+				throw new IOException("Failed")
+			}
+		}
+		then:
+		def e = thrown(IOException)
+		e.message == "Failed"
+		!executed.contains('childAB')
+	}
+
+	def "critical path"() {
+		given:
+		def timings = [
+			new McpStepScheduler.StepTiming('root', [], 0, 10),
+			new McpStepScheduler.StepTiming('childB', ['root'], 10, 15),
+			new McpStepScheduler.StepTiming('childA', ['root'], 10, 40),
+			new McpStepScheduler.StepTiming('childAB', ['childA', 'childB'], 40, 45),
+		]
+		expect:
+		McpStepScheduler.criticalPath(timings)*.name() == ['root', 'childA', 'childAB']
+	}
+}
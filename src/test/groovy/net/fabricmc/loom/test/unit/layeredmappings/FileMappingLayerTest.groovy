@@ -24,13 +24,18 @@
 
 package net.fabricmc.loom.test.unit.layeredmappings
 
+import java.nio.file.Files
 import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Duration
+import java.time.Instant
 import java.util.function.Consumer
 
 import spock.lang.Unroll
 
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace
 import net.fabricmc.loom.api.mappings.layered.spec.FileSpec
+import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec
 import net.fabricmc.loom.configuration.providers.mappings.file.FileMappingsSpecBuilderImpl
 import net.fabricmc.loom.configuration.providers.mappings.intermediary.IntermediaryMappingsSpec
 import net.fabricmc.loom.util.ZipUtils
@@ -94,6 +99,52 @@ class FileMappingLayerTest extends LayeredMappingsSpecification {
 		tiny.contains('this$0')
 	}
 
+	def "cached layers are reused"() {
+		setup:
+		intermediaryUrl = INTERMEDIARY_1_17_URL
+		mockMinecraftProvider.getVersionInfo() >> VERSION_META_1_17
+		def mappingFile = downloadFile(YARN_1_17_URL, "yarn.jar")
+		def cacheDir = new File(tempDir, "layers").toPath()
+		def specs = [
+			new IntermediaryMappingsSpec(),
+			FileMappingsSpecBuilderImpl.builder(FileSpec.create(mappingFile)).build()
+		] as MappingsSpec[]
+		when:
+		def first = getTiny(getCachedLayeredMappings(cacheDir, specs))
+		def cacheFiles = cacheDir.toFile().list().toList()
+		def second = getCachedLayeredMappings(cacheDir, specs)
+		then:
+		cacheFiles.size() == 1
+		cacheFiles[0].startsWith("FileMappingsLayer-")
+		cacheDir.toFile().list().toList() == cacheFiles
+		getTiny(second) == first
+		second.classes.size() == 6111
+		second.getClass("net/minecraft/block/FenceBlock").getDstName(0) == "net/minecraft/class_2354"
+	}
+
+	def "unused cached layers are deleted"() {
+		setup:
+		intermediaryUrl = INTERMEDIARY_1_17_URL
+		mockMinecraftProvider.getVersionInfo() >> VERSION_META_1_17
+		def mappingFile = downloadFile(YARN_1_17_URL, "yarn.jar")
+		def cacheDir = new File(tempDir, "layers").toPath()
+		def specs = [
+			new IntermediaryMappingsSpec(),
+			FileMappingsSpecBuilderImpl.builder(FileSpec.create(mappingFile)).build()
+		] as MappingsSpec[]
+		def old = FileTime.from(Instant.now().minus(Duration.ofDays(30)))
+		getCachedLayeredMappings(cacheDir, specs)
+		def used = cacheDir.toFile().list().toList()
+		// An old entry that is used again is kept
+		Files.setLastModifiedTime(cacheDir.resolve(used[0]), old)
+		def unused = Files.writeString(cacheDir.resolve("FileMappingsLayer-unused.bin"), "")
+		Files.setLastModifiedTime(unused, old)
+		when:
+		getCachedLayeredMappings(cacheDir, specs)
+		then:
+		cacheDir.toFile().list().toList() == used
+	}
+
 	enum YarnSetupType {
 		TINY_JAR('tiny jar', { downloadFile(YARN_1_17_URL, "yarn.jar") }, { }),
 		BARE_TINY('bare tiny file', {
@@ -94,6 +94,12 @@ abstract class LayeredMappingsSpecification extends Specification implements Lay
 		return processor.getMappings(processor.resolveLayers(mappingContext))
 	}
 
+	MemoryMappingTree getCachedLayeredMappings(Path cacheDir, MappingsSpec<? extends MappingLayer>... specs) {
+		LayeredMappingSpec spec = new LayeredMappingSpec(specs.toList())
+		LayeredMappingsProcessor processor = new LayeredMappingsProcessor(spec)
+		return processor.getMappings(processor.resolveLayers(mappingContext), cacheDir)
+	}
+
 	UnpickLayer.UnpickData getUnpickData(MappingsSpec<? extends MappingLayer>... specs) {
 		LayeredMappingSpec spec = new LayeredMappingSpec(specs.toList())
 		LayeredMappingsProcessor processor = new LayeredMappingsProcessor(spec)
@@ -24,13 +24,29 @@
 
 package net.fabricmc.loom.test.unit.processor
 
+import java.nio.file.Path
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
 import spock.lang.Specification
+import spock.lang.TempDir
 
+import net.fabricmc.loom.api.processor.MinecraftJarProcessor
+import net.fabricmc.loom.api.processor.ProcessorContext
 import net.fabricmc.loom.api.processor.SpecContext
 import net.fabricmc.loom.configuration.processors.MinecraftJarProcessorManager
+import net.fabricmc.loom.test.util.ZipTestUtils
 import net.fabricmc.loom.test.util.processor.TestMinecraftJarProcessor
+import net.fabricmc.loom.util.Constants
+import net.fabricmc.loom.util.ZipUtils
 
 class MinecraftJarProcessorManagerTest extends Specification {
+	@TempDir
+	Path testPath
+
 	def "Cache value matches"() {
 		when:
 		def specContext = Mock(SpecContext)
@@ -59,4 +75,139 @@ class MinecraftJarProcessorManagerTest extends Specification {
 		manager1.jarHash == "a714eb2de6"
 		manager2.jarHash == "eb6faafa72"
 	}
+
+	def "Class processors are applied in order"() {
+		given:
+		def jar = ZipTestUtils.createZipFromBytes([
+			"net/example/Foo.class": createClass("net/example/Foo"),
+			"net/example/Bar.class": createClass("net/example/Bar")
+		])
+		def seenByJarProcessor = []
+		def processors = [
+			new FieldClassProcessor(name: "first", field: "first"),
+			new FieldClassProcessor(name: "second", field: "second"),
+			new JarProcessor(name: "jar", action: { Path path ->
+				seenByJarProcessor.addAll(fields(ZipUtils.unpack(path, "net/example/Foo.class")))
+			}),
+			new FieldClassProcessor(name: "third", field: "third")
+		]
+		def manager = MinecraftJarProcessorManager.create(processors, Mock(SpecContext))
+
+		when:
+		manager.processJar(jar, Mock(ProcessorContext))
+
+		then:
+		seenByJarProcessor == ["first", "second"]
+		fields(ZipUtils.unpack(jar, "net/example/Foo.class")) == ["first", "second", "third"]
+		fields(ZipUtils.unpack(jar, "net/example/Bar.class")) == []
+	}
+
+	def "Only changed classes are processed again"() {
+		given:
+		def input = ZipTestUtils.createZipFromBytes([
+			"net/example/Foo.class": createClass("net/example/Foo"),
+			"net/example/Bar.class": createClass("net/example/Bar")
+		])
+		def manifest = testPath.resolve("manifest.json")
+		def transformed = Collections.synchronizedSet([] as Set)
+		def process = { List<MinecraftJarProcessor> processors, String output ->
+			transformed.clear()
+			MinecraftJarProcessorManager.create(processors, Mock(SpecContext))
+					.processJar(input, testPath.resolve(output), Mock(ProcessorContext), manifest)
+			return testPath.resolve(output)
+		}
+
+		when:
+		process([
+			new FieldClassProcessor(name: "foo", field: "foo", transformed: transformed)
+		], "first.jar")
+		def output = process([
+			new FieldClassProcessor(name: "foo", field: "foo", transformed: transformed),
+			new FieldClassProcessor(name: "bar", field: "bar", className: "net/example/Bar", transformed: transformed)
+		], "second.jar")
+
+		then:
+		transformed == ["net/example/Bar"] as Set
+		fields(ZipUtils.unpack(output, "net/example/Foo.class")) == ["foo"]
+		fields(ZipUtils.unpack(output, "net/example/Bar.class")) == ["bar"]
+	}
+
+	static class JarProcessor implements MinecraftJarProcessor<FieldClassProcessor.Spec> {
+		String name
+		Closure action
+
+		@Override
+		FieldClassProcessor.Spec buildSpec(SpecContext context) {
+			return new FieldClassProcessor.Spec(name)
+		}
+
+		@Override
+		void processJar(Path jar, FieldClassProcessor.Spec spec, ProcessorContext context) throws IOException {
+			action(jar)
+		}
+	}
+
+	// Adds a field to a class
+	static class FieldClassProcessor implements MinecraftJarProcessor<Spec> {
+		String name
+		String field
+		String className = "net/example/Foo"
+		Set<String> transformed = Collections.synchronizedSet([] as Set)
+
+		@Override
+		Spec buildSpec(SpecContext context) {
+			return new Spec(field)
+		}
+
+		@Override
+		void processJar(Path jar, Spec spec, ProcessorContext context) throws IOException {
+			throw new UnsupportedOperationException()
+		}
+
+		@Override
+		MinecraftJarProcessor.ClassProcessor<Spec> processClasses() {
+			return { Spec spec, ProcessorContext context ->
+				[
+					shouldTransform: { String name -> name == className },
+					describe: { String name -> spec.field },
+					transform: { String name, ClassVisitor next ->
+						transformed.add(name)
+						new ClassVisitor(Constants.ASM_VERSION, next) {
+							@Override
+							void visitEnd() {
+								super.visitField(Opcodes.ACC_PUBLIC, spec.field, "I", null, null)?.visitEnd()
+								super.visitEnd()
+							}
+						}
+					}
+				] as MinecraftJarProcessor.ClassTransformer
+			} as MinecraftJarProcessor.ClassProcessor<Spec>
+		}
+
+		static class Spec implements MinecraftJarProcessor.Spec {
+			final String field
+
+			Spec(String field) {
+				this.field = field
+			}
+
+			@Override
+			int hashCode() {
+				return field.hashCode()
+			}
+		}
+	}
+
+	private static List<String> fields(byte[] bytes) {
+		def node = new ClassNode()
+		new ClassReader(bytes).accept(node, 0)
+		return node.fields.collect { it.name }
+	}
+
+	private static byte[] createClass(String name) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
 }
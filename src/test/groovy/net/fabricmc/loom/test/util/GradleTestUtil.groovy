@@ -40,6 +40,7 @@ import org.mockito.invocation.InvocationOnMock
 import org.mockito.stubbing.Answer
 
 import net.fabricmc.loom.LoomGradleExtension
+import net.fabricmc.loom.configuration.ConfigurationTrace
 import net.fabricmc.loom.extension.LoomFiles
 import net.fabricmc.loom.test.LoomTestConstants
 import net.fabricmc.loom.util.download.Download
@@ -80,6 +81,7 @@ class GradleTestUtil {
 		def loomFiles = mockLoomFiles()
 		when(mock.refreshDeps()).thenReturn(false)
 		when(mock.getFiles()).thenReturn(loomFiles)
+		when(mock.getConfigurationTrace()).thenReturn(ConfigurationTrace.create(false))
 		when(mock.download(any())).thenAnswer {
 			Download.create(it.getArgument(0))
 		}
@@ -89,6 +91,7 @@ class GradleTestUtil {
 	static LoomFiles mockLoomFiles() {
 		def mock = mock(LoomFiles.class, new RequiresStubAnswer())
 		doReturn(LoomTestConstants.TEST_DIR).when(mock).getUserCache()
+		doReturn(new File(LoomTestConstants.TEST_DIR, "locks")).when(mock).getArtifactLocks()
 		return mock
 	}
 